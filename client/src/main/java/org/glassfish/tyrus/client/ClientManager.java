@@ -70,6 +70,7 @@ import org.glassfish.tyrus.core.BaseContainer;
 import org.glassfish.tyrus.core.ComponentProviderService;
 import org.glassfish.tyrus.core.DebugContext;
 import org.glassfish.tyrus.core.ErrorCollector;
+import org.glassfish.tyrus.core.ExecutorServiceFactory;
 import org.glassfish.tyrus.core.ReflectionHelper;
 import org.glassfish.tyrus.core.TyrusEndpointWrapper;
 import org.glassfish.tyrus.core.TyrusFuture;
@@ -831,6 +832,16 @@ public class ClientManager extends BaseContainer implements WebSocketContainer {
         return properties;
     }
 
+    /**
+     * Get executor service factory configured by {@link ClientProperties#EXECUTOR_SERVICE_FACTORY}.
+     *
+     * @return configured factory or {@code null}.
+     */
+    @Override
+    protected ExecutorServiceFactory getExecutorServiceFactory() {
+        return ExecutorServiceFactory.fromProperties(properties);
+    }
+
     /**
      * Executor service which just executes provided {@link Runnable} in the very same thread.
      */
@@ -46,6 +46,7 @@ import org.glassfish.tyrus.client.auth.AuthConfig;
 import org.glassfish.tyrus.client.auth.AuthenticationException;
 import org.glassfish.tyrus.client.auth.Authenticator;
 import org.glassfish.tyrus.client.auth.Credentials;
+import org.glassfish.tyrus.core.ExecutorServiceFactory;
 import org.glassfish.tyrus.spi.UpgradeResponse;
 
 /**
@@ -147,6 +148,63 @@ public final class ClientProperties {
      */
     public static final String INCOMING_BUFFER_SIZE = "org.glassfish.tyrus.incomingBufferSize";
 
+    /**
+     * When set to {@code true} (boolean value), incoming data frames which do not fit into the incoming buffer (see
+     * {@link #INCOMING_BUFFER_SIZE}) are not refused; their payload is delivered in parts as soon as it is read, as if
+     * the frame was fragmented by the server. Frames are not streamed on connections with negotiated extensions.
+     * <p/>
+     * Default value is {@code false}.
+     */
+    public static final String FRAME_STREAMING_ENABLED = "org.glassfish.tyrus.frameStreamingEnabled";
+
+    /**
+     * Maximal number of bytes waiting to be written to the connection (high watermark of the outbound queue).
+     * <p/>
+     * When the number of queued bytes would exceed this value, the connection is saturated and sent messages are
+     * handled according to {@link #OUTBOUND_QUEUE_OVERFLOW_POLICY} until the number drops to {@link
+     * #OUTBOUND_QUEUE_LOW_WATERMARK}.
+     * <p/>
+     * The value must be {@link java.lang.Integer} or its primitive alternative. No limit is applied by default.
+     */
+    public static final String OUTBOUND_QUEUE_HIGH_WATERMARK = "org.glassfish.tyrus.outboundQueueHighWatermark";
+
+    /**
+     * Number of bytes waiting to be written under which the connection stops being saturated.
+     * <p/>
+     * The value must be {@link java.lang.Integer} or its primitive alternative. Default value is half of {@link
+     * #OUTBOUND_QUEUE_HIGH_WATERMARK}.
+     */
+    public static final String OUTBOUND_QUEUE_LOW_WATERMARK = "org.glassfish.tyrus.outboundQueueLowWatermark";
+
+    /**
+     * Handling of messages sent to a saturated connection, see {@link #OUTBOUND_QUEUE_HIGH_WATERMARK}.
+     * <p/>
+     * The value must be {@link org.glassfish.tyrus.core.OutboundOverflowPolicy} or its name. Default value is {@link
+     * org.glassfish.tyrus.core.OutboundOverflowPolicy#BLOCK}.
+     */
+    public static final String OUTBOUND_QUEUE_OVERFLOW_POLICY = "org.glassfish.tyrus.outboundQueueOverflowPolicy";
+
+    /**
+     * When set to {@code true} (boolean value), partial incoming frames are kept in direct buffers instead of heap
+     * buffers. The buffers are leased from {@link org.glassfish.tyrus.core.ByteBufferPool} shared by all connections
+     * only while a frame waits for more data. JDK client container also leases its socket read buffer from that pool.
+     * <p/>
+     * Default value is {@code false}.
+     */
+    public static final String INBOUND_BUFFER_POOL_DIRECT = "org.glassfish.tyrus.inboundBufferPoolDirect";
+
+    /**
+     * Factory of the executor service used by the client for asynchronous connect and for invoking message handlers.
+     * <p/>
+     * When the factory is configured, all message handlers and {@code onClose} are invoked by the created executor
+     * service, otherwise only streaming ({@link java.io.Reader} and {@link java.io.InputStream}) handlers are.
+     * <p/>
+     * The value must be {@link org.glassfish.tyrus.core.ExecutorServiceFactory} or a name of a class extending it.
+     * {@link org.glassfish.tyrus.core.VirtualThreadExecutorServiceFactory} runs the handlers in virtual threads on
+     * JDKs supporting them. Cached thread pool is used by default.
+     */
+    public static final String EXECUTOR_SERVICE_FACTORY = ExecutorServiceFactory.EXECUTOR_SERVICE_FACTORY;
+
     /**
      * When set to {@code true} (boolean value), client runtime preserves used container and reuses it for outgoing
      * connections.
@@ -66,10 +66,13 @@ import org.glassfish.tyrus.client.auth.AuthConfig;
 import org.glassfish.tyrus.client.auth.AuthenticationException;
 import org.glassfish.tyrus.client.auth.Authenticator;
 import org.glassfish.tyrus.client.auth.Credentials;
+import org.glassfish.tyrus.core.ByteBufferPool;
 import org.glassfish.tyrus.core.DebugContext;
+import org.glassfish.tyrus.core.FrameReader;
 import org.glassfish.tyrus.core.Handshake;
 import org.glassfish.tyrus.core.HandshakeException;
 import org.glassfish.tyrus.core.MaskingKeyGenerator;
+import org.glassfish.tyrus.core.OutboundOverflowPolicy;
 import org.glassfish.tyrus.core.ProtocolHandler;
 import org.glassfish.tyrus.core.RequestContext;
 import org.glassfish.tyrus.core.TyrusEndpointWrapper;
@@ -80,7 +83,6 @@ import org.glassfish.tyrus.core.Version;
 import org.glassfish.tyrus.core.WebSocketException;
 import org.glassfish.tyrus.core.extension.ExtendedExtension;
 import org.glassfish.tyrus.core.frame.CloseFrame;
-import org.glassfish.tyrus.core.frame.Frame;
 import org.glassfish.tyrus.core.l10n.LocalizationMessages;
 import org.glassfish.tyrus.spi.ClientContainer;
 import org.glassfish.tyrus.spi.ClientEngine;
@@ -105,7 +107,6 @@ public class TyrusClientEngine implements ClientEngine {
     private static final Logger LOGGER = Logger.getLogger(TyrusClientEngine.class.getName());
 
     private static final Version DEFAULT_VERSION = Version.DRAFT17;
-    private static final int BUFFER_STEP_SIZE = 256;
     private static final int DEFAULT_REDIRECT_THRESHOLD = 5;
 
     private final ProtocolHandler protocolHandler;
@@ -574,6 +575,19 @@ public class TyrusClientEngine implements ClientEngine {
         debugContext.appendLogMessage(LOGGER, Level.FINE, DebugContext.Type.OTHER, "Incoming buffer size: ",
                                       incomingBufferSize);
 
+        if (Utils.getProperty(properties, ClientProperties.FRAME_STREAMING_ENABLED, Boolean.class, false)) {
+            protocolHandler.enableFrameStreaming(incomingBufferSize);
+        }
+
+        protocolHandler.setOutboundQueueLimits(
+                Utils.getProperty(properties, ClientProperties.OUTBOUND_QUEUE_HIGH_WATERMARK, Integer.class, -1),
+                Utils.getProperty(properties, ClientProperties.OUTBOUND_QUEUE_LOW_WATERMARK, Integer.class, -1),
+                Utils.getProperty(properties, ClientProperties.OUTBOUND_QUEUE_OVERFLOW_POLICY,
+                                  OutboundOverflowPolicy.class));
+
+        final ByteBufferPool bufferPool = ByteBufferPool.getShared(
+                Utils.getProperty(properties, ClientProperties.INBOUND_BUFFER_POOL_DIRECT, Boolean.class, false));
+
         return new ClientUpgradeInfo() {
             @Override
             public ClientUpgradeStatus getUpgradeStatus() {
@@ -584,8 +598,8 @@ public class TyrusClientEngine implements ClientEngine {
             public Connection createConnection() {
                 return new Connection() {
 
-                    private final ReadHandler readHandler =
-                            new TyrusReadHandler(protocolHandler, socket, incomingBufferSize,
+                    private final TyrusReadHandler readHandler =
+                            new TyrusReadHandler(protocolHandler, socket, incomingBufferSize, bufferPool,
                                                  sessionForRemoteEndpoint.getNegotiatedExtensions(), extensionContext);
 
                     @Override
@@ -605,6 +619,8 @@ public class TyrusClientEngine implements ClientEngine {
 
                     @Override
                     public void close(CloseReason reason) {
+                        readHandler.release();
+
                         try {
                             writer.close();
                         } catch (IOException e) {
@@ -661,21 +677,15 @@ public class TyrusClientEngine implements ClientEngine {
 
     private static class TyrusReadHandler implements ReadHandler {
 
-        private final int incomingBufferSize;
-        private final ProtocolHandler handler;
         private final TyrusWebSocket socket;
-        private final List<Extension> negotiatedExtensions;
-        private final ExtendedExtension.ExtensionContext extensionContext;
-
-        private ByteBuffer buffer = null;
+        private final FrameReader frameReader;
 
         TyrusReadHandler(final ProtocolHandler protocolHandler, final TyrusWebSocket socket, int incomingBufferSize,
-                         List<Extension> negotiatedExtensions, ExtendedExtension.ExtensionContext extensionContext) {
-            this.handler = protocolHandler;
+                         ByteBufferPool bufferPool, List<Extension> negotiatedExtensions,
+                         ExtendedExtension.ExtensionContext extensionContext) {
             this.socket = socket;
-            this.incomingBufferSize = incomingBufferSize;
-            this.negotiatedExtensions = negotiatedExtensions;
-            this.extensionContext = extensionContext;
+            this.frameReader = new FrameReader(protocolHandler, socket, negotiatedExtensions, extensionContext,
+                                               incomingBufferSize, bufferPool);
 
             protocolHandler.setExtensionContext(extensionContext);
         }
@@ -683,50 +693,7 @@ public class TyrusClientEngine implements ClientEngine {
         @Override
         public void handle(ByteBuffer data) {
             try {
-                if (data != null && data.hasRemaining()) {
-
-                    if (buffer != null) {
-                        data = Utils.appendBuffers(buffer, data, incomingBufferSize, BUFFER_STEP_SIZE);
-                    } else {
-                        int newSize = data.remaining();
-                        if (newSize > incomingBufferSize) {
-                            throw new IllegalArgumentException("Buffer overflow.");
-                        } else {
-                            final int roundedSize = (newSize % BUFFER_STEP_SIZE) > 0 ? ((newSize / BUFFER_STEP_SIZE)
-                                    + 1) * BUFFER_STEP_SIZE : newSize;
-                            final ByteBuffer result = ByteBuffer.allocate(roundedSize > incomingBufferSize ? newSize
-                                                                                  : roundedSize);
-                            result.flip();
-                            data = Utils.appendBuffers(result, data, incomingBufferSize, BUFFER_STEP_SIZE);
-                        }
-                    }
-
-                    do {
-                        Frame frame = handler.unframe(data);
-                        if (frame == null) {
-                            buffer = data;
-                            break;
-                        } else {
-                            for (Extension extension : negotiatedExtensions) {
-                                if (extension instanceof ExtendedExtension) {
-                                    try {
-                                        frame = ((ExtendedExtension) extension)
-                                                .processIncoming(extensionContext, frame);
-                                    } catch (Throwable t) {
-                                        LOGGER.log(
-                                                Level.FINE,
-                                                String.format(
-                                                        "Extension '%s' threw an exception during processIncoming " +
-                                                                "method invocation: \"%s\".",
-                                                        extension.getName(), t.getMessage()), t);
-                                    }
-                                }
-                            }
-
-                            handler.process(frame, socket);
-                        }
-                    } while (true);
-                }
+                frameReader.read(data);
             } catch (WebSocketException e) {
                 LOGGER.log(Level.FINE, e.getMessage(), e);
                 socket.onClose(new CloseFrame(e.getCloseReason()));
@@ -736,6 +703,13 @@ public class TyrusClientEngine implements ClientEngine {
                         .getMessage())));
             }
         }
+
+        /**
+         * Return buffered partial frame to the pool; called when the connection is closed.
+         */
+        void release() {
+            frameReader.release();
+        }
     }
 
     private static final ClientUpgradeInfo UPGRADE_INFO_FAILED = new ClientUpgradeInfo() {
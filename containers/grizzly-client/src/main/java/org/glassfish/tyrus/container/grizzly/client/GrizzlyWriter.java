@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -51,6 +51,8 @@ import org.glassfish.grizzly.Connection;
 import org.glassfish.grizzly.EmptyCompletionHandler;
 import org.glassfish.grizzly.WriteHandler;
 import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.CompositeBuffer;
+import org.glassfish.grizzly.memory.MemoryManager;
 
 import static org.glassfish.tyrus.container.grizzly.client.TaskProcessor.Task;
 
@@ -76,7 +78,26 @@ public class GrizzlyWriter extends Writer {
         }
 
         final Buffer message = Buffers.wrap(connection.getTransport().getMemoryManager(), buffer);
+        write(message, buffer, completionHandler);
+    }
+
+    @Override
+    public void write(final ByteBuffer[] buffers, final CompletionHandler<ByteBuffer[]> completionHandler) {
+        if (!connection.isOpen()) {
+            completionHandler.failed(new IllegalStateException("Connection is not open."));
+            return;
+        }
+
+        // buffers are not copied, composite buffer is written using gathering write.
+        final MemoryManager memoryManager = connection.getTransport().getMemoryManager();
+        final CompositeBuffer message = CompositeBuffer.newBuffer(memoryManager);
+        for (ByteBuffer buffer : buffers) {
+            message.append(Buffers.wrap(memoryManager, buffer));
+        }
+        write(message, buffers, completionHandler);
+    }
 
+    private <T> void write(final Buffer message, final T result, final CompletionHandler<T> completionHandler) {
         final EmptyCompletionHandler emptyCompletionHandler = new EmptyCompletionHandler() {
             @Override
             public void cancelled() {
@@ -86,9 +107,9 @@ public class GrizzlyWriter extends Writer {
             }
 
             @Override
-            public void completed(Object result) {
+            public void completed(Object o) {
                 if (completionHandler != null) {
-                    completionHandler.completed(buffer);
+                    completionHandler.completed(result);
                 }
             }
 
@@ -52,6 +52,8 @@ import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 
 import org.glassfish.tyrus.core.DebugContext;
+import org.glassfish.tyrus.core.ExecutorServiceFactory;
+import org.glassfish.tyrus.core.OutboundOverflowPolicy;
 import org.glassfish.tyrus.core.TyrusWebSocketEngine;
 import org.glassfish.tyrus.core.Utils;
 import org.glassfish.tyrus.core.cluster.ClusterContext;
@@ -124,12 +126,24 @@ public class GrizzlyServerContainer extends ServerContainerFactory {
                 Utils.getProperty(localProperties, TyrusWebSocketEngine.MAX_SESSIONS_PER_REMOTE_ADDR, Integer.class);
         final Boolean parallelBroadcastEnabled =
                 Utils.getProperty(localProperties, TyrusWebSocketEngine.PARALLEL_BROADCAST_ENABLED, Boolean.class);
+        final Boolean frameStreamingEnabled =
+                Utils.getProperty(localProperties, TyrusWebSocketEngine.FRAME_STREAMING_ENABLED, Boolean.class);
+        final Integer outboundQueueHighWatermark =
+                Utils.getProperty(localProperties, TyrusWebSocketEngine.OUTBOUND_QUEUE_HIGH_WATERMARK, Integer.class);
+        final Integer outboundQueueLowWatermark =
+                Utils.getProperty(localProperties, TyrusWebSocketEngine.OUTBOUND_QUEUE_LOW_WATERMARK, Integer.class);
+        final OutboundOverflowPolicy outboundOverflowPolicy =
+                Utils.getProperty(localProperties, TyrusWebSocketEngine.OUTBOUND_QUEUE_OVERFLOW_POLICY,
+                                  OutboundOverflowPolicy.class);
+        final Boolean inboundBufferPoolDirect =
+                Utils.getProperty(localProperties, TyrusWebSocketEngine.INBOUND_BUFFER_POOL_DIRECT, Boolean.class);
         final DebugContext.TracingType tracingType =
                 Utils.getProperty(localProperties, TyrusWebSocketEngine.TRACING_TYPE, DebugContext.TracingType.class,
                                   DebugContext.TracingType.OFF);
         final DebugContext.TracingThreshold tracingThreshold =
                 Utils.getProperty(localProperties, TyrusWebSocketEngine.TRACING_THRESHOLD,
                                   DebugContext.TracingThreshold.class, DebugContext.TracingThreshold.TRACE);
+        final ExecutorServiceFactory executorServiceFactory = ExecutorServiceFactory.fromProperties(localProperties);
 
         return new TyrusServerContainer((Set<Class<?>>) null) {
 
@@ -141,6 +155,11 @@ public class GrizzlyServerContainer extends ServerContainerFactory {
                                         .maxSessionsPerApp(maxSessionsPerApp)
                                         .maxSessionsPerRemoteAddr(maxSessionsPerRemoteAddr)
                                         .parallelBroadcastEnabled(parallelBroadcastEnabled)
+                                        .frameStreamingEnabled(frameStreamingEnabled)
+                                        .outboundQueueHighWatermark(outboundQueueHighWatermark)
+                                        .outboundQueueLowWatermark(outboundQueueLowWatermark)
+                                        .outboundOverflowPolicy(outboundOverflowPolicy)
+                                        .inboundBufferPoolDirect(inboundBufferPoolDirect)
                                         .tracingType(tracingType)
                                         .tracingThreshold(tracingThreshold)
                                         .build();
@@ -163,6 +182,11 @@ public class GrizzlyServerContainer extends ServerContainerFactory {
                 return engine;
             }
 
+            @Override
+            protected ExecutorServiceFactory getExecutorServiceFactory() {
+                return executorServiceFactory;
+            }
+
             @Override
             public void start(final String rootPath, int port) throws IOException, DeploymentException {
                 contextPath = rootPath;
@@ -74,6 +74,41 @@ class Filter {
     void write(ByteBuffer data, CompletionHandler<ByteBuffer> completionHandler) {
     }
 
+    /**
+     * Gathering variant of {@link #write(ByteBuffer, CompletionHandler)}, remaining bytes of all buffers are written in
+     * the given order.
+     * <p/>
+     * Default implementation copies the buffers into a single buffer and passes it to {@link #write(ByteBuffer,
+     * CompletionHandler)}.
+     *
+     * @param data              on which write operation is performed.
+     * @param completionHandler will be invoked when the write operation is completed or has failed.
+     */
+    void write(final ByteBuffer[] data, final CompletionHandler<ByteBuffer[]> completionHandler) {
+        int length = 0;
+        for (ByteBuffer buffer : data) {
+            length += buffer.remaining();
+        }
+
+        final ByteBuffer joined = ByteBuffer.allocate(length);
+        for (ByteBuffer buffer : data) {
+            joined.put(buffer);
+        }
+        joined.flip();
+
+        write(joined, new CompletionHandler<ByteBuffer>() {
+            @Override
+            public void failed(Throwable throwable) {
+                completionHandler.failed(throwable);
+            }
+
+            @Override
+            public void completed(ByteBuffer result) {
+                completionHandler.completed(data);
+            }
+        });
+    }
+
     /**
      * Close the filter, invokes close operation on the next filter in the filter chain.
      * <p/>
@@ -65,6 +65,7 @@ import org.glassfish.tyrus.client.ClientProperties;
 import org.glassfish.tyrus.client.SslContextConfigurator;
 import org.glassfish.tyrus.client.SslEngineConfigurator;
 import org.glassfish.tyrus.client.ThreadPoolConfig;
+import org.glassfish.tyrus.core.ByteBufferPool;
 import org.glassfish.tyrus.core.ReflectionHelper;
 import org.glassfish.tyrus.core.Utils;
 import org.glassfish.tyrus.spi.ClientContainer;
@@ -122,6 +123,9 @@ public class JdkClientContainer implements ClientContainer {
         final Integer containerIdleTimeout =
                 Utils.getProperty(properties, ClientProperties.SHARED_CONTAINER_IDLE_TIMEOUT, Integer.class);
 
+        final ByteBufferPool bufferPool = ByteBufferPool.getShared(
+                Utils.getProperty(properties, ClientProperties.INBOUND_BUFFER_POOL_DIRECT, Boolean.class, false));
+
         final ThreadPoolConfig finalThreadPoolConfig = threadPoolConfig;
         final Callable<Void> jdkConnector = new Callable<Void>() {
 
@@ -141,13 +145,15 @@ public class JdkClientContainer implements ClientContainer {
 
                 if (secure) {
                     TransportFilter transportFilter =
-                            createTransportFilter(SSL_INPUT_BUFFER_SIZE, finalThreadPoolConfig, containerIdleTimeout);
+                            createTransportFilter(SSL_INPUT_BUFFER_SIZE, bufferPool, finalThreadPoolConfig,
+                                                  containerIdleTimeout);
                     SslFilter sslFilter = createSslFilter(cec, properties, transportFilter, uri);
                     writeQueue = createTaskQueueFilter(sslFilter);
 
                 } else {
                     TransportFilter transportFilter =
-                            createTransportFilter(INPUT_BUFFER_SIZE, finalThreadPoolConfig, containerIdleTimeout);
+                            createTransportFilter(INPUT_BUFFER_SIZE, bufferPool, finalThreadPoolConfig,
+                                                  containerIdleTimeout);
                     writeQueue = createTaskQueueFilter(transportFilter);
                 }
 
@@ -301,9 +307,9 @@ public class JdkClientContainer implements ClientContainer {
         return sslFilter;
     }
 
-    private TransportFilter createTransportFilter(int sslInputBufferSize, ThreadPoolConfig threadPoolConfig,
-                                                  Integer containerIdleTimeout) {
-        return new TransportFilter(sslInputBufferSize, threadPoolConfig, containerIdleTimeout);
+    private TransportFilter createTransportFilter(int sslInputBufferSize, ByteBufferPool bufferPool,
+                                                  ThreadPoolConfig threadPoolConfig, Integer containerIdleTimeout) {
+        return new TransportFilter(sslInputBufferSize, bufferPool, threadPoolConfig, containerIdleTimeout);
     }
 
     private TaskQueueFilter createTaskQueueFilter(Filter downstreamFilter) {
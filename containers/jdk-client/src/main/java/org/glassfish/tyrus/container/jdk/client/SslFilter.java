@@ -41,6 +41,9 @@ package org.glassfish.tyrus.container.jdk.client;
 
 import java.nio.ByteBuffer;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLEngine;
@@ -68,8 +71,9 @@ import org.glassfish.tyrus.spi.CompletionHandler;
  */
 class SslFilter extends Filter {
 
+    private static final Logger LOGGER = Logger.getLogger(SslFilter.class.getName());
+
     private final ByteBuffer applicationInputBuffer;
-    private final ByteBuffer networkOutputBuffer;
     private final SSLEngine sslEngine;
     private final HostnameVerifier customHostnameVerifier;
     private final String serverHost;
@@ -82,6 +86,17 @@ class SslFilter extends Filter {
     private volatile boolean sslStarted = false;
     private volatile boolean handshakeCompleted = false;
 
+    /**
+     * Encrypted data to be written; replaced by a bigger buffer when SSL packet size grows.
+     */
+    private volatile ByteBuffer networkOutputBuffer;
+
+    // statistics of encrypted writes.
+    private final AtomicLong writtenBytes = new AtomicLong();
+    private final AtomicLong writtenFrames = new AtomicLong();
+    private final AtomicLong writtenRecords = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+
     /**
      * SSL Filter constructor, takes upstream filter as a parameter.
      *
@@ -139,22 +154,94 @@ class SslFilter extends Filter {
             return;
         }
 
-        handleWrite(networkOutputBuffer, applicationData, downstreamFilter, completionHandler);
+        writtenFrames.incrementAndGet();
+        handleWrite(new ByteBuffer[]{applicationData}, new CompletionHandler<ByteBuffer[]>() {
+            @Override
+            public void completed(ByteBuffer[] result) {
+                completionHandler.completed(applicationData);
+            }
+
+            @Override
+            public void failed(Throwable throwable) {
+                completionHandler.failed(throwable);
+            }
+        });
     }
 
-    private void handleWrite(final ByteBuffer networkOutputBuffer, final ByteBuffer applicationData,
-                             final Filter downstreamFilter,
-                             final CompletionHandler<ByteBuffer> completionHandler) {
+    @Override
+    void write(final ByteBuffer[] applicationData, final CompletionHandler<ByteBuffer[]> completionHandler) {
+        // before SSL is started write just passes through
+        if (!sslStarted) {
+            downstreamFilter.write(applicationData, completionHandler);
+            return;
+        }
+
+        writtenFrames.addAndGet(applicationData.length);
+        handleWrite(applicationData, completionHandler);
+    }
+
+    /**
+     * Encrypt the application data and pass it to the downstream filter.
+     * <p/>
+     * All buffers are passed to a single {@link SSLEngine#wrap(java.nio.ByteBuffer[], java.nio.ByteBuffer)} call, so
+     * data of several small buffers (frames) is encrypted into a single SSL record, up to the maximal record size. As
+     * many records as fit into {@link #networkOutputBuffer} are passed to the downstream filter in one write.
+     */
+    private void handleWrite(final ByteBuffer[] applicationData,
+                             final CompletionHandler<ByteBuffer[]> completionHandler) {
+        final int applicationBytes = remaining(applicationData);
+        if (applicationBytes == 0) {
+            completionHandler.completed(applicationData);
+            return;
+        }
+
         try {
             networkOutputBuffer.clear();
-            // TODO: check the result
-            sslEngine.wrap(applicationData, networkOutputBuffer);
+
+            int wrappedBytes = 0;
+            int records = 0;
+            while (wrappedBytes < applicationBytes) {
+                final SSLEngineResult result = sslEngine.wrap(applicationData, networkOutputBuffer);
+
+                if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                    if (networkOutputBuffer.position() > 0) {
+                        // the next record does not fit, the rest will be wrapped after this write completes.
+                        break;
+                    }
+                    // packet size may grow during the session, the buffer is too small even for one record.
+                    networkOutputBuffer = ByteBuffer.allocate(
+                            Math.max(sslEngine.getSession().getPacketBufferSize(), 2 * networkOutputBuffer.capacity()));
+                    continue;
+                }
+
+                if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                    throw new SSLException("SSL engine has been closed.");
+                }
+
+                if (result.bytesProduced() == 0) {
+                    // renegotiation is not supported.
+                    break;
+                }
+
+                wrappedBytes += result.bytesConsumed();
+                records++;
+            }
+
+            if (networkOutputBuffer.position() == 0) {
+                throw new SSLException("SSL engine did not produce any data, handshake status: " +
+                                               sslEngine.getHandshakeStatus());
+            }
+
+            writtenBytes.addAndGet(wrappedBytes);
+            writtenRecords.addAndGet(records);
+            writes.incrementAndGet();
+
             networkOutputBuffer.flip();
             downstreamFilter.write(networkOutputBuffer, new CompletionHandler<ByteBuffer>() {
                 @Override
                 public void completed(ByteBuffer result) {
-                    if (applicationData.hasRemaining()) {
-                        handleWrite(networkOutputBuffer, applicationData, downstreamFilter, completionHandler);
+                    if (remaining(applicationData) > 0) {
+                        handleWrite(applicationData, completionHandler);
                     } else {
                         completionHandler.completed(applicationData);
                     }
@@ -166,18 +253,84 @@ class SslFilter extends Filter {
                 }
             });
         } catch (SSLException e) {
+            completionHandler.failed(e);
             handleSslError(e);
         }
     }
 
+    private static int remaining(ByteBuffer[] buffers) {
+        int remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        return remaining;
+    }
+
+    /**
+     * Get number of bytes of application data encrypted and written so far.
+     *
+     * @return number of written application bytes.
+     */
+    long getWrittenBytes() {
+        return writtenBytes.get();
+    }
+
+    /**
+     * Get number of application buffers (frames) encrypted and written so far.
+     *
+     * @return number of written frames.
+     */
+    long getWrittenFrames() {
+        return writtenFrames.get();
+    }
+
+    /**
+     * Get number of SSL records written so far.
+     *
+     * @return number of written SSL records.
+     */
+    long getWrittenRecords() {
+        return writtenRecords.get();
+    }
+
+    /**
+     * Get number of writes of encrypted data to the downstream filter.
+     *
+     * @return number of writes.
+     */
+    long getWrites() {
+        return writes.get();
+    }
+
     @Override
     void close() {
         if (!sslStarted) {
             downstreamFilter.close();
             return;
         }
+
+        if (LOGGER.isLoggable(Level.FINE)) {
+            final long frames = writtenFrames.get();
+            final long records = writtenRecords.get();
+            LOGGER.fine(String.format("Wrapped %d bytes of %d frames into %d SSL records (%.2f per frame) written in %d " +
+                                              "writes.", writtenBytes.get(), frames, records,
+                                      frames == 0 ? 0d : (double) records / frames, writes.get()));
+        }
+
         sslEngine.closeOutbound();
-        write(networkOutputBuffer, new CompletionHandler<ByteBuffer>() {
+        try {
+            // close_notify alert
+            networkOutputBuffer.clear();
+            sslEngine.wrap(ByteBuffer.allocate(0), networkOutputBuffer);
+            networkOutputBuffer.flip();
+        } catch (SSLException e) {
+            LOGGER.log(Level.FINE, "Could not wrap SSL close_notify alert", e);
+            downstreamFilter.close();
+            upstreamFilter = null;
+            return;
+        }
+
+        downstreamFilter.write(networkOutputBuffer, new CompletionHandler<ByteBuffer>() {
 
             @Override
             public void completed(ByteBuffer result) {
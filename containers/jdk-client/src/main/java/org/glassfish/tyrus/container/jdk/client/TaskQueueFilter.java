@@ -40,6 +40,9 @@
 package org.glassfish.tyrus.container.jdk.client;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -56,11 +59,26 @@ import org.glassfish.tyrus.spi.CompletionHandler;
  * methods called before {@link #close()} will be processed. Including {@link #startSsl()} methods in the queue ensures
  * that no {@link #write(java.nio.ByteBuffer, org.glassfish.tyrus.spi.CompletionHandler)} method will be passed to
  * {@link org.glassfish.tyrus.container.jdk.client.SslFilter} while it performs SSL handshake.
+ * <p/>
+ * Write tasks queued while a previous write is in progress are not passed one by one - all consecutive write tasks at
+ * the head of the queue are combined into a single gathering write ({@link #write(java.nio.ByteBuffer[],
+ * org.glassfish.tyrus.spi.CompletionHandler)}) and their completion handlers are invoked in order once their data has
+ * been written.
  *
  * @author Petr Janouch (petr.janouch at oracle.com)
  */
 class TaskQueueFilter extends Filter {
 
+    /**
+     * Maximal number of buffers combined into one write, corresponds to the usual limit of vectored I/O (IOV_MAX).
+     */
+    private static final int MAX_BATCH_BUFFERS = 1024;
+
+    /**
+     * Number of bytes after which no more write tasks are added to a combined write.
+     */
+    private static final int MAX_BATCH_BYTES = 1024 * 1024;
+
     private final Queue<Task> taskQueue = new ConcurrentLinkedQueue<>();
     private final AtomicBoolean taskLock = new AtomicBoolean(false);
 
@@ -81,13 +99,59 @@ class TaskQueueFilter extends Filter {
         }
     }
 
+    @Override
+    void write(ByteBuffer[] data, CompletionHandler<ByteBuffer[]> completionHandler) {
+        taskQueue.offer(new GatheringWriteTask(data, completionHandler));
+        if (taskLock.compareAndSet(false, true)) {
+            processTask();
+        }
+    }
+
     private void processTask() {
         final Task task = taskQueue.poll();
         if (task == null) {
             taskLock.set(false);
+            // a task might have been offered after the poll, but before the lock was released.
+            if (!taskQueue.isEmpty() && taskLock.compareAndSet(false, true)) {
+                processTask();
+            }
             return;
         }
-        task.execute(this);
+
+        if (task instanceof AbstractWriteTask && taskQueue.peek() instanceof AbstractWriteTask) {
+            combineWriteTasks((AbstractWriteTask) task).execute(this);
+        } else {
+            task.execute(this);
+        }
+    }
+
+    /**
+     * Remove all consecutive write tasks from the head of the queue (within {@link #MAX_BATCH_BUFFERS} and {@link
+     * #MAX_BATCH_BYTES} limits) and combine them with the given one.
+     * <p/>
+     * Only the thread holding {@link #taskLock} removes tasks from the queue, so the peeked task is the polled one.
+     *
+     * @param first write task already removed from the queue.
+     * @return task writing data of all combined tasks.
+     */
+    private Task combineWriteTasks(AbstractWriteTask first) {
+        final List<AbstractWriteTask> tasks = new ArrayList<>();
+        final List<ByteBuffer> buffers = new ArrayList<>();
+        long bytes = 0;
+
+        AbstractWriteTask task = first;
+        while (true) {
+            tasks.add(task);
+            bytes += task.addBuffers(buffers);
+
+            if (!(taskQueue.peek() instanceof AbstractWriteTask) || buffers.size() >= MAX_BATCH_BUFFERS ||
+                    bytes >= MAX_BATCH_BYTES) {
+                break;
+            }
+            task = (AbstractWriteTask) taskQueue.poll();
+        }
+
+        return new CombinedWriteTask(tasks, buffers.toArray(new ByteBuffer[buffers.size()]));
     }
 
     @Override
@@ -142,10 +206,93 @@ class TaskQueueFilter extends Filter {
         void execute(TaskQueueFilter queueFilter);
     }
 
+    /**
+     * A task writing data, can be combined with other write tasks.
+     */
+    abstract static class AbstractWriteTask implements Task {
+
+        /**
+         * Add buffers with data of this task to the list.
+         *
+         * @param buffers list the buffers are added to.
+         * @return number of bytes to be written.
+         */
+        abstract int addBuffers(List<ByteBuffer> buffers);
+
+        /**
+         * Check whether all data of this task have been written.
+         *
+         * @return {@code true} if all data have been written.
+         */
+        abstract boolean isWritten();
+
+        /**
+         * Notify completion handler of this task that the data have been written.
+         */
+        abstract void completed();
+
+        /**
+         * Notify completion handler of this task that the write has failed.
+         *
+         * @param throwable failure cause.
+         */
+        abstract void failed(Throwable throwable);
+    }
+
+    /**
+     * A task that writes data of several write tasks to the downstreamFilter at once.
+     */
+    static class CombinedWriteTask implements Task {
+        private final List<AbstractWriteTask> tasks;
+        private final ByteBuffer[] data;
+        // number of tasks whose completion handlers have already been notified.
+        private int completedTasks = 0;
+
+        CombinedWriteTask(List<AbstractWriteTask> tasks, ByteBuffer[] data) {
+            this.tasks = tasks;
+            this.data = data;
+        }
+
+        @Override
+        public void execute(final TaskQueueFilter queueFilter) {
+            queueFilter.downstreamFilter.write(data, new CompletionHandler<ByteBuffer[]>() {
+
+                @Override
+                public void failed(Throwable throwable) {
+                    for (int i = completedTasks; i < tasks.size(); i++) {
+                        tasks.get(i).failed(throwable);
+                    }
+                    queueFilter.processTask();
+                }
+
+                @Override
+                public void completed(ByteBuffer[] result) {
+                    while (completedTasks < tasks.size() && tasks.get(completedTasks).isWritten()) {
+                        tasks.get(completedTasks++).completed();
+                    }
+
+                    if (completedTasks < tasks.size()) {
+                        execute(queueFilter);
+                        return;
+                    }
+
+                    queueFilter.processTask();
+                }
+            });
+        }
+
+        @Override
+        public String toString() {
+            return "CombinedWriteTask{" +
+                    "tasks=" + tasks +
+                    '}';
+        }
+    }
+
     /**
      * A task that writes data to the downstreamFilter.
      */
-    static class WriteTask implements Task {
+    static class WriteTask extends AbstractWriteTask {
         private final ByteBuffer data;
         private final org.glassfish.tyrus.spi.CompletionHandler<ByteBuffer> completionHandler;
 
@@ -177,6 +324,27 @@ class TaskQueueFilter extends Filter {
             });
         }
 
+        @Override
+        int addBuffers(List<ByteBuffer> buffers) {
+            buffers.add(data);
+            return data.remaining();
+        }
+
+        @Override
+        boolean isWritten() {
+            return !data.hasRemaining();
+        }
+
+        @Override
+        void completed() {
+            completionHandler.completed(data);
+        }
+
+        @Override
+        void failed(Throwable throwable) {
+            completionHandler.failed(throwable);
+        }
+
         ByteBuffer getData() {
             return data;
         }
@@ -193,4 +361,80 @@ class TaskQueueFilter extends Filter {
                     '}';
         }
     }
+
+    /**
+     * A task that writes multiple buffers to the downstreamFilter at once.
+     */
+    static class GatheringWriteTask extends AbstractWriteTask {
+        private final ByteBuffer[] data;
+        private final CompletionHandler<ByteBuffer[]> completionHandler;
+
+        GatheringWriteTask(ByteBuffer[] data, CompletionHandler<ByteBuffer[]> completionHandler) {
+            this.data = data;
+            this.completionHandler = completionHandler;
+        }
+
+        @Override
+        public void execute(final TaskQueueFilter queueFilter) {
+            queueFilter.downstreamFilter.write(data, new CompletionHandler<ByteBuffer[]>() {
+
+                @Override
+                public void failed(Throwable throwable) {
+                    completionHandler.failed(throwable);
+                    queueFilter.processTask();
+                }
+
+                @Override
+                public void completed(ByteBuffer[] result) {
+                    for (ByteBuffer buffer : result) {
+                        if (buffer.hasRemaining()) {
+                            execute(queueFilter);
+                            return;
+                        }
+                    }
+
+                    completionHandler.completed(data);
+                    queueFilter.processTask();
+                }
+            });
+        }
+
+        @Override
+        int addBuffers(List<ByteBuffer> buffers) {
+            int remaining = 0;
+            for (ByteBuffer buffer : data) {
+                buffers.add(buffer);
+                remaining += buffer.remaining();
+            }
+            return remaining;
+        }
+
+        @Override
+        boolean isWritten() {
+            for (ByteBuffer buffer : data) {
+                if (buffer.hasRemaining()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        void completed() {
+            completionHandler.completed(data);
+        }
+
+        @Override
+        void failed(Throwable throwable) {
+            completionHandler.failed(throwable);
+        }
+
+        @Override
+        public String toString() {
+            return "GatheringWriteTask{" +
+                    "data=" + Arrays.toString(data) +
+                    ", completionHandler=" + completionHandler +
+                    '}';
+        }
+    }
 }
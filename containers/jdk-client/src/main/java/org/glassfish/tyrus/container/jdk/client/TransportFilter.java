@@ -64,6 +64,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.glassfish.tyrus.client.ThreadPoolConfig;
+import org.glassfish.tyrus.core.ByteBufferPool;
 
 /**
  * Writes and reads data to and from a socket. Only one {@link #write(java.nio.ByteBuffer,
@@ -104,6 +105,7 @@ class TransportFilter extends Filter {
     private static volatile Integer currentContainerIdleTimeout;
 
     private final int inputBufferSize;
+    private final ByteBufferPool bufferPool;
     private final ThreadPoolConfig threadPoolConfig;
     private final Integer containerIdleTimeout;
 
@@ -117,13 +119,16 @@ class TransportFilter extends Filter {
      * current thread pool will be shut down and a new one created with the new configuration.
      *
      * @param inputBufferSize      size of buffer to be allocated for reading data from a socket.
+     * @param bufferPool           pool the buffer for reading data from a socket is leased from.
      * @param threadPoolConfig     thread pool configuration used for creating thread pool.
      * @param containerIdleTimeout idle time after which the shared thread pool will be destroyed. If {@code null}
      *                             default value will be used. The default value is 30 seconds.
      */
-    TransportFilter(int inputBufferSize, ThreadPoolConfig threadPoolConfig, Integer containerIdleTimeout) {
+    TransportFilter(int inputBufferSize, ByteBufferPool bufferPool, ThreadPoolConfig threadPoolConfig,
+                    Integer containerIdleTimeout) {
         super(null);
         this.inputBufferSize = inputBufferSize;
+        this.bufferPool = bufferPool;
         this.threadPoolConfig = threadPoolConfig;
         this.containerIdleTimeout = containerIdleTimeout;
     }
@@ -148,6 +153,37 @@ class TransportFilter extends Filter {
         });
     }
 
+    @Override
+    void write(final ByteBuffer[] data,
+               final org.glassfish.tyrus.spi.CompletionHandler<ByteBuffer[]> completionHandler) {
+        int offset = 0;
+        while (offset < data.length - 1 && !data[offset].hasRemaining()) {
+            offset++;
+        }
+
+        final CompletionHandler<Long, ByteBuffer[]> handler = new CompletionHandler<Long, ByteBuffer[]>() {
+
+            @Override
+            public void completed(Long result, ByteBuffer[] buffers) {
+                for (ByteBuffer buffer : buffers) {
+                    if (buffer.hasRemaining()) {
+                        write(buffers, completionHandler);
+                        return;
+                    }
+                }
+                completionHandler.completed(buffers);
+            }
+
+            @Override
+            public void failed(Throwable exc, ByteBuffer[] buffers) {
+                completionHandler.failed(exc);
+            }
+        };
+
+        // timeout 0 means no timeout, same as in AsynchronousSocketChannel#write(ByteBuffer, Object, CompletionHandler)
+        socketChannel.write(data, offset, data.length - offset, 0L, TimeUnit.MILLISECONDS, data, handler);
+    }
+
     @Override
     void close() {
         if (!socketChannel.isOpen()) {
@@ -193,7 +229,8 @@ class TransportFilter extends Filter {
 
             @Override
             public void completed(Void result, Void nothing) {
-                final ByteBuffer inputBuffer = ByteBuffer.allocate(inputBufferSize);
+                // returned to the pool when reading from the socket stops.
+                final ByteBuffer inputBuffer = bufferPool.lease(inputBufferSize);
                 onConnect();
                 _read(inputBuffer);
             }
@@ -277,6 +314,7 @@ class TransportFilter extends Filter {
          * It must be checked that the channel has not been closed by {@link #close()} method.
          */
         if (!socketChannel.isOpen()) {
+            bufferPool.release(inputBuffer);
             return;
         }
 
@@ -286,6 +324,8 @@ class TransportFilter extends Filter {
 
                 // connection closed by the server
                 if (bytesRead == -1) {
+                    bufferPool.release(inputBuffer);
+
                     // close will set TransportFilter.this.upstreamFilter to null
                     Filter upstreamFilter = TransportFilter.this.upstreamFilter;
                     if (upstreamFilter != null) {
@@ -303,6 +343,8 @@ class TransportFilter extends Filter {
 
             @Override
             public void failed(Throwable exc, Void result) {
+                bufferPool.release(inputBuffer);
+
                 /**
                  * Reading from the channel will fail if it is closing. In such cases {@link AsynchronousCloseException}
                  * is thrown. This should not be logged and no action undertaken.
@@ -0,0 +1,328 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.container.jdk.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.glassfish.tyrus.client.SslEngineConfigurator;
+import org.glassfish.tyrus.spi.CompletionHandler;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests encryption of written data in {@link SslFilter}.
+ * <p/>
+ * The filter is connected to a server {@link SSLEngine} in memory; TLS 1.2 is used.
+ */
+public class SslFilterTest {
+
+    private static final String KEYSTORE = "/ssl-filter-test.jks";
+    private static final char[] KEYSTORE_PASSWORD = "tyrus-test".toCharArray();
+
+    private NetworkFilter network;
+    private UpstreamFilter upstream;
+    private SslFilter sslFilter;
+    private SSLEngine serverEngine;
+
+    @Before
+    public void setUp() throws Exception {
+        final KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (InputStream inputStream = SslFilterTest.class.getResourceAsStream(KEYSTORE)) {
+            keyStore.load(inputStream, KEYSTORE_PASSWORD);
+        }
+
+        final KeyManagerFactory keyManagerFactory =
+                KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, KEYSTORE_PASSWORD);
+        final SSLContext serverContext = SSLContext.getInstance("TLS");
+        serverContext.init(keyManagerFactory.getKeyManagers(), null, null);
+        serverEngine = serverContext.createSSLEngine();
+        serverEngine.setUseClientMode(false);
+        serverEngine.setEnabledProtocols(new String[]{"TLSv1.2"});
+        serverEngine.beginHandshake();
+
+        final TrustManagerFactory trustManagerFactory =
+                TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(keyStore);
+        final SSLContext clientContext = SSLContext.getInstance("TLS");
+        clientContext.init(null, trustManagerFactory.getTrustManagers(), null);
+        final SslEngineConfigurator sslEngineConfigurator = new SslEngineConfigurator(clientContext)
+                .setHostVerificationEnabled(false)
+                .setEnabledProtocols(new String[]{"TLSv1.2"});
+
+        network = new NetworkFilter();
+        upstream = new UpstreamFilter();
+        sslFilter = new SslFilter(network, sslEngineConfigurator, "localhost");
+        sslFilter.connect(null, upstream);
+    }
+
+    @Test
+    public void testGatheringWriteEncryptedIntoSingleRecord() throws Exception {
+        handshake();
+
+        final ByteBuffer[] frames = new ByteBuffer[100];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = ByteBuffer.wrap(data(100, i));
+        }
+        final RecordingHandler<ByteBuffer[]> handler = new RecordingHandler<>();
+        sslFilter.write(frames, handler);
+
+        assertTrue(handler.completed);
+        // 100 small frames are encrypted into a single SSL record.
+        assertEquals(100, sslFilter.getWrittenFrames());
+        assertEquals(1, sslFilter.getWrittenRecords());
+        assertEquals(1, sslFilter.getWrites());
+        assertEquals(10000, sslFilter.getWrittenBytes());
+
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < frames.length; i++) {
+            expected.write(data(100, i));
+        }
+        assertArrayEquals(expected.toByteArray(), unwrapOnServer());
+    }
+
+    @Test
+    public void testWriteBiggerThanRecord() throws Exception {
+        handshake();
+
+        final byte[] data = data(100000, 0);
+        final RecordingHandler<ByteBuffer> handler = new RecordingHandler<>();
+        sslFilter.write(ByteBuffer.wrap(data), handler);
+
+        assertTrue(handler.completed);
+        // 16 KB of application data per record, the network buffer holds a single record.
+        assertEquals(1, sslFilter.getWrittenFrames());
+        assertEquals(7, sslFilter.getWrittenRecords());
+        assertEquals(7, sslFilter.getWrites());
+        assertEquals(data.length, sslFilter.getWrittenBytes());
+        assertArrayEquals(data, unwrapOnServer());
+    }
+
+    @Test
+    public void testNetworkBufferGrows() throws Exception {
+        handshake();
+
+        // the buffer cannot hold even a single record.
+        final Field networkOutputBuffer = SslFilter.class.getDeclaredField("networkOutputBuffer");
+        networkOutputBuffer.setAccessible(true);
+        networkOutputBuffer.set(sslFilter, ByteBuffer.allocate(64));
+
+        final byte[] data = data(1000, 0);
+        final RecordingHandler<ByteBuffer> handler = new RecordingHandler<>();
+        sslFilter.write(ByteBuffer.wrap(data), handler);
+
+        assertTrue(handler.completed);
+        assertEquals(1, sslFilter.getWrites());
+        assertTrue(((ByteBuffer) networkOutputBuffer.get(sslFilter)).capacity() >=
+                           serverEngine.getSession().getPacketBufferSize());
+        assertArrayEquals(data, unwrapOnServer());
+    }
+
+    @Test
+    public void testWriteDuringHandshake() throws Exception {
+        sslFilter.startSsl();
+
+        // the engine waits for the server hello, it does not produce any application data.
+        final RecordingHandler<ByteBuffer> handler = new RecordingHandler<>();
+        sslFilter.write(ByteBuffer.wrap(data(100, 0)), handler);
+
+        assertFalse(handler.completed);
+        assertTrue(handler.failure instanceof SSLException);
+        assertTrue(upstream.error instanceof SSLException);
+        assertEquals(0, sslFilter.getWrites());
+    }
+
+    @Test
+    public void testWriteAfterClose() throws Exception {
+        handshake();
+
+        sslFilter.close();
+        assertTrue(network.closed);
+
+        final RecordingHandler<ByteBuffer> handler = new RecordingHandler<>();
+        sslFilter.write(ByteBuffer.wrap(data(100, 0)), handler);
+
+        assertFalse(handler.completed);
+        assertTrue(handler.failure instanceof SSLException);
+        assertEquals(0, sslFilter.getWrites());
+    }
+
+    /**
+     * Perform SSL handshake between the filter and the server engine.
+     */
+    private void handshake() throws SSLException {
+        sslFilter.startSsl();
+
+        while (!upstream.handshakeCompleted) {
+            assertNull(upstream.error);
+
+            final ByteBuffer serverData = ByteBuffer.allocate(serverEngine.getSession().getPacketBufferSize() * 4);
+            while (true) {
+                final SSLEngineResult.HandshakeStatus status = serverEngine.getHandshakeStatus();
+                if (status == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                    Runnable task;
+                    while ((task = serverEngine.getDelegatedTask()) != null) {
+                        task.run();
+                    }
+                } else if (status == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                    serverEngine.wrap(ByteBuffer.allocate(0), serverData);
+                } else if (status == SSLEngineResult.HandshakeStatus.NEED_UNWRAP && network.data.size() > 0) {
+                    final ByteBuffer clientData = ByteBuffer.wrap(network.data.toByteArray());
+                    serverEngine.unwrap(clientData, ByteBuffer.allocate(
+                            serverEngine.getSession().getApplicationBufferSize()));
+                    network.data.reset();
+                    network.data.write(clientData.array(), clientData.position(), clientData.remaining());
+                } else {
+                    break;
+                }
+            }
+
+            serverData.flip();
+            sslFilter.onRead(serverData);
+        }
+
+        assertEquals(0, network.data.size());
+    }
+
+    /**
+     * Decrypt all the data written by the filter so far.
+     */
+    private byte[] unwrapOnServer() throws SSLException {
+        final ByteBuffer clientData = ByteBuffer.wrap(network.data.toByteArray());
+        final ByteBuffer applicationData = ByteBuffer.allocate(serverEngine.getSession().getApplicationBufferSize());
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+
+        while (clientData.hasRemaining()) {
+            applicationData.clear();
+            final SSLEngineResult sslEngineResult = serverEngine.unwrap(clientData, applicationData);
+            assertEquals(SSLEngineResult.Status.OK, sslEngineResult.getStatus());
+            result.write(applicationData.array(), 0, applicationData.position());
+        }
+
+        network.data.reset();
+        return result.toByteArray();
+    }
+
+    private static byte[] data(int length, int seed) {
+        final byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31 + seed);
+        }
+        return data;
+    }
+
+    /**
+     * Collects data written to the network, each write is completed immediately.
+     */
+    private static class NetworkFilter extends Filter {
+
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        private boolean closed = false;
+
+        NetworkFilter() {
+            super(null);
+        }
+
+        @Override
+        void write(ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler) {
+            data.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            completionHandler.completed(buffer);
+        }
+
+        @Override
+        void close() {
+            closed = true;
+        }
+    }
+
+    private static class UpstreamFilter extends Filter {
+
+        private boolean handshakeCompleted = false;
+        private Throwable error;
+
+        UpstreamFilter() {
+            super(null);
+        }
+
+        @Override
+        void processSslHandshakeCompleted() {
+            handshakeCompleted = true;
+        }
+
+        @Override
+        void processError(Throwable t) {
+            error = t;
+        }
+    }
+
+    private static class RecordingHandler<T> extends CompletionHandler<T> {
+
+        private boolean completed = false;
+        private Throwable failure;
+
+        @Override
+        public void completed(T result) {
+            completed = true;
+        }
+
+        @Override
+        public void failed(Throwable throwable) {
+            failure = throwable;
+        }
+    }
+}
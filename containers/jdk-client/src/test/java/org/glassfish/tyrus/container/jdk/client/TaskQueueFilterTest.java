@@ -0,0 +1,226 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.container.jdk.client;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.glassfish.tyrus.spi.CompletionHandler;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests combining of queued writes in {@link TaskQueueFilter}.
+ */
+public class TaskQueueFilterTest {
+
+    @Test
+    public void testQueuedWritesCombined() {
+        final RecordingFilter downstream = new RecordingFilter();
+        final TaskQueueFilter queueFilter = new TaskQueueFilter(downstream);
+        final List<String> completed = new ArrayList<>();
+
+        queueFilter.write(buffer("a"), new RecordingHandler<ByteBuffer>("a", completed));
+        // the first write is in progress, following ones are queued.
+        queueFilter.write(buffer("b"), new RecordingHandler<ByteBuffer>("b", completed));
+        queueFilter.write(new ByteBuffer[]{buffer("c"), buffer("d")},
+                          new RecordingHandler<ByteBuffer[]>("cd", completed));
+        queueFilter.write(buffer("e"), new RecordingHandler<ByteBuffer>("e", completed));
+
+        assertEquals(1, downstream.writes.size());
+        downstream.complete();
+        assertEquals("[a]", completed.toString());
+
+        // all queued writes are passed as a single gathering write.
+        assertEquals(2, downstream.writes.size());
+        assertEquals("bcde", downstream.writes.get(1));
+        downstream.complete();
+        assertEquals("[a, b, cd, e]", completed.toString());
+    }
+
+    @Test
+    public void testPartiallyWrittenCombinedWrite() {
+        final RecordingFilter downstream = new RecordingFilter();
+        final TaskQueueFilter queueFilter = new TaskQueueFilter(downstream);
+        final List<String> completed = new ArrayList<>();
+
+        queueFilter.write(buffer("a"), new RecordingHandler<ByteBuffer>("a", completed));
+        queueFilter.write(buffer("bb"), new RecordingHandler<ByteBuffer>("bb", completed));
+        queueFilter.write(buffer("cc"), new RecordingHandler<ByteBuffer>("cc", completed));
+        downstream.complete();
+
+        // only "bb" and the first byte of "cc" get written.
+        downstream.complete(3);
+        assertEquals("[a, bb]", completed.toString());
+
+        assertEquals(3, downstream.writes.size());
+        assertEquals("c", downstream.writes.get(2));
+        downstream.complete();
+        assertEquals("[a, bb, cc]", completed.toString());
+    }
+
+    @Test
+    public void testCloseNotCombined() {
+        final RecordingFilter downstream = new RecordingFilter();
+        final TaskQueueFilter queueFilter = new TaskQueueFilter(downstream);
+        final List<String> completed = new ArrayList<>();
+
+        queueFilter.write(buffer("a"), new RecordingHandler<ByteBuffer>("a", completed));
+        queueFilter.write(buffer("b"), new RecordingHandler<ByteBuffer>("b", completed));
+        queueFilter.close();
+        queueFilter.write(buffer("c"), new RecordingHandler<ByteBuffer>("c", completed));
+
+        downstream.complete();
+        downstream.complete();
+        assertEquals("[a, b]", completed.toString());
+        assertTrue(downstream.closed);
+        assertEquals(3, downstream.writes.size());
+        assertEquals("c", downstream.writes.get(2));
+    }
+
+    @Test
+    public void testCombinedWriteFailed() {
+        final RecordingFilter downstream = new RecordingFilter();
+        final TaskQueueFilter queueFilter = new TaskQueueFilter(downstream);
+        final List<String> completed = new ArrayList<>();
+
+        queueFilter.write(buffer("a"), new RecordingHandler<ByteBuffer>("a", completed));
+        queueFilter.write(buffer("b"), new RecordingHandler<ByteBuffer>("b", completed));
+        queueFilter.write(buffer("c"), new RecordingHandler<ByteBuffer>("c", completed));
+
+        downstream.complete();
+        downstream.fail();
+        assertEquals("[a, b failed, c failed]", completed.toString());
+    }
+
+    private static ByteBuffer buffer(String data) {
+        return ByteBuffer.wrap(data.getBytes());
+    }
+
+    /**
+     * Records the data of each write and keeps it in progress until it is completed by the test.
+     */
+    private static class RecordingFilter extends Filter {
+
+        private final List<String> writes = new ArrayList<>();
+        private ByteBuffer[] pendingData;
+        private CompletionHandler<ByteBuffer[]> pendingHandler;
+        private boolean closed = false;
+
+        RecordingFilter() {
+            super(null);
+        }
+
+        @Override
+        void write(final ByteBuffer data, final CompletionHandler<ByteBuffer> completionHandler) {
+            write(new ByteBuffer[]{data}, new CompletionHandler<ByteBuffer[]>() {
+                @Override
+                public void completed(ByteBuffer[] result) {
+                    completionHandler.completed(data);
+                }
+
+                @Override
+                public void failed(Throwable throwable) {
+                    completionHandler.failed(throwable);
+                }
+            });
+        }
+
+        @Override
+        void write(ByteBuffer[] data, CompletionHandler<ByteBuffer[]> completionHandler) {
+            final StringBuilder sb = new StringBuilder();
+            for (ByteBuffer buffer : data) {
+                final ByteBuffer duplicate = buffer.duplicate();
+                while (duplicate.hasRemaining()) {
+                    sb.append((char) duplicate.get());
+                }
+            }
+            writes.add(sb.toString());
+            pendingData = data;
+            pendingHandler = completionHandler;
+        }
+
+        @Override
+        void close() {
+            closed = true;
+        }
+
+        void complete() {
+            complete(Integer.MAX_VALUE);
+        }
+
+        void complete(int bytes) {
+            for (ByteBuffer buffer : pendingData) {
+                final int written = Math.min(bytes, buffer.remaining());
+                buffer.position(buffer.position() + written);
+                bytes -= written;
+            }
+            pendingHandler.completed(pendingData);
+        }
+
+        void fail() {
+            pendingHandler.failed(new Exception());
+        }
+    }
+
+    private static class RecordingHandler<T> extends CompletionHandler<T> {
+
+        private final String name;
+        private final List<String> completed;
+
+        RecordingHandler(String name, List<String> completed) {
+            this.name = name;
+            this.completed = completed;
+        }
+
+        @Override
+        public void completed(T result) {
+            completed.add(name);
+        }
+
+        @Override
+        public void failed(Throwable throwable) {
+            completed.add(name + " failed");
+        }
+    }
+}
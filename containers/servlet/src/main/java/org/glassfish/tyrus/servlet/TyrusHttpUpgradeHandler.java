@@ -54,6 +54,7 @@ import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpUpgradeHandler;
 import javax.servlet.http.WebConnection;
 
+import org.glassfish.tyrus.core.ByteBufferPool;
 import org.glassfish.tyrus.core.CloseReasons;
 import org.glassfish.tyrus.spi.Connection;
 import org.glassfish.tyrus.spi.WebSocketEngine;
@@ -71,15 +72,73 @@ public class TyrusHttpUpgradeHandler implements HttpUpgradeHandler, ReadListener
 
     public static final String FRAME_BUFFER_SIZE = "org.glassfish.tyrus.servlet.incoming-buffer-size";
 
+    /**
+     * Size of the buffer used for reading data from {@link ServletInputStream}, in bytes.
+     * <p/>
+     * Frames bigger than the read buffer are read in several parts and assembled by the Tyrus runtime. Default value is
+     * {@value #DEFAULT_READ_BUFFER_SIZE}.
+     * <p/>
+     * The value is read from {@link javax.servlet.ServletContext} init parameters.
+     */
+    public static final String READ_BUFFER_SIZE = "org.glassfish.tyrus.servlet.read-buffer-size";
+
+    /**
+     * Whether the read buffer is leased from shared pool for each read cycle ({@code true}) or allocated once per
+     * connection ({@code false}). Default value is {@code true}.
+     * <p/>
+     * The value is read from {@link javax.servlet.ServletContext} init parameters.
+     */
+    public static final String READ_BUFFER_POOLED = "org.glassfish.tyrus.servlet.read-buffer-pooled";
+
+    /**
+     * Whether frames queued while {@link ServletOutputStream} is not ready should be combined into larger writes with
+     * a single flush per drain cycle. Default value is {@code false}.
+     * <p/>
+     * The value is read from {@link javax.servlet.ServletContext} init parameters.
+     *
+     * @see #WRITE_COMBINING_BUFFER_SIZE
+     */
+    public static final String WRITE_COMBINING_ENABLED = "org.glassfish.tyrus.servlet.write-combining-enabled";
+
+    /**
+     * Size of the buffer queued frames are combined into, in bytes. The combined data is written and flushed each time
+     * the buffer gets full. Default value is {@value #DEFAULT_WRITE_COMBINING_BUFFER_SIZE}.
+     * <p/>
+     * The value is read from {@link javax.servlet.ServletContext} init parameters.
+     *
+     * @see #WRITE_COMBINING_ENABLED
+     */
+    public static final String WRITE_COMBINING_BUFFER_SIZE = "org.glassfish.tyrus.servlet.write-combining-buffer-size";
+
+    /**
+     * Default size of the write combining buffer.
+     *
+     * @see #WRITE_COMBINING_BUFFER_SIZE
+     */
+    public static final int DEFAULT_WRITE_COMBINING_BUFFER_SIZE = 16384;
+
+    /**
+     * Default size of the read buffer.
+     *
+     * @see #READ_BUFFER_SIZE
+     */
+    public static final int DEFAULT_READ_BUFFER_SIZE = 16384;
+
+    // ServletInputStream reads into byte[], direct buffers would not help.
+    private static final ByteBufferPool READ_BUFFER_POOL = ByteBufferPool.getShared(false);
+
     private final CountDownLatch connectionLatch = new CountDownLatch(1);
 
     private ServletInputStream is;
     private ServletOutputStream os;
     private WebConnection wc;
-    private ByteBuffer buf;
+    // read buffer kept by the connection, used only when the buffer is not pooled.
+    private ByteBuffer readBuffer;
 
     private volatile boolean closed = false;
     private int incomingBufferSize = 4194315; // 4M (payload) + 11 (frame overhead)
+    private int readBufferSize = DEFAULT_READ_BUFFER_SIZE;
+    private boolean readBufferPooled = true;
 
     private static final Logger LOGGER = Logger.getLogger(TyrusHttpUpgradeHandler.class.getName());
 
@@ -135,90 +194,53 @@ public class TyrusHttpUpgradeHandler implements HttpUpgradeHandler, ReadListener
             // do nothing.
         }
 
-        do {
-            try {
-                int available = is.available();
-                if (available == 0) {
-                    // tomcat impl returns always 0
-                    available = 16384;
-                }
-
-                int toRead = (buf == null ?
-                        (available > incomingBufferSize ? incomingBufferSize : available) :
-                        buf.remaining() + available > incomingBufferSize ? incomingBufferSize - buf.remaining() :
-                                buf.remaining() + available
-                );
+        final ByteBuffer buffer = getReadBuffer();
 
-                if (toRead == 0) {
-                    throw new IOException(String.format("Tyrus input buffer exceeded. Current buffer size is %s bytes.",
-                                                        incomingBufferSize));
+        try {
+            do {
+                // the read handler consumes whole buffer - frames are processed and a trailing partial frame is
+                // copied - so the data is read directly into the backing array and the buffer is reused.
+                final int len = is.read(buffer.array(), buffer.arrayOffset(), buffer.capacity());
+                if (len < 0) {
+                    break;
                 }
 
-                available -= fillBuf(toRead);
+                LOGGER.finest(String.format("Read Data = %d", len));
 
-                if (buf != null) {
-
-                    LOGGER.finest(String.format("Remaining Data = %d", buf.remaining()));
-
-                    if (buf.hasRemaining()) {
-                        connection.getReadHandler().handle(buf);
-                    }
+                if (len > 0) {
+                    buffer.clear();
+                    buffer.limit(len);
+                    connection.getReadHandler().handle(buffer);
                 }
-            } catch (IOException e) {
-                connection.close(CloseReasons.CANNOT_ACCEPT.getCloseReason());
+            } while (!closed && is.isReady());
+        } catch (IOException e) {
+            connection.close(CloseReasons.CANNOT_ACCEPT.getCloseReason());
+        } finally {
+            if (readBufferPooled) {
+                READ_BUFFER_POOL.release(buffer);
             }
-        } while (!closed && is.isReady());
+        }
     }
 
     /**
-     * Fill the buf with some more websocket protocol data.
+     * Get buffer for reading data from {@link ServletInputStream}.
+     * <p/>
+     * Pooled buffer is leased for one {@link #onDataAvailable()} invocation, so idle connection does not hold any.
+     * Otherwise the buffer is allocated once and kept for the whole life of the connection.
      *
-     * @param length length of data available to read.
-     * @return legth of actually read data.
-     * @throws IOException if some other I/O error occurs.
+     * @return buffer to read the data to.
      */
-    private int fillBuf(int length) throws IOException {
-        byte[] data = new byte[length];
-        int len = is.read(data);
-        if (len == 0) {
-            return 0;
-        }
-        if (buf == null) {
-            LOGGER.finest("No Buffer. Allocating new one");
-            buf = ByteBuffer.wrap(data);
-            buf.limit(len);
-        } else {
-            int limit = buf.limit();
-            int capacity = buf.capacity();
-            int remaining = buf.remaining();
-
-            if (capacity - limit >= len) {
-                // Remaining data need not be changed. New data is just appended
-                LOGGER.finest("Remaining data need not be moved. New data is just appended");
-                buf.mark();
-                buf.position(limit);
-                buf.limit(capacity);
-                buf.put(data, 0, len);
-                buf.limit(limit + len);
-                buf.reset();
-            } else if (remaining + len < capacity) {
-                // Remaining data is moved to left. Then new data is appended
-                LOGGER.finest("Remaining data is moved to left. Then new data is appended");
-                buf.compact();
-                buf.put(data, 0, len);
-                buf.flip();
-            } else {
-                // Remaining data + new > capacity. So allocate new one
-                LOGGER.finest("Remaining data + new > capacity. So allocate new one");
-                byte[] array = new byte[remaining + len];
-                buf.get(array, 0, remaining);
-                System.arraycopy(data, 0, array, remaining, len);
-                buf = ByteBuffer.wrap(array);
-                buf.limit(remaining + len);
-            }
+    private ByteBuffer getReadBuffer() {
+        final int size = Math.max(1, Math.min(readBufferSize, incomingBufferSize));
+
+        if (readBufferPooled) {
+            return READ_BUFFER_POOL.lease(size);
         }
 
-        return len;
+        if (readBuffer == null) {
+            readBuffer = ByteBuffer.allocate(size);
+        }
+        return readBuffer;
     }
 
     @Override
@@ -267,6 +289,27 @@ public class TyrusHttpUpgradeHandler implements HttpUpgradeHandler, ReadListener
         this.incomingBufferSize = incomingBufferSize;
     }
 
+    /**
+     * Set size of the buffer used for reading data from {@link ServletInputStream}.
+     *
+     * @param readBufferSize read buffer size in bytes.
+     * @see #READ_BUFFER_SIZE
+     */
+    public void setReadBufferSize(int readBufferSize) {
+        this.readBufferSize = readBufferSize;
+    }
+
+    /**
+     * Set whether the read buffer is leased from shared pool.
+     *
+     * @param readBufferPooled {@code true} if the read buffer should be leased for each read cycle, {@code false} if
+     *                         it should be allocated once per connection.
+     * @see #READ_BUFFER_POOLED
+     */
+    public void setReadBufferPooled(boolean readBufferPooled) {
+        this.readBufferPooled = readBufferPooled;
+    }
+
     private void httpSessionForcedClose(int closeCode, String closeReason) {
         if (!closed) {
             try {
@@ -60,6 +60,8 @@ import javax.servlet.ServletException;
 import javax.servlet.annotation.HandlesTypes;
 
 import org.glassfish.tyrus.core.DebugContext;
+import org.glassfish.tyrus.core.ExecutorServiceFactory;
+import org.glassfish.tyrus.core.OutboundOverflowPolicy;
 import org.glassfish.tyrus.core.TyrusWebSocketEngine;
 import org.glassfish.tyrus.core.monitoring.ApplicationEventListener;
 import org.glassfish.tyrus.server.TyrusServerContainer;
@@ -100,19 +102,35 @@ public class TyrusServletContainerInitializer implements ServletContainerInitial
                 ctx, TyrusWebSocketEngine.MAX_SESSIONS_PER_REMOTE_ADDR);
         final Boolean parallelBroadcastEnabled = getBooleanContextParam(
                 ctx, TyrusWebSocketEngine.PARALLEL_BROADCAST_ENABLED);
+        final Boolean frameStreamingEnabled = getBooleanContextParam(
+                ctx, TyrusWebSocketEngine.FRAME_STREAMING_ENABLED);
+        final Integer outboundQueueHighWatermark = getIntContextParam(
+                ctx, TyrusWebSocketEngine.OUTBOUND_QUEUE_HIGH_WATERMARK);
+        final Integer outboundQueueLowWatermark = getIntContextParam(
+                ctx, TyrusWebSocketEngine.OUTBOUND_QUEUE_LOW_WATERMARK);
+        final OutboundOverflowPolicy outboundOverflowPolicy = getEnumContextParam(
+                ctx, TyrusWebSocketEngine.OUTBOUND_QUEUE_OVERFLOW_POLICY, OutboundOverflowPolicy.class, null);
+        final Boolean inboundBufferPoolDirect = getBooleanContextParam(
+                ctx, TyrusWebSocketEngine.INBOUND_BUFFER_POOL_DIRECT);
         final DebugContext.TracingType tracingType = getEnumContextParam(
                 ctx, TyrusWebSocketEngine.TRACING_TYPE, DebugContext.TracingType.class, DebugContext.TracingType.OFF);
         final DebugContext.TracingThreshold tracingThreshold =
                 getEnumContextParam(ctx, TyrusWebSocketEngine.TRACING_THRESHOLD, DebugContext.TracingThreshold.class,
                                     DebugContext.TracingThreshold.TRACE);
 
+        final ExecutorServiceFactory executorServiceFactory =
+                ExecutorServiceFactory.fromValue(ctx.getInitParameter(ExecutorServiceFactory.EXECUTOR_SERVICE_FACTORY));
+
         final ApplicationEventListener applicationEventListener = createApplicationEventListener(ctx);
         final TyrusServerContainer serverContainer = new TyrusServerContainer(classes) {
 
             private final WebSocketEngine engine = TyrusWebSocketEngine.builder(this).applicationEventListener
                     (applicationEventListener).incomingBufferSize(incomingBufferSize).maxSessionsPerApp
                     (maxSessionsPerApp).maxSessionsPerRemoteAddr(maxSessionsPerRemoteAddr).parallelBroadcastEnabled
-                    (parallelBroadcastEnabled).tracingType(tracingType).tracingThreshold(tracingThreshold).build();
+                    (parallelBroadcastEnabled).frameStreamingEnabled(frameStreamingEnabled).tracingType(tracingType)
+                    .tracingThreshold(tracingThreshold).outboundQueueHighWatermark(outboundQueueHighWatermark)
+                    .outboundQueueLowWatermark(outboundQueueLowWatermark).outboundOverflowPolicy(outboundOverflowPolicy)
+                    .inboundBufferPoolDirect(inboundBufferPoolDirect).build();
 
             @Override
             public void register(Class<?> endpointClass) throws DeploymentException {
@@ -128,6 +146,11 @@ public class TyrusServletContainerInitializer implements ServletContainerInitial
             public WebSocketEngine getWebSocketEngine() {
                 return engine;
             }
+
+            @Override
+            protected ExecutorServiceFactory getExecutorServiceFactory() {
+                return executorServiceFactory;
+            }
         };
         ctx.setAttribute(ServerContainer.class.getName(), serverContainer);
         Boolean wsadlEnabled = getBooleanContextParam(ctx, TyrusWebSocketEngine.WSADL_SUPPORT);
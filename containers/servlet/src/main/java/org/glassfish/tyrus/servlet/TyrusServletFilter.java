@@ -187,6 +187,16 @@ class TyrusServletFilter implements Filter, HttpSessionListener {
             handler.setIncomingBufferSize(incomingBufferSize);
         }
 
+        @Override
+        public void setReadBufferSize(int readBufferSize) {
+            handler.setReadBufferSize(readBufferSize);
+        }
+
+        @Override
+        public void setReadBufferPooled(boolean readBufferPooled) {
+            handler.setReadBufferPooled(readBufferPooled);
+        }
+
         @Override
         WebConnection getWebConnection() {
             return handler.getWebConnection();
@@ -210,7 +220,8 @@ class TyrusServletFilter implements Filter, HttpSessionListener {
 
             final TyrusHttpUpgradeHandlerProxy handler = new TyrusHttpUpgradeHandlerProxy();
 
-            final TyrusServletWriter webSocketConnection = new TyrusServletWriter(handler);
+            final TyrusServletWriter webSocketConnection =
+                    new TyrusServletWriter(handler, getWriteCombiningBufferSize(request.getServletContext()));
 
             final RequestContext requestContext = RequestContext.Builder
                     .create()
@@ -268,6 +279,16 @@ class TyrusServletFilter implements Filter, HttpSessionListener {
                     if (frameBufferSize != null) {
                         handler.setIncomingBufferSize(Integer.parseInt(frameBufferSize));
                     }
+                    final String readBufferSize = request.getServletContext().getInitParameter
+                            (TyrusHttpUpgradeHandler.READ_BUFFER_SIZE);
+                    if (readBufferSize != null) {
+                        handler.setReadBufferSize(Integer.parseInt(readBufferSize));
+                    }
+                    final String readBufferPooled = request.getServletContext().getInitParameter
+                            (TyrusHttpUpgradeHandler.READ_BUFFER_POOLED);
+                    if (readBufferPooled != null) {
+                        handler.setReadBufferPooled(Boolean.parseBoolean(readBufferPooled));
+                    }
 
                     handler.preInit(upgradeInfo, webSocketConnection, httpServletRequest.getUserPrincipal() != null);
 
@@ -306,6 +327,23 @@ class TyrusServletFilter implements Filter, HttpSessionListener {
         }
     }
 
+    /**
+     * Get size of the write combining buffer configured in servlet context.
+     *
+     * @param servletContext servlet context.
+     * @return size of the write combining buffer or {@code 0} when write combining is disabled.
+     */
+    private static int getWriteCombiningBufferSize(ServletContext servletContext) {
+        if (!Boolean.parseBoolean(servletContext.getInitParameter(TyrusHttpUpgradeHandler.WRITE_COMBINING_ENABLED))) {
+            return 0;
+        }
+
+        final String writeCombiningBufferSize =
+                servletContext.getInitParameter(TyrusHttpUpgradeHandler.WRITE_COMBINING_BUFFER_SIZE);
+        return writeCombiningBufferSize == null ? TyrusHttpUpgradeHandler.DEFAULT_WRITE_COMBINING_BUFFER_SIZE :
+                Integer.parseInt(writeCombiningBufferSize);
+    }
+
     private void appendTraceHeaders(HttpServletResponse httpServletResponse, TyrusUpgradeResponse
             tyrusUpgradeResponse) {
         for (Map.Entry<String, List<String>> entry : tyrusUpgradeResponse.getHeaders().entrySet()) {
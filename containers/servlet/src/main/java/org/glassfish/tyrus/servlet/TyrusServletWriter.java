@@ -41,19 +41,26 @@ package org.glassfish.tyrus.servlet;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.WriteListener;
 
+import org.glassfish.tyrus.core.ByteBufferPool;
 import org.glassfish.tyrus.spi.CompletionHandler;
 import org.glassfish.tyrus.spi.Writer;
 
 /**
  * {@link org.glassfish.tyrus.spi.Writer} implementation used in Servlet integration.
+ * <p/>
+ * When write combining is enabled, frames queued while the {@link ServletOutputStream} was not ready are copied into
+ * one buffer in {@link #onWritePossible()} and written by a single write followed by a single flush whenever the
+ * buffer is full and at the end of the drain cycle. Otherwise each queued frame is written and flushed separately.
  *
  * @author Pavel Bucek (pavel.bucek at oracle.com)
  */
@@ -63,6 +70,13 @@ class TyrusServletWriter extends Writer implements WriteListener {
     private final Deque<QueuedFrame> queue = new LinkedList<QueuedFrame>();
 
     private static final Logger LOGGER = Logger.getLogger(TyrusServletWriter.class.getName());
+    private static final ByteBufferPool BUFFER_POOL = ByteBufferPool.getShared(false);
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    // size of the buffer frames are combined into, write combining is disabled when not positive.
+    private final int writeCombiningBufferSize;
+    // frames copied to the combining buffer, completed once the buffer is written and flushed.
+    private final List<QueuedFrame> combinedFrames = new ArrayList<QueuedFrame>();
 
     /**
      * ServletOutputStream is not thread safe, must be synchronized.
@@ -77,10 +91,51 @@ class TyrusServletWriter extends Writer implements WriteListener {
     private static class QueuedFrame {
         public final CompletionHandler<ByteBuffer> completionHandler;
         public final ByteBuffer dataFrame;
+        public final CompletionHandler<ByteBuffer[]> gatheringCompletionHandler;
+        public final ByteBuffer[] dataFrames;
 
         QueuedFrame(CompletionHandler<ByteBuffer> completionHandler, ByteBuffer dataFrame) {
             this.completionHandler = completionHandler;
             this.dataFrame = dataFrame;
+            this.gatheringCompletionHandler = null;
+            this.dataFrames = null;
+        }
+
+        QueuedFrame(CompletionHandler<ByteBuffer[]> gatheringCompletionHandler, ByteBuffer[] dataFrames) {
+            this.completionHandler = null;
+            this.dataFrame = null;
+            this.gatheringCompletionHandler = gatheringCompletionHandler;
+            this.dataFrames = dataFrames;
+        }
+
+        int remaining() {
+            if (dataFrames == null) {
+                return dataFrame.remaining();
+            }
+
+            int remaining = 0;
+            for (ByteBuffer buffer : dataFrames) {
+                remaining += buffer.remaining();
+            }
+            return remaining;
+        }
+
+        void completed() {
+            if (dataFrames == null) {
+                if (completionHandler != null) {
+                    completionHandler.completed(dataFrame);
+                }
+            } else if (gatheringCompletionHandler != null) {
+                gatheringCompletionHandler.completed(dataFrames);
+            }
+        }
+
+        void failed(Throwable t) {
+            if (dataFrames == null) {
+                completionHandler.failed(t);
+            } else if (gatheringCompletionHandler != null) {
+                gatheringCompletionHandler.failed(t);
+            }
         }
     }
 
@@ -90,18 +145,39 @@ class TyrusServletWriter extends Writer implements WriteListener {
      * @param tyrusHttpUpgradeHandler encapsulated {@link TyrusHttpUpgradeHandler} instance.
      */
     public TyrusServletWriter(TyrusHttpUpgradeHandler tyrusHttpUpgradeHandler) {
+        this(tyrusHttpUpgradeHandler, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param tyrusHttpUpgradeHandler  encapsulated {@link TyrusHttpUpgradeHandler} instance.
+     * @param writeCombiningBufferSize size of the buffer queued frames are combined into, in bytes. Write combining is
+     *                                 disabled when the value is not positive.
+     */
+    public TyrusServletWriter(TyrusHttpUpgradeHandler tyrusHttpUpgradeHandler, int writeCombiningBufferSize) {
         this.tyrusHttpUpgradeHandler = tyrusHttpUpgradeHandler;
+        this.writeCombiningBufferSize = writeCombiningBufferSize;
     }
 
     @Override
     public synchronized void onWritePossible() throws IOException {
         LOGGER.log(Level.FINEST, "OnWritePossible called");
 
+        if (writeCombiningBufferSize > 0) {
+            writeCombined();
+            return;
+        }
+
         while (!queue.isEmpty() && servletOutputStream.isReady()) {
             final QueuedFrame queuedFrame = queue.poll();
             assert queuedFrame != null;
 
-            _write(queuedFrame.dataFrame, queuedFrame.completionHandler);
+            if (queuedFrame.dataFrames == null) {
+                _write(queuedFrame.dataFrame, queuedFrame.completionHandler);
+            } else {
+                _write(queuedFrame.dataFrames, queuedFrame.gatheringCompletionHandler);
+            }
         }
     }
 
@@ -111,7 +187,7 @@ class TyrusServletWriter extends Writer implements WriteListener {
 
         QueuedFrame queuedFrame;
         while ((queuedFrame = queue.poll()) != null) {
-            queuedFrame.completionHandler.failed(t);
+            queuedFrame.failed(t);
         }
     }
 
@@ -134,26 +210,44 @@ class TyrusServletWriter extends Writer implements WriteListener {
         } else {
             final QueuedFrame queuedFrame = new QueuedFrame(completionHandler, buffer);
             queue.offer(queuedFrame);
+            setWriteListener();
+        }
+    }
+
+    @Override
+    public synchronized void write(final ByteBuffer[] buffers, CompletionHandler<ByteBuffer[]> completionHandler) {
 
-            if (!isListenerSet) {
-                isListenerSet = true;
-                servletOutputStream.setWriteListener(this);
+        // first write
+        if (servletOutputStream == null) {
+            try {
+                servletOutputStream = tyrusHttpUpgradeHandler.getWebConnection().getOutputStream();
+            } catch (IOException e) {
+                LOGGER.log(Level.CONFIG, "ServletOutputStream cannot be obtained", e);
+                completionHandler.failed(e);
+                return;
             }
         }
+
+        if (queue.isEmpty() && servletOutputStream.isReady()) {
+            _write(buffers, completionHandler);
+        } else {
+            final QueuedFrame queuedFrame = new QueuedFrame(completionHandler, buffers);
+            queue.offer(queuedFrame);
+            setWriteListener();
+        }
+    }
+
+    private void setWriteListener() {
+        if (!isListenerSet) {
+            isListenerSet = true;
+            servletOutputStream.setWriteListener(this);
+        }
     }
 
     private void _write(ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler) {
 
         try {
-            if (buffer.hasArray()) {
-                byte[] array = buffer.array();
-                servletOutputStream.write(array, buffer.arrayOffset() + buffer.position(), buffer.remaining());
-            } else {
-                final int remaining = buffer.remaining();
-                final byte[] array = new byte[remaining];
-                buffer.get(array);
-                servletOutputStream.write(array);
-            }
+            writeBuffer(buffer);
 
             servletOutputStream.flush();
 
@@ -167,6 +261,156 @@ class TyrusServletWriter extends Writer implements WriteListener {
         }
     }
 
+    private void _write(ByteBuffer[] buffers, CompletionHandler<ByteBuffer[]> completionHandler) {
+
+        try {
+            for (ByteBuffer buffer : buffers) {
+                if (!buffer.hasRemaining()) {
+                    continue;
+                }
+
+                // servlet output stream cannot accept more data now, rest of the buffers will be written later.
+                if (!servletOutputStream.isReady()) {
+                    queue.addFirst(new QueuedFrame(completionHandler, buffers));
+                    setWriteListener();
+                    return;
+                }
+
+                writeBuffer(buffer);
+                buffer.position(buffer.limit());
+            }
+
+            servletOutputStream.flush();
+
+            if (completionHandler != null) {
+                completionHandler.completed(buffers);
+            }
+        } catch (Exception e) {
+            if (completionHandler != null) {
+                completionHandler.failed(e);
+            }
+        }
+    }
+
+    /**
+     * Write queued frames combined into as few writes and flushes as possible.
+     * <p/>
+     * Frames which do not fit into the combining buffer are written directly, after the data combined so far.
+     */
+    private void writeCombined() {
+        if (queue.isEmpty() || !servletOutputStream.isReady()) {
+            return;
+        }
+
+        final ByteBuffer combiningBuffer = BUFFER_POOL.lease(writeCombiningBufferSize);
+        final byte[] array = combiningBuffer.array();
+        final int offset = combiningBuffer.arrayOffset();
+        final int capacity = combiningBuffer.capacity();
+        int combined = 0;
+
+        try {
+            while (!queue.isEmpty()) {
+                final QueuedFrame queuedFrame = queue.peek();
+                final int size = queuedFrame.remaining();
+
+                if (combined > 0 && combined + size > capacity) {
+                    flushCombined(array, offset, combined);
+                    combined = 0;
+
+                    if (!servletOutputStream.isReady()) {
+                        break;
+                    }
+                }
+
+                queue.poll();
+
+                if (size <= capacity) {
+                    if (queuedFrame.dataFrames == null) {
+                        copy(queuedFrame.dataFrame, array, offset + combined);
+                    } else {
+                        int position = offset + combined;
+                        for (ByteBuffer buffer : queuedFrame.dataFrames) {
+                            final int remaining = buffer.remaining();
+                            copy(buffer, array, position);
+                            buffer.position(buffer.limit());
+                            position += remaining;
+                        }
+                    }
+                    combined += size;
+                    combinedFrames.add(queuedFrame);
+                } else {
+                    // does not fit, written the usual way; gathering frame is put back to the queue when the stream
+                    // stops being ready in the middle of it.
+                    if (queuedFrame.dataFrames == null) {
+                        _write(queuedFrame.dataFrame, queuedFrame.completionHandler);
+                    } else {
+                        _write(queuedFrame.dataFrames, queuedFrame.gatheringCompletionHandler);
+                    }
+
+                    if (!servletOutputStream.isReady()) {
+                        break;
+                    }
+                }
+            }
+
+            if (combined > 0) {
+                flushCombined(array, offset, combined);
+            }
+        } catch (Exception e) {
+            for (QueuedFrame queuedFrame : combinedFrames) {
+                queuedFrame.failed(e);
+            }
+            combinedFrames.clear();
+        } finally {
+            BUFFER_POOL.release(combiningBuffer);
+        }
+    }
+
+    private void flushCombined(byte[] array, int offset, int length) throws IOException {
+        servletOutputStream.write(array, offset, length);
+        servletOutputStream.flush();
+
+        for (QueuedFrame queuedFrame : combinedFrames) {
+            queuedFrame.completed();
+        }
+        combinedFrames.clear();
+    }
+
+    /**
+     * Copy remaining data of the buffer to the array; position of the buffer is not changed.
+     */
+    private static void copy(ByteBuffer buffer, byte[] array, int offset) {
+        final int remaining = buffer.remaining();
+        if (buffer.hasArray()) {
+            System.arraycopy(buffer.array(), buffer.arrayOffset() + buffer.position(), array, offset, remaining);
+        } else {
+            final int position = buffer.position();
+            buffer.get(array, offset, remaining);
+            buffer.position(position);
+        }
+    }
+
+    private void writeBuffer(ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            byte[] array = buffer.array();
+            servletOutputStream.write(array, buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            // copied through a pooled array in parts instead of allocating an array per frame.
+            final ByteBuffer copyBuffer = BUFFER_POOL.lease(Math.min(buffer.remaining(), COPY_BUFFER_SIZE));
+            try {
+                final byte[] array = copyBuffer.array();
+                final int offset = copyBuffer.arrayOffset();
+                while (buffer.hasRemaining()) {
+                    final int length = Math.min(buffer.remaining(), copyBuffer.capacity());
+                    buffer.get(array, offset, length);
+                    servletOutputStream.write(array, offset, length);
+                }
+            } finally {
+                BUFFER_POOL.release(copyBuffer);
+            }
+        }
+    }
+
     @Override
     public void close() {
         try {
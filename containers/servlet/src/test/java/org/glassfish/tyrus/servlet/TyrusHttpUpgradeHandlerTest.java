@@ -0,0 +1,302 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+import javax.websocket.CloseReason;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.WebConnection;
+
+import org.glassfish.tyrus.core.ByteBufferPool;
+import org.glassfish.tyrus.spi.Connection;
+import org.glassfish.tyrus.spi.ReadHandler;
+import org.glassfish.tyrus.spi.WebSocketEngine;
+import org.glassfish.tyrus.spi.Writer;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests reading of data in {@link TyrusHttpUpgradeHandler#onDataAvailable()}.
+ */
+public class TyrusHttpUpgradeHandlerTest {
+
+    private static final ByteBufferPool READ_BUFFER_POOL = ByteBufferPool.getShared(false);
+
+    @Test
+    public void testPooledBufferReadInParts() {
+        final RecordingConnection connection = new RecordingConnection();
+        final FakeInputStream inputStream = new FakeInputStream();
+        final TyrusHttpUpgradeHandler handler = createHandler(connection, inputStream, 256, true);
+        final long leasedBytes = READ_BUFFER_POOL.getLeasedBytes();
+
+        final byte[] data = data(1000);
+        inputStream.chunks.add(data);
+        handler.onDataAvailable();
+
+        // data bigger than the read buffer is passed to the read handler in several parts.
+        assertArrayEquals(data, connection.data.toByteArray());
+        assertEquals(4, connection.buffers.size());
+        for (ByteBuffer buffer : connection.buffers) {
+            assertSame(connection.buffers.get(0), buffer);
+        }
+
+        // the buffer is returned to the pool at the end of the read cycle.
+        assertEquals(leasedBytes, READ_BUFFER_POOL.getLeasedBytes());
+    }
+
+    @Test
+    public void testBufferReusedByConnection() {
+        final RecordingConnection connection = new RecordingConnection();
+        final FakeInputStream inputStream = new FakeInputStream();
+        final TyrusHttpUpgradeHandler handler = createHandler(connection, inputStream, 256, false);
+        final long leasedBytes = READ_BUFFER_POOL.getLeasedBytes();
+
+        final byte[] first = data(300);
+        final byte[] second = data(100);
+        inputStream.chunks.add(first);
+        handler.onDataAvailable();
+        inputStream.chunks.add(second);
+        handler.onDataAvailable();
+
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(first, 0, first.length);
+        expected.write(second, 0, second.length);
+        assertArrayEquals(expected.toByteArray(), connection.data.toByteArray());
+
+        // [256, 44] from the first cycle, [100] from the second one, all read to the same buffer.
+        assertEquals(3, connection.buffers.size());
+        for (ByteBuffer buffer : connection.buffers) {
+            assertSame(connection.buffers.get(0), buffer);
+        }
+        assertEquals(256, connection.buffers.get(0).capacity());
+        assertEquals(leasedBytes, READ_BUFFER_POOL.getLeasedBytes());
+    }
+
+    @Test
+    public void testReadFailureClosesConnection() {
+        final RecordingConnection connection = new RecordingConnection();
+        final FakeInputStream inputStream = new FakeInputStream();
+        final TyrusHttpUpgradeHandler handler = createHandler(connection, inputStream, 256, true);
+        final long leasedBytes = READ_BUFFER_POOL.getLeasedBytes();
+
+        inputStream.chunks.add(data(100));
+        inputStream.failure = new IOException("Connection reset");
+        handler.onDataAvailable();
+
+        assertTrue(connection.buffers.isEmpty());
+        assertEquals(CloseReason.CloseCodes.CANNOT_ACCEPT, connection.closeReason.getCloseCode());
+        assertEquals(leasedBytes, READ_BUFFER_POOL.getLeasedBytes());
+    }
+
+    @Test
+    public void testEndOfStream() {
+        final RecordingConnection connection = new RecordingConnection();
+        final FakeInputStream inputStream = new FakeInputStream();
+        final TyrusHttpUpgradeHandler handler = createHandler(connection, inputStream, 256, true);
+
+        inputStream.finished = true;
+        handler.onDataAvailable();
+
+        assertTrue(connection.buffers.isEmpty());
+        assertNull(connection.closeReason);
+    }
+
+    private static byte[] data(int length) {
+        final byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    private static TyrusHttpUpgradeHandler createHandler(final RecordingConnection connection,
+                                                         final ServletInputStream inputStream, int readBufferSize,
+                                                         boolean readBufferPooled) {
+        final TyrusHttpUpgradeHandler handler = new TyrusHttpUpgradeHandler();
+        handler.setReadBufferSize(readBufferSize);
+        handler.setReadBufferPooled(readBufferPooled);
+        handler.preInit(new WebSocketEngine.UpgradeInfo() {
+            @Override
+            public WebSocketEngine.UpgradeStatus getStatus() {
+                return WebSocketEngine.UpgradeStatus.SUCCESS;
+            }
+
+            @Override
+            public Connection createConnection(Writer writer, Connection.CloseListener closeListener) {
+                return connection;
+            }
+        }, null, false);
+
+        handler.init(new WebConnection() {
+            @Override
+            public ServletInputStream getInputStream() {
+                return inputStream;
+            }
+
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return new ServletOutputStream() {
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                    }
+
+                    @Override
+                    public void write(int b) {
+                    }
+                };
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        return handler;
+    }
+
+    /**
+     * Input stream returning queued chunks of data; it is ready while there is a chunk to read.
+     */
+    private static class FakeInputStream extends ServletInputStream {
+
+        private final Queue<byte[]> chunks = new LinkedList<byte[]>();
+        private IOException failure;
+        private boolean finished = false;
+        private int position = 0;
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return !chunks.isEmpty();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+
+            final byte[] chunk = chunks.peek();
+            if (chunk == null) {
+                return finished ? -1 : 0;
+            }
+
+            final int read = Math.min(len, chunk.length - position);
+            System.arraycopy(chunk, position, b, off, read);
+            position += read;
+            if (position == chunk.length) {
+                chunks.poll();
+                position = 0;
+            }
+            return read;
+        }
+    }
+
+    private static class RecordingConnection implements Connection {
+
+        // content of all the buffers passed to the read handler.
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        private final List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+        private CloseReason closeReason;
+
+        @Override
+        public ReadHandler getReadHandler() {
+            return new ReadHandler() {
+                @Override
+                public void handle(ByteBuffer buffer) {
+                    buffers.add(buffer);
+                    while (buffer.hasRemaining()) {
+                        data.write(buffer.get());
+                    }
+                }
+            };
+        }
+
+        @Override
+        public Writer getWriter() {
+            return null;
+        }
+
+        @Override
+        public CloseListener getCloseListener() {
+            return null;
+        }
+
+        @Override
+        public void close(CloseReason reason) {
+            closeReason = reason;
+        }
+    }
+}
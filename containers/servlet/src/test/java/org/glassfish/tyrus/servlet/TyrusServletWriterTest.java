@@ -0,0 +1,313 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.WebConnection;
+
+import org.glassfish.tyrus.spi.CompletionHandler;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests draining of frames queued in {@link TyrusServletWriter}, with and without write combining.
+ */
+public class TyrusServletWriterTest {
+
+    private static final int FRAME_COUNT = 1000;
+    private static final int FRAME_SIZE = 100;
+
+    @Test
+    public void testQueuedFramesWrittenSeparately() throws IOException {
+        final RecordingOutputStream outputStream = new RecordingOutputStream();
+        final TyrusServletWriter writer = createWriter(outputStream, 0);
+        final List<String> completed = new ArrayList<String>();
+
+        final byte[] expected = queueFrames(writer, outputStream, completed);
+        writer.onWritePossible();
+
+        assertArrayEquals(expected, outputStream.data.toByteArray());
+        assertEquals(FRAME_COUNT, completed.size());
+        assertEquals(FRAME_COUNT, outputStream.flushes);
+    }
+
+    @Test
+    public void testQueuedFramesCombined() throws IOException {
+        final RecordingOutputStream outputStream = new RecordingOutputStream();
+        final TyrusServletWriter writer = createWriter(outputStream, 16384);
+        final List<String> completed = new ArrayList<String>();
+
+        final byte[] expected = queueFrames(writer, outputStream, completed);
+        writer.onWritePossible();
+
+        assertArrayEquals(expected, outputStream.data.toByteArray());
+        assertEquals(FRAME_COUNT, completed.size());
+        assertOrdered(completed);
+
+        // 163 frames fit into the combining buffer, each full buffer is written and flushed once.
+        final int expectedWrites = (FRAME_COUNT + 162) / 163;
+        assertEquals(expectedWrites, outputStream.writes);
+        assertEquals(expectedWrites, outputStream.flushes);
+    }
+
+    @Test
+    public void testFrameBiggerThanCombiningBuffer() throws IOException {
+        final RecordingOutputStream outputStream = new RecordingOutputStream();
+        final TyrusServletWriter writer = createWriter(outputStream, 256);
+        final List<String> completed = new ArrayList<String>();
+
+        outputStream.ready = false;
+        writer.write(ByteBuffer.wrap(frame(0, 100)), new RecordingHandler<ByteBuffer>("0", completed));
+        writer.write(ByteBuffer.wrap(frame(1, 1000)), new RecordingHandler<ByteBuffer>("1", completed));
+        writer.write(ByteBuffer.wrap(frame(2, 100)), new RecordingHandler<ByteBuffer>("2", completed));
+
+        outputStream.ready = true;
+        writer.onWritePossible();
+
+        // data combined before the big frame is written first.
+        assertArrayEquals(concat(frame(0, 100), frame(1, 1000), frame(2, 100)), outputStream.data.toByteArray());
+        assertEquals("[0, 1, 2]", completed.toString());
+        assertEquals(3, outputStream.flushes);
+    }
+
+    @Test
+    public void testStreamNotReadyWhileCombining() throws IOException {
+        final RecordingOutputStream outputStream = new RecordingOutputStream();
+        final TyrusServletWriter writer = createWriter(outputStream, 1024);
+        final List<String> completed = new ArrayList<String>();
+
+        final byte[] expected = queueFrames(writer, outputStream, completed);
+
+        // the stream accepts only one write per drain cycle.
+        outputStream.writesUntilNotReady = 1;
+        writer.onWritePossible();
+
+        assertEquals(10, completed.size());
+        assertEquals(10 * FRAME_SIZE, outputStream.data.size());
+
+        while (completed.size() < FRAME_COUNT) {
+            final int written = completed.size();
+            outputStream.writesUntilNotReady = 1;
+            writer.onWritePossible();
+            assertTrue(completed.size() > written);
+        }
+
+        assertArrayEquals(expected, outputStream.data.toByteArray());
+        assertOrdered(completed);
+    }
+
+    @Test
+    public void testCombinedFramesFailed() throws IOException {
+        final RecordingOutputStream outputStream = new RecordingOutputStream();
+        final TyrusServletWriter writer = createWriter(outputStream, 16384);
+        final List<String> completed = new ArrayList<String>();
+        final List<Throwable> failed = new ArrayList<Throwable>();
+
+        outputStream.ready = false;
+        for (int i = 0; i < 3; i++) {
+            writer.write(ByteBuffer.wrap(frame(i, FRAME_SIZE)), new RecordingHandler<ByteBuffer>("" + i, completed) {
+                @Override
+                public void failed(Throwable throwable) {
+                    failed.add(throwable);
+                }
+            });
+        }
+
+        outputStream.ready = true;
+        outputStream.failure = new IOException("Broken pipe");
+        writer.onWritePossible();
+
+        assertTrue(completed.isEmpty());
+        assertEquals(Arrays.<Throwable>asList(outputStream.failure, outputStream.failure, outputStream.failure),
+                     failed);
+    }
+
+    /**
+     * Queue frames while the output stream is not ready, every other one as a gathering write.
+     *
+     * @return expected content of the output stream after all the frames are written.
+     */
+    private static byte[] queueFrames(TyrusServletWriter writer, RecordingOutputStream outputStream,
+                                      List<String> completed) {
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+
+        outputStream.ready = false;
+        for (int i = 0; i < FRAME_COUNT; i++) {
+            final byte[] frame = frame(i, FRAME_SIZE);
+            expected.write(frame, 0, frame.length);
+
+            if (i % 2 == 0) {
+                writer.write(ByteBuffer.wrap(frame), new RecordingHandler<ByteBuffer>("" + i, completed));
+            } else {
+                final ByteBuffer direct = ByteBuffer.allocateDirect(FRAME_SIZE - 10);
+                direct.put(frame, 10, FRAME_SIZE - 10).flip();
+                writer.write(new ByteBuffer[]{ByteBuffer.wrap(frame, 0, 10), direct},
+                             new RecordingHandler<ByteBuffer[]>("" + i, completed));
+            }
+        }
+
+        assertNotNull(outputStream.writeListener);
+        assertEquals(0, outputStream.data.size());
+        outputStream.ready = true;
+
+        return expected.toByteArray();
+    }
+
+    private static void assertOrdered(List<String> completed) {
+        for (int i = 0; i < completed.size(); i++) {
+            assertEquals("" + i, completed.get(i));
+        }
+    }
+
+    private static byte[] frame(int index, int size) {
+        final byte[] frame = new byte[size];
+        Arrays.fill(frame, (byte) index);
+        return frame;
+    }
+
+    private static byte[] concat(byte[]... arrays) {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        for (byte[] array : arrays) {
+            result.write(array, 0, array.length);
+        }
+        return result.toByteArray();
+    }
+
+    private static TyrusServletWriter createWriter(final ServletOutputStream outputStream,
+                                                   int writeCombiningBufferSize) {
+        final TyrusHttpUpgradeHandler upgradeHandler = new TyrusHttpUpgradeHandler() {
+            @Override
+            WebConnection getWebConnection() {
+                return new WebConnection() {
+                    @Override
+                    public ServletInputStream getInputStream() {
+                        throw new UnsupportedOperationException();
+                    }
+
+                    @Override
+                    public ServletOutputStream getOutputStream() {
+                        return outputStream;
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                };
+            }
+        };
+
+        return new TyrusServletWriter(upgradeHandler, writeCombiningBufferSize);
+    }
+
+    private static class RecordingOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        private boolean ready = true;
+        // number of writes after which the stream stops being ready, not limited when negative.
+        private int writesUntilNotReady = -1;
+        private IOException failure;
+        private WriteListener writeListener;
+        private int writes = 0;
+        private int flushes = 0;
+
+        @Override
+        public boolean isReady() {
+            return ready && writesUntilNotReady != 0;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            this.writeListener = writeListener;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            assertTrue(isReady());
+            if (failure != null) {
+                throw failure;
+            }
+
+            data.write(b, off, len);
+            writes++;
+            if (writesUntilNotReady > 0) {
+                writesUntilNotReady--;
+            }
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+
+    private static class RecordingHandler<T> extends CompletionHandler<T> {
+
+        private final String name;
+        private final List<String> completed;
+
+        RecordingHandler(String name, List<String> completed) {
+            this.name = name;
+            this.completed = completed;
+        }
+
+        @Override
+        public void completed(T result) {
+            completed.add(name);
+        }
+    }
+}
@@ -73,6 +73,8 @@ public abstract class BaseContainer extends ExecutorServiceProvider implements W
 
     private volatile ExecutorService executorService = null;
     private volatile ScheduledExecutorService scheduledExecutorService = null;
+    private volatile ExecutorServiceFactory executorServiceFactory = null;
+    private volatile boolean executorServiceFactoryResolved = false;
 
     public BaseContainer() {
         this.managedExecutorService = lookupManagedExecutorService();
@@ -88,23 +90,32 @@ public abstract class BaseContainer extends ExecutorServiceProvider implements W
     }
 
     /**
-     * Returns a container-managed {@link java.util.concurrent.ExecutorService} registered under
-     * {@code java:comp/DefaultManagedExecutorService} or if the lookup has failed, it returns a
-     * {@link java.util.concurrent.ExecutorService} created and managed by this instance of
-     * {@link org.glassfish.tyrus.core.BaseContainer}.
+     * Returns an {@link java.util.concurrent.ExecutorService} created by the configured
+     * {@link ExecutorServiceFactory}. If there is no factory configured, it returns a container-managed
+     * {@link java.util.concurrent.ExecutorService} registered under {@code java:comp/DefaultManagedExecutorService}
+     * or if the lookup has failed, it returns a {@link java.util.concurrent.ExecutorService} created and managed by
+     * this instance of {@link org.glassfish.tyrus.core.BaseContainer}.
      *
      * @return executor service.
+     * @see #getExecutorServiceFactory()
      */
     @Override
     public ExecutorService getExecutorService() {
-        if (managedExecutorService != null) {
+        final ExecutorServiceFactory factory = resolveExecutorServiceFactory();
+
+        if (managedExecutorService != null && factory == null) {
             return managedExecutorService;
         }
 
         if (executorService == null) {
             synchronized (EXECUTORS_CLEAN_UP_LOCK) {
                 if (executorService == null) {
-                    executorService = Executors.newCachedThreadPool(threadFactory);
+                    if (factory == null) {
+                        executorService = Executors.newCachedThreadPool(threadFactory);
+                    } else {
+                        executorService = factory.createExecutorService(
+                                threadFactory == null ? new DaemonThreadFactory() : threadFactory);
+                    }
                 }
             }
         }
@@ -137,6 +148,28 @@ public abstract class BaseContainer extends ExecutorServiceProvider implements W
         return scheduledExecutorService;
     }
 
+    /**
+     * Get {@link ExecutorServiceFactory} used for creating the executor service returned from
+     * {@link #getExecutorService()}.
+     * <p/>
+     * The method is invoked once, when the executor service is requested for the first time. Containers configurable
+     * by properties are expected to override it and read {@link ExecutorServiceFactory#EXECUTOR_SERVICE_FACTORY}.
+     *
+     * @return executor service factory or {@code null} when the default executor service should be used.
+     */
+    protected ExecutorServiceFactory getExecutorServiceFactory() {
+        return null;
+    }
+
+    /**
+     * Check whether an {@link ExecutorServiceFactory} is configured for this container.
+     *
+     * @return {@code true} when {@link #getExecutorServiceFactory()} provides a factory, {@code false} otherwise.
+     */
+    boolean isExecutorServiceFactoryConfigured() {
+        return resolveExecutorServiceFactory() != null;
+    }
+
     /**
      * Release executor services managed by this instance. Executor services obtained via JNDI lookup won't be
      * shut down.
@@ -147,6 +180,8 @@ public abstract class BaseContainer extends ExecutorServiceProvider implements W
             executorService = null;
         }
 
+        getTimerWheel().stop();
+
         if (scheduledExecutorService != null) {
             scheduledExecutorService.shutdownNow();
             scheduledExecutorService = null;
@@ -170,6 +205,19 @@ public abstract class BaseContainer extends ExecutorServiceProvider implements W
         }
     }
 
+    private ExecutorServiceFactory resolveExecutorServiceFactory() {
+        if (!executorServiceFactoryResolved) {
+            synchronized (EXECUTORS_CLEAN_UP_LOCK) {
+                if (!executorServiceFactoryResolved) {
+                    executorServiceFactory = getExecutorServiceFactory();
+                    executorServiceFactoryResolved = true;
+                }
+            }
+        }
+
+        return executorServiceFactory;
+    }
+
     private ExecutorService lookupManagedExecutorService() {
         // Get the default ManagedExecutorService, if available
         try {
@@ -0,0 +1,429 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.tyrus.core.l10n.LocalizationMessages;
+import org.glassfish.tyrus.spi.CompletionHandler;
+import org.glassfish.tyrus.spi.Writer;
+
+/**
+ * {@link Writer} used when batching of outgoing messages is allowed.
+ * <p/>
+ * Serialized frames are collected into a batch, which is handed over to the wrapped {@link Writer} using a single
+ * gathering write (see {@link Writer#write(ByteBuffer[], CompletionHandler)}) when the batch size reaches the
+ * configured limit, when the configured delay elapses or when {@link #flush()} is called. Completion handlers of all
+ * batched frames are notified when the batch write is completed (or failed).
+ * <p/>
+ * The batch is assembled under a lock, but the wrapped {@link Writer} is invoked only after the lock is released;
+ * writes are passed to it one by one in their original order by whichever thread finds them pending first.
+ *
+ * @see javax.websocket.RemoteEndpoint#setBatchingAllowed(boolean)
+ */
+class BatchingWriter extends Writer {
+
+    private static final Logger LOGGER = Logger.getLogger(BatchingWriter.class.getName());
+
+    private final Writer writer;
+    private final int maxBatchSize;
+    private final long maxBatchDelay;
+    private final ScheduledExecutorService scheduledExecutorService;
+
+    private final Object lock = new Object();
+
+    private List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+    private List<CompletionHandler<ByteBuffer>> completionHandlers = new ArrayList<CompletionHandler<ByteBuffer>>();
+    private int batchSize = 0;
+    private ScheduledFuture<?> flushTask = null;
+    private boolean closed = false;
+
+    // writes to be passed to the wrapped writer, guarded by lock.
+    private final Deque<Runnable> pendingWrites = new ArrayDeque<Runnable>();
+    private boolean writing = false;
+
+    /**
+     * Constructor.
+     *
+     * @param writer                   wrapped writer, batches are written using this instance.
+     * @param maxBatchSize             maximal size of the batch in bytes. When reached, the batch is written.
+     * @param maxBatchDelay            maximal time in milliseconds a frame can stay in the batch. Values lower than
+     *                                 {@code 1} disable time-based flushing.
+     * @param scheduledExecutorService executor service used for time-based flushing. Can be {@code null}, in that
+     *                                 case the time-based flushing is disabled.
+     */
+    BatchingWriter(Writer writer, int maxBatchSize, long maxBatchDelay,
+                   ScheduledExecutorService scheduledExecutorService) {
+        this.writer = writer;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchDelay = maxBatchDelay;
+        this.scheduledExecutorService = scheduledExecutorService;
+    }
+
+    @Override
+    public void write(final ByteBuffer buffer, final CompletionHandler<ByteBuffer> completionHandler) {
+        final boolean batched;
+
+        synchronized (lock) {
+            final int length = buffer.remaining();
+
+            batched = prepareBatch(length);
+            if (batched) {
+                buffers.add(buffer);
+                completionHandlers.add(completionHandler);
+                addedToBatch(length);
+            } else {
+                pendingWrites.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        writer.write(buffer, completionHandler);
+                    }
+                });
+            }
+        }
+
+        if (batched) {
+            notifyBatched(completionHandler);
+        }
+        writePending();
+    }
+
+    @Override
+    public void write(final ByteBuffer[] buffers, final CompletionHandler<ByteBuffer[]> completionHandler) {
+        final boolean batched;
+
+        synchronized (lock) {
+            int length = 0;
+            for (ByteBuffer buffer : buffers) {
+                length += buffer.remaining();
+            }
+
+            batched = prepareBatch(length);
+            if (batched) {
+                // completion handler is registered only with the last buffer.
+                for (int i = 0; i < buffers.length; i++) {
+                    this.buffers.add(buffers[i]);
+                    this.completionHandlers.add(
+                            i == buffers.length - 1 ? new GatheringCompletionHandler(buffers, completionHandler) : null);
+                }
+                addedToBatch(length);
+            } else {
+                pendingWrites.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        writer.write(buffers, completionHandler);
+                    }
+                });
+            }
+        }
+
+        if (batched) {
+            notifyBatched(completionHandler);
+        }
+        writePending();
+    }
+
+    private static void notifyBatched(CompletionHandler<?> completionHandler) {
+        if (completionHandler instanceof BatchListener) {
+            ((BatchListener) completionHandler).onBatched();
+        }
+    }
+
+    /**
+     * Make room in the batch for a frame of given length. Guarded by {@code lock}.
+     *
+     * @param length frame length.
+     * @return {@code true} when the frame should be added to the batch, {@code false} when it should be written
+     * directly.
+     */
+    private boolean prepareBatch(int length) {
+        if (closed) {
+            return false;
+        }
+
+        if (batchSize > 0 && batchSize + length > maxBatchSize) {
+            writeBatch();
+        }
+
+        // frame which does not fit into the batch is written directly.
+        return length < maxBatchSize;
+    }
+
+    private void addedToBatch(int length) {
+        batchSize += length;
+
+        if (batchSize >= maxBatchSize) {
+            writeBatch();
+        } else if (flushTask == null && maxBatchDelay > 0 && scheduledExecutorService != null) {
+            flushTask = scheduledExecutorService.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }, maxBatchDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write current batch to the wrapped {@link Writer}.
+     *
+     * @return future completed when the batch is written.
+     */
+    Future<Void> flush() {
+        final Future<Void> future;
+        synchronized (lock) {
+            future = writeBatch();
+        }
+
+        writePending();
+        return future;
+    }
+
+    /**
+     * Write current batch and pass all subsequent writes directly to the wrapped {@link Writer}.
+     *
+     * @return future completed when the last batch is written.
+     */
+    Future<Void> flushAndDisable() {
+        final Future<Void> future;
+        synchronized (lock) {
+            closed = true;
+            future = writeBatch();
+        }
+
+        writePending();
+        return future;
+    }
+
+    /**
+     * Write current batch and close the wrapped {@link Writer} once all pending writes are passed to it.
+     * <p/>
+     * {@link IOException} thrown by the wrapped writer is only logged, since the writer can be closed by another
+     * thread.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            writeBatch();
+            pendingWrites.add(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        writer.close();
+                    } catch (IOException e) {
+                        LOGGER.log(Level.FINE, e.getMessage(), e);
+                    }
+                }
+            });
+        }
+
+        writePending();
+    }
+
+    /**
+     * Pass pending writes to the wrapped {@link Writer} in order, unless another thread is already doing so.
+     * <p/>
+     * Must not be called with {@code lock} held. Writes added by completion handlers invoked from the wrapped writer
+     * are passed by the same loop.
+     */
+    private void writePending() {
+        synchronized (lock) {
+            if (writing) {
+                return;
+            }
+            writing = true;
+        }
+
+        boolean done = false;
+        try {
+            while (true) {
+                final Runnable write;
+                synchronized (lock) {
+                    write = pendingWrites.poll();
+                    if (write == null) {
+                        writing = false;
+                        done = true;
+                        return;
+                    }
+                }
+
+                write.run();
+            }
+        } finally {
+            if (!done) {
+                synchronized (lock) {
+                    writing = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Move current batch to the pending writes. Guarded by {@code lock}; the batch is passed to the wrapped writer
+     * by {@link #writePending()}.
+     *
+     * @return future completed when the batch is written.
+     */
+    private Future<Void> writeBatch() {
+        final TyrusFuture<Void> future = new TyrusFuture<Void>();
+
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+
+        if (buffers.isEmpty()) {
+            future.setResult(null);
+            return future;
+        }
+
+        final ByteBuffer[] batch = buffers.toArray(new ByteBuffer[buffers.size()]);
+        final List<CompletionHandler<ByteBuffer>> batchHandlers = completionHandlers;
+        final int length = batchSize;
+
+        buffers = new ArrayList<ByteBuffer>();
+        completionHandlers = new ArrayList<CompletionHandler<ByteBuffer>>();
+        batchSize = 0;
+
+        LOGGER.log(Level.FINEST, "Writing batch of {0} buffer(s), {1} bytes.", new Object[]{batch.length, length});
+
+        final CompletionHandler<ByteBuffer[]> batchCompletionHandler = new CompletionHandler<ByteBuffer[]>() {
+            @Override
+            public void cancelled() {
+                for (CompletionHandler<ByteBuffer> handler : batchHandlers) {
+                    if (handler != null) {
+                        handler.cancelled();
+                    }
+                }
+                future.setFailure(new IOException(LocalizationMessages.FRAME_WRITE_CANCELLED()));
+            }
+
+            @Override
+            public void failed(Throwable throwable) {
+                for (CompletionHandler<ByteBuffer> handler : batchHandlers) {
+                    if (handler != null) {
+                        handler.failed(throwable);
+                    }
+                }
+                future.setFailure(throwable);
+            }
+
+            @Override
+            public void completed(ByteBuffer[] result) {
+                for (int i = 0; i < batchHandlers.size(); i++) {
+                    final CompletionHandler<ByteBuffer> handler = batchHandlers.get(i);
+                    if (handler != null) {
+                        handler.completed(batch[i]);
+                    }
+                }
+                future.setResult(null);
+            }
+        };
+
+        pendingWrites.add(new Runnable() {
+            @Override
+            public void run() {
+                writer.write(batch, batchCompletionHandler);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Implemented by completion handlers which need to know that their frame was added to the batch rather than
+     * written directly.
+     */
+    interface BatchListener {
+
+        /**
+         * Invoked when the frame is added to the batch.
+         */
+        void onBatched();
+    }
+
+    /**
+     * Adapts completion handler of a gathering write to a single batched buffer.
+     */
+    private static class GatheringCompletionHandler extends CompletionHandler<ByteBuffer> {
+
+        private final ByteBuffer[] buffers;
+        private final CompletionHandler<ByteBuffer[]> completionHandler;
+
+        private GatheringCompletionHandler(ByteBuffer[] buffers, CompletionHandler<ByteBuffer[]> completionHandler) {
+            this.buffers = buffers;
+            this.completionHandler = completionHandler;
+        }
+
+        @Override
+        public void cancelled() {
+            if (completionHandler != null) {
+                completionHandler.cancelled();
+            }
+        }
+
+        @Override
+        public void failed(Throwable throwable) {
+            if (completionHandler != null) {
+                completionHandler.failed(throwable);
+            }
+        }
+
+        @Override
+        public void completed(ByteBuffer result) {
+            if (completionHandler != null) {
+                completionHandler.completed(buffers);
+            }
+        }
+    }
+}
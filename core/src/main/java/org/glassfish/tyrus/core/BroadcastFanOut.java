@@ -0,0 +1,409 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.websocket.Session;
+
+import org.glassfish.tyrus.core.frame.Frame;
+import org.glassfish.tyrus.core.frame.TyrusFrame;
+import org.glassfish.tyrus.spi.CompletionHandler;
+
+/**
+ * Sends a broadcasted message to a set of sessions.
+ * <p/>
+ * Sessions are not copied or divided upfront. Workers claim small batches of sessions from a shared iterator, so a
+ * worker which finished its batch takes the next one and faster workers take over the work of the slower ones. The
+ * calling thread participates as one of the workers when it waits for the result anyway.
+ * <p/>
+ * {@link #broadcast(Map, SharedFrame)} returns a future for each session, {@link #broadcastAsync(Map, SharedFrame,
+ * long)} returns immediately with a single future representing the whole broadcast and can skip sessions which are
+ * not able to keep up with the sent data.
+ */
+class BroadcastFanOut {
+
+    private static final Logger LOGGER = Logger.getLogger(BroadcastFanOut.class.getName());
+
+    /**
+     * Number of sessions claimed by a worker at once. A broadcast is executed by multiple workers only when there are
+     * more sessions than that.
+     */
+    private static final int BATCH_SIZE = 16;
+
+    private final ExecutorService executorService;
+
+    /**
+     * Constructor.
+     *
+     * @param executorService executor service used for the parallel broadcast, {@code null} when the broadcast should
+     *                        be executed only by the calling thread.
+     */
+    BroadcastFanOut(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * Send a message to open sessions and wait until it is passed to all of them.
+     * <p/>
+     * Each open session gets a future, sessions which could not be processed because of a failure of a worker get a
+     * failed one. When the calling thread is interrupted, it still waits for the workers and keeps the interrupted
+     * status.
+     *
+     * @param sessions sessions to be broadcasted to, closed sessions are skipped.
+     * @param message  message to be sent.
+     * @return map of sessions and futures for user to get the information about status of the message.
+     */
+    Map<Session, Future<?>> broadcast(Map<TyrusWebSocket, TyrusSession> sessions, final SharedFrame message) {
+        final Batches batches = new Batches(sessions);
+        final Map<Session, Future<?>> futures = new ConcurrentHashMap<Session, Future<?>>();
+        // sessions claimed by each worker, sessions of a failed worker without a result get a failed future.
+        final Map<Future<?>, List<TyrusSession>> workers = new HashMap<Future<?>, List<TyrusSession>>();
+
+        for (int i = 1; i < getWorkerCount(sessions.size()); i++) {
+            final List<TyrusSession> claimed = new ArrayList<TyrusSession>();
+            try {
+                workers.put(executorService.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        send(batches, message, futures, claimed);
+                        return null;
+                    }
+                }), claimed);
+            } catch (RejectedExecutionException e) {
+                // remaining batches will be processed by the calling thread.
+                break;
+            }
+        }
+
+        send(batches, message, futures, new ArrayList<TyrusSession>());
+
+        boolean interrupted = false;
+        for (Map.Entry<Future<?>, List<TyrusSession>> worker : workers.entrySet()) {
+            while (true) {
+                try {
+                    worker.getKey().get();
+                    break;
+                } catch (InterruptedException e) {
+                    // the worker is still sending, its results are not known yet.
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    LOGGER.log(Level.FINE, e.getMessage(), e);
+                    for (TyrusSession session : worker.getValue()) {
+                        if (!futures.containsKey(session)) {
+                            final TyrusFuture<Void> failure = new TyrusFuture<Void>();
+                            failure.setFailure(e);
+                            futures.put(session, failure);
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        return futures;
+    }
+
+    /**
+     * Send a message to open sessions without waiting for the result.
+     * <p/>
+     * Sessions with more than {@code slowConsumerThreshold} bytes waiting to be written are skipped.
+     *
+     * @param sessions              sessions to be broadcasted to, closed sessions are skipped.
+     * @param message               message to be sent.
+     * @param slowConsumerThreshold maximal number of bytes waiting to be written to a session, negative value means no
+     *                              limit.
+     * @return future completed when the message is written to all sessions it was sent to. Its value is number of
+     * sessions to which the message was written successfully.
+     */
+    Future<Integer> broadcastAsync(Map<TyrusWebSocket, TyrusSession> sessions, SharedFrame message,
+                                   long slowConsumerThreshold) {
+        final int workerCount = getWorkerCount(sessions.size());
+        final AsyncBroadcast broadcast =
+                new AsyncBroadcast(new Batches(sessions), message, slowConsumerThreshold, workerCount);
+
+        for (int i = 0; i < workerCount; i++) {
+            if (executorService == null) {
+                broadcast.run();
+            } else {
+                try {
+                    executorService.submit(broadcast);
+                } catch (RejectedExecutionException e) {
+                    broadcast.run();
+                }
+            }
+        }
+
+        return broadcast.future;
+    }
+
+    private int getWorkerCount(int sessionCount) {
+        if (executorService == null) {
+            return 1;
+        }
+
+        final int batchCount = (sessionCount + BATCH_SIZE - 1) / BATCH_SIZE;
+        return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), batchCount));
+    }
+
+    private static void send(Batches batches, SharedFrame message, Map<Session, Future<?>> futures,
+                             List<TyrusSession> claimed) {
+        final List<Map.Entry<TyrusWebSocket, TyrusSession>> batch =
+                new ArrayList<Map.Entry<TyrusWebSocket, TyrusSession>>(BATCH_SIZE);
+
+        while (batches.next(batch)) {
+            for (Map.Entry<TyrusWebSocket, TyrusSession> e : batch) {
+                claimed.add(e.getValue());
+            }
+
+            for (Map.Entry<TyrusWebSocket, TyrusSession> e : batch) {
+                final TyrusSession session = e.getValue();
+                if (!session.isOpen()) {
+                    continue;
+                }
+
+                Future<?> future;
+                try {
+                    future = message.send(e.getKey(), null);
+                } catch (RuntimeException re) {
+                    final TyrusFuture<Void> failure = new TyrusFuture<Void>();
+                    failure.setFailure(re);
+                    future = failure;
+                }
+                futures.put(session, future);
+            }
+        }
+    }
+
+    /**
+     * Message framed once for all sessions with the same {@link ProtocolHandler#getSharedFramingKey()}, which is
+     * typically all of them; sessions with stateful extensions get their own frame.
+     */
+    abstract static class SharedFrame {
+
+        private final ConcurrentMap<Object, byte[]> frames = new ConcurrentHashMap<Object, byte[]>();
+        private final TyrusFrame.FrameType frameType;
+        private volatile long payloadLength = -1;
+
+        /**
+         * Constructor.
+         *
+         * @param frameType type of the frame, used for monitoring.
+         */
+        SharedFrame(TyrusFrame.FrameType frameType) {
+            this.frameType = frameType;
+        }
+
+        /**
+         * Create new frame containing broadcasted message.
+         *
+         * @return new frame.
+         */
+        abstract Frame createFrame();
+
+        /**
+         * Send the message to a session.
+         *
+         * @param webSocket         socket of the session.
+         * @param completionHandler completion handler, can be {@code null}.
+         * @return send future.
+         */
+        Future<Frame> send(TyrusWebSocket webSocket, CompletionHandler<Frame> completionHandler) {
+            final ProtocolHandler protocolHandler = webSocket.getProtocolHandler();
+            final Object key = protocolHandler.getSharedFramingKey();
+
+            byte[] frame = key == null ? null : frames.get(key);
+            if (frame == null) {
+                frame = frame(protocolHandler);
+                if (key != null) {
+                    final byte[] previous = frames.putIfAbsent(key, frame);
+                    if (previous != null) {
+                        frame = previous;
+                    }
+                }
+            }
+
+            final Future<Frame> frameFuture = webSocket.sendRawFrame(ByteBuffer.wrap(frame), completionHandler);
+            webSocket.getMessageEventListener().onFrameSent(frameType, payloadLength);
+            return frameFuture;
+        }
+
+        private byte[] frame(ProtocolHandler protocolHandler) {
+            final Frame dataFrame = createFrame();
+            payloadLength = dataFrame.getPayloadLength();
+
+            // protocol handler executes negotiated extensions.
+            final ByteBuffer byteBuffer = protocolHandler.frame(dataFrame);
+            final byte[] frame = new byte[byteBuffer.remaining()];
+            byteBuffer.get(frame);
+            return frame;
+        }
+    }
+
+    /**
+     * Sessions to be processed, claimed by workers in batches.
+     */
+    private static class Batches {
+
+        private final Iterator<Map.Entry<TyrusWebSocket, TyrusSession>> iterator;
+
+        private Batches(Map<TyrusWebSocket, TyrusSession> sessions) {
+            this.iterator = sessions.entrySet().iterator();
+        }
+
+        /**
+         * Fill the list with the next batch of sessions.
+         *
+         * @param batch list to be filled, its previous content is removed.
+         * @return {@code true} when the batch contains at least one session, {@code false} when there are no more
+         * sessions.
+         */
+        synchronized boolean next(List<Map.Entry<TyrusWebSocket, TyrusSession>> batch) {
+            batch.clear();
+            while (batch.size() < BATCH_SIZE && iterator.hasNext()) {
+                batch.add(iterator.next());
+            }
+            return !batch.isEmpty();
+        }
+    }
+
+    /**
+     * Broadcast tracking only the aggregate result.
+     * <p/>
+     * Each running worker and each frame being written holds one "pending" token; the future is completed when the
+     * last token is released.
+     */
+    private static class AsyncBroadcast implements Runnable {
+
+        private final TyrusFuture<Integer> future = new TyrusFuture<Integer>();
+        private final AtomicInteger pending;
+        private final AtomicInteger written = new AtomicInteger(0);
+        private final Batches batches;
+        private final SharedFrame message;
+        private final long slowConsumerThreshold;
+
+        private final CompletionHandler<Frame> completionHandler = new CompletionHandler<Frame>() {
+            @Override
+            public void completed(Frame result) {
+                written.incrementAndGet();
+                release();
+            }
+
+            @Override
+            public void failed(Throwable throwable) {
+                release();
+            }
+
+            @Override
+            public void cancelled() {
+                release();
+            }
+        };
+
+        private AsyncBroadcast(Batches batches, SharedFrame message, long slowConsumerThreshold, int workerCount) {
+            this.batches = batches;
+            this.message = message;
+            this.slowConsumerThreshold = slowConsumerThreshold;
+            this.pending = new AtomicInteger(workerCount);
+        }
+
+        @Override
+        public void run() {
+            try {
+                final List<Map.Entry<TyrusWebSocket, TyrusSession>> batch =
+                        new ArrayList<Map.Entry<TyrusWebSocket, TyrusSession>>(BATCH_SIZE);
+
+                while (batches.next(batch)) {
+                    for (Map.Entry<TyrusWebSocket, TyrusSession> e : batch) {
+                        send(e.getKey(), e.getValue());
+                    }
+                }
+            } finally {
+                release();
+            }
+        }
+
+        private void send(TyrusWebSocket webSocket, TyrusSession session) {
+            if (!session.isOpen()) {
+                return;
+            }
+
+            if (slowConsumerThreshold >= 0
+                    && webSocket.getProtocolHandler().getPendingWriteBytes() > slowConsumerThreshold) {
+                LOGGER.log(Level.FINE, "Broadcast skipped slow session: {0}", session.getId());
+                return;
+            }
+
+            pending.incrementAndGet();
+            try {
+                message.send(webSocket, completionHandler);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, e.getMessage(), e);
+                release();
+            }
+        }
+
+        private void release() {
+            if (pending.decrementAndGet() == 0) {
+                future.setResult(written.get());
+            }
+        }
+    }
+}
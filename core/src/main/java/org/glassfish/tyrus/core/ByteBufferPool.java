@@ -0,0 +1,295 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.glassfish.tyrus.core.l10n.LocalizationMessages;
+
+/**
+ * Pool of {@link ByteBuffer}s shared by connections.
+ * <p>
+ * Buffer capacities are powers of two and the values half way between them (256, 384, 512, 768, ...) from {@link
+ * #MIN_BUFFER_SIZE} to {@link #MAX_POOLED_BUFFER_SIZE}, so a leased buffer is less than 1.5 times bigger than requested.
+ * Each size class has its own queue of free buffers. Larger buffers are allocated when leased and dropped when released. Released
+ * buffers are kept only while the free buffers of the pool take no more than the configured number of bytes.
+ * <p>
+ * A leased buffer belongs to its holder until it is passed to {@link #release(java.nio.ByteBuffer)}; it must not be
+ * used afterwards. The pool itself is thread safe.
+ */
+public final class ByteBufferPool {
+
+    /**
+     * Capacity of the smallest buffer returned by {@link #lease(int)}.
+     */
+    public static final int MIN_BUFFER_SIZE = 256;
+
+    /**
+     * Capacity of the largest buffer kept in the pool.
+     */
+    public static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Default number of bytes held by free buffers of a pool.
+     */
+    public static final long DEFAULT_MAX_POOLED_BYTES = 32 * 1024 * 1024;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+    private static final int SIZE_CLASSES = 2 * (Integer.numberOfTrailingZeros(MAX_POOLED_BUFFER_SIZE) - MIN_SHIFT) + 1;
+
+    private static final ByteBufferPool HEAP_POOL = new ByteBufferPool(false, DEFAULT_MAX_POOLED_BYTES);
+    private static final ByteBufferPool DIRECT_POOL = new ByteBufferPool(true, DEFAULT_MAX_POOLED_BYTES);
+
+    private final boolean direct;
+    private final long maxPooledBytes;
+    private final Queue<ByteBuffer>[] freeBuffers;
+
+    private final AtomicInteger leasedBuffers = new AtomicInteger(0);
+    private final AtomicLong leasedBytes = new AtomicLong(0);
+    private final AtomicInteger pooledBuffers = new AtomicInteger(0);
+    private final AtomicLong pooledBytes = new AtomicLong(0);
+    private final AtomicLong allocatedBuffers = new AtomicLong(0);
+
+    /**
+     * Get pool shared by all connections of this JVM.
+     *
+     * @param direct {@code true} for the pool of direct buffers, {@code false} for the pool of heap buffers.
+     * @return shared pool.
+     */
+    public static ByteBufferPool getShared(boolean direct) {
+        return direct ? DIRECT_POOL : HEAP_POOL;
+    }
+
+    /**
+     * Create new pool.
+     *
+     * @param direct         {@code true} if the pool should allocate direct buffers, {@code false} for heap buffers.
+     * @param maxPooledBytes maximal number of bytes held by free buffers.
+     */
+    @SuppressWarnings("unchecked")
+    public ByteBufferPool(boolean direct, long maxPooledBytes) {
+        this.direct = direct;
+        this.maxPooledBytes = maxPooledBytes;
+        this.freeBuffers = new Queue[SIZE_CLASSES];
+        for (int i = 0; i < SIZE_CLASSES; i++) {
+            freeBuffers[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+        }
+    }
+
+    /**
+     * Lease a buffer.
+     *
+     * @param size minimal capacity of the buffer.
+     * @return cleared buffer with capacity of at least {@code size} bytes.
+     */
+    public ByteBuffer lease(int size) {
+        final int sizeClass = sizeClass(size);
+        ByteBuffer buffer;
+
+        if (sizeClass < SIZE_CLASSES) {
+            buffer = freeBuffers[sizeClass].poll();
+            if (buffer != null) {
+                pooledBuffers.decrementAndGet();
+                pooledBytes.addAndGet(-buffer.capacity());
+            } else {
+                buffer = allocate(capacity(sizeClass));
+            }
+        } else {
+            buffer = allocate(size);
+        }
+
+        leasedBuffers.incrementAndGet();
+        leasedBytes.addAndGet(buffer.capacity());
+        return buffer;
+    }
+
+    /**
+     * Return a leased buffer to the pool.
+     *
+     * @param buffer buffer obtained from {@link #lease(int)} of this pool.
+     */
+    public void release(ByteBuffer buffer) {
+        final int capacity = buffer.capacity();
+        leasedBuffers.decrementAndGet();
+        leasedBytes.addAndGet(-capacity);
+
+        final int sizeClass = sizeClass(capacity);
+        if (sizeClass >= SIZE_CLASSES || capacity(sizeClass) != capacity) {
+            return;
+        }
+
+        if (pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+            pooledBytes.addAndGet(-capacity);
+            return;
+        }
+
+        buffer.clear();
+        pooledBuffers.incrementAndGet();
+        freeBuffers[sizeClass].offer(buffer);
+    }
+
+    /**
+     * Append data to a leased buffer.
+     * <p>
+     * When the appended data do not fit into {@code buffer}, a larger buffer is leased, the content is copied to it and
+     * {@code buffer} is released.
+     *
+     * @param buffer  leased buffer ready to be read from (i.e. flipped), may be {@code null}.
+     * @param data    data to be appended. Its position will be moved to the limit.
+     * @param maxSize maximal number of bytes the returned buffer may contain.
+     * @return leased buffer ready to be read from, containing remaining bytes of {@code buffer} followed by {@code
+     * data}.
+     * @throws IllegalArgumentException when the result would contain more than {@code maxSize} bytes.
+     */
+    public ByteBuffer append(ByteBuffer buffer, ByteBuffer data, int maxSize) {
+        final int buffered = buffer == null ? 0 : buffer.remaining();
+        final int size = buffered + data.remaining();
+
+        if (size > maxSize) {
+            throw new IllegalArgumentException(LocalizationMessages.BUFFER_OVERFLOW());
+        }
+
+        if (buffer != null && buffer.capacity() >= size) {
+            if (buffer.capacity() - buffer.limit() >= data.remaining()) {
+                final int position = buffer.position();
+                buffer.position(buffer.limit());
+                buffer.limit(buffer.capacity());
+                buffer.put(data);
+                buffer.limit(buffer.position());
+                buffer.position(position);
+            } else {
+                buffer.compact();
+                buffer.put(data);
+                buffer.flip();
+            }
+            return buffer;
+        }
+
+        // grow at least twice, so that a frame arriving in many small parts is not copied over and over.
+        final int capacity = buffer == null ? size : Math.max(size, (int) Math.min(maxSize, 2L * buffer.capacity()));
+        final ByteBuffer result = lease(capacity);
+        if (buffer != null) {
+            result.put(buffer);
+            release(buffer);
+        }
+        result.put(data);
+        result.flip();
+        return result;
+    }
+
+    /**
+     * Get information about the kind of buffers in this pool.
+     *
+     * @return {@code true} when this pool holds direct buffers, {@code false} for heap buffers.
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Get number of buffers currently leased from this pool.
+     *
+     * @return number of leased buffers.
+     */
+    public int getLeasedBuffers() {
+        return leasedBuffers.get();
+    }
+
+    /**
+     * Get total capacity of buffers currently leased from this pool.
+     *
+     * @return number of leased bytes.
+     */
+    public long getLeasedBytes() {
+        return leasedBytes.get();
+    }
+
+    /**
+     * Get number of free buffers held by this pool.
+     *
+     * @return number of free buffers.
+     */
+    public int getPooledBuffers() {
+        return pooledBuffers.get();
+    }
+
+    /**
+     * Get total capacity of free buffers held by this pool.
+     *
+     * @return number of free bytes.
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    /**
+     * Get number of buffers this pool has allocated, i.e. the number of leases that could not be served by a free
+     * buffer.
+     *
+     * @return number of allocated buffers.
+     */
+    public long getAllocatedBuffers() {
+        return allocatedBuffers.get();
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        allocatedBuffers.incrementAndGet();
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private static int sizeClass(int size) {
+        if (size <= MIN_BUFFER_SIZE) {
+            return 0;
+        }
+
+        // the smallest power of two not less than size is 1 << shift.
+        final int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+        final int sizeClass = 2 * (shift - MIN_SHIFT);
+        return size <= (3 << (shift - 2)) ? sizeClass - 1 : sizeClass;
+    }
+
+    private static int capacity(int sizeClass) {
+        return (sizeClass & 1) == 0 ? MIN_BUFFER_SIZE << (sizeClass >> 1) : (3 * MIN_BUFFER_SIZE / 2) << (sizeClass >> 1);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Factory of the {@link ExecutorService} used by {@link BaseContainer} for invoking message handlers and {@code
+ * onClose} of sessions, parallel broadcast and asynchronous client connect.
+ * <p/>
+ * When no factory is configured, container uses executor service obtained from JNDI
+ * ({@code java:comp/DefaultManagedExecutorService}) or creates a cached thread pool and only streaming ({@link
+ * java.io.Reader} and {@link java.io.InputStream}) message handlers are invoked by it. Message handlers of one session
+ * are always invoked in the order in which the messages were received, regardless of the created executor service,
+ * so a thread per task executor (see {@link VirtualThreadExecutorServiceFactory}) can be used.
+ * <p/>
+ * The factory is configured using {@link #EXECUTOR_SERVICE_FACTORY} property.
+ */
+@Beta
+public abstract class ExecutorServiceFactory {
+
+    /**
+     * Property used for configuring {@link ExecutorServiceFactory}.
+     * <p/>
+     * Value can be an instance of {@link ExecutorServiceFactory} or a fully qualified name of a class extending it,
+     * which has a public no-argument constructor. Client reads the property from
+     * {@code org.glassfish.tyrus.client.ClientManager#getProperties()}, Grizzly server from server properties and
+     * servlet integration from servlet context init parameters.
+     */
+    public static final String EXECUTOR_SERVICE_FACTORY = "org.glassfish.tyrus.executorServiceFactory";
+
+    private static final Logger LOGGER = Logger.getLogger(ExecutorServiceFactory.class.getName());
+
+    /**
+     * Create new executor service.
+     * <p/>
+     * Created executor service is owned by the container and it is shut down when the container is shut down.
+     *
+     * @param threadFactory factory of daemon platform threads named after the container.
+     * @return new executor service.
+     */
+    public abstract ExecutorService createExecutorService(ThreadFactory threadFactory);
+
+    /**
+     * Get {@link ExecutorServiceFactory} configured in provided properties.
+     *
+     * @param properties properties, can be {@code null}.
+     * @return configured factory or {@code null} if the {@link #EXECUTOR_SERVICE_FACTORY} property is not set or its
+     * value cannot be used.
+     * @see #EXECUTOR_SERVICE_FACTORY
+     */
+    public static ExecutorServiceFactory fromProperties(Map<String, Object> properties) {
+        if (properties == null) {
+            return null;
+        }
+
+        return fromValue(properties.get(EXECUTOR_SERVICE_FACTORY));
+    }
+
+    /**
+     * Get {@link ExecutorServiceFactory} from the {@link #EXECUTOR_SERVICE_FACTORY} property value.
+     *
+     * @param value instance of {@link ExecutorServiceFactory} or a class name, can be {@code null}.
+     * @return factory or {@code null} if the value is {@code null} or it cannot be used.
+     */
+    public static ExecutorServiceFactory fromValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        if (value instanceof ExecutorServiceFactory) {
+            return (ExecutorServiceFactory) value;
+        }
+
+        final String className = value.toString().trim();
+        if (className.isEmpty()) {
+            return null;
+        }
+
+        try {
+            final Class<?> clazz = ReflectionHelper.classForNameWithException(className);
+            if (ExecutorServiceFactory.class.isAssignableFrom(clazz)) {
+                return (ExecutorServiceFactory) clazz.newInstance();
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.CONFIG, String.format("Cannot instantiate %s: %s.", className, e.getMessage()), e);
+            return null;
+        }
+
+        LOGGER.log(Level.CONFIG, String.format("Class %s does not extend %s, property %s is ignored.",
+                                               className, ExecutorServiceFactory.class.getName(),
+                                               EXECUTOR_SERVICE_FACTORY));
+        return null;
+    }
+}
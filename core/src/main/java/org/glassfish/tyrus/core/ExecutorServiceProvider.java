@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2013 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -48,6 +48,9 @@ import java.util.concurrent.ScheduledExecutorService;
  */
 public abstract class ExecutorServiceProvider {
 
+    private final Object timerWheelLock = new Object();
+    private volatile TimerWheel timerWheel = null;
+
     /**
      * Get the {@link ExecutorService}.
      *
@@ -61,4 +64,21 @@ public abstract class ExecutorServiceProvider {
      * @return scheduled executor service.
      */
     public abstract ScheduledExecutorService getScheduledExecutorService();
+
+    /**
+     * Get the {@link TimerWheel} driven by {@link #getScheduledExecutorService()}, used for session idle timeouts and
+     * heartbeats.
+     *
+     * @return timer wheel shared by all sessions of this provider.
+     */
+    /* package */ TimerWheel getTimerWheel() {
+        if (timerWheel == null) {
+            synchronized (timerWheelLock) {
+                if (timerWheel == null) {
+                    timerWheel = new TimerWheel(this);
+                }
+            }
+        }
+        return timerWheel;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,214 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.websocket.Extension;
+
+import org.glassfish.tyrus.core.extension.ExtendedExtension;
+import org.glassfish.tyrus.core.frame.Frame;
+import org.glassfish.tyrus.core.l10n.LocalizationMessages;
+
+/**
+ * Unframes data read from a connection, lets the negotiated extensions process the frames and passes them to
+ * {@link ProtocolHandler#process(Frame, TyrusWebSocket)}.
+ * <p/>
+ * Frames are parsed directly from the passed buffers; only a partial frame waiting for more data is copied to a
+ * buffer leased from {@link ByteBufferPool}. When frame streaming is enabled (see
+ * {@link ProtocolHandler#enableFrameStreaming(int)}), the data is processed in parts which fit into the incoming
+ * buffer, so frames bigger than the incoming buffer are delivered as they are read.
+ * <p/>
+ * Used by both server and client read handlers; a single instance serves one connection.
+ */
+public class FrameReader {
+
+    private static final Logger LOGGER = Logger.getLogger(FrameReader.class.getName());
+
+    private final ProtocolHandler protocolHandler;
+    private final TyrusWebSocket socket;
+    private final List<Extension> extensions;
+    private final ExtendedExtension.ExtensionContext extensionContext;
+    private final int incomingBufferSize;
+    private final ByteBufferPool bufferPool;
+
+    // partial frame waiting for more data, leased from bufferPool.
+    private ByteBuffer buffer = null;
+    // guarded by this - the buffer is returned to the pool by whichever of read and release finishes last.
+    private boolean reading = false;
+    private boolean released = false;
+
+    /**
+     * Constructor.
+     *
+     * @param protocolHandler    protocol handler of the connection.
+     * @param socket             socket the frames are processed by.
+     * @param extensions         negotiated extensions, can be {@code null}.
+     * @param extensionContext   extension context of the connection.
+     * @param incomingBufferSize maximal size of a buffered frame.
+     * @param bufferPool         pool partial frames are buffered in.
+     */
+    public FrameReader(ProtocolHandler protocolHandler, TyrusWebSocket socket, List<Extension> extensions,
+                       ExtendedExtension.ExtensionContext extensionContext, int incomingBufferSize,
+                       ByteBufferPool bufferPool) {
+        this.protocolHandler = protocolHandler;
+        this.socket = socket;
+        this.extensions = extensions == null ? Collections.<Extension>emptyList() : extensions;
+        this.extensionContext = extensionContext;
+        this.incomingBufferSize = incomingBufferSize;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Process all frames contained in the data, buffer a trailing partial frame.
+     * <p/>
+     * The whole buffer is consumed. Data passed after {@link #release()} is ignored.
+     *
+     * @param data data read from the connection.
+     * @throws WebSocketException when a frame cannot be processed.
+     */
+    public void read(ByteBuffer data) {
+        synchronized (this) {
+            if (released) {
+                return;
+            }
+            reading = true;
+        }
+
+        try {
+            if (data != null && data.hasRemaining()) {
+                if (protocolHandler.isFrameStreamingEnabled()) {
+                    // streamed frames are consumed as they are read, so data bigger than incoming buffer can be
+                    // processed in parts.
+                    while (data.hasRemaining()) {
+                        final int buffered = buffer == null ? 0 : buffer.remaining();
+                        final ByteBuffer part = data.slice();
+                        part.limit(Math.min(part.remaining(), Math.max(1, incomingBufferSize - buffered)));
+                        data.position(data.position() + part.limit());
+                        readPart(part);
+                    }
+                } else {
+                    readPart(data);
+                }
+            }
+        } finally {
+            synchronized (this) {
+                reading = false;
+                if (released) {
+                    releaseBuffer();
+                }
+            }
+        }
+    }
+
+    /**
+     * Return buffered partial frame to the pool; called when the connection is closed.
+     */
+    public void release() {
+        synchronized (this) {
+            released = true;
+            if (!reading) {
+                releaseBuffer();
+            }
+        }
+    }
+
+    /**
+     * Invoked when an extension throws an exception from
+     * {@link ExtendedExtension#processIncoming(ExtendedExtension.ExtensionContext, Frame)}. The frame is then passed on
+     * as returned by the previous extension.
+     *
+     * @param extension extension which failed.
+     * @param t         thrown exception.
+     */
+    protected void onExtensionException(Extension extension, Throwable t) {
+        LOGGER.log(Level.FINE, String.format("Extension '%s' threw an exception during processIncoming method " +
+                                                     "invocation: \"%s\".", extension.getName(), t.getMessage()), t);
+    }
+
+    private void releaseBuffer() {
+        if (buffer != null) {
+            bufferPool.release(buffer);
+            buffer = null;
+        }
+    }
+
+    private void readPart(ByteBuffer data) {
+        final ByteBuffer input;
+        if (buffer != null) {
+            input = bufferPool.append(buffer, data, incomingBufferSize);
+            buffer = input;
+        } else if (data.remaining() > incomingBufferSize) {
+            throw new IllegalArgumentException(LocalizationMessages.BUFFER_OVERFLOW());
+        } else {
+            // no partial frame is pending, frames are parsed directly from the transport buffer.
+            input = data;
+        }
+
+        Frame frame;
+        while ((frame = protocolHandler.unframe(input)) != null) {
+            for (Extension extension : extensions) {
+                if (extension instanceof ExtendedExtension) {
+                    try {
+                        frame = ((ExtendedExtension) extension).processIncoming(extensionContext, frame);
+                    } catch (Throwable t) {
+                        onExtensionException(extension, t);
+                    }
+                }
+            }
+
+            protocolHandler.process(frame, socket);
+        }
+
+        if (input == data) {
+            if (data.hasRemaining()) {
+                buffer = bufferPool.append(null, data, incomingBufferSize);
+            }
+        } else if (!input.hasRemaining()) {
+            buffer = null;
+            bufferPool.release(input);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.glassfish.tyrus.core.frame.Frame;
+
+/**
+ * Future of a frame write, which also tells whether the frame was added to a batch of outgoing messages.
+ * <p/>
+ * Message added to the batch is considered to be sent (see
+ * {@link javax.websocket.RemoteEndpoint#setBatchingAllowed(boolean)}), so a blocking send does not need to wait for
+ * the batch to be written. Frames which do not fit into the batch are written directly and their senders have to
+ * wait for the result as usual.
+ */
+class FrameWriteFuture extends TyrusFuture<Frame> {
+
+    private final CountDownLatch handedOver = new CountDownLatch(1);
+    private volatile boolean batched = false;
+
+    /**
+     * Mark the frame as added to the batch.
+     */
+    void setBatched() {
+        batched = true;
+        handedOver.countDown();
+    }
+
+    /**
+     * Wait until the frame is added to the batch or until its write is finished.
+     *
+     * @return {@code true} when the frame was added to the batch and the batch was not written yet, {@code false}
+     * when the write is finished, so the result is available.
+     * @throws InterruptedException when the waiting thread is interrupted.
+     */
+    boolean awaitBatched() throws InterruptedException {
+        handedOver.await();
+        return batched && !isDone();
+    }
+
+    @Override
+    public void setResult(Frame result) {
+        super.setResult(result);
+        handedOver.countDown();
+    }
+
+    @Override
+    public void setFailure(Throwable throwable) {
+        super.setFailure(throwable);
+        handedOver.countDown();
+    }
+}
@@ -45,7 +45,7 @@ import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -71,7 +71,7 @@ class InputStreamBuffer {
     private final Condition condition = lock.newCondition();
 
     private final List<ByteBuffer> bufferedFragments = new ArrayList<ByteBuffer>();
-    private final ExecutorService executorService;
+    private final Executor executor;
 
     private static final Logger LOGGER = Logger.getLogger(InputStreamBuffer.class.getName());
 
@@ -79,67 +79,106 @@ class InputStreamBuffer {
     private volatile BufferedInputStream inputStream = null;
     private volatile MessageHandler.Whole<InputStream> messageHandler;
     private volatile int bufferSize;
-    private volatile int currentlyBuffered;
+    private volatile long currentlyBuffered;
     private volatile boolean sessionClosed = false;
 
     /**
      * Constructor.
      */
-    public InputStreamBuffer(ExecutorService executorService) {
-        this.executorService = executorService;
+    public InputStreamBuffer(Executor executor) {
+        this.executor = executor;
         currentlyBuffered = 0;
     }
 
     /**
-     * Get next received bytes.
+     * Get next received byte.
      *
-     * @return next received bytes.
+     * @return next received byte or {@code -1} when the whole message was read.
      */
     public int getNextByte() throws IOException {
         lock.lock();
         try {
-            if (this.bufferedFragments.isEmpty()) {
-                if (receivedLast) {
-                    this.inputStream = null;
-                    this.currentlyBuffered = 0;
-                    return -1;
-                } else { // there's more to come...so wait here...
-                    // don't let the reader block on a closed session
-                    checkClosedSession();
-
-                    boolean interrupted;
-                    do {
-                        interrupted = false;
-                        try {
-                            condition.await();
-
-                            checkClosedSession();
-                        } catch (InterruptedException e) {
-                            interrupted = true;
-                        }
-                    } while (interrupted);
-                }
-            }
-
-            if (bufferedFragments.size() == 1 && !bufferedFragments.get(0).hasRemaining() && receivedLast) {
-                this.inputStream = null;
-                this.currentlyBuffered = 0;
+            final ByteBuffer firstBuffer = nextFragment();
+            if (firstBuffer == null) {
                 return -1;
             }
 
-            ByteBuffer firstBuffer = bufferedFragments.get(0);
             byte result = firstBuffer.get();
 
-            if (!firstBuffer.hasRemaining()) {
-                bufferedFragments.remove(0);
+            return result & 0xFF;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get next received bytes.
+     * <p/>
+     * Blocks until at least one byte is available; reads at most what is left in the first buffered fragment.
+     *
+     * @param b   array into which the bytes are read.
+     * @param off offset in the array.
+     * @param len maximal number of bytes to be read.
+     * @return number of bytes read or {@code -1} when the whole message was read.
+     */
+    public int getNextBytes(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        lock.lock();
+        try {
+            final ByteBuffer firstBuffer = nextFragment();
+            if (firstBuffer == null) {
+                return -1;
             }
 
-            return result & 0xFF;
+            final int count = Math.min(len, firstBuffer.remaining());
+            firstBuffer.get(b, off, count);
+
+            return count;
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Get the first buffered fragment with remaining data, wait for it if needed.
+     * <p/>
+     * Must be called with {@link #lock} held.
+     *
+     * @return first fragment with remaining data or {@code null} when the whole message was read.
+     */
+    private ByteBuffer nextFragment() throws IOException {
+        do {
+            while (!bufferedFragments.isEmpty() && !bufferedFragments.get(0).hasRemaining()) {
+                bufferedFragments.remove(0);
+            }
+
+            if (!bufferedFragments.isEmpty()) {
+                return bufferedFragments.get(0);
+            }
+
+            if (receivedLast) {
+                this.inputStream = null;
+                this.currentlyBuffered = 0;
+                return null;
+            }
+
+            // there's more to come...so wait here...
+            // don't let the reader block on a closed session
+            checkClosedSession();
+
+            try {
+                condition.await();
+            } catch (InterruptedException e) {
+                // ignored, wait again.
+            }
+
+            checkClosedSession();
+        } while (true);
+    }
+
     /**
      * Finish reading of the buffer.
      */
@@ -155,10 +194,14 @@ class InputStreamBuffer {
      * @param last    should be {@code true} iff this is the last part of the message, {@code false} otherwise.
      */
     public void appendMessagePart(ByteBuffer message, boolean last) {
+        final BufferedInputStream newInputStream;
+
         lock.lock();
         try {
+            // Integer.MAX_VALUE (default) means that the message size is not limited; fragments are released as they
+            // are read, so the message does not need to fit into memory.
             currentlyBuffered += message.remaining();
-            if (currentlyBuffered <= bufferSize) {
+            if (bufferSize == Integer.MAX_VALUE || currentlyBuffered <= bufferSize) {
                 bufferedFragments.add(message);
             } else {
                 final MessageTooBigException messageTooBigException =
@@ -170,16 +213,23 @@ class InputStreamBuffer {
 
             this.receivedLast = last;
             condition.signalAll();
+
+            // decided under the lock - reader of the previous part could have already read the whole message.
+            if (this.inputStream == null) {
+                this.inputStream = new BufferedInputStream(this);
+                newInputStream = this.inputStream;
+            } else {
+                newInputStream = null;
+            }
         } finally {
             lock.unlock();
         }
 
-        if (this.inputStream == null) {
-            this.inputStream = new BufferedInputStream(this);
-            executorService.execute(new Runnable() {
+        if (newInputStream != null) {
+            executor.execute(new Runnable() {
                 @Override
                 public void run() {
-                    messageHandler.onMessage(inputStream);
+                    messageHandler.onMessage(newInputStream);
                 }
             });
         }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2012-2014 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2012-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -41,10 +41,28 @@
 package org.glassfish.tyrus.core;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
+/**
+ * Applies (and removes) the WebSocket masking key to frame payloads.
+ * <p>
+ * Payload is XORed eight bytes at a time using the masking key widened to {@code long}; only the last (up to seven)
+ * bytes are processed one by one. Masking is done in place, both heap and direct {@link ByteBuffer}s are supported.
+ * Masker keeps track of the position within the masking key, so payload can be processed in multiple chunks.
+ * <p>
+ * Heap buffers are masked a word at a time through {@link ByteBuffer#getLong(int)} and {@code putLong} on JRE 9 and
+ * newer, where these are compiled to single memory accesses. JRE 8 and older assemble a {@code long} of a heap buffer
+ * from single bytes, which is about two times slower than masking the backing array in an unrolled loop, so the loop is
+ * used there instead.
+ */
 class Masker {
+
+    private static final boolean HEAP_WORD_ACCESS =
+            !System.getProperty("java.specification.version", "").startsWith("1.");
+
     private volatile ByteBuffer buffer;
     private volatile byte[] mask;
+    private volatile int maskingKey;
     private volatile int index = 0;
 
     public Masker(ByteBuffer buffer) {
@@ -52,11 +70,7 @@ class Masker {
     }
 
     public Masker(int mask) {
-        this.mask = new byte[4];
-        this.mask[0] = (byte) (mask >> 24);
-        this.mask[1] = (byte) (mask >> 16);
-        this.mask[2] = (byte) (mask >> 8);
-        this.mask[3] = (byte) mask;
+        setMaskingKey(mask);
     }
 
     byte get() {
@@ -72,9 +86,7 @@ class Masker {
     public byte[] unmask(int count) {
         byte[] bytes = get(count);
         if (mask != null) {
-            for (int i = 0; i < bytes.length; i++) {
-                bytes[i] ^= mask[index++ % ProtocolHandler.MASK_SIZE];
-            }
+            mask(ByteBuffer.wrap(bytes), 0, bytes.length);
         }
 
         return bytes;
@@ -82,14 +94,91 @@ class Masker {
 
     public void mask(byte[] target, int location, byte[] bytes, int length) {
         if (bytes != null && target != null) {
-            for (int i = 0; i < length; i++) {
-                target[location + i] = mask == null
-                        ? bytes[i]
-                        : (byte) (bytes[i] ^ mask[index++ % ProtocolHandler.MASK_SIZE]);
+            System.arraycopy(bytes, 0, target, location, length);
+            if (mask != null) {
+                mask(ByteBuffer.wrap(target), location, length);
+            }
+        }
+    }
+
+    /**
+     * Mask (or unmask) {@code length} bytes of given buffer in place, starting at absolute position {@code position}.
+     * <p>
+     * Position and limit of the buffer are not changed. Does nothing when no masking key is set.
+     *
+     * @param target   buffer to be masked.
+     * @param position absolute index of the first byte to be masked.
+     * @param length   number of bytes to be masked.
+     */
+    void mask(ByteBuffer target, int position, int length) {
+        if (mask == null || length <= 0) {
+            return;
+        }
+
+        // masking key rotated to the current index, so that the most significant byte is the next one to be applied.
+        final int rotatedKey = Integer.rotateLeft(maskingKey, (index & 3) * 8);
+        index += length;
+
+        if (!HEAP_WORD_ACCESS && target.hasArray()) {
+            maskArray(target.array(), target.arrayOffset() + position, length, rotatedKey);
+            return;
+        }
+
+        final int end = position + length;
+        int i = position;
+
+        if (length >= 8) {
+            long longKey = ((long) rotatedKey << 32) | (rotatedKey & 0xFFFFFFFFL);
+            if (target.order() == ByteOrder.LITTLE_ENDIAN) {
+                longKey = Long.reverseBytes(longKey);
             }
+
+            for (; i <= end - 8; i += 8) {
+                target.putLong(i, target.getLong(i) ^ longKey);
+            }
+        }
+
+        // remaining bytes; 8 is a multiple of the key size, so the key rotation does not change within the loop above.
+        int key = rotatedKey;
+        for (; i < end; i++) {
+            target.put(i, (byte) (target.get(i) ^ (key >>> 24)));
+            key = Integer.rotateLeft(key, 8);
+        }
+    }
+
+    private static void maskArray(byte[] target, int offset, int length, int rotatedKey) {
+        final byte m0 = (byte) (rotatedKey >> 24);
+        final byte m1 = (byte) (rotatedKey >> 16);
+        final byte m2 = (byte) (rotatedKey >> 8);
+        final byte m3 = (byte) rotatedKey;
+        final int end = offset + length;
+
+        int i = offset;
+        for (; i <= end - 4; i += 4) {
+            target[i] ^= m0;
+            target[i + 1] ^= m1;
+            target[i + 2] ^= m2;
+            target[i + 3] ^= m3;
+        }
+
+        int key = rotatedKey;
+        for (; i < end; i++) {
+            target[i] ^= (byte) (key >>> 24);
+            key = Integer.rotateLeft(key, 8);
         }
     }
 
+    /**
+     * Unmask remaining bytes of given buffer in place.
+     * <p>
+     * Buffer position is not changed. Does nothing when no masking key is set.
+     *
+     * @param target buffer to be unmasked.
+     */
+    void unmask(ByteBuffer target) {
+        mask(target, target.position(), target.remaining());
+    }
+
     public void setBuffer(ByteBuffer buffer) {
         this.buffer = buffer;
     }
@@ -99,6 +188,14 @@ class Masker {
     }
 
     public void readMask() {
-        mask = get(ProtocolHandler.MASK_SIZE);
+        setMaskingKey(((buffer.get() & 0xFF) << 24) | ((buffer.get() & 0xFF) << 16) | ((buffer.get() & 0xFF) << 8)
+                              | (buffer.get() & 0xFF));
+    }
+
+    private void setMaskingKey(int maskingKey) {
+        this.maskingKey = maskingKey;
+        this.mask = new byte[]{(byte) (maskingKey >> 24), (byte) (maskingKey >> 16), (byte) (maskingKey >> 8),
+                (byte) maskingKey};
+        this.index = 0;
     }
 }
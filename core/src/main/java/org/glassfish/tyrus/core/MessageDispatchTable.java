@@ -0,0 +1,192 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.websocket.Decoder;
+import javax.websocket.MessageHandler;
+
+import org.glassfish.tyrus.core.coder.CoderWrapper;
+
+/**
+ * Precompiled routes from {@link Decoder}s to whole {@link MessageHandler}s for one kind (text or binary) of messages.
+ * <p>
+ * Routes are ordered by the order of registered decoders and handlers of each route are ordered from the most specific
+ * type to the most general one, which is the order in which incoming messages have to be offered to them. The table is
+ * immutable and is compiled again whenever a message handler is added to or removed from a session.
+ */
+/* package */ final class MessageDispatchTable {
+
+    private final Route[] routes;
+
+    private MessageDispatchTable(Route[] routes) {
+        this.routes = routes;
+    }
+
+    /**
+     * Compile a table.
+     *
+     * @param orderedWholeHandlers registered whole message handlers ordered from the most specific type.
+     * @param decoders             decoders registered on the endpoint.
+     * @param text                 {@code true} if the table will be used for text messages, {@code false} for binary
+     *                             ones.
+     * @return compiled table.
+     */
+    static MessageDispatchTable compile(List<Map.Entry<Class<?>, MessageHandler>> orderedWholeHandlers,
+                                        List<CoderWrapper<Decoder>> decoders, boolean text) {
+        final List<Route> routes = new ArrayList<Route>();
+
+        for (CoderWrapper<Decoder> decoder : decoders) {
+            final Class<? extends Decoder> decoderClass = decoder.getCoderClass();
+            final boolean stream;
+            if (text && Decoder.Text.class.isAssignableFrom(decoderClass)
+                    || !text && Decoder.Binary.class.isAssignableFrom(decoderClass)) {
+                stream = false;
+            } else if (text && Decoder.TextStream.class.isAssignableFrom(decoderClass)
+                    || !text && Decoder.BinaryStream.class.isAssignableFrom(decoderClass)) {
+                stream = true;
+            } else {
+                continue;
+            }
+
+            final List<Map.Entry<Class<?>, MessageHandler>> handlers = new ArrayList<Map.Entry<Class<?>,
+                    MessageHandler>>();
+            for (Map.Entry<Class<?>, MessageHandler> entry : orderedWholeHandlers) {
+                if (entry.getKey().isAssignableFrom(decoder.getType())) {
+                    handlers.add(entry);
+                }
+            }
+
+            // nothing could consume the decoded message.
+            if (handlers.isEmpty()) {
+                continue;
+            }
+
+            final Class<?>[] types = new Class<?>[handlers.size()];
+            final MessageHandler[] messageHandlers = new MessageHandler[handlers.size()];
+            for (int i = 0; i < handlers.size(); i++) {
+                types[i] = handlers.get(i).getKey();
+                messageHandlers[i] = handlers.get(i).getValue();
+            }
+
+            routes.add(new Route(decoder, stream, types, messageHandlers));
+        }
+
+        return new MessageDispatchTable(routes.toArray(new Route[routes.size()]));
+    }
+
+    /**
+     * Get the routes.
+     *
+     * @return routes ordered by the order of registered decoders.
+     */
+    Route[] getRoutes() {
+        return routes;
+    }
+
+    /**
+     * Decoder and the handlers which can consume the objects it produces.
+     */
+    static final class Route {
+
+        private final CoderWrapper<Decoder> decoder;
+        private final boolean stream;
+        private final Class<?>[] types;
+        private final MessageHandler[] handlers;
+
+        private Route(CoderWrapper<Decoder> decoder, boolean stream, Class<?>[] types, MessageHandler[] handlers) {
+            this.decoder = decoder;
+            this.stream = stream;
+            this.types = types;
+            this.handlers = handlers;
+        }
+
+        /**
+         * Get the decoder.
+         *
+         * @return decoder of this route.
+         */
+        CoderWrapper<Decoder> getDecoder() {
+            return decoder;
+        }
+
+        /**
+         * Get the information whether the decoder is a stream decoder, which does not have {@code willDecode}.
+         *
+         * @return {@code true} for {@link Decoder.TextStream} and {@link Decoder.BinaryStream}.
+         */
+        boolean isStream() {
+            return stream;
+        }
+
+        /**
+         * Get the number of handlers.
+         *
+         * @return number of handlers of this route.
+         */
+        int size() {
+            return handlers.length;
+        }
+
+        /**
+         * Get the type the handler at given index has been registered for.
+         *
+         * @param index handler index.
+         * @return handler type.
+         */
+        Class<?> getType(int index) {
+            return types[index];
+        }
+
+        /**
+         * Get the handler at given index.
+         *
+         * @param index handler index.
+         * @return message handler.
+         */
+        MessageHandler getHandler(int index) {
+            return handlers[index];
+        }
+    }
+}
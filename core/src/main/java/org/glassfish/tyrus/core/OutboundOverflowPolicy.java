@@ -0,0 +1,82 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+/**
+ * Handling of messages sent to a connection with saturated outbound queue.
+ * <p/>
+ * Outbound queue of a connection gets saturated when the number of bytes passed to the transport and not written yet
+ * would exceed configured high watermark; it stops being saturated when the number drops to the low watermark.
+ *
+ * @see TyrusWebSocketEngine#OUTBOUND_QUEUE_HIGH_WATERMARK
+ * @see TyrusWebSocketEngine#OUTBOUND_QUEUE_OVERFLOW_POLICY
+ */
+public enum OutboundOverflowPolicy {
+
+    /**
+     * Sending thread is blocked until the queue stops being saturated. The send operation fails with {@link
+     * java.io.IOException} when the queue stays saturated for 3 seconds or when the connection is closed in the meantime.
+     * <p/>
+     * Should not be used when messages are sent from threads completing writes of the same connection (e.g. container
+     * I/O threads), since these would wait for themselves until the send operation fails.
+     */
+    BLOCK,
+
+    /**
+     * Message is refused, the send operation fails with {@link java.io.IOException}.
+     */
+    FAIL,
+
+    /**
+     * Message is held in the queue; the oldest whole messages, which have not been passed to the transport yet, are
+     * discarded (their send operations fail) to keep the queue under the high watermark. The most recent message is
+     * always kept.
+     * <p/>
+     * Fragments of partial messages and control frames are never discarded.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Message is refused and the connection is closed with {@link javax.websocket.CloseReason.CloseCodes#VIOLATED_POLICY}
+     * (1008).
+     */
+    CLOSE
+}
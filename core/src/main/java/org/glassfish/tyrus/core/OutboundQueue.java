@@ -0,0 +1,595 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.websocket.CloseReason;
+
+import org.glassfish.tyrus.core.frame.Frame;
+import org.glassfish.tyrus.core.l10n.LocalizationMessages;
+import org.glassfish.tyrus.core.monitoring.MessageEventListener;
+import org.glassfish.tyrus.core.monitoring.OutboundQueueEventListener;
+import org.glassfish.tyrus.spi.CompletionHandler;
+import org.glassfish.tyrus.spi.Writer;
+
+/**
+ * Outbound queue of a single connection.
+ * <p/>
+ * Accounts bytes passed to the {@link Writer}, which have not been written yet, no matter where the transport keeps
+ * them (task queue of the JDK client container, Grizzly asynchronous write queue, servlet writer queue, ...). When
+ * limits are set, the number of these bytes is kept under the high watermark; frames sent to a saturated connection
+ * are handled according to the {@link OutboundOverflowPolicy}. The connection stops being saturated when the number
+ * of pending bytes drops to the low watermark.
+ * <p/>
+ * A frame is always passed to the transport when nothing else is pending, even when it is bigger than the high
+ * watermark. Control frames are not subject to the limits, unless the queue holds frames (they have to keep their
+ * order).
+ * <p/>
+ * Frames are passed to the {@link Writer} by {@link #drain()}, never while the queue monitor is held, because writers
+ * may invoke completion handlers (which update the queue) while holding their own locks.
+ * <p/>
+ * When no limits are set (the default), the queue only accounts the pending bytes: {@link #write(Entry)} passes the
+ * frame to the {@link Writer} directly, in the order given by the lock held by the caller, and {@link #drain()} does
+ * nothing.
+ */
+class OutboundQueue {
+
+    private final ProtocolHandler protocolHandler;
+
+    /**
+     * Number of bytes passed to the {@link Writer}, which have not been written yet, including frames in
+     * {@link #ready}.
+     */
+    private final AtomicLong pendingBytes = new AtomicLong(0);
+
+    /**
+     * Frames held by the queue until the connection stops being saturated. Guarded by {@code this}.
+     */
+    private final Deque<Entry> held = new ArrayDeque<Entry>();
+
+    /**
+     * Frames to be passed to the {@link Writer} by {@link #drain()}, in order. Guarded by {@code this}.
+     */
+    private final Deque<Entry> ready = new ArrayDeque<Entry>();
+
+    /**
+     * Frames refused or discarded by the queue, to be failed by {@link #drain()}. Guarded by {@code this}.
+     */
+    private final List<Entry> refused = new ArrayList<Entry>();
+
+    private volatile long heldBytes = 0;
+    private volatile long highWatermark = -1;
+    private volatile long lowWatermark = -1;
+    private volatile OutboundOverflowPolicy policy = OutboundOverflowPolicy.BLOCK;
+
+    /**
+     * Held while frames are passed to the {@link Writer}, so that they are passed in order.
+     */
+    private final Lock passLock = new ReentrantLock();
+
+    // guarded by this
+    private boolean saturated = false;
+    private boolean closing = false;
+    private boolean close = false;
+    private boolean connectionClosed = false;
+
+    OutboundQueue(ProtocolHandler protocolHandler) {
+        this.protocolHandler = protocolHandler;
+    }
+
+    /**
+     * Set queue limits. Has to be called before the first frame is written.
+     *
+     * @param highWatermark maximal number of pending bytes, values lower than {@code 1} disable the limits.
+     * @param lowWatermark  number of pending bytes under which the queue stops being saturated. When negative or
+     *                      greater than {@code highWatermark}, half of {@code highWatermark} is used.
+     * @param policy        handling of frames sent to a saturated connection, {@link OutboundOverflowPolicy#BLOCK}
+     *                      when {@code null}.
+     */
+    void setLimits(long highWatermark, long lowWatermark, OutboundOverflowPolicy policy) {
+        if (highWatermark < 1) {
+            this.highWatermark = -1;
+            return;
+        }
+
+        this.lowWatermark = lowWatermark < 0 || lowWatermark > highWatermark ? highWatermark / 2 : lowWatermark;
+        this.policy = policy == null ? OutboundOverflowPolicy.BLOCK : policy;
+        this.highWatermark = highWatermark;
+    }
+
+    /**
+     * Get number of bytes waiting to be written, including frames held by the queue.
+     *
+     * @return number of bytes waiting to be written.
+     */
+    long getQueuedBytes() {
+        return pendingBytes.get() + heldBytes;
+    }
+
+    /**
+     * Wait until the connection is not saturated, when {@link OutboundOverflowPolicy#BLOCK} policy is used.
+     * <p/>
+     * Has to be called before the frame is serialized and before any lock ordering frames is acquired, so that other
+     * frames (including control frames sent from the read thread) are not blocked by the waiting thread. The thread
+     * waits for at most {@value ProtocolHandler#SEND_TIMEOUT} ms. When the time runs out, the connection is closed in
+     * the meantime or the thread is interrupted, the frame is refused: the completion handler and the future are
+     * failed.
+     *
+     * @param length            approximate length of the frame.
+     * @param control           {@code true} for control frames, which never wait.
+     * @param completionHandler completion handler of the frame, can be {@code null}.
+     * @param future            future of the frame, can be {@code null}.
+     * @return {@code true} if the frame can be written, {@code false} when it has been refused.
+     */
+    boolean awaitCapacity(long length, boolean control, CompletionHandler<Frame> completionHandler,
+                          TyrusFuture<Frame> future) {
+        if (highWatermark < 0 || control || policy != OutboundOverflowPolicy.BLOCK) {
+            return true;
+        }
+
+        IOException exception;
+        try {
+            synchronized (this) {
+                final long timeout = System.currentTimeMillis() + ProtocolHandler.SEND_TIMEOUT;
+                while (!held.isEmpty() || saturated()) {
+                    final long remaining = timeout - System.currentTimeMillis();
+                    if (connectionClosed || remaining <= 0) {
+                        break;
+                    }
+                    wait(remaining);
+                }
+
+                if (held.isEmpty() && !saturated()) {
+                    return true;
+                }
+
+                exception = new IOException(connectionClosed ? LocalizationMessages.CONNECTION_HAS_BEEN_CLOSED() :
+                                                    LocalizationMessages.OUTBOUND_QUEUE_FULL(getQueuedBytes()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exception = new IOException(LocalizationMessages.OUTBOUND_QUEUE_FULL(getQueuedBytes()), e);
+        }
+
+        if (completionHandler != null) {
+            completionHandler.failed(exception);
+        }
+        if (future != null) {
+            future.setFailure(exception);
+        }
+        onDropped(length);
+        return false;
+    }
+
+    /**
+     * Wake up threads waiting in {@link #awaitCapacity(long, boolean, CompletionHandler, TyrusFuture)}, their frames
+     * are refused. Threads do not wait for capacity of a closed connection any more.
+     */
+    synchronized void close() {
+        connectionClosed = true;
+        notifyAll();
+    }
+
+    /**
+     * Queue a frame to be passed to the {@link Writer} or handle it according to the overflow policy. The frame is
+     * passed to the writer (or failed) by the next {@link #drain()}; without limits it is passed to the writer right
+     * away.
+     * <p/>
+     * Frames are passed to the writer in the order they were queued in.
+     *
+     * @param entry frame to be written.
+     */
+    void write(Entry entry) {
+        if (highWatermark < 0) {
+            pendingBytes.addAndGet(entry.length);
+            passToWriter(entry);
+            return;
+        }
+
+        synchronized (this) {
+            queue(entry);
+        }
+    }
+
+    /**
+     * Guarded by {@code this}.
+     */
+    private void queue(Entry entry) {
+        switch (policy) {
+            case DROP_OLDEST:
+                if (held.isEmpty() && (entry.control || accepts(entry))) {
+                    pass(entry);
+                } else {
+                    hold(entry);
+                    dropOldest();
+                }
+                break;
+
+            case BLOCK:
+                // threads wait for capacity in awaitCapacity, concurrent writers can still exceed it.
+                if (held.isEmpty() && (entry.control || accepts(entry))) {
+                    pass(entry);
+                } else {
+                    hold(entry);
+                }
+                break;
+
+            default:
+                if (entry.control || accepts(entry)) {
+                    pass(entry);
+                } else {
+                    refused.add(entry);
+                    close = close || (policy == OutboundOverflowPolicy.CLOSE && !closing);
+                    closing = closing || close;
+                }
+        }
+    }
+
+    /**
+     * Pass queued frames to the {@link Writer} and fail refused frames.
+     * <p/>
+     * Has to be called after {@link #write(Entry)}, without holding any lock ordering frames. When this method returns,
+     * all frames queued before were passed to the writer.
+     */
+    void drain() {
+        if (highWatermark >= 0) {
+            drain(true);
+        }
+    }
+
+    /**
+     * Pass queued frames to the {@link Writer}.
+     * <p/>
+     * Frames are passed by one thread at a time. Writers may invoke completion handlers while holding their own lock,
+     * so the completion handlers do not wait for the thread which is passing frames (and which may wait for the writer
+     * lock); that thread passes also the frames queued in the meantime.
+     *
+     * @param wait {@code true} if the frames have to be passed before this method returns.
+     */
+    private void drain(boolean wait) {
+        while (true) {
+            if (wait) {
+                passLock.lock();
+            } else if (!passLock.tryLock()) {
+                return;
+            }
+
+            try {
+                passReady();
+            } finally {
+                passLock.unlock();
+            }
+
+            // frames queued while the lock was being released.
+            synchronized (this) {
+                if (ready.isEmpty() && refused.isEmpty() && !close) {
+                    return;
+                }
+            }
+            wait = false;
+        }
+    }
+
+    /**
+     * Guarded by {@code passLock}.
+     */
+    private void passReady() {
+        while (true) {
+            final Entry entry;
+            final List<Entry> failed;
+            final boolean closeConnection;
+
+            synchronized (this) {
+                entry = ready.poll();
+                if (refused.isEmpty()) {
+                    failed = Collections.emptyList();
+                } else {
+                    failed = new ArrayList<Entry>(refused);
+                    refused.clear();
+                }
+                closeConnection = close;
+                close = false;
+            }
+
+            if (entry == null && failed.isEmpty() && !closeConnection) {
+                return;
+            }
+
+            for (Entry refusedEntry : failed) {
+                refusedEntry.fail(new IOException(
+                        policy == OutboundOverflowPolicy.DROP_OLDEST ? LocalizationMessages.OUTBOUND_MESSAGE_DROPPED() :
+                                LocalizationMessages.OUTBOUND_QUEUE_FULL(getQueuedBytes())));
+                onDropped(refusedEntry.length);
+            }
+
+            if (closeConnection) {
+                protocolHandler.getWebSocket().close(new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY,
+                                                                     LocalizationMessages.OUTBOUND_QUEUE_FULL(
+                                                                             getQueuedBytes())));
+            }
+
+            if (entry != null) {
+                passToWriter(entry);
+            }
+        }
+    }
+
+    /**
+     * Pass a frame accounted in {@link #pendingBytes} to the {@link Writer}.
+     */
+    private void passToWriter(Entry entry) {
+        onQueueSizeChanged();
+        if (entry.buffers.length == 1) {
+            entry.writer.write(entry.buffers[0], new WriteCompletionHandler<ByteBuffer>(entry));
+        } else {
+            entry.writer.write(entry.buffers, new WriteCompletionHandler<ByteBuffer[]>(entry));
+        }
+    }
+
+    /**
+     * Check whether the queue is saturated without taking a frame into account. Guarded by {@code this}.
+     */
+    private boolean saturated() {
+        final long pending = pendingBytes.get();
+
+        if (saturated && pending <= lowWatermark) {
+            saturated = false;
+        }
+
+        return saturated || pending >= highWatermark;
+    }
+
+    /**
+     * Check whether the frame can be passed to the {@link Writer} and update the saturation state. Guarded by {@code
+     * this}.
+     */
+    private boolean accepts(Entry entry) {
+        final long pending = pendingBytes.get();
+
+        if (saturated) {
+            if (pending > lowWatermark) {
+                return false;
+            }
+            saturated = false;
+        }
+
+        if (pending > 0 && pending + entry.length > highWatermark) {
+            saturated = true;
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Discard the oldest whole messages until the queue fits under the high watermark. The newest frame is always
+     * kept. Guarded by {@code this}.
+     */
+    private void dropOldest() {
+        final Entry newest = held.peekLast();
+        final Iterator<Entry> iterator = held.iterator();
+        while (pendingBytes.get() + heldBytes > highWatermark && iterator.hasNext()) {
+            final Entry entry = iterator.next();
+            if (entry.droppable && entry != newest) {
+                iterator.remove();
+                heldBytes -= entry.length;
+                refused.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Move held frames to the ready queue while the queue is not saturated. Guarded by {@code this}.
+     */
+    private void flush() {
+        while (!held.isEmpty() && (held.peek().control || accepts(held.peek()))) {
+            final Entry entry = held.poll();
+            heldBytes -= entry.length;
+            pass(entry);
+        }
+    }
+
+    /**
+     * Guarded by {@code this}.
+     */
+    private void hold(Entry entry) {
+        held.add(entry);
+        heldBytes += entry.length;
+    }
+
+    /**
+     * Guarded by {@code this}.
+     */
+    private void pass(Entry entry) {
+        pendingBytes.addAndGet(entry.length);
+        ready.add(entry);
+    }
+
+    private void onWritten(Entry entry) {
+        pendingBytes.addAndGet(-entry.length);
+        onQueueSizeChanged();
+
+        if (highWatermark >= 0) {
+            synchronized (this) {
+                notifyAll();
+                flush();
+            }
+            drain(false);
+        }
+    }
+
+    private void onQueueSizeChanged() {
+        final MessageEventListener listener = protocolHandler.getMessageEventListener();
+        if (listener instanceof OutboundQueueEventListener) {
+            ((OutboundQueueEventListener) listener).onOutboundQueueSizeChanged(getQueuedBytes());
+        }
+    }
+
+    private void onDropped(long length) {
+        final MessageEventListener listener = protocolHandler.getMessageEventListener();
+        if (listener instanceof OutboundQueueEventListener) {
+            ((OutboundQueueEventListener) listener).onOutboundMessageDropped(length);
+        }
+    }
+
+    /**
+     * Frame to be written.
+     */
+    static class Entry {
+
+        private final Writer writer;
+        private final ByteBuffer[] buffers;
+        private final long length;
+        private final Frame frame;
+        private final CompletionHandler<Frame> completionHandler;
+        private final TyrusFuture<Frame> future;
+        private final boolean control;
+        private final boolean droppable;
+
+        /**
+         * Create new entry.
+         *
+         * @param writer            writer the frame will be passed to.
+         * @param buffers           serialized frame.
+         * @param frame             frame passed to the completion handler and set as the future result, can be {@code
+         *                          null}.
+         * @param completionHandler completion handler notified when the frame is written, can be {@code null}.
+         * @param future            future completed when the frame is written.
+         * @param control           {@code true} for control frames.
+         * @param droppable         {@code true} if the frame is a whole message, which can be discarded.
+         */
+        Entry(Writer writer, ByteBuffer[] buffers, Frame frame, CompletionHandler<Frame> completionHandler,
+              TyrusFuture<Frame> future, boolean control, boolean droppable) {
+            this.writer = writer;
+            this.buffers = buffers;
+            this.frame = frame;
+            this.completionHandler = completionHandler;
+            this.future = future;
+            this.control = control;
+            this.droppable = droppable;
+
+            long length = 0;
+            for (ByteBuffer buffer : buffers) {
+                length += buffer.remaining();
+            }
+            this.length = length;
+        }
+
+        private void fail(Throwable throwable) {
+            if (completionHandler != null) {
+                completionHandler.failed(throwable);
+            }
+
+            if (future != null) {
+                future.setFailure(throwable);
+            }
+        }
+    }
+
+    /**
+     * Handler passed to the {@link Writer}.
+     */
+    private class WriteCompletionHandler<T> extends CompletionHandler<T> implements BatchingWriter.BatchListener {
+
+        private final Entry entry;
+
+        private WriteCompletionHandler(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public void onBatched() {
+            if (entry.future instanceof FrameWriteFuture) {
+                ((FrameWriteFuture) entry.future).setBatched();
+            }
+        }
+
+        @Override
+        public void cancelled() {
+            onWritten(entry);
+
+            if (entry.completionHandler != null) {
+                entry.completionHandler.cancelled();
+            }
+
+            if (entry.future != null) {
+                entry.future.setFailure(new RuntimeException(LocalizationMessages.FRAME_WRITE_CANCELLED()));
+            }
+        }
+
+        @Override
+        public void failed(Throwable throwable) {
+            onWritten(entry);
+            entry.fail(throwable);
+        }
+
+        @Override
+        public void completed(T result) {
+            onWritten(entry);
+
+            if (entry.completionHandler != null) {
+                entry.completionHandler.completed(entry.frame);
+            }
+
+            if (entry.future != null) {
+                entry.future.setResult(entry.frame);
+            }
+        }
+
+        @Override
+        public void updated(T result) {
+            if (entry.completionHandler != null) {
+                entry.completionHandler.updated(entry.frame);
+            }
+        }
+    }
+}
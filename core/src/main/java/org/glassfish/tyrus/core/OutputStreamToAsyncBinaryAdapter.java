@@ -39,10 +39,9 @@
  */
 package org.glassfish.tyrus.core;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 
 /**
  * Simple Writer that writes its data to an async sink.
@@ -67,18 +66,8 @@ class OutputStreamToAsyncBinaryAdapter extends OutputStream {
             return;
         }
 
-        final Future<?> future = socket.sendBinary(b, off, len, false);
-        try {
-            future.get();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        } catch (ExecutionException e) {
-            if (e.getCause() instanceof IOException) {
-                throw (IOException) e.getCause();
-            } else {
-                throw new IOException(e.getCause());
-            }
-        }
+        // payload is copied and written in bounded chunks, not as a whole.
+        socket.sendBinary(new ByteArrayInputStream(b, off, len), len, false);
     }
 
     @Override
@@ -40,12 +40,18 @@
 
 package org.glassfish.tyrus.core;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
@@ -61,6 +67,7 @@ import javax.websocket.SendResult;
 import javax.websocket.server.HandshakeRequest;
 
 import org.glassfish.tyrus.core.extension.ExtendedExtension;
+import org.glassfish.tyrus.core.extension.SharedFramingExtension;
 import org.glassfish.tyrus.core.frame.BinaryFrame;
 import org.glassfish.tyrus.core.frame.CloseFrame;
 import org.glassfish.tyrus.core.frame.Frame;
@@ -86,24 +93,36 @@ public final class ProtocolHandler {
     public static final int MASK_SIZE = 4;
 
     private static final Logger LOGGER = Logger.getLogger(ProtocolHandler.class.getName());
-    private static final int SEND_TIMEOUT = 3000; // millis.
+    /* package */ static final int SEND_TIMEOUT = 3000; // millis.
+    private static final int MAX_HEADER_SIZE = 14; // opcode + length code + 8 bytes of length + mask.
+    private static final int STREAMING_CHUNK_SIZE = 65536;
+    private static final int STREAMED_FRAME_SIZE = 16 * STREAMING_CHUNK_SIZE;
 
     private final boolean client;
     private final MaskingKeyGenerator maskingKeyGenerator;
+    private static final Object UNRESOLVED_FRAMING_KEY = new Object();
+    private static final Object INDIVIDUAL_FRAMING_KEY = new Object();
+
     private final ParsingState parsingState = new ParsingState();
 
     private volatile TyrusWebSocket webSocket;
     private volatile byte outFragmentedType;
     private volatile Writer writer;
+    private volatile BatchingWriter batchingWriter = null;
     private volatile byte inFragmentedType;
     private volatile boolean processingFragment;
     private volatile String subProtocol = null;
     private volatile List<Extension> extensions;
     private volatile ExtendedExtension.ExtensionContext extensionContext;
     private volatile ByteBuffer remainder = null;
+    private final Utf8Codec utf8Codec = new Utf8Codec();
     private volatile boolean hasExtensions = false;
     private volatile MessageEventListener messageEventListener = MessageEventListener.NO_OP;
     private volatile SendingFragmentState sendingFragment = SendingFragmentState.IDLE;
+    // guarded by lock; set while a binary fragment is streamed from an InputStream, without the lock being held.
+    private boolean streamingFragment = false;
+    private volatile long frameStreamingThreshold = -1;
+    private volatile Object sharedFramingKey = UNRESOLVED_FRAMING_KEY;
 
     /**
      * Synchronizes all public send* (including stream variants) methods.
@@ -113,12 +132,32 @@ public final class ProtocolHandler {
      */
     private final Lock lock = new ReentrantLock();
 
+    /**
+     * Accounts and limits bytes passed to the {@link Writer}, which have not been written yet.
+     */
+    private final OutboundQueue outboundQueue = new OutboundQueue(this);
+
     /**
      * If partial message is being send and we want to send partial message with different type or other whole message,
      * we need to wait until "idleCondition" is signalled.
      */
     private final Condition idleCondition = lock.newCondition();
 
+    /**
+     * Orders frames passed to the {@link OutboundQueue}. It is held only while a frame (or a chunk of a streamed frame)
+     * is queued, never while waiting for a write to complete or for capacity of the outbound queue.
+     */
+    private final Lock streamLock = new ReentrantLock();
+
+    /**
+     * Signalled when a streamed frame is written or when no frame waits for it any more.
+     */
+    private final Condition streamedFrameCondition = streamLock.newCondition();
+
+    // guarded by streamLock; other frames cannot be written between header and payload chunks of a streamed frame.
+    private boolean streamingFrame = false;
+    private int framesWaitingForStreamedFrame = 0;
+
     /**
      * Sending state.
      */
@@ -183,6 +222,76 @@ public final class ProtocolHandler {
         this.writer = writer;
     }
 
+    /**
+     * Enable batching of outgoing frames.
+     * <p/>
+     * All subsequently sent frames will be collected and written using {@link Writer} set to this instance in batches.
+     * Call has no effect when batching is already enabled.
+     *
+     * @param maxBatchSize             maximal batch size in bytes.
+     * @param maxBatchDelay            maximal time in milliseconds a frame can stay in the batch before it is written.
+     *                                 Values lower than {@code 1} disable time-based flushing.
+     * @param scheduledExecutorService executor service used for time-based flushing, can be {@code null}.
+     */
+    /* package */ void enableBatching(int maxBatchSize, long maxBatchDelay,
+                                      ScheduledExecutorService scheduledExecutorService) {
+        lock.lock();
+        try {
+            if (batchingWriter == null) {
+                final Writer localWriter = writer;
+                if (localWriter == null) {
+                    throw new IllegalStateException(LocalizationMessages.CONNECTION_NULL());
+                }
+
+                batchingWriter = new BatchingWriter(localWriter, maxBatchSize, maxBatchDelay, scheduledExecutorService);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Disable batching of outgoing frames. Frames already present in the batch are written.
+     *
+     * @return future completed when the remaining batch is written.
+     */
+    /* package */ Future<Void> disableBatching() {
+        lock.lock();
+        try {
+            final BatchingWriter localBatchingWriter = batchingWriter;
+            batchingWriter = null;
+
+            return localBatchingWriter == null ? completedFuture() : localBatchingWriter.flushAndDisable();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get batching state.
+     *
+     * @return {@code true} when outgoing frames are batched, {@code false} otherwise.
+     */
+    /* package */ boolean isBatchingEnabled() {
+        return batchingWriter != null;
+    }
+
+    /**
+     * Write all frames present in the batch.
+     *
+     * @return future completed when the batch is written.
+     */
+    /* package */ Future<Void> flushBatch() {
+        final BatchingWriter localBatchingWriter = batchingWriter;
+        return localBatchingWriter == null ? completedFuture() : localBatchingWriter.flush();
+    }
+
+    private static Future<Void> completedFuture() {
+        final TyrusFuture<Void> future = new TyrusFuture<Void>();
+        future.setResult(null);
+        return future;
+    }
+
     /**
      * Returns true when current connection has some negotiated extension.
      *
@@ -193,6 +302,47 @@ public final class ProtocolHandler {
         return hasExtensions;
     }
 
+    /**
+     * Enable streaming of incoming data frames which would not fit into the incoming buffer.
+     * <p/>
+     * Payload of such frame is not accumulated; {@link #unframe(ByteBuffer)} returns its parts as soon as they are read,
+     * the first one with the original opcode and the following ones as continuation frames, so the frame is processed
+     * as if it was fragmented by the sender. Frames are not streamed when an extension is negotiated, since extensions
+     * can require the whole frame.
+     *
+     * @param incomingBufferSize size of the incoming buffer in bytes.
+     */
+    public void enableFrameStreaming(int incomingBufferSize) {
+        this.frameStreamingThreshold = Math.max(0, incomingBufferSize - MAX_HEADER_SIZE);
+    }
+
+    /**
+     * Get frame streaming state.
+     *
+     * @return {@code true} when streaming of incoming frames is enabled, {@code false} otherwise.
+     * @see #enableFrameStreaming(int)
+     */
+    public boolean isFrameStreamingEnabled() {
+        return frameStreamingThreshold >= 0;
+    }
+
+    /**
+     * Limit the number of bytes waiting to be written to the connection.
+     * <p/>
+     * Has to be called before the first frame is sent.
+     *
+     * @param highWatermark maximal number of bytes waiting to be written, values lower than {@code 1} disable the
+     *                      limit.
+     * @param lowWatermark  number of bytes waiting to be written under which the connection stops being saturated.
+     *                      When negative, half of {@code highWatermark} is used.
+     * @param policy        handling of messages sent to a saturated connection, {@link OutboundOverflowPolicy#BLOCK}
+     *                      when {@code null}.
+     * @see TyrusWebSocketEngine#OUTBOUND_QUEUE_HIGH_WATERMARK
+     */
+    public void setOutboundQueueLimits(long highWatermark, long lowWatermark, OutboundOverflowPolicy policy) {
+        outboundQueue.setLimits(highWatermark, lowWatermark, policy);
+    }
+
     /**
      * Server side handshake processing.
      *
@@ -210,6 +360,7 @@ public final class ProtocolHandler {
         this.subProtocol = response.getFirstHeaderValue(HandshakeRequest.SEC_WEBSOCKET_PROTOCOL);
         this.extensionContext = extensionContext;
         hasExtensions = extensions != null && extensions.size() > 0;
+        exposeMessageEventListener();
         return handshake;
     }
 
@@ -217,6 +368,55 @@ public final class ProtocolHandler {
         return extensions;
     }
 
+    /**
+     * Get key identifying serialized form of outgoing frames.
+     * <p/>
+     * Two connections with equal keys serialize the same (whole, unfragmented) frame into the same bytes, so a
+     * message broadcast to both of them can be framed only once. Connections without {@link ExtendedExtension}s share
+     * the same (empty) key; connections with extended extensions have a key only when all of them are
+     * {@link SharedFramingExtension}s which provide a sharing key for this connection.
+     * <p/>
+     * Client frames are masked with random masking key, so they are never shared.
+     *
+     * @return sharing key or {@code null} when outgoing frames of this connection have to be serialized individually.
+     */
+    /* package */ Object getSharedFramingKey() {
+        Object key = sharedFramingKey;
+        if (key == UNRESOLVED_FRAMING_KEY) {
+            key = resolveSharedFramingKey();
+            sharedFramingKey = key;
+        }
+        return key == INDIVIDUAL_FRAMING_KEY ? null : key;
+    }
+
+    private Object resolveSharedFramingKey() {
+        if (client) {
+            return INDIVIDUAL_FRAMING_KEY;
+        }
+
+        final List<Object> key = new ArrayList<Object>();
+        if (extensions != null) {
+            for (Extension extension : extensions) {
+                if (extension instanceof ExtendedExtension) {
+                    if (!(extension instanceof SharedFramingExtension)) {
+                        return INDIVIDUAL_FRAMING_KEY;
+                    }
+
+                    final Object extensionKey =
+                            ((SharedFramingExtension) extension).getSharedFramingKey(extensionContext);
+                    if (extensionKey == null) {
+                        return INDIVIDUAL_FRAMING_KEY;
+                    }
+
+                    key.add(extension.getName());
+                    key.add(extensionKey);
+                }
+            }
+        }
+
+        return key;
+    }
+
     /**
      * Client side. Set extensions negotiated for this WebSocket session/connection.
      *
@@ -240,6 +440,10 @@ public final class ProtocolHandler {
         this.webSocket = webSocket;
     }
 
+    /* package */ TyrusWebSocket getWebSocket() {
+        return webSocket;
+    }
+
     /**
      * Client side. Set extension context.
      *
@@ -247,6 +451,7 @@ public final class ProtocolHandler {
      */
     public void setExtensionContext(ExtendedExtension.ExtensionContext extensionContext) {
         this.extensionContext = extensionContext;
+        exposeMessageEventListener();
     }
 
     /**
@@ -256,6 +461,19 @@ public final class ProtocolHandler {
      */
     public void setMessageEventListener(MessageEventListener messageEventListener) {
         this.messageEventListener = messageEventListener;
+        exposeMessageEventListener();
+    }
+
+    private void exposeMessageEventListener() {
+        final ExtendedExtension.ExtensionContext context = extensionContext;
+        if (context != null) {
+            context.getProperties()
+                   .put(ExtendedExtension.ExtensionContext.MESSAGE_EVENT_LISTENER, messageEventListener);
+        }
+    }
+
+    /* package */ MessageEventListener getMessageEventListener() {
+        return messageEventListener;
     }
 
     /**
@@ -347,17 +565,38 @@ public final class ProtocolHandler {
      * @return send future.
      */
     public Future<Frame> sendRawFrame(ByteBuffer data) {
+        return sendRawFrame(data, null);
+    }
+
+    /**
+     * Raw frame is always whole (not partial).
+     *
+     * @param data              serialized frame.
+     * @param completionHandler completion handler notified when the frame is written, can be {@code null}.
+     * @return send future.
+     */
+    public Future<Frame> sendRawFrame(ByteBuffer data, CompletionHandler<Frame> completionHandler) {
         lock.lock();
 
         try {
             checkSendingFragment();
 
-            return send(data, null, true);
+            return send(data, completionHandler, true);
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Get number of bytes waiting to be written, including messages held by the outbound queue.
+     *
+     * @return number of bytes waiting to be written.
+     * @see #setOutboundQueueLimits(long, long, OutboundOverflowPolicy)
+     */
+    public long getPendingWriteBytes() {
+        return outboundQueue.getQueuedBytes();
+    }
+
     /**
      * Check whether current {@link ProtocolHandler} is sending a partial message.
      * <p/>
@@ -365,11 +604,25 @@ public final class ProtocolHandler {
      * IllegalStateException}.
      */
     private void checkSendingFragment() {
+        awaitIdle(false);
+    }
+
+    /**
+     * Check whether a binary fragment is being streamed by {@link #stream(boolean, InputStream, long)}.
+     * <p/>
+     * If yes, wait for {@value ProtocolHandler#SEND_TIMEOUT} and if the fragment is still being streamed, throw {@link
+     * IllegalStateException}.
+     */
+    private void checkStreamingFragment() {
+        awaitIdle(true);
+    }
+
+    private void awaitIdle(boolean streamingOnly) {
         final long timeout = System.currentTimeMillis() + SEND_TIMEOUT;
 
         // idleCondition can be signalled but other thread could be scheduled before this one; of that thread starts
         // sending another partial message, we should wait again for the condition to be signalled.
-        while (sendingFragment != SendingFragmentState.IDLE) {
+        while (streamingOnly ? streamingFragment : sendingFragment != SendingFragmentState.IDLE) {
             final long currentTimeMillis = System.currentTimeMillis();
 
             // timeout already reached.
@@ -394,6 +647,7 @@ public final class ProtocolHandler {
         try {
             switch (sendingFragment) {
                 case SENDING_BINARY:
+                    checkStreamingFragment();
                     Future<Frame> frameFuture = send(
                             new BinaryFrame(Arrays.copyOfRange(bytes, off, off + len), true, last));
                     if (last) {
@@ -418,6 +672,228 @@ public final class ProtocolHandler {
         }
     }
 
+    /**
+     * Send binary fragment, payload of which is read from given {@link InputStream}.
+     * <p/>
+     * Payload is read and written in chunks of at most {@value #STREAMING_CHUNK_SIZE} bytes into a single reused
+     * buffer and the next chunk is not read before the previous one is written, so the payload is never held in memory
+     * as a whole and it can be longer than {@link Integer#MAX_VALUE}. The payload is sent as a sequence of frames of at
+     * most {@value #STREAMED_FRAME_SIZE} bytes; header of each frame (with 64-bit extended payload length) is written
+     * together with its first chunk and the payload is masked chunk by chunk on the client side. Other frames wait
+     * while a streamed frame is written, but control frames (pong, close) and other queued frames are written between
+     * the streamed frames. When an extension is negotiated, the payload is sent as a sequence of regular fragments of
+     * the chunk size instead, so that the extensions can process them.
+     * <p/>
+     * The call blocks until the whole payload is written. The send lock is not held meanwhile; messages sent by other
+     * threads wait for at most {@value #SEND_TIMEOUT} ms for the fragment to be written, the same as for any partial
+     * message being sent, and then fail with {@link IllegalStateException}.
+     *
+     * @param last          {@code true} when this is the last fragment of the message.
+     * @param payload       payload source, exactly {@code payloadLength} bytes will be read.
+     * @param payloadLength length of the payload.
+     * @throws IOException when the payload cannot be read or written.
+     */
+    public void stream(boolean last, InputStream payload, long payloadLength) throws IOException {
+        final boolean continuation;
+
+        lock.lock();
+        try {
+            checkStreamingFragment();
+            if (sendingFragment == SendingFragmentState.SENDING_TEXT) {
+                checkSendingFragment();
+            }
+
+            continuation = (sendingFragment == SendingFragmentState.SENDING_BINARY);
+            sendingFragment = SendingFragmentState.SENDING_BINARY;
+            streamingFragment = true;
+        } finally {
+            lock.unlock();
+        }
+
+        // the lock is not held while the payload is read and written, other senders wait for at most SEND_TIMEOUT.
+        boolean written = false;
+        try {
+            if (hasExtensions) {
+                streamFragments(last, continuation, payload, payloadLength);
+            } else {
+                streamFrame(last, continuation, payload, payloadLength);
+            }
+            written = true;
+        } finally {
+            lock.lock();
+            try {
+                streamingFragment = false;
+                if (last && written) {
+                    sendingFragment = SendingFragmentState.IDLE;
+                }
+                idleCondition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void streamFragments(boolean last, boolean continuation, InputStream payload, long payloadLength)
+            throws IOException {
+        final ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(payloadLength, STREAMING_CHUNK_SIZE));
+
+        long remaining = payloadLength;
+        do {
+            readChunk(payload, chunk, remaining);
+            remaining -= chunk.remaining();
+
+            // the chunk is reused only after the fragment is written; the last (shorter) one has to be copied.
+            final byte[] data = chunk.remaining() == chunk.capacity() ?
+                    chunk.array() : Arrays.copyOf(chunk.array(), chunk.remaining());
+            final Future<Frame> future = send(new BinaryFrame(data, continuation, last && remaining == 0));
+            // the fragment is not written until the batch is flushed, which may never happen without a flush delay.
+            flushBatch();
+            waitFor(future);
+            continuation = true;
+        } while (remaining > 0);
+    }
+
+    private void streamFrame(boolean last, boolean continuation, InputStream payload, long payloadLength)
+            throws IOException {
+        final Writer localWriter = writer;
+        if (localWriter == null) {
+            throw new IllegalStateException(LocalizationMessages.CONNECTION_NULL());
+        }
+
+        // frames already present in the batch have to be written first, chunks are written directly.
+        waitFor(flushBatch());
+
+        // reused for all chunks, each chunk is written before the next one is read.
+        final ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(payloadLength, STREAMING_CHUNK_SIZE));
+
+        long remaining = payloadLength;
+        do {
+            final long frameLength = Math.min(remaining, STREAMED_FRAME_SIZE);
+            remaining -= frameLength;
+
+            writeStreamedFrame(localWriter, last && remaining == 0, continuation, payload, frameLength, chunk);
+            continuation = true;
+        } while (remaining > 0);
+    }
+
+    private void writeStreamedFrame(Writer localWriter, boolean fin, boolean continuation, InputStream payload,
+                                    long frameLength, ByteBuffer chunk) throws IOException {
+        final StreamingFrameEncoder encoder;
+
+        streamLock.lock();
+        try {
+            // frames waiting for the previous streamed frame are written first.
+            while (streamingFrame || framesWaitingForStreamedFrame > 0) {
+                streamedFrameCondition.awaitUninterruptibly();
+            }
+            streamingFrame = true;
+
+            final byte opcode = checkForLastFrame(
+                    Frame.builder().opcode(continuation ? (byte) 0x00 : (byte) 0x02).fin(fin).build());
+            encoder = new StreamingFrameEncoder(opcode, frameLength, client ? maskingKeyGenerator.nextInt() : null);
+        } finally {
+            streamLock.unlock();
+        }
+
+        try {
+            ByteBuffer header = encoder.getHeader();
+            do {
+                readChunk(payload, chunk, encoder.getRemaining());
+                final ByteBuffer encoded = encoder.encodeInPlace(chunk);
+                final ByteBuffer[] buffers = header == null ? new ByteBuffer[]{encoded} : new ByteBuffer[]{header, encoded};
+                header = null;
+
+                final TyrusFuture<Frame> future = new TyrusFuture<Frame>();
+                if (outboundQueue.awaitCapacity(encoded.remaining(), false, null, future)) {
+                    streamLock.lock();
+                    try {
+                        outboundQueue.write(
+                                new OutboundQueue.Entry(localWriter, buffers, null, null, future, false, false));
+                    } finally {
+                        streamLock.unlock();
+                    }
+                    outboundQueue.drain();
+                }
+
+                waitFor(future);
+            } while (encoder.getRemaining() > 0);
+        } finally {
+            streamLock.lock();
+            try {
+                streamingFrame = false;
+                streamedFrameCondition.signalAll();
+            } finally {
+                streamLock.unlock();
+            }
+        }
+
+        messageEventListener.onFrameSent(
+                continuation ? TyrusFrame.FrameType.BINARY_CONTINUATION : TyrusFrame.FrameType.BINARY, frameLength);
+    }
+
+    /**
+     * Wait until the streamed frame being written (if any) is finished. Has to be called with {@code streamLock}
+     * held, before any other frame is queued.
+     */
+    private void awaitStreamedFrame() {
+        if (!streamingFrame) {
+            return;
+        }
+
+        framesWaitingForStreamedFrame++;
+        try {
+            while (streamingFrame) {
+                streamedFrameCondition.awaitUninterruptibly();
+            }
+        } finally {
+            framesWaitingForStreamedFrame--;
+            if (framesWaitingForStreamedFrame == 0) {
+                // the next streamed frame can be written.
+                streamedFrameCondition.signalAll();
+            }
+        }
+    }
+
+    /**
+     * Fill the chunk with next part of the payload.
+     *
+     * @param payload   payload source.
+     * @param chunk     buffer to be filled, position is set to zero and limit to the number of read bytes.
+     * @param remaining number of payload bytes which were not read yet.
+     * @throws IOException when the payload cannot be read or when it ends prematurely.
+     */
+    private static void readChunk(InputStream payload, ByteBuffer chunk, long remaining) throws IOException {
+        final byte[] array = chunk.array();
+        final int length = (int) Math.min(remaining, chunk.capacity());
+
+        int read = 0;
+        while (read < length) {
+            final int count = payload.read(array, read, length - read);
+            if (count < 0) {
+                throw new EOFException();
+            }
+            read += count;
+        }
+
+        chunk.clear();
+        chunk.limit(length);
+    }
+
+    private static void waitFor(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else {
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+
     public Future<Frame> stream(boolean last, String fragment) {
         lock.lock();
 
@@ -464,6 +940,9 @@ public final class ProtocolHandler {
         }
 
         final Future<Frame> send = send(outgoingCloseFrame, null, false);
+        // frames waiting for capacity would be sent after the close frame.
+        outboundQueue.close();
+        flushBatch();
 
         webSocket.onClose(new CloseFrame(closeReason));
 
@@ -472,15 +951,30 @@ public final class ProtocolHandler {
 
     private Future<Frame> write(final TyrusFrame frame, final CompletionHandler<Frame> completionHandler,
                                 boolean useTimeout) {
-        final Writer localWriter = writer;
-        final TyrusFuture<Frame> future = new TyrusFuture<Frame>();
+        final Writer localWriter = getWriter();
+        final FrameWriteFuture future = new FrameWriteFuture();
 
         if (localWriter == null) {
             throw new IllegalStateException(LocalizationMessages.CONNECTION_NULL());
         }
 
-        final ByteBuffer byteBuffer = frame(frame);
-        localWriter.write(byteBuffer, new CompletionHandlerWrapper(completionHandler, future, frame));
+        if (!outboundQueue.awaitCapacity(frame.getPayloadLength(), frame.isControlFrame(), completionHandler, future)) {
+            return future;
+        }
+
+        streamLock.lock();
+        try {
+            awaitStreamedFrame();
+
+            // only whole messages can be discarded by the outbound queue.
+            final boolean wholeMessage = frame.isFin() && (frame.getFrameType() == TyrusFrame.FrameType.TEXT ||
+                    frame.getFrameType() == TyrusFrame.FrameType.BINARY);
+            outboundQueue.write(new OutboundQueue.Entry(localWriter, frameBuffers(frame), frame, completionHandler,
+                                                        future, frame.isControlFrame(), wholeMessage));
+        } finally {
+            streamLock.unlock();
+        }
+        outboundQueue.drain();
         messageEventListener.onFrameSent(frame.getFrameType(), frame.getPayloadLength());
 
         return future;
@@ -488,26 +982,48 @@ public final class ProtocolHandler {
 
     private Future<Frame> write(final ByteBuffer frame, final CompletionHandler<Frame> completionHandler,
                                 boolean useTimeout) {
-        final Writer localWriter = writer;
-        final TyrusFuture<Frame> future = new TyrusFuture<Frame>();
+        final Writer localWriter = getWriter();
+        final FrameWriteFuture future = new FrameWriteFuture();
 
         if (localWriter == null) {
             throw new IllegalStateException(LocalizationMessages.CONNECTION_NULL());
         }
 
-        localWriter.write(frame, new CompletionHandlerWrapper(completionHandler, future, null));
+        if (!outboundQueue.awaitCapacity(frame.remaining(), false, completionHandler, future)) {
+            return future;
+        }
+
+        streamLock.lock();
+        try {
+            awaitStreamedFrame();
+            outboundQueue.write(new OutboundQueue.Entry(localWriter, new ByteBuffer[]{frame}, null, completionHandler,
+                                                        future, false, true));
+        } finally {
+            streamLock.unlock();
+        }
+        outboundQueue.drain();
 
         return future;
     }
 
+    private Writer getWriter() {
+        final BatchingWriter localBatchingWriter = batchingWriter;
+        return localBatchingWriter == null ? writer : localBatchingWriter;
+    }
+
     /**
-     * Convert a byte[] to a long. Used for rebuilding payload length.
+     * Read extended payload length (network byte order) from the buffer.
      *
-     * @param bytes byte array to be converted.
-     * @return converted byte array.
+     * @param buffer      buffer to read the length from.
+     * @param lengthBytes number of bytes used for the length (2 or 8).
+     * @return payload length.
      */
-    private long decodeLength(byte[] bytes) {
-        return Utils.toLong(bytes, 0, bytes.length);
+    private long decodeLength(ByteBuffer buffer, int lengthBytes) {
+        long length = 0;
+        for (int i = 0; i < lengthBytes; i++) {
+            length = (length << 8) | (buffer.get() & 0xFF);
+        }
+        return length;
     }
 
     /**
@@ -520,7 +1036,7 @@ public final class ProtocolHandler {
      * @param length the payload size
      * @return the array
      */
-    private byte[] encodeLength(final long length) {
+    /* package */ static byte[] encodeLength(final long length) {
         byte[] lengthBytes;
         if (length <= 125) {
             lengthBytes = new byte[1];
@@ -572,11 +1088,20 @@ public final class ProtocolHandler {
     }
 
     /* package */ void doClose() {
+        outboundQueue.close();
+
         final Writer localWriter = writer;
         if (localWriter == null) {
             throw new IllegalStateException(LocalizationMessages.CONNECTION_NULL());
         }
 
+        final BatchingWriter localBatchingWriter = batchingWriter;
+        if (localBatchingWriter != null) {
+            // the wrapped writer is closed after the remaining batch is passed to it.
+            localBatchingWriter.close();
+            return;
+        }
+
         try {
             localWriter.close();
         } catch (IOException e) {
@@ -585,6 +1110,28 @@ public final class ProtocolHandler {
     }
 
     /* package */ ByteBuffer frame(Frame frame) {
+        final ByteBuffer[] buffers = frameBuffers(frame);
+        if (buffers.length == 1) {
+            return buffers[0];
+        }
+
+        final ByteBuffer packet = ByteBuffer.allocate(buffers[0].remaining() + buffers[1].remaining());
+        packet.put(buffers[0]).put(buffers[1]);
+        packet.flip();
+        return packet;
+    }
+
+    /**
+     * Serialize given frame.
+     * <p/>
+     * Frames sent from the server are not masked, so their payload does not need to be copied; returned array
+     * contains frame header followed by the payload of the (possibly extension processed) frame. Client frames are
+     * masked, so the whole frame is serialized into a single new buffer.
+     *
+     * @param frame frame to be serialized.
+     * @return serialized frame, one or two buffers.
+     */
+    private ByteBuffer[] frameBuffers(Frame frame) {
 
         if (client) {
             frame = Frame.builder(frame).maskingKey(maskingKeyGenerator.nextInt()).mask(true).build();
@@ -615,34 +1162,44 @@ public final class ProtocolHandler {
             opcode |= 0x10;
         }
 
-        final byte[] bytes = frame.getPayloadData();
+        final ByteBuffer payload = frame.getPayload();
         final byte[] lengthBytes = encodeLength(frame.getPayloadLength());
 
-        // TODO - length limited to int, it should be long (see RFC 9788, chapter 5.2)
-        // TODO - in that case, we will need to NOT store dataframe inmemory - introduce maskingByteStream or
-        // TODO   maskingByteBuffer
+        // frames with payload longer than Integer.MAX_VALUE can be sent only by stream(boolean, InputStream, long).
         final int payloadLength = (int) frame.getPayloadLength();
-        int length = 1 + lengthBytes.length + payloadLength + (client ? MASK_SIZE : 0);
-        int payloadStart = 1 + lengthBytes.length + (client ? MASK_SIZE : 0);
+
+        // server - header and payload are written separately, payload is not copied.
+        if (!client) {
+            final byte[] header = new byte[1 + lengthBytes.length];
+            header[0] = opcode;
+            System.arraycopy(lengthBytes, 0, header, 1, lengthBytes.length);
+
+            if (payloadLength == 0) {
+                return new ByteBuffer[]{ByteBuffer.wrap(header)};
+            }
+            return new ByteBuffer[]{ByteBuffer.wrap(header), payload};
+        }
+
+        int length = 1 + lengthBytes.length + payloadLength + MASK_SIZE;
+        int payloadStart = 1 + lengthBytes.length + MASK_SIZE;
         final byte[] packet = new byte[length];
         packet[0] = opcode;
         System.arraycopy(lengthBytes, 0, packet, 1, lengthBytes.length);
-        // if client, then we need to mask data.
-        if (client) {
-            Integer maskingKey = frame.getMaskingKey();
-            if (maskingKey == null) {
-                // TODO: improve validation/exception handling
-                // TODO: related to ExtendedExtension
-                throw new ProtocolException("Masking key cannot be null when sending message from client to server.");
-            }
-            Masker masker = new Masker(maskingKey);
-            packet[1] |= 0x80;
-            masker.mask(packet, payloadStart, bytes, payloadLength);
-            System.arraycopy(masker.getMask(), 0, packet, payloadStart - MASK_SIZE, MASK_SIZE);
-        } else {
-            System.arraycopy(bytes, 0, packet, payloadStart, payloadLength);
+
+        // client needs to mask data.
+        Integer maskingKey = frame.getMaskingKey();
+        if (maskingKey == null) {
+            // TODO: improve validation/exception handling
+            // TODO: related to ExtendedExtension
+            throw new ProtocolException("Masking key cannot be null when sending message from client to server.");
         }
-        return ByteBuffer.wrap(packet);
+        Masker masker = new Masker(maskingKey);
+        packet[1] |= 0x80;
+        payload.get(packet, payloadStart, payloadLength);
+        masker.mask(ByteBuffer.wrap(packet), payloadStart, payloadLength);
+        System.arraycopy(masker.getMask(), 0, packet, payloadStart - MASK_SIZE, MASK_SIZE);
+
+        return new ByteBuffer[]{ByteBuffer.wrap(packet)};
     }
 
     /**
@@ -676,7 +1233,6 @@ public final class ProtocolHandler {
                         byte lengthCode = buffer.get();
 
                         parsingState.masked = (lengthCode & 0x80) == 0x80;
-                        parsingState.masker = new Masker(buffer);
                         if (parsingState.masked) {
                             lengthCode ^= 0x80;
                         }
@@ -697,8 +1253,7 @@ public final class ProtocolHandler {
                                 // Don't have enough bytes to read length
                                 return null;
                             }
-                            parsingState.masker.setBuffer(buffer);
-                            parsingState.length = decodeLength(parsingState.masker.unmask(lengthBytes));
+                            parsingState.length = decodeLength(buffer, lengthBytes);
                         }
                         parsingState.state.incrementAndGet();
                         break;
@@ -710,19 +1265,30 @@ public final class ProtocolHandler {
                             }
                             parsingState.masker.setBuffer(buffer);
                             parsingState.masker.readMask();
+                            parsingState.masker.setBuffer(null);
                         }
                         parsingState.state.incrementAndGet();
                         break;
                     case 3:
                         if (buffer.remaining() < parsingState.length) {
+                            if (buffer.hasRemaining() && isStreamed()) {
+                                return unframeChunk(buffer, buffer.remaining(), false);
+                            }
                             return null;
                         }
 
-                        parsingState.masker.setBuffer(buffer);
-                        final byte[] data = parsingState.masker.unmask((int) parsingState.length);
-                        if (data.length != parsingState.length) {
-                            throw new ProtocolException(
-                                    LocalizationMessages.DATA_UNEXPECTED_LENGTH(data.length, parsingState.length));
+                        if (parsingState.streaming) {
+                            return unframeChunk(buffer, (int) parsingState.length, true);
+                        }
+
+                        // payload is not copied - frame is backed by the (unmasked in place) slice of the read buffer.
+                        final int payloadLength = (int) parsingState.length;
+                        final ByteBuffer data = buffer.slice();
+                        data.limit(payloadLength);
+                        buffer.position(buffer.position() + payloadLength);
+
+                        if (parsingState.masked) {
+                            parsingState.masker.unmask(data);
                         }
 
                         final Frame frame = Frame.builder().fin(parsingState.finalFragment)
@@ -748,6 +1314,59 @@ public final class ProtocolHandler {
         }
     }
 
+    /**
+     * Decide whether the payload of currently parsed frame should be streamed.
+     *
+     * @return {@code true} when the frame is a data frame which would not fit into the incoming buffer and streaming
+     * is enabled.
+     * @see #enableFrameStreaming(int)
+     */
+    private boolean isStreamed() {
+        if (parsingState.streaming) {
+            return true;
+        }
+
+        final long threshold = frameStreamingThreshold;
+        return threshold >= 0 && parsingState.length > threshold && !parsingState.controlFrame && !hasExtensions;
+    }
+
+    /**
+     * Create frame from next part of the streamed frame payload.
+     *
+     * @param buffer      buffer containing the payload part.
+     * @param chunkLength length of the payload part.
+     * @param lastChunk   {@code true} when this is the last part of the payload.
+     * @return frame containing the payload part.
+     */
+    private Frame unframeChunk(ByteBuffer buffer, int chunkLength, boolean lastChunk) {
+        final ByteBuffer data = buffer.slice();
+        data.limit(chunkLength);
+        buffer.position(buffer.position() + chunkLength);
+
+        if (parsingState.masked) {
+            // masker keeps its position in the masking key, chunks are unmasked one by one.
+            parsingState.masker.unmask(data);
+        }
+
+        final Frame frame = Frame.builder().fin(lastChunk && parsingState.finalFragment)
+                                 .rsv1(isBitSet(parsingState.opcode, 6))
+                                 .rsv2(isBitSet(parsingState.opcode, 5))
+                                 .rsv3(isBitSet(parsingState.opcode, 4))
+                                 .opcode(parsingState.streaming ? 0 : (byte) (parsingState.opcode & 0xf))
+                                 .payloadLength(chunkLength)
+                                 .payloadData(data)
+                                 .build();
+
+        if (lastChunk) {
+            parsingState.recycle();
+        } else {
+            parsingState.streaming = true;
+            parsingState.length -= chunkLength;
+        }
+
+        return frame;
+    }
+
     /**
      * TODO.
      * <p/>
@@ -783,7 +1402,7 @@ public final class ProtocolHandler {
             }
         }
 
-        TyrusFrame tyrusFrame = TyrusFrame.wrap(frame, inFragmentedType, remainder);
+        TyrusFrame tyrusFrame = TyrusFrame.wrap(frame, inFragmentedType, remainder, utf8Codec);
 
         // TODO - utf8 decoder needs this state to be shared among decoded frames.
         // TODO - investigate whether it can be removed; (this effectively denies lazy decoding)
@@ -819,71 +1438,15 @@ public final class ProtocolHandler {
         return ((b >> bit & 1) != 0);
     }
 
-    /**
-     * Handler passed to the {@link org.glassfish.tyrus.spi.Writer}.
-     */
-    private static class CompletionHandlerWrapper extends CompletionHandler<ByteBuffer> {
-
-        private final CompletionHandler<Frame> frameCompletionHandler;
-        private final TyrusFuture<Frame> future;
-        private final Frame frame;
-
-        private CompletionHandlerWrapper(CompletionHandler<Frame> frameCompletionHandler, TyrusFuture<Frame> future,
-                                         Frame frame) {
-            this.frameCompletionHandler = frameCompletionHandler;
-            this.future = future;
-            this.frame = frame;
-        }
-
-        @Override
-        public void cancelled() {
-            if (frameCompletionHandler != null) {
-                frameCompletionHandler.cancelled();
-            }
-
-            if (future != null) {
-                future.setFailure(new RuntimeException(LocalizationMessages.FRAME_WRITE_CANCELLED()));
-            }
-        }
-
-        @Override
-        public void failed(Throwable throwable) {
-            if (frameCompletionHandler != null) {
-                frameCompletionHandler.failed(throwable);
-            }
-
-            if (future != null) {
-                future.setFailure(throwable);
-            }
-        }
-
-        @Override
-        public void completed(ByteBuffer result) {
-            if (frameCompletionHandler != null) {
-                frameCompletionHandler.completed(frame);
-            }
-
-            if (future != null) {
-                future.setResult(frame);
-            }
-        }
-
-        @Override
-        public void updated(ByteBuffer result) {
-            if (frameCompletionHandler != null) {
-                frameCompletionHandler.updated(frame);
-            }
-        }
-    }
-
     private static class ParsingState {
         final AtomicInteger state = new AtomicInteger(0);
         volatile byte opcode = (byte) -1;
         volatile long length = -1;
         volatile boolean masked;
-        volatile Masker masker;
+        final Masker masker = new Masker((ByteBuffer) null);
         volatile boolean finalFragment;
         volatile boolean controlFrame;
+        volatile boolean streaming;
 
         private volatile byte lengthCode = -1;
 
@@ -893,9 +1456,9 @@ public final class ProtocolHandler {
             length = -1;
             lengthCode = -1;
             masked = false;
-            masker = null;
             finalFragment = false;
             controlFrame = false;
+            streaming = false;
         }
     }
 }
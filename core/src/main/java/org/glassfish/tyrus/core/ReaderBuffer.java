@@ -42,7 +42,7 @@ package org.glassfish.tyrus.core;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
@@ -66,7 +66,7 @@ import org.glassfish.tyrus.core.l10n.LocalizationMessages;
 class ReaderBuffer {
 
     private final AtomicBoolean buffering = new AtomicBoolean(true);
-    private final ExecutorService executorService;
+    private final Executor executor;
     private final ReentrantLock lock = new ReentrantLock();
     private final Condition condition = lock.newCondition();
 
@@ -83,9 +83,9 @@ class ReaderBuffer {
     /**
      * Constructor.
      */
-    public ReaderBuffer(ExecutorService executorService) {
+    public ReaderBuffer(Executor executor) {
         this.buffer = new StringBuffer();
-        this.executorService = executorService;
+        this.executor = executor;
         currentlyBuffered = 0;
     }
 
@@ -173,7 +173,7 @@ class ReaderBuffer {
 
         if (this.reader == null) {
             this.reader = new BufferedStringReader(this);
-            executorService.execute(new Runnable() {
+            executor.execute(new Runnable() {
                 @Override
                 public void run() {
                     messageHandler.onMessage(reader);
@@ -0,0 +1,159 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes single WebSocket frame, payload of which is passed in multiple chunks.
+ * <p/>
+ * Frame header is created from the declared payload length, so the payload does not need to be present in memory as a
+ * whole and it can be longer than {@link Integer#MAX_VALUE} (64-bit extended payload length is used). Payload of a
+ * masked (client) frame is masked chunk by chunk, unmasked (server) chunks are passed through without copying.
+ */
+class StreamingFrameEncoder {
+
+    private final ByteBuffer header;
+    private final Masker masker;
+
+    private long remaining;
+
+    /**
+     * Constructor.
+     *
+     * @param opcode        first byte of the frame header (FIN, RSV bits and opcode).
+     * @param payloadLength length of the whole frame payload.
+     * @param maskingKey    masking key, {@code null} when the frame is not masked.
+     */
+    StreamingFrameEncoder(byte opcode, long payloadLength, Integer maskingKey) {
+        if (payloadLength < 0) {
+            throw new IllegalArgumentException("payloadLength");
+        }
+
+        final byte[] lengthBytes = ProtocolHandler.encodeLength(payloadLength);
+        final byte[] headerBytes =
+                new byte[1 + lengthBytes.length + (maskingKey == null ? 0 : ProtocolHandler.MASK_SIZE)];
+        headerBytes[0] = opcode;
+        System.arraycopy(lengthBytes, 0, headerBytes, 1, lengthBytes.length);
+
+        if (maskingKey == null) {
+            masker = null;
+        } else {
+            masker = new Masker(maskingKey);
+            headerBytes[1] |= 0x80;
+            System.arraycopy(masker.getMask(), 0, headerBytes, 1 + lengthBytes.length, ProtocolHandler.MASK_SIZE);
+        }
+
+        this.header = ByteBuffer.wrap(headerBytes);
+        this.remaining = payloadLength;
+    }
+
+    /**
+     * Get encoded frame header, including masking key (if any).
+     *
+     * @return frame header.
+     */
+    ByteBuffer getHeader() {
+        return header.duplicate();
+    }
+
+    /**
+     * Encode next chunk of the payload.
+     * <p/>
+     * All remaining bytes of the chunk are consumed (position of the passed buffer is moved to its limit). Returned
+     * buffer is the masked copy of the chunk for masked frames, or view of the chunk otherwise.
+     *
+     * @param chunk next part of the payload.
+     * @return encoded chunk, ready to be written.
+     * @throws IllegalArgumentException when the chunk does not fit into the declared payload length.
+     */
+    ByteBuffer encode(ByteBuffer chunk) {
+        return encode(chunk, false);
+    }
+
+    /**
+     * Encode next chunk of the payload in place.
+     * <p/>
+     * Same as {@link #encode(ByteBuffer)}, but payload of a masked frame is masked directly in the passed buffer, so no
+     * copy is created. The buffer must not be read-only and its content is not usable as the payload afterwards.
+     *
+     * @param chunk next part of the payload.
+     * @return encoded chunk (view of the passed buffer), ready to be written.
+     * @throws IllegalArgumentException when the chunk does not fit into the declared payload length.
+     */
+    ByteBuffer encodeInPlace(ByteBuffer chunk) {
+        return encode(chunk, true);
+    }
+
+    private ByteBuffer encode(ByteBuffer chunk, boolean inPlace) {
+        final int length = chunk.remaining();
+        if (length > remaining) {
+            throw new IllegalArgumentException("Chunk exceeds declared payload length.");
+        }
+
+        remaining -= length;
+
+        final ByteBuffer encoded;
+        if (masker == null) {
+            encoded = chunk.slice();
+        } else if (inPlace) {
+            encoded = chunk.slice();
+            masker.mask(encoded, 0, length);
+        } else {
+            encoded = ByteBuffer.allocate(length);
+            encoded.put(chunk.duplicate());
+            encoded.flip();
+            masker.mask(encoded, 0, length);
+        }
+
+        chunk.position(chunk.limit());
+        return encoded;
+    }
+
+    /**
+     * Get number of payload bytes which were not encoded yet.
+     *
+     * @return remaining payload length.
+     */
+    long getRemaining() {
+        return remaining;
+    }
+}
@@ -40,17 +40,22 @@
 
 package org.glassfish.tyrus.core;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.glassfish.tyrus.core.l10n.LocalizationMessages;
 
 /**
+ * Save received partial text messages to a list and concatenate them once the last one is received.
+ *
  * @author Stepan Kopriva (stepan.kopriva at oracle.com)
  */
 class TextBuffer {
-    private StringBuffer buffer;
+    private final List<String> list = new ArrayList<String>();
     private int bufferSize;
+    private int currentlyBuffered = 0;
     private static final Logger LOGGER = Logger.getLogger(BinaryBuffer.class.getName());
 
     void appendMessagePart(String message) {
@@ -58,8 +63,9 @@ class TextBuffer {
             return;
         }
 
-        if (buffer.length() + message.length() <= bufferSize) {
-            buffer.append(message);
+        if (currentlyBuffered + message.length() <= bufferSize) {
+            currentlyBuffered += message.length();
+            list.add(message);
         } else {
             final MessageTooBigException messageTooBigException =
                     new MessageTooBigException(LocalizationMessages.PARTIAL_MESSAGE_BUFFER_OVERFLOW());
@@ -69,11 +75,22 @@ class TextBuffer {
     }
 
     String getBufferedContent() {
-        return buffer.toString();
+        if (list.isEmpty()) {
+            return "";
+        } else if (list.size() == 1) {
+            return list.get(0);
+        }
+
+        final StringBuilder sb = new StringBuilder(currentlyBuffered);
+        for (String part : list) {
+            sb.append(part);
+        }
+        return sb.toString();
     }
 
     void resetBuffer(int bufferSize) {
         this.bufferSize = bufferSize;
-        this.buffer = new StringBuffer();
+        this.list.clear();
+        currentlyBuffered = 0;
     }
 }
@@ -0,0 +1,302 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hashed timer wheel used for session idle timeouts and heartbeats.
+ * <p>
+ * Deadlines are rounded up to coarse ticks and stored in buckets of a fixed size ring. A single periodic task running
+ * on the {@link ScheduledExecutorService} of the owning {@link ExecutorServiceProvider} advances the wheel and
+ * executes expired tasks, so scheduling and cancelling a timeout costs a queue insert or a flag write instead of an
+ * operation on the executor's delay queue. The periodic task is started when the first timeout is scheduled and stops
+ * itself once the wheel is empty.
+ */
+/* package */ class TimerWheel {
+
+    private static final Logger LOGGER = Logger.getLogger(TimerWheel.class.getName());
+
+    /**
+     * Default tick duration in milliseconds.
+     */
+    static final long DEFAULT_TICK_DURATION = 10;
+
+    /**
+     * Default number of buckets.
+     */
+    static final int DEFAULT_WHEEL_SIZE = 2048;
+
+    private final ExecutorServiceProvider executorServiceProvider;
+    private final long tickNanos;
+    private final List<Timeout>[] buckets;
+    private final int mask;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<Timeout>();
+
+    // guarded by "this"
+    private ScheduledFuture<?> tickFuture;
+    private long lastTick;
+    private int size;
+
+    private volatile ScheduledExecutorService scheduledExecutorService;
+    private volatile boolean running = false;
+
+    /**
+     * Create a wheel with the default tick duration and size.
+     *
+     * @param executorServiceProvider provider of the executor which drives the wheel.
+     */
+    TimerWheel(ExecutorServiceProvider executorServiceProvider) {
+        this(executorServiceProvider, DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Create a wheel.
+     *
+     * @param executorServiceProvider provider of the executor which drives the wheel.
+     * @param tickDuration            tick duration in milliseconds.
+     * @param wheelSize               number of buckets, will be rounded up to a power of two.
+     */
+    @SuppressWarnings("unchecked")
+    TimerWheel(ExecutorServiceProvider executorServiceProvider, long tickDuration, int wheelSize) {
+        if (tickDuration < 1) {
+            throw new IllegalArgumentException("tickDuration");
+        }
+
+        int normalized = 1;
+        while (normalized < wheelSize) {
+            normalized <<= 1;
+        }
+
+        this.executorServiceProvider = executorServiceProvider;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickDuration);
+        this.buckets = new List[normalized];
+        for (int i = 0; i < normalized; i++) {
+            buckets[i] = new ArrayList<Timeout>();
+        }
+        this.mask = normalized - 1;
+    }
+
+    /**
+     * Schedule a one-shot task.
+     *
+     * @param task  task to be executed.
+     * @param delay delay in milliseconds.
+     * @return handle which can be used to cancel the task.
+     */
+    Timeout schedule(Runnable task, long delay) {
+        final Timeout timeout = new Timeout(task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay));
+        pending.add(timeout);
+
+        if (!isRunning()) {
+            start();
+        }
+
+        return timeout;
+    }
+
+    /**
+     * Stop the wheel and discard all scheduled timeouts.
+     * <p>
+     * The wheel can still be used afterwards, it will be restarted on the next call to {@link #schedule(Runnable,
+     * long)}.
+     */
+    synchronized void stop() {
+        running = false;
+        if (tickFuture != null) {
+            tickFuture.cancel(false);
+            tickFuture = null;
+        }
+        scheduledExecutorService = null;
+        pending.clear();
+        for (List<Timeout> bucket : buckets) {
+            bucket.clear();
+        }
+        size = 0;
+    }
+
+    private boolean isRunning() {
+        final ScheduledExecutorService executor = scheduledExecutorService;
+        // executor can be shut down by the container, which also silently cancels the tick task.
+        return running && executor != null && !executor.isShutdown();
+    }
+
+    private synchronized void start() {
+        if (isRunning()) {
+            return;
+        }
+
+        if (tickFuture != null) {
+            tickFuture.cancel(false);
+        }
+
+        scheduledExecutorService = executorServiceProvider.getScheduledExecutorService();
+        lastTick = System.nanoTime() / tickNanos;
+        running = true;
+        tickFuture = scheduledExecutorService.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void tick() {
+        if (!running) {
+            return;
+        }
+
+        final long now = System.nanoTime();
+        final long currentTick = now / tickNanos;
+
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+
+            final long deadlineTick = (timeout.deadline + tickNanos - 1) / tickNanos;
+            if (deadlineTick <= currentTick) {
+                expire(timeout);
+            } else {
+                buckets[(int) (deadlineTick & mask)].add(timeout);
+                size++;
+            }
+        }
+
+        // catch up with ticks missed because of a busy executor, but never walk the ring more than once.
+        final long lastProcessed = Math.min(currentTick, lastTick + buckets.length);
+        for (long t = lastTick + 1; t <= lastProcessed; t++) {
+            processBucket(buckets[(int) (t & mask)], now);
+        }
+        lastTick = currentTick;
+
+        if (size == 0 && pending.isEmpty()) {
+            running = false;
+            tickFuture.cancel(false);
+            tickFuture = null;
+
+            // a timeout might have been added after the check above; schedule() saw "running" set and did not start
+            // the wheel.
+            if (!pending.isEmpty()) {
+                start();
+            }
+        }
+    }
+
+    private void processBucket(List<Timeout> bucket, long now) {
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            final Timeout timeout = bucket.get(i);
+            if (timeout.cancelled) {
+                size--;
+            } else if (timeout.deadline - now <= 0) {
+                size--;
+                expire(timeout);
+            } else {
+                // deadline is in one of the next rounds.
+                bucket.set(kept++, timeout);
+            }
+        }
+
+        for (int i = bucket.size() - 1; i >= kept; i--) {
+            bucket.remove(i);
+        }
+    }
+
+    private void expire(Timeout timeout) {
+        try {
+            scheduledExecutorService.execute(timeout.task);
+        } catch (RejectedExecutionException e) {
+            LOGGER.log(Level.FINE, "Timer task could not be executed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handle of a task scheduled on the wheel.
+     */
+    static final class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+
+        private volatile boolean cancelled = false;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancel the task. The task won't be executed if it hasn't been already.
+         */
+        void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * Get the scheduled task.
+         *
+         * @return scheduled task.
+         */
+        Runnable getTask() {
+            return task;
+        }
+
+        /**
+         * Get the information whether the task has been cancelled.
+         *
+         * @return {@code true} if the task has been cancelled.
+         */
+        boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -60,11 +60,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -119,11 +118,6 @@ public class TyrusEndpointWrapper {
 
     private static final Logger LOGGER = Logger.getLogger(TyrusEndpointWrapper.class.getName());
 
-    /**
-     * Used as threshold for parallel broadcast. When the sessions are divided between threads, number of sessions per
-     * thread should not be lower than this constant.
-     */
-    private static final int MIN_SESSIONS_PER_THREAD = 16;
     /**
      * The container for this session.
      */
@@ -138,6 +132,8 @@ public class TyrusEndpointWrapper {
     private final Endpoint endpoint;
     private final Map<TyrusWebSocket, TyrusSession> webSocketToSession =
             new ConcurrentHashMap<TyrusWebSocket, TyrusSession>();
+    private final ConcurrentMap<String, Map<TyrusWebSocket, TyrusSession>> groups =
+            new ConcurrentHashMap<String, Map<TyrusWebSocket, TyrusSession>>();
     private final Map<String, RemoteSession> clusteredSessions =
             new ConcurrentHashMap<String, RemoteSession>();
     private final ComponentProviderService componentProvider;
@@ -466,34 +462,22 @@ public class TyrusEndpointWrapper {
         return null;
     }
 
-    private ArrayList<CoderWrapper<Decoder>> findApplicableDecoders(TyrusSession session, Object message,
-                                                                    boolean isString) {
-        ArrayList<CoderWrapper<Decoder>> result = new ArrayList<CoderWrapper<Decoder>>();
-
-        for (CoderWrapper<Decoder> dec : decoders) {
-            if (isString && (Decoder.Text.class.isAssignableFrom(dec.getCoderClass()))) {
-                final Decoder.Text decoder = (Decoder.Text) getCoderInstance(session, dec);
-
-                if (decoder.willDecode((String) message)) {
-                    result.add(dec);
-                }
-            } else if (!isString && (Decoder.Binary.class.isAssignableFrom(dec.getCoderClass()))) {
-                final Decoder.Binary decoder = (Decoder.Binary) getCoderInstance(session, dec);
+    /**
+     * Ask a {@link Decoder.Text} or {@link Decoder.Binary} whether it will decode the message.
+     *
+     * @param session         session the message was received on.
+     * @param selectedDecoder decoder to be asked.
+     * @param message         {@link String} or {@link ByteBuffer} message.
+     * @return result of {@code willDecode} of the decoder instance.
+     */
+    boolean willDecode(TyrusSession session, CoderWrapper<Decoder> selectedDecoder, Object message) {
+        final Object decoder = getCoderInstance(session, selectedDecoder);
 
-                if (decoder.willDecode((ByteBuffer) message)) {
-                    result.add(dec);
-                }
-            } else if (isString && (Decoder.TextStream.class.isAssignableFrom(dec.getCoderClass()))) {
-                result.add(dec);
-            } else if (!isString && (Decoder.BinaryStream.class.isAssignableFrom(dec.getCoderClass()))) {
-                result.add(dec);
-            }
+        if (message instanceof String) {
+            return ((Decoder.Text) decoder).willDecode((String) message);
+        } else {
+            return ((Decoder.Binary) decoder).willDecode((ByteBuffer) message);
         }
-
-        session.getDebugContext()
-               .appendLogMessage(LOGGER, Level.FINEST, DebugContext.Type.MESSAGE_IN, "Applicable decoders: ", result);
-
-        return result;
     }
 
     @SuppressWarnings("unchecked")
@@ -813,33 +797,14 @@ public class TyrusEndpointWrapper {
                 session.setState(TyrusSession.State.RUNNING);
             }
             if (session.isWholeBinaryHandlerPresent()) {
-                session.notifyMessageHandlers(messageBytes, findApplicableDecoders(session, messageBytes, false));
+                notifyMessageHandlers(session, messageBytes);
             } else if (session.isPartialBinaryHandlerPresent()) {
-                session.notifyMessageHandlers(messageBytes, true);
+                notifyMessageHandlers(session, messageBytes, true);
             } else {
                 throw new IllegalStateException(LocalizationMessages.BINARY_MESSAGE_HANDLER_NOT_FOUND(session));
             }
         } catch (Throwable t) {
-            if (!processThrowable(t, session)) {
-                ErrorCollector collector = new ErrorCollector();
-                final Object toCall = programmaticEndpoint ? endpoint :
-                        componentProvider.getInstance(endpointClass, session, collector);
-                if (toCall != null) {
-                    if (programmaticEndpoint) {
-                        ((Endpoint) toCall).onError(session, t);
-                    } else {
-                        try {
-                            onError.invoke(toCall, session, t);
-                        } catch (Exception e) {
-                            LOGGER.log(Level.WARNING, t.getMessage(), t);
-                        }
-                    }
-                } else if (!collector.isEmpty()) {
-                    final DeploymentException deploymentException = collector.composeComprehensiveException();
-                    LOGGER.log(Level.WARNING, deploymentException.getMessage(), deploymentException);
-                }
-                endpointEventListener.onError(session.getId(), t);
-            }
+            onHandlerError(session, t);
         }
     }
 
@@ -868,33 +833,14 @@ public class TyrusEndpointWrapper {
                 session.setState(TyrusSession.State.RUNNING);
             }
             if (session.isWholeTextHandlerPresent()) {
-                session.notifyMessageHandlers(messageString, findApplicableDecoders(session, messageString, true));
+                notifyMessageHandlers(session, messageString);
             } else if (session.isPartialTextHandlerPresent()) {
-                session.notifyMessageHandlers(messageString, true);
+                notifyMessageHandlers(session, messageString, true);
             } else {
                 throw new IllegalStateException(LocalizationMessages.TEXT_MESSAGE_HANDLER_NOT_FOUND(session));
             }
         } catch (Throwable t) {
-            if (!processThrowable(t, session)) {
-                ErrorCollector collector = new ErrorCollector();
-                final Object toCall = programmaticEndpoint ? endpoint :
-                        componentProvider.getInstance(endpointClass, session, collector);
-                if (toCall != null) {
-                    if (programmaticEndpoint) {
-                        ((Endpoint) toCall).onError(session, t);
-                    } else {
-                        try {
-                            onError.invoke(toCall, session, t);
-                        } catch (Exception e) {
-                            LOGGER.log(Level.WARNING, t.getMessage(), t);
-                        }
-                    }
-                } else if (!collector.isEmpty()) {
-                    final DeploymentException deploymentException = collector.composeComprehensiveException();
-                    LOGGER.log(Level.WARNING, deploymentException.getMessage(), deploymentException);
-                }
-                endpointEventListener.onError(session.getId(), t);
-            }
+            onHandlerError(session, t);
         }
     }
 
@@ -924,7 +870,7 @@ public class TyrusEndpointWrapper {
             session.restartIdleTimeoutExecutor();
             final TyrusSession.State state = session.getState();
             if (session.isPartialTextHandlerPresent()) {
-                session.notifyMessageHandlers(partialString, last);
+                notifyMessageHandlers(session, partialString, last);
                 if (state == TyrusSession.State.RECEIVING_BINARY || state == TyrusSession.State.RECEIVING_TEXT) {
                     session.setState(TyrusSession.State.RUNNING);
                 }
@@ -934,7 +880,7 @@ public class TyrusEndpointWrapper {
                     case RUNNING:
                         if (buffer == null) {
                             // TODO:
-                            buffer = new ReaderBuffer(((BaseContainer) container).getExecutorService());
+                            buffer = new ReaderBuffer(session.getHandlerExecutor());
                             session.setReaderBuffer(buffer);
                         }
                         buffer.resetBuffer(session.getMaxTextMessageBufferSize());
@@ -966,7 +912,7 @@ public class TyrusEndpointWrapper {
                         session.getTextBuffer().appendMessagePart(partialString);
                         if (last) {
                             final String message = session.getTextBuffer().getBufferedContent();
-                            session.notifyMessageHandlers(message, findApplicableDecoders(session, message, true));
+                            notifyMessageHandlers(session, message);
                             session.setState(TyrusSession.State.RUNNING);
                         }
                         break;
@@ -978,26 +924,7 @@ public class TyrusEndpointWrapper {
                 }
             }
         } catch (Throwable t) {
-            if (!processThrowable(t, session)) {
-                ErrorCollector collector = new ErrorCollector();
-                final Object toCall = programmaticEndpoint ? endpoint :
-                        componentProvider.getInstance(endpointClass, session, collector);
-                if (toCall != null) {
-                    if (programmaticEndpoint) {
-                        ((Endpoint) toCall).onError(session, t);
-                    } else {
-                        try {
-                            onError.invoke(toCall, session, t);
-                        } catch (Exception e) {
-                            LOGGER.log(Level.WARNING, t.getMessage(), t);
-                        }
-                    }
-                } else if (!collector.isEmpty()) {
-                    final DeploymentException deploymentException = collector.composeComprehensiveException();
-                    LOGGER.log(Level.WARNING, deploymentException.getMessage(), deploymentException);
-                }
-                endpointEventListener.onError(session.getId(), t);
-            }
+            onHandlerError(session, t);
         }
     }
 
@@ -1027,7 +954,7 @@ public class TyrusEndpointWrapper {
             session.restartIdleTimeoutExecutor();
             final TyrusSession.State state = session.getState();
             if (session.isPartialBinaryHandlerPresent()) {
-                session.notifyMessageHandlers(partialBytes, last);
+                notifyMessageHandlers(session, partialBytes, last);
                 if (state == TyrusSession.State.RECEIVING_BINARY || state == TyrusSession.State.RECEIVING_TEXT) {
                     session.setState(TyrusSession.State.RUNNING);
                 }
@@ -1037,7 +964,7 @@ public class TyrusEndpointWrapper {
                     case RUNNING:
                         if (buffer == null) {
                             // TODO
-                            buffer = new InputStreamBuffer(((BaseContainer) container).getExecutorService());
+                            buffer = new InputStreamBuffer(session.getHandlerExecutor());
                             session.setInputStreamBuffer(buffer);
                         }
                         buffer.resetBuffer(session.getMaxBinaryMessageBufferSize());
@@ -1069,7 +996,7 @@ public class TyrusEndpointWrapper {
                         session.getBinaryBuffer().appendMessagePart(partialBytes);
                         if (last) {
                             ByteBuffer bb = session.getBinaryBuffer().getBufferedContent();
-                            session.notifyMessageHandlers(bb, findApplicableDecoders(session, bb, false));
+                            notifyMessageHandlers(session, bb);
                             session.setState(TyrusSession.State.RUNNING);
                         }
                         break;
@@ -1081,26 +1008,7 @@ public class TyrusEndpointWrapper {
                 }
             }
         } catch (Throwable t) {
-            if (!processThrowable(t, session)) {
-                ErrorCollector collector = new ErrorCollector();
-                final Object toCall = programmaticEndpoint ? endpoint :
-                        componentProvider.getInstance(endpointClass, session, collector);
-                if (toCall != null) {
-                    if (programmaticEndpoint) {
-                        ((Endpoint) toCall).onError(session, t);
-                    } else {
-                        try {
-                            onError.invoke(toCall, session, t);
-                        } catch (Exception e) {
-                            LOGGER.log(Level.WARNING, t.getMessage(), t);
-                        }
-                    }
-                } else if (!collector.isEmpty()) {
-                    final DeploymentException deploymentException = collector.composeComprehensiveException();
-                    LOGGER.log(Level.WARNING, deploymentException.getMessage(), deploymentException);
-                }
-                endpointEventListener.onError(session.getId(), t);
-            }
+            onHandlerError(session, t);
         }
     }
 
@@ -1131,6 +1039,114 @@ public class TyrusEndpointWrapper {
         return false;
     }
 
+    /**
+     * Pass {@link Throwable} thrown by a message handler to the endpoint {@code onError} method.
+     *
+     * @param session   {@link Session} related to {@link Throwable}.
+     * @param throwable thrown {@link Throwable}.
+     */
+    private void onHandlerError(TyrusSession session, Throwable throwable) {
+        if (!processThrowable(throwable, session)) {
+            ErrorCollector collector = new ErrorCollector();
+            final Object toCall = programmaticEndpoint ? endpoint :
+                    componentProvider.getInstance(endpointClass, session, collector);
+            if (toCall != null) {
+                if (programmaticEndpoint) {
+                    ((Endpoint) toCall).onError(session, throwable);
+                } else {
+                    try {
+                        onError.invoke(toCall, session, throwable);
+                    } catch (Exception e) {
+                        LOGGER.log(Level.WARNING, throwable.getMessage(), throwable);
+                    }
+                }
+            } else if (!collector.isEmpty()) {
+                final DeploymentException deploymentException = collector.composeComprehensiveException();
+                LOGGER.log(Level.WARNING, deploymentException.getMessage(), deploymentException);
+            }
+            endpointEventListener.onError(session.getId(), throwable);
+        }
+    }
+
+    /**
+     * Pass a whole message to the message handlers of the session.
+     *
+     * @param session session the message was received by.
+     * @param message the message.
+     * @see #dispatch(TyrusSession, Runnable)
+     */
+    private void notifyMessageHandlers(final TyrusSession session, final Object message) {
+        dispatch(session, new HandlerInvocation(session) {
+            @Override
+            void invoke() throws Exception {
+                session.notifyMessageHandlers(message);
+            }
+        });
+    }
+
+    /**
+     * Pass a part of a message to the partial message handlers of the session.
+     *
+     * @param session session the message was received by.
+     * @param message the message part.
+     * @param last    {@code true} when the part is the last one of the message.
+     * @see #dispatch(TyrusSession, Runnable)
+     */
+    private void notifyMessageHandlers(final TyrusSession session, final Object message, final boolean last) {
+        dispatch(session, new HandlerInvocation(session) {
+            @Override
+            void invoke() {
+                session.notifyMessageHandlers(message, last);
+            }
+        });
+    }
+
+    /**
+     * Run the task on the handler executor of the session when the session dispatches its handlers, on the current
+     * thread otherwise.
+     *
+     * @param session session the task belongs to.
+     * @param task    invocation of message handlers or of {@code onClose}.
+     * @see TyrusSession#isHandlerDispatched()
+     */
+    private static void dispatch(TyrusSession session, Runnable task) {
+        if (session.isHandlerDispatched()) {
+            try {
+                session.getHandlerExecutor().execute(task);
+                return;
+            } catch (RejectedExecutionException e) {
+                // executor service has been shut down, the task is run on the current thread.
+                LOGGER.log(Level.FINE, e.getMessage(), e);
+            }
+        }
+
+        task.run();
+    }
+
+    /**
+     * Invocation of message handlers, errors thrown by the handlers are passed to the endpoint {@code onError}
+     * method.
+     */
+    private abstract class HandlerInvocation implements Runnable {
+
+        private final TyrusSession session;
+
+        HandlerInvocation(TyrusSession session) {
+            this.session = session;
+        }
+
+        abstract void invoke() throws Exception;
+
+        @Override
+        public void run() {
+            try {
+                invoke();
+            } catch (Throwable t) {
+                onHandlerError(session, t);
+            }
+        }
+    }
+
     /**
      * Called by the provider when the web socket connection
      * has an incoming pong message from the given remote endpoint.
@@ -1139,7 +1155,7 @@ public class TyrusEndpointWrapper {
      * @param bytes  the message.
      */
     void onPong(TyrusWebSocket socket, final ByteBuffer bytes) {
-        TyrusSession session = getSession(socket);
+        final TyrusSession session = getSession(socket);
 
         if (session == null) {
             LOGGER.log(Level.FINE, "Pong received on already closed connection.");
@@ -1152,40 +1168,22 @@ public class TyrusEndpointWrapper {
         session.restartIdleTimeoutExecutor();
 
         if (session.isPongHandlerPresent()) {
-            try {
-                session.notifyPongHandler(new PongMessage() {
-                    @Override
-                    public ByteBuffer getApplicationData() {
-                        return bytes;
-                    }
+            dispatch(session, new HandlerInvocation(session) {
+                @Override
+                void invoke() {
+                    session.notifyPongHandler(new PongMessage() {
+                        @Override
+                        public ByteBuffer getApplicationData() {
+                            return bytes;
+                        }
 
-                    @Override
-                    public String toString() {
-                        return "PongMessage: " + bytes;
-                    }
-                });
-            } catch (Throwable t) {
-                if (!processThrowable(t, session)) {
-                    ErrorCollector collector = new ErrorCollector();
-                    final Object toCall = programmaticEndpoint ? endpoint :
-                            componentProvider.getInstance(endpointClass, session, collector);
-                    if (toCall != null) {
-                        if (programmaticEndpoint) {
-                            ((Endpoint) toCall).onError(session, t);
-                        } else {
-                            try {
-                                onError.invoke(toCall, session, t);
-                            } catch (Exception e) {
-                                LOGGER.log(Level.WARNING, t.getMessage(), t);
-                            }
+                        @Override
+                        public String toString() {
+                            return "PongMessage: " + bytes;
                         }
-                    } else if (!collector.isEmpty()) {
-                        final DeploymentException deploymentException = collector.composeComprehensiveException();
-                        LOGGER.log(Level.WARNING, deploymentException.getMessage(), deploymentException);
-                    }
-                    endpointEventListener.onError(session.getId(), t);
+                    });
                 }
-            }
+            });
         } else {
             session.getDebugContext()
                    .appendLogMessage(LOGGER, Level.FINEST, DebugContext.Type.MESSAGE_IN, "Unhandled pong message");
@@ -1228,13 +1226,26 @@ public class TyrusEndpointWrapper {
      *
      * @param socket {@link TyrusWebSocket} who has just closed the connection.
      */
-    void onClose(TyrusWebSocket socket, CloseReason closeReason) {
-        TyrusSession session = getSession(socket);
+    void onClose(final TyrusWebSocket socket, final CloseReason closeReason) {
+        final TyrusSession session = getSession(socket);
 
         if (session == null) {
             return;
         }
 
+        // a streaming handler waiting for the rest of its message would block onClose queued behind it.
+        session.notifyStreamBuffersClosed();
+
+        // handlers of already received messages are invoked before onClose.
+        dispatch(session, new Runnable() {
+            @Override
+            public void run() {
+                onClose(socket, session, closeReason);
+            }
+        });
+    }
+
+    private void onClose(TyrusWebSocket socket, TyrusSession session, CloseReason closeReason) {
         session.setState(TyrusSession.State.CLOSED);
 
         ErrorCollector collector = new ErrorCollector();
@@ -1285,6 +1296,9 @@ public class TyrusEndpointWrapper {
             session.setState(TyrusSession.State.CLOSED);
 
             webSocketToSession.remove(socket);
+            for (String group : session.getGroups()) {
+                leaveGroup(group, socket);
+            }
             endpointEventListener.onSessionClosed(session.getId());
             componentProvider.removeSession(session);
             sessionListener.onClose(session, closeReason);
@@ -1322,54 +1336,7 @@ public class TyrusEndpointWrapper {
                 return new HashMap<Session, Future<?>>();
             }
 
-            TyrusWebSocket webSocket = webSocketToSession.keySet().iterator().next();
-            final Frame dataFrame = new TextFrame(message, false, true);
-            final ByteBuffer byteBuffer = webSocket.getProtocolHandler().frame(dataFrame);
-            final byte[] frame = new byte[byteBuffer.remaining()];
-            byteBuffer.get(frame);
-            final long payloadLength = dataFrame.getPayloadLength();
-
-            SessionCallable broadcastCallable = new SessionCallable() {
-
-                @Override
-                public Future<?> call(TyrusWebSocket webSocket, TyrusSession session) {
-                    final ProtocolHandler protocolHandler = webSocket.getProtocolHandler();
-
-                    // we need to let protocol handler execute extensions if there are any
-                    if (protocolHandler.hasExtensions()) {
-                        byte[] tempFrame;
-
-                        final Frame dataFrame = new TextFrame(message, false, true);
-                        final ByteBuffer byteBuffer = webSocket.getProtocolHandler().frame(dataFrame);
-                        tempFrame = new byte[byteBuffer.remaining()];
-                        byteBuffer.get(tempFrame);
-
-                        final Future<Frame> frameFuture = webSocket.sendRawFrame(ByteBuffer.wrap(tempFrame));
-                        webSocket.getMessageEventListener()
-                                 .onFrameSent(TyrusFrame.FrameType.TEXT, dataFrame.getPayloadLength());
-                        return frameFuture;
-                    } else {
-                        final Future<Frame> frameFuture = webSocket.sendRawFrame(ByteBuffer.wrap(frame));
-                        webSocket.getMessageEventListener().onFrameSent(TyrusFrame.FrameType.TEXT, payloadLength);
-                        return frameFuture;
-                    }
-                }
-            };
-
-            if (parallelBroadcastEnabled) {
-                return executeInParallel(broadcastCallable);
-            }
-
-            Map<Session, Future<?>> futures = new HashMap<Session, Future<?>>();
-
-            for (Map.Entry<TyrusWebSocket, TyrusSession> e : webSocketToSession.entrySet()) {
-                if (e.getValue().isOpen()) {
-                    Future<?> future = broadcastCallable.call(e.getKey(), e.getValue());
-                    futures.put(e.getValue(), future);
-                }
-            }
-
-            return futures;
+            return getBroadcastFanOut().broadcast(webSocketToSession, textMessage(message));
         }
     }
 
@@ -1398,133 +1365,185 @@ public class TyrusEndpointWrapper {
                 return new HashMap<Session, Future<?>>();
             }
 
-            TyrusWebSocket webSocket = webSocketToSession.keySet().iterator().next();
-            final Frame dataFrame = new BinaryFrame(byteArrayMessage, false, true);
-            final ByteBuffer byteBuffer = webSocket.getProtocolHandler().frame(dataFrame);
-            final byte[] frame = new byte[byteBuffer.remaining()];
-            byteBuffer.get(frame);
-            final long payloadLength = dataFrame.getPayloadLength();
-
-            SessionCallable broadcastCallable = new SessionCallable() {
-
-                @Override
-                public Future<?> call(TyrusWebSocket webSocket, TyrusSession session) {
-                    final ProtocolHandler protocolHandler = webSocket.getProtocolHandler();
-
-                    // we need to let protocol handler execute extensions if there are any
-                    if (protocolHandler.hasExtensions()) {
-                        byte[] tempFrame;
-
-                        final Frame dataFrame = new BinaryFrame(byteArrayMessage, false, true);
-                        final ByteBuffer byteBuffer = webSocket.getProtocolHandler().frame(dataFrame);
-                        tempFrame = new byte[byteBuffer.remaining()];
-                        byteBuffer.get(tempFrame);
-
-                        final Future<Frame> frameFuture = webSocket.sendRawFrame(ByteBuffer.wrap(tempFrame));
-                        webSocket.getMessageEventListener()
-                                 .onFrameSent(TyrusFrame.FrameType.BINARY, dataFrame.getPayloadLength());
-                        return frameFuture;
-                    } else {
-                        final Future<Frame> frameFuture = webSocket.sendRawFrame(ByteBuffer.wrap(frame));
-                        webSocket.getMessageEventListener().onFrameSent(TyrusFrame.FrameType.BINARY, payloadLength);
-                        return frameFuture;
-                    }
-                }
-            };
-
-            if (parallelBroadcastEnabled) {
-                return executeInParallel(broadcastCallable);
-            }
+            return getBroadcastFanOut().broadcast(webSocketToSession, binaryMessage(byteArrayMessage));
+        }
+    }
 
-            Map<Session, Future<?>> futures = new HashMap<Session, Future<?>>();
+    /**
+     * Broadcasts text message to all local sessions which joined given group.
+     *
+     * @param group   name of the group.
+     * @param message message to be broadcasted.
+     * @return map of sessions and futures for user to get the information about status of the message.
+     */
+    Map<Session, Future<?>> broadcast(String group, String message) {
+        final Map<TyrusWebSocket, TyrusSession> members = groups.get(group);
+        if (members == null || members.isEmpty()) {
+            return new HashMap<Session, Future<?>>();
+        }
 
-            for (Map.Entry<TyrusWebSocket, TyrusSession> e : webSocketToSession.entrySet()) {
-                if (e.getValue().isOpen()) {
-                    Future<?> future = broadcastCallable.call(e.getKey(), e.getValue());
-                    futures.put(e.getValue(), future);
-                }
-            }
+        return getBroadcastFanOut().broadcast(members, textMessage(message));
+    }
 
-            return futures;
+    /**
+     * Broadcasts binary message to all local sessions which joined given group.
+     *
+     * @param group   name of the group.
+     * @param message message to be broadcasted.
+     * @return map of sessions and futures for user to get the information about status of the message.
+     */
+    Map<Session, Future<?>> broadcast(String group, ByteBuffer message) {
+        final Map<TyrusWebSocket, TyrusSession> members = groups.get(group);
+        if (members == null || members.isEmpty()) {
+            return new HashMap<Session, Future<?>>();
         }
+
+        return getBroadcastFanOut().broadcast(members, binaryMessage(Utils.getRemainingArray(message)));
     }
 
     /**
-     * Divides open sessions into subsets on which an operation passed as {@code broadcastCallable} will be executed in
-     * parallel.
+     * Broadcasts text message to all connected clients without waiting for the result.
      *
-     * @param broadcastCallable operation to be executed on open sessions.
-     * @return futures of the operations executed on each session.
+     * @param group                 name of the group or {@code null} for all sessions of the endpoint.
+     * @param message               message to be broadcasted.
+     * @param slowConsumerThreshold maximal number of bytes waiting to be written to a session, sessions with more
+     *                              pending data are skipped. Negative value means no limit.
+     * @return future completed when the message is written to all local sessions. Its value is number of sessions to
+     * which the message was written successfully; messages sent from other cluster nodes are not included.
      */
-    private Map<Session, Future<?>> executeInParallel(final SessionCallable broadcastCallable) {
-        final List<Map.Entry<TyrusWebSocket, TyrusSession>> sessions =
-                new ArrayList<Map.Entry<TyrusWebSocket, TyrusSession>>();
-
-        for (Map.Entry<TyrusWebSocket, TyrusSession> e : webSocketToSession.entrySet()) {
-            if (e.getValue().isOpen()) {
-                sessions.add(e);
-            }
+    Future<Integer> broadcastAsync(String group, String message, long slowConsumerThreshold) {
+        if (group == null && clusterContext != null) {
+            clusterContext.broadcastText(getEndpointPath(), message);
+            return completedBroadcast();
         }
 
-        if (sessions.isEmpty()) {
-            return new HashMap<Session, Future<?>>();
+        final Map<TyrusWebSocket, TyrusSession> sessions = group == null ? webSocketToSession : groups.get(group);
+        if (sessions == null || sessions.isEmpty()) {
+            return completedBroadcast();
         }
 
-        ExecutorService executor = ((BaseContainer) sessions.get(0).getValue().getContainer()).getExecutorService();
-        Map<Future<Map<Session, Future<?>>>, int[]> submitFutures =
-                new HashMap<Future<Map<Session, Future<?>>>, int[]>();
+        return getBroadcastFanOut().broadcastAsync(sessions, textMessage(message), slowConsumerThreshold);
+    }
 
-        int sessionCount = sessions.size();
-        int maxThreadCount = sessionCount / MIN_SESSIONS_PER_THREAD == 0 ? 1 : sessionCount / MIN_SESSIONS_PER_THREAD;
-        int threadCount = Math.min(Runtime.getRuntime().availableProcessors(), maxThreadCount);
+    /**
+     * Broadcasts binary message to all connected clients without waiting for the result.
+     *
+     * @param group                 name of the group or {@code null} for all sessions of the endpoint.
+     * @param message               message to be broadcasted.
+     * @param slowConsumerThreshold maximal number of bytes waiting to be written to a session, sessions with more
+     *                              pending data are skipped. Negative value means no limit.
+     * @return future completed when the message is written to all local sessions. Its value is number of sessions to
+     * which the message was written successfully; messages sent from other cluster nodes are not included.
+     */
+    Future<Integer> broadcastAsync(String group, ByteBuffer message, long slowConsumerThreshold) {
+        final byte[] byteArrayMessage = Utils.getRemainingArray(message);
 
-        for (int i = 0; i < threadCount; i++) {
+        if (group == null && clusterContext != null) {
+            clusterContext.broadcastBinary(getEndpointPath(), byteArrayMessage);
+            return completedBroadcast();
+        }
 
-            final int lowerBound = (sessionCount + threadCount - 1) / threadCount * i;
-            final int upperBound = Math.min((sessionCount + threadCount - 1) / threadCount * (i + 1), sessionCount);
+        final Map<TyrusWebSocket, TyrusSession> sessions = group == null ? webSocketToSession : groups.get(group);
+        if (sessions == null || sessions.isEmpty()) {
+            return completedBroadcast();
+        }
 
-            Future<Map<Session, Future<?>>> submitFuture = executor.submit(new Callable<Map<Session, Future<?>>>() {
+        return getBroadcastFanOut().broadcastAsync(sessions, binaryMessage(byteArrayMessage), slowConsumerThreshold);
+    }
 
-                @Override
-                public Map<Session, Future<?>> call() throws Exception {
-                    Map<Session, Future<?>> futures = new HashMap<Session, Future<?>>();
+    private static Future<Integer> completedBroadcast() {
+        final TyrusFuture<Integer> future = new TyrusFuture<Integer>();
+        future.setResult(0);
+        return future;
+    }
 
-                    for (int j = lowerBound; j < upperBound; j++) {
-                        Map.Entry<TyrusWebSocket, TyrusSession> e = sessions.get(j);
-                        Future<?> future = broadcastCallable.call(e.getKey(), e.getValue());
-                        futures.put(e.getValue(), future);
-                    }
-                    return futures;
+    /**
+     * Add session to a broadcast group.
+     * <p/>
+     * Members are indexed per group, so broadcasting to a group does not iterate over other sessions of this endpoint.
+     *
+     * @param group   name of the group.
+     * @param socket  socket of the joining session.
+     * @param session joining session.
+     * @see #broadcast(String, String)
+     * @see #broadcast(String, ByteBuffer)
+     */
+    void joinGroup(String group, TyrusWebSocket socket, TyrusSession session) {
+        while (true) {
+            Map<TyrusWebSocket, TyrusSession> members = groups.get(group);
+            if (members == null) {
+                final Map<TyrusWebSocket, TyrusSession> newMembers =
+                        new ConcurrentHashMap<TyrusWebSocket, TyrusSession>();
+                members = groups.putIfAbsent(group, newMembers);
+                if (members == null) {
+                    members = newMembers;
                 }
-            });
+            }
 
-            submitFutures.put(submitFuture, new int[]{lowerBound, upperBound});
+            // member map is used as a per-group lock, see leaveGroup(String, TyrusWebSocket).
+            synchronized (members) {
+                // the group might have been removed by its last member leaving in the meantime.
+                if (groups.get(group) == members) {
+                    members.put(socket, session);
+                    break;
+                }
+            }
         }
 
-        final Map<Session, Future<?>> futures = new HashMap<Session, Future<?>>();
+        // session was closed concurrently; its groups might have been already cleaned up.
+        if (!webSocketToSession.containsKey(socket)) {
+            leaveGroup(group, socket);
+        }
+    }
 
-        for (Future<Map<Session, Future<?>>> submitFuture : submitFutures.keySet()) {
-            try {
-                futures.putAll(submitFuture.get());
-            } catch (InterruptedException e) {
-                handleSubmitException(futures, sessions, submitFutures.get(submitFuture), e);
-            } catch (ExecutionException e) {
-                handleSubmitException(futures, sessions, submitFutures.get(submitFuture), e);
+    /**
+     * Remove session from a broadcast group. Empty groups are discarded.
+     * <p/>
+     * Removing the member and discarding the empty group is atomic with respect to
+     * {@link #joinGroup(String, TyrusWebSocket, TyrusSession)}, so a concurrently joining session is never added to
+     * a discarded group.
+     *
+     * @param group  name of the group.
+     * @param socket socket of the leaving session.
+     */
+    void leaveGroup(String group, TyrusWebSocket socket) {
+        final Map<TyrusWebSocket, TyrusSession> members = groups.get(group);
+        if (members != null) {
+            synchronized (members) {
+                members.remove(socket);
+                if (members.isEmpty()) {
+                    groups.remove(group, members);
+                }
             }
         }
+    }
+
+    private static BroadcastFanOut.SharedFrame textMessage(final String message) {
+        return new BroadcastFanOut.SharedFrame(TyrusFrame.FrameType.TEXT) {
 
-        return futures;
+            @Override
+            Frame createFrame() {
+                return new TextFrame(message, false, true);
+            }
+        };
     }
 
-    private void handleSubmitException(Map<Session, Future<?>> futures,
-                                       List<Map.Entry<TyrusWebSocket, TyrusSession>> sessions,
-                                       int[] bounds, Exception e) {
+    private static BroadcastFanOut.SharedFrame binaryMessage(final byte[] message) {
+        return new BroadcastFanOut.SharedFrame(TyrusFrame.FrameType.BINARY) {
 
-        for (int j = bounds[0]; j < bounds[1]; j++) {
-            TyrusFuture<Void> future = new TyrusFuture<Void>();
-            future.setFailure(e);
-            futures.put(sessions.get(j).getValue(), future);
+            @Override
+            Frame createFrame() {
+                return new BinaryFrame(message, false, true);
+            }
+        };
+    }
+
+    private BroadcastFanOut getBroadcastFanOut() {
+        if (parallelBroadcastEnabled && container instanceof BaseContainer) {
+            return new BroadcastFanOut(((BaseContainer) container).getExecutorService());
         }
+
+        return new BroadcastFanOut(null);
     }
 
     /**
@@ -1536,6 +1555,15 @@ public class TyrusEndpointWrapper {
         return (List<Decoder>) (List<?>) decoders;
     }
 
+    /**
+     * Registered {@link Decoder}s.
+     *
+     * @return {@link List} of {@link CoderWrapper}s of registered {@link Decoder}s.
+     */
+    List<CoderWrapper<Decoder>> getDecoderWrappers() {
+        return decoders;
+    }
+
     private Class<?> getEncoderClassType(Class<?> encoderClass) {
         if (Encoder.Binary.class.isAssignableFrom(encoderClass)) {
             return ReflectionHelper.getClassType(encoderClass, Encoder.Binary.class);
@@ -1888,9 +1916,4 @@ public class TyrusEndpointWrapper {
             return null;
         }
     };
-
-    private static interface SessionCallable {
-
-        Future<?> call(TyrusWebSocket tyrusWebSocket, TyrusSession session);
-    }
 }
@@ -45,8 +45,10 @@ import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.ByteBuffer;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
@@ -71,6 +73,35 @@ import static org.glassfish.tyrus.core.Utils.checkNotNull;
  */
 public abstract class TyrusRemoteEndpoint implements javax.websocket.RemoteEndpoint {
 
+    /**
+     * Maximal size of a batch of outgoing messages in bytes.
+     * <p/>
+     * Used only when batching is allowed (see {@link #setBatchingAllowed(boolean)}). When the size of batched messages
+     * reaches this value, the batch is sent to the peer.
+     * <p/>
+     * The value must be positive {@link java.lang.Integer} or its primitive alternative and it is read from
+     * {@link javax.websocket.EndpointConfig#getUserProperties()}.
+     * <p/>
+     * Default value is {@value #DEFAULT_BATCH_MAX_SIZE}.
+     */
+    public static final String BATCH_MAX_SIZE = "org.glassfish.tyrus.remoteEndpoint.batchMaxSize";
+
+    /**
+     * Maximal time in milliseconds an outgoing message can stay in the batch before it is sent to the peer.
+     * <p/>
+     * Used only when batching is allowed (see {@link #setBatchingAllowed(boolean)}). Zero or negative value means
+     * that the batch is sent only when it is full or when {@link #flushBatch()} is invoked.
+     * <p/>
+     * The value must be {@link java.lang.Long} or its primitive alternative and it is read from
+     * {@link javax.websocket.EndpointConfig#getUserProperties()}.
+     * <p/>
+     * Default value is {@value #DEFAULT_BATCH_MAX_DELAY}.
+     */
+    public static final String BATCH_MAX_DELAY = "org.glassfish.tyrus.remoteEndpoint.batchMaxDelay";
+
+    private static final int DEFAULT_BATCH_MAX_SIZE = 16384;
+    private static final long DEFAULT_BATCH_MAX_DELAY = 10;
+
     final TyrusSession session;
     final TyrusWebSocket webSocket;
 
@@ -162,6 +193,10 @@ public abstract class TyrusRemoteEndpoint implements javax.websocket.RemoteEndpo
          *                     whole ExecutionException will be rethrown wrapped in {@link java.io.IOException}.
          */
         private void processFuture(Future<?> future) throws IOException {
+            if (isBatched(future)) {
+                return;
+            }
+
             try {
                 future.get();
             } catch (InterruptedException e) {
@@ -179,6 +214,11 @@ public abstract class TyrusRemoteEndpoint implements javax.websocket.RemoteEndpo
         public void sendObject(Object data) throws IOException, EncodeException {
             checkNotNull(data, "data");
             final Future<?> future = sendSyncObject(data);
+            if (isBatched(future)) {
+                session.restartIdleTimeoutExecutor();
+                return;
+            }
+
             try {
                 future.get();
             } catch (InterruptedException e) {
@@ -195,6 +235,29 @@ public abstract class TyrusRemoteEndpoint implements javax.websocket.RemoteEndpo
             session.restartIdleTimeoutExecutor();
         }
 
+        /**
+         * Check whether the sent message was added to the batch.
+         * <p/>
+         * Message added to the batch is considered to be sent, see
+         * {@link javax.websocket.RemoteEndpoint#setBatchingAllowed(boolean)}. Messages which do not fit into the batch
+         * are written directly, so the caller has to wait for the result of their write.
+         *
+         * @param future send future.
+         * @return {@code true} when the message was added to the batch and it was not written yet.
+         */
+        private boolean isBatched(Future<?> future) {
+            if (!(future instanceof FrameWriteFuture) || future.isDone() || !getBatchingAllowed()) {
+                return false;
+            }
+
+            try {
+                return ((FrameWriteFuture) future).awaitBatched();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
         @Override
         public OutputStream getSendStream() throws IOException {
             return new OutputStreamToAsyncBinaryAdapter(webSocket);
@@ -476,18 +539,52 @@ public abstract class TyrusRemoteEndpoint implements javax.websocket.RemoteEndpo
     }
 
     @Override
-    public void setBatchingAllowed(boolean allowed) {
-        // TODO: Implement.
+    public void setBatchingAllowed(boolean allowed) throws IOException {
+        final ProtocolHandler protocolHandler = webSocket.getProtocolHandler();
+
+        if (allowed) {
+            final Map<String, Object> properties = endpointWrapper.getEndpointConfig().getUserProperties();
+            final Integer maxBatchSize =
+                    Utils.getProperty(properties, BATCH_MAX_SIZE, Integer.class, DEFAULT_BATCH_MAX_SIZE);
+            final Long maxBatchDelay =
+                    Utils.getProperty(properties, BATCH_MAX_DELAY, Long.class, DEFAULT_BATCH_MAX_DELAY);
+
+            ScheduledExecutorService scheduledExecutorService = null;
+            if (session.getContainer() instanceof ExecutorServiceProvider) {
+                scheduledExecutorService =
+                        ((ExecutorServiceProvider) session.getContainer()).getScheduledExecutorService();
+            }
+
+            protocolHandler.enableBatching(
+                    maxBatchSize == null || maxBatchSize < 1 ? DEFAULT_BATCH_MAX_SIZE : maxBatchSize,
+                    maxBatchDelay == null ? DEFAULT_BATCH_MAX_DELAY : maxBatchDelay, scheduledExecutorService);
+        } else {
+            processBatchFuture(protocolHandler.disableBatching());
+        }
     }
 
     @Override
     public boolean getBatchingAllowed() {
-        return false;  // TODO: Implement.
+        return webSocket.getProtocolHandler().isBatchingEnabled();
     }
 
     @Override
-    public void flushBatch() {
-        // TODO: Implement.
+    public void flushBatch() throws IOException {
+        processBatchFuture(webSocket.getProtocolHandler().flushBatch());
+    }
+
+    private void processBatchFuture(Future<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else {
+                throw new IOException(e.getCause());
+            }
+        }
     }
 
     public void close(CloseReason cr) {
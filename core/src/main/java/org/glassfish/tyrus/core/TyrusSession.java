@@ -52,9 +52,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
@@ -99,6 +99,7 @@ public class TyrusSession implements Session, DistributedSession {
     private final Principal userPrincipal;
     private final Map<String, List<String>> requestParameterMap;
     private final Object idleTimeoutLock = new Object();
+    private final Object heartbeatLock = new Object();
     private final String id;
     private final String connectionId;
     private final Map<String, Object> userProperties;
@@ -110,19 +111,27 @@ public class TyrusSession implements Session, DistributedSession {
     private final String negotiatedSubprotocol;
     private final String remoteAddr;
     private final DebugContext debugContext;
+    private final TyrusWebSocket webSocket;
+    private final Set<String> groups = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     private final Map<RemoteSession.DistributedMapKey, Object> distributedPropertyMap;
     private final Map<String, Object> distributedUserProperties;
 
     private volatile long maxIdleTimeout = 0;
-    private volatile ScheduledFuture<?> idleTimeoutFuture = null;
+    private volatile long lastActivityTime = System.nanoTime();
+    private volatile TimerWheel.Timeout idleTimeout = null;
     private int maxBinaryMessageBufferSize = Integer.MAX_VALUE;
     private int maxTextMessageBufferSize = Integer.MAX_VALUE;
-    private ScheduledExecutorService service;
+    private TimerWheel timerWheel;
     private ReaderBuffer readerBuffer;
     private InputStreamBuffer inputStreamBuffer;
+    private final Object handlerExecutorLock = new Object();
+    private final boolean handlerDispatched;
+    private volatile Executor handlerExecutor;
     private volatile long heartbeatInterval;
-    private volatile ScheduledFuture<?> heartbeatTask;
+    private volatile TimerWheel.Timeout heartbeatTask;
+    private volatile MessageDispatchTable textDispatchTable;
+    private volatile MessageDispatchTable binaryDispatchTable;
 
     TyrusSession(WebSocketContainer container, TyrusWebSocket socket, TyrusEndpointWrapper endpointWrapper,
                  String subprotocol, List<Extension> extensions, boolean isSecure,
@@ -148,14 +157,18 @@ public class TyrusSession implements Session, DistributedSession {
         this.connectionId = connectionId;
         this.remoteAddr = remoteAddr;
         this.debugContext = debugContext;
+        this.webSocket = socket;
 
         if (container != null) {
             maxTextMessageBufferSize = container.getDefaultMaxTextMessageBufferSize();
             maxBinaryMessageBufferSize = container.getDefaultMaxBinaryMessageBufferSize();
-            service = ((ExecutorServiceProvider) container).getScheduledExecutorService();
+            timerWheel = ((ExecutorServiceProvider) container).getTimerWheel();
             setMaxIdleTimeout(container.getDefaultMaxSessionIdleTimeout());
         }
 
+        handlerDispatched = container instanceof BaseContainer &&
+                ((BaseContainer) container).isExecutorServiceFactoryConfigured();
+
         // cluster context is always null on client side
         if (clusterContext != null) {
             id = clusterContext.createSessionId();
@@ -313,7 +326,17 @@ public class TyrusSession implements Session, DistributedSession {
     public void setMaxIdleTimeout(long maxIdleTimeout) {
         checkConnectionState(State.CLOSED);
         this.maxIdleTimeout = maxIdleTimeout;
-        restartIdleTimeoutExecutor();
+        lastActivityTime = System.nanoTime();
+        synchronized (idleTimeoutLock) {
+            if (idleTimeout != null) {
+                idleTimeout.cancel();
+                idleTimeout = null;
+            }
+
+            if (maxIdleTimeout > 0 && timerWheel != null) {
+                idleTimeout = timerWheel.schedule(new IdleTimeoutCommand(), maxIdleTimeout);
+            }
+        }
         if (distributedPropertyMap != null) {
             distributedPropertyMap.put(RemoteSession.DistributedMapKey.MAX_IDLE_TIMEOUT, maxIdleTimeout);
         }
@@ -340,6 +363,7 @@ public class TyrusSession implements Session, DistributedSession {
         checkConnectionState(State.CLOSED);
         synchronized (handlerManager) {
             handlerManager.addMessageHandler(handler);
+            invalidateDispatchTables();
         }
     }
 
@@ -364,6 +388,7 @@ public class TyrusSession implements Session, DistributedSession {
         checkConnectionState(State.CLOSED);
         synchronized (handlerManager) {
             handlerManager.addMessageHandler(clazz, handler);
+            invalidateDispatchTables();
         }
     }
 
@@ -388,6 +413,7 @@ public class TyrusSession implements Session, DistributedSession {
         checkConnectionState(State.CLOSED);
         synchronized (handlerManager) {
             handlerManager.addMessageHandler(clazz, handler);
+            invalidateDispatchTables();
         }
     }
 
@@ -403,6 +429,7 @@ public class TyrusSession implements Session, DistributedSession {
         checkConnectionState(State.CLOSED);
         synchronized (handlerManager) {
             handlerManager.removeMessageHandler(handler);
+            invalidateDispatchTables();
         }
     }
 
@@ -474,6 +501,153 @@ public class TyrusSession implements Session, DistributedSession {
         return endpointWrapper.broadcast(message);
     }
 
+    /**
+     * Join a broadcast group.
+     * <p/>
+     * Groups are created when the first session joins them and discarded when the last session leaves. Sessions leave
+     * all their groups automatically when closed.
+     *
+     * @param group name of the group to join.
+     * @see #broadcast(String, String)
+     * @see #broadcast(String, ByteBuffer)
+     */
+    public void joinGroup(String group) {
+        checkConnectionState(State.CLOSED);
+        Utils.checkNotNull(group, "group");
+
+        if (groups.add(group)) {
+            endpointWrapper.joinGroup(group, webSocket, this);
+        }
+    }
+
+    /**
+     * Leave a broadcast group. Leaving a group which was not joined has no effect.
+     *
+     * @param group name of the group to leave.
+     */
+    public void leaveGroup(String group) {
+        Utils.checkNotNull(group, "group");
+
+        if (groups.remove(group)) {
+            endpointWrapper.leaveGroup(group, webSocket);
+        }
+    }
+
+    /**
+     * Get names of broadcast groups joined by this session.
+     *
+     * @return unmodifiable set of group names.
+     */
+    public Set<String> getGroups() {
+        return Collections.unmodifiableSet(groups);
+    }
+
+    /**
+     * Broadcasts text message to all local sessions which joined given group.
+     * <p/>
+     * Only members of the group are iterated, so the cost of the broadcast does not depend on the number of other
+     * sessions connected to the endpoint. Like {@link #broadcast(String)}, the message is framed only once and the
+     * broadcast can be executed in parallel. Sessions connected to other cluster nodes are not included.
+     *
+     * @param group   name of the group.
+     * @param message message to be broadcasted.
+     * @return map of local sessions and futures for user to get the information about status of the message.
+     */
+    public Map<Session, Future<?>> broadcast(String group, String message) {
+        Utils.checkNotNull(group, "group");
+        return endpointWrapper.broadcast(group, message);
+    }
+
+    /**
+     * Broadcasts binary message to all local sessions which joined given group.
+     * <p/>
+     * Only members of the group are iterated, so the cost of the broadcast does not depend on the number of other
+     * sessions connected to the endpoint. Like {@link #broadcast(ByteBuffer)}, the message is framed only once and
+     * the broadcast can be executed in parallel. Sessions connected to other cluster nodes are not included.
+     *
+     * @param group   name of the group.
+     * @param message message to be broadcasted.
+     * @return map of local sessions and futures for user to get the information about status of the message.
+     */
+    public Map<Session, Future<?>> broadcast(String group, ByteBuffer message) {
+        Utils.checkNotNull(group, "group");
+        return endpointWrapper.broadcast(group, message);
+    }
+
+    /**
+     * Broadcasts text message to all connected clients, including remote sessions (if any), without waiting for the
+     * result.
+     * <p/>
+     * Unlike {@link #broadcast(String)}, this method does not track the result for each session; it returns
+     * immediately and the returned future represents the whole broadcast. Sessions which have more than {@code
+     * slowConsumerThreshold} bytes waiting to be written (clients not able to keep up with the sent data) are skipped.
+     * The broadcast is executed in parallel when enabled by {@link
+     * org.glassfish.tyrus.core.TyrusWebSocketEngine#PARALLEL_BROADCAST_ENABLED}.
+     *
+     * @param message               message to be broadcasted.
+     * @param slowConsumerThreshold maximal number of bytes waiting to be written to a session, sessions with more
+     *                              pending data are skipped. Negative value means no limit.
+     * @return future completed when the message is written to all local sessions it was sent to. Its value is number
+     * of local sessions to which the message was written successfully.
+     */
+    public Future<Integer> broadcastAsync(String message, long slowConsumerThreshold) {
+        return endpointWrapper.broadcastAsync(null, message, slowConsumerThreshold);
+    }
+
+    /**
+     * Broadcasts binary message to all connected clients, including remote sessions (if any), without waiting for
+     * the result.
+     * <p/>
+     * Unlike {@link #broadcast(ByteBuffer)}, this method does not track the result for each session; it returns
+     * immediately and the returned future represents the whole broadcast. Sessions which have more than {@code
+     * slowConsumerThreshold} bytes waiting to be written (clients not able to keep up with the sent data) are skipped.
+     * The broadcast is executed in parallel when enabled by {@link
+     * org.glassfish.tyrus.core.TyrusWebSocketEngine#PARALLEL_BROADCAST_ENABLED}.
+     *
+     * @param message               message to be broadcasted.
+     * @param slowConsumerThreshold maximal number of bytes waiting to be written to a session, sessions with more
+     *                              pending data are skipped. Negative value means no limit.
+     * @return future completed when the message is written to all local sessions it was sent to. Its value is number
+     * of local sessions to which the message was written successfully.
+     */
+    public Future<Integer> broadcastAsync(ByteBuffer message, long slowConsumerThreshold) {
+        return endpointWrapper.broadcastAsync(null, message, slowConsumerThreshold);
+    }
+
+    /**
+     * Broadcasts text message to all local sessions which joined given group without waiting for the result.
+     *
+     * @param group                 name of the group.
+     * @param message               message to be broadcasted.
+     * @param slowConsumerThreshold maximal number of bytes waiting to be written to a session, sessions with more
+     *                              pending data are skipped. Negative value means no limit.
+     * @return future completed when the message is written to all sessions it was sent to. Its value is number of
+     * sessions to which the message was written successfully.
+     * @see #broadcastAsync(String, long)
+     * @see #joinGroup(String)
+     */
+    public Future<Integer> broadcastAsync(String group, String message, long slowConsumerThreshold) {
+        Utils.checkNotNull(group, "group");
+        return endpointWrapper.broadcastAsync(group, message, slowConsumerThreshold);
+    }
+
+    /**
+     * Broadcasts binary message to all local sessions which joined given group without waiting for the result.
+     *
+     * @param group                 name of the group.
+     * @param message               message to be broadcasted.
+     * @param slowConsumerThreshold maximal number of bytes waiting to be written to a session, sessions with more
+     *                              pending data are skipped. Negative value means no limit.
+     * @return future completed when the message is written to all sessions it was sent to. Its value is number of
+     * sessions to which the message was written successfully.
+     * @see #broadcastAsync(ByteBuffer, long)
+     * @see #joinGroup(String)
+     */
+    public Future<Integer> broadcastAsync(String group, ByteBuffer message, long slowConsumerThreshold) {
+        Utils.checkNotNull(group, "group");
+        return endpointWrapper.broadcastAsync(group, message, slowConsumerThreshold);
+    }
+
     /**
      * Return an interval in milliseconds between scheduled periodic Pong messages.
      * A negative value or 0 means that sending of periodic Pong messages is not turned on.
@@ -492,37 +666,29 @@ public class TyrusSession implements Session, DistributedSession {
      */
     public void setHeartbeatInterval(long heartbeatInterval) {
         checkConnectionState(State.CLOSED);
-        this.heartbeatInterval = heartbeatInterval;
-        cancelHeartBeatTask();
+        synchronized (heartbeatLock) {
+            this.heartbeatInterval = heartbeatInterval;
+            cancelHeartBeatTask();
 
-        if (heartbeatInterval < 1) {
-            return;
-        }
-
-        heartbeatTask = service.scheduleAtFixedRate(new HeartbeatCommand(), heartbeatInterval, heartbeatInterval,
-                                                    TimeUnit.MILLISECONDS);
-    }
-
-    void restartIdleTimeoutExecutor() {
-        if (this.maxIdleTimeout < 1) {
-            synchronized (idleTimeoutLock) {
-                if (idleTimeoutFuture != null) {
-                    idleTimeoutFuture.cancel(true);
-                }
+            if (heartbeatInterval < 1) {
                 return;
             }
-        }
 
-        synchronized (idleTimeoutLock) {
-            if (idleTimeoutFuture != null) {
-                idleTimeoutFuture.cancel(false);
-            }
-
-            idleTimeoutFuture =
-                    service.schedule(new IdleTimeoutCommand(), this.getMaxIdleTimeout(), TimeUnit.MILLISECONDS);
+            heartbeatTask = timerWheel.schedule(new HeartbeatCommand(), heartbeatInterval);
         }
     }
 
+    /**
+     * Record session activity.
+     * <p>
+     * Only the time of the last activity is stored here; the scheduled {@link IdleTimeoutCommand} compares it with the
+     * max idle timeout when it fires and schedules itself again for the remaining time if the session was active in
+     * the meantime.
+     */
+    void restartIdleTimeoutExecutor() {
+        lastActivityTime = System.nanoTime();
+    }
+
     private void checkConnectionState(State... states) {
         final State sessionState = state.get();
         for (State s : states) {
@@ -544,48 +710,79 @@ public class TyrusSession implements Session, DistributedSession {
         }
     }
 
-    void notifyMessageHandlers(Object message, List<CoderWrapper<Decoder>> availableDecoders) throws DecodeException,
-            IOException {
-        boolean decoded = false;
-
-        if (availableDecoders.isEmpty()) {
-            LOGGER.warning(LocalizationMessages.NO_DECODER_FOUND());
-        }
+    /**
+     * Decode a whole text ({@link String}) or binary ({@link ByteBuffer}) message and pass it to the most specific
+     * registered whole message handler.
+     * <p>
+     * Routes from decoders to handlers are taken from a {@link MessageDispatchTable} compiled when the set of handlers
+     * changes, so no locking, sorting or allocation is done here.
+     *
+     * @param message message to be dispatched.
+     * @throws DecodeException when the message cannot be decoded.
+     * @throws IOException     when a stream decoder fails to read the message.
+     */
+    void notifyMessageHandlers(Object message) throws DecodeException, IOException {
+        boolean applicable = false;
 
-        List<Map.Entry<Class<?>, MessageHandler>> orderedMessageHandlers;
-        synchronized (handlerManager) {
-            orderedMessageHandlers = handlerManager.getOrderedWholeMessageHandlers();
-        }
+        for (MessageDispatchTable.Route route : getDispatchTable(message instanceof String).getRoutes()) {
+            final CoderWrapper<Decoder> decoder = route.getDecoder();
+            if (!route.isStream() && !endpointWrapper.willDecode(this, decoder, message)) {
+                continue;
+            }
 
-        for (CoderWrapper<Decoder> decoder : availableDecoders) {
-            for (Map.Entry<Class<?>, MessageHandler> entry : orderedMessageHandlers) {
-                MessageHandler mh = entry.getValue();
+            applicable = true;
 
-                Class<?> type = entry.getKey();
-                if (type.isAssignableFrom(decoder.getType())) {
+            for (int i = 0; i < route.size(); i++) {
+                final MessageHandler mh = route.getHandler(i);
 
-                    if (mh instanceof BasicMessageHandler) {
-                        checkMessageSize(message, ((BasicMessageHandler) mh).getMaxMessageSize());
-                    }
+                if (mh instanceof BasicMessageHandler) {
+                    checkMessageSize(message, ((BasicMessageHandler) mh).getMaxMessageSize());
+                }
 
-                    Object object = endpointWrapper.decodeCompleteMessage(this, message, type, decoder);
-                    if (object != null) {
-                        final State currentState = state.get();
-                        if (currentState != State.CLOSED) {
-                            //noinspection unchecked
-                            ((MessageHandler.Whole) mh).onMessage(object);
-                        }
-                        decoded = true;
-                        break;
+                Object object = endpointWrapper.decodeCompleteMessage(this, message, route.getType(i), decoder);
+                if (object != null) {
+                    final State currentState = state.get();
+                    if (currentState != State.CLOSED) {
+                        //noinspection unchecked
+                        ((MessageHandler.Whole) mh).onMessage(object);
                     }
+                    return;
                 }
             }
-            if (decoded) {
-                break;
+        }
+
+        if (!applicable) {
+            LOGGER.warning(LocalizationMessages.NO_DECODER_FOUND());
+        }
+    }
+
+    private MessageDispatchTable getDispatchTable(boolean text) {
+        MessageDispatchTable table = text ? textDispatchTable : binaryDispatchTable;
+        if (table != null) {
+            return table;
+        }
+
+        synchronized (handlerManager) {
+            table = text ? textDispatchTable : binaryDispatchTable;
+            if (table == null) {
+                table = MessageDispatchTable.compile(handlerManager.getOrderedWholeMessageHandlers(),
+                                                     endpointWrapper.getDecoderWrappers(), text);
+                if (text) {
+                    textDispatchTable = table;
+                } else {
+                    binaryDispatchTable = table;
+                }
             }
+            return table;
         }
     }
 
+    // has to be called while holding the handlerManager lock.
+    private void invalidateDispatchTables() {
+        textDispatchTable = null;
+        binaryDispatchTable = null;
+    }
+
     <T> MessageHandler.Whole<T> getMessageHandler(Class<T> c) {
         List<Map.Entry<Class<?>, MessageHandler>> orderedMessageHandlers;
         synchronized (handlerManager) {
@@ -704,6 +901,39 @@ public class TyrusSession implements Session, DistributedSession {
         return binaryBuffer;
     }
 
+    /**
+     * Get executor invoking message handlers of this session.
+     * <p/>
+     * Handlers are run on the container executor service one after another, in the order of received messages.
+     * Streaming ({@link java.io.Reader} and {@link java.io.InputStream}) handlers are always invoked by this executor,
+     * other handlers only when {@link #isHandlerDispatched()}.
+     *
+     * @return executor for message handlers of this session.
+     */
+    Executor getHandlerExecutor() {
+        if (handlerExecutor == null) {
+            synchronized (handlerExecutorLock) {
+                if (handlerExecutor == null) {
+                    handlerExecutor = new SerialExecutor(((BaseContainer) container).getExecutorService());
+                }
+            }
+        }
+        return handlerExecutor;
+    }
+
+    /**
+     * Check whether all message handlers and {@code onClose} of this session are invoked by {@link
+     * #getHandlerExecutor()} instead of the thread which has read the message.
+     * <p/>
+     * The handlers are dispatched when the container has an {@link ExecutorServiceFactory} configured, so a handler
+     * blocked by sending a message does not hold the container thread.
+     *
+     * @return {@code true} when the handlers are dispatched to the handler executor, {@code false} otherwise.
+     */
+    boolean isHandlerDispatched() {
+        return handlerDispatched;
+    }
+
     ReaderBuffer getReaderBuffer() {
         return readerBuffer;
     }
@@ -738,12 +968,29 @@ public class TyrusSession implements Session, DistributedSession {
     }
 
     private void cancelHeartBeatTask() {
-        if (heartbeatTask != null && !heartbeatTask.isCancelled()) {
-            heartbeatTask.cancel(true);
+        final TimerWheel.Timeout task = heartbeatTask;
+        if (task != null && !task.isCancelled()) {
+            task.cancel();
         }
     }
 
-    private void cleanAfterClose() {
+    private void cancelIdleTimeout() {
+        synchronized (idleTimeoutLock) {
+            if (idleTimeout != null) {
+                idleTimeout.cancel();
+                idleTimeout = null;
+            }
+        }
+    }
+
+    /**
+     * Wake up {@link java.io.Reader} and {@link java.io.InputStream} handlers waiting for the next part of a message;
+     * no more parts will be received.
+     * <p/>
+     * Has to be called by the thread which has read the close frame before {@code onClose} is dispatched to {@link
+     * #getHandlerExecutor()}, since the waiting handler would block the executor and {@code onClose} would never run.
+     */
+    void notifyStreamBuffersClosed() {
         if (readerBuffer != null) {
             readerBuffer.onSessionClosed();
         }
@@ -751,8 +998,12 @@ public class TyrusSession implements Session, DistributedSession {
         if (inputStreamBuffer != null) {
             inputStreamBuffer.onSessionClosed();
         }
+    }
 
+    private void cleanAfterClose() {
+        notifyStreamBuffersClosed();
         cancelHeartBeatTask();
+        cancelIdleTimeout();
     }
 
     /**
@@ -797,14 +1048,29 @@ public class TyrusSession implements Session, DistributedSession {
         public void run() {
             TyrusSession session = TyrusSession.this;
 
-            // condition is required because scheduled task can be (for some reason) run even when it is cancelled.
-            if (session.getMaxIdleTimeout() > 0 && session.isOpen()) {
-                try {
-                    session.close(new CloseReason(CloseReason.CloseCodes.CLOSED_ABNORMALLY,
-                                                  LocalizationMessages.SESSION_CLOSED_IDLE_TIMEOUT()));
-                } catch (IOException e) {
-                    LOGGER.log(Level.FINE, "Session could not been closed. " + e.getMessage());
+            final long maxIdleTimeout = session.getMaxIdleTimeout();
+            synchronized (idleTimeoutLock) {
+                // the timeout has been cancelled or replaced after it expired on the wheel.
+                if (idleTimeout == null || idleTimeout.isCancelled() || idleTimeout.getTask() != this
+                        || maxIdleTimeout < 1 || !session.isOpen()) {
+                    return;
+                }
+
+                final long remaining = TimeUnit.MILLISECONDS.toNanos(maxIdleTimeout)
+                        - (System.nanoTime() - lastActivityTime);
+                if (remaining > 0) {
+                    idleTimeout = timerWheel.schedule(this, TimeUnit.NANOSECONDS.toMillis(remaining) + 1);
+                    return;
                 }
+
+                idleTimeout = null;
+            }
+
+            try {
+                session.close(new CloseReason(CloseReason.CloseCodes.CLOSED_ABNORMALLY,
+                                              LocalizationMessages.SESSION_CLOSED_IDLE_TIMEOUT()));
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Session could not been closed. " + e.getMessage());
             }
         }
     }
@@ -815,6 +1081,14 @@ public class TyrusSession implements Session, DistributedSession {
         public void run() {
             TyrusSession session = TyrusSession.this;
             if (session.isOpen() && session.getHeartbeatInterval() > 0) {
+                // schedule the next run first to keep the rate independent of the time spent sending the pong.
+                synchronized (heartbeatLock) {
+                    final TimerWheel.Timeout task = heartbeatTask;
+                    if (task != null && !task.isCancelled() && task.getTask() == this) {
+                        heartbeatTask = timerWheel.schedule(this, session.getHeartbeatInterval());
+                    }
+                }
+
                 try {
                     session.getBasicRemote().sendPong(null);
                 } catch (IOException e) {
@@ -40,6 +40,8 @@
 
 package org.glassfish.tyrus.core;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.util.EnumSet;
 import java.util.List;
@@ -62,6 +64,7 @@ import org.glassfish.tyrus.core.frame.TextFrame;
 import org.glassfish.tyrus.core.frame.TyrusFrame;
 import org.glassfish.tyrus.core.l10n.LocalizationMessages;
 import org.glassfish.tyrus.core.monitoring.MessageEventListener;
+import org.glassfish.tyrus.spi.CompletionHandler;
 import org.glassfish.tyrus.spi.UpgradeRequest;
 
 /**
@@ -325,6 +328,18 @@ public class TyrusWebSocket {
         return protocolHandler.sendRawFrame(data);
     }
 
+    /**
+     * Send a frame to the remote endpoint.
+     *
+     * @param data              complete data frame.
+     * @param completionHandler completion handler notified when the frame is written, can be {@code null}.
+     * @return {@link Future} which could be used to control/check the sending completion state.
+     */
+    public Future<Frame> sendRawFrame(ByteBuffer data, CompletionHandler<Frame> completionHandler) {
+        checkConnectedState();
+        return protocolHandler.sendRawFrame(data, completionHandler);
+    }
+
     /**
      * Sends a <code>ping</code> frame with the specified payload (if any).
      *
@@ -402,6 +417,22 @@ public class TyrusWebSocket {
         return protocolHandler.stream(last, bytes, off, len);
     }
 
+    /**
+     * Sends a fragment of a complete message, payload of which is read from given {@link InputStream}.
+     * <p/>
+     * Payload is read and written in bounded chunks, so it does not need to fit into memory and can be longer than
+     * {@link Integer#MAX_VALUE}. The call blocks until the whole fragment is written.
+     *
+     * @param payload       fragment payload.
+     * @param payloadLength number of bytes to be read from {@code payload}.
+     * @param last          boolean indicating if this message fragment is the last.
+     * @throws IOException when the payload cannot be read or written.
+     */
+    public void sendBinary(InputStream payload, long payloadLength, boolean last) throws IOException {
+        checkConnectedState();
+        protocolHandler.stream(last, payload, payloadLength);
+    }
+
     ProtocolHandler getProtocolHandler() {
         return protocolHandler;
     }
@@ -69,6 +69,7 @@ import org.glassfish.tyrus.core.monitoring.ApplicationEventListener;
 import org.glassfish.tyrus.core.monitoring.EndpointEventListener;
 import org.glassfish.tyrus.core.monitoring.MessageEventListener;
 import org.glassfish.tyrus.core.uri.Match;
+import org.glassfish.tyrus.core.uri.PathTrie;
 import org.glassfish.tyrus.core.wsadl.model.Application;
 import org.glassfish.tyrus.spi.Connection;
 import org.glassfish.tyrus.spi.ReadHandler;
@@ -164,7 +165,62 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
      */
     public static final String PARALLEL_BROADCAST_ENABLED = "org.glassfish.tyrus.server.parallelBroadcastEnabled";
 
-    private static final int BUFFER_STEP_SIZE = 256;
+    /**
+     * Streaming of incoming frames bigger than incoming buffer.
+     * <p/>
+     * When enabled, data frames which do not fit into the incoming buffer (see {@link #INCOMING_BUFFER_SIZE}) are not
+     * refused, their payload is delivered in parts as soon as it is read, as if the frame was fragmented by the sender.
+     * This allows {@link javax.websocket.MessageHandler.Partial} handlers and {@link java.io.InputStream} or {@link
+     * java.io.Reader} based {@link javax.websocket.MessageHandler.Whole} handlers to receive messages bigger than
+     * incoming buffer, including frames with payload longer than 2 GB (message size can still be limited by {@link
+     * javax.websocket.Session#setMaxBinaryMessageBufferSize(int)}). Frames are not streamed on connections with
+     * negotiated extensions.
+     * <p/>
+     * The value must be {@link java.lang.Boolean} or its primitive alternative. Default value is {@code false}.
+     */
+    public static final String FRAME_STREAMING_ENABLED = "org.glassfish.tyrus.frameStreamingEnabled";
+
+    /**
+     * Maximal number of bytes waiting to be written to a single connection (high watermark of the outbound queue).
+     * <p/>
+     * Frames sent to a connection are accounted from the moment they are passed to the container until they are
+     * written, no matter where the container queues them. When the number of queued bytes would exceed this value, the
+     * connection is saturated and messages sent to it are handled according to {@link #OUTBOUND_QUEUE_OVERFLOW_POLICY}
+     * until the number drops to {@link #OUTBOUND_QUEUE_LOW_WATERMARK}.
+     * <p/>
+     * The value must be {@link java.lang.Integer} or its primitive alternative. No limit is applied by default.
+     */
+    public static final String OUTBOUND_QUEUE_HIGH_WATERMARK = "org.glassfish.tyrus.outboundQueueHighWatermark";
+
+    /**
+     * Number of bytes waiting to be written to a connection under which the connection stops being saturated.
+     * <p/>
+     * The value must be {@link java.lang.Integer} or its primitive alternative. Default value is half of {@link
+     * #OUTBOUND_QUEUE_HIGH_WATERMARK}.
+     */
+    public static final String OUTBOUND_QUEUE_LOW_WATERMARK = "org.glassfish.tyrus.outboundQueueLowWatermark";
+
+    /**
+     * Handling of messages sent to a saturated connection, see {@link #OUTBOUND_QUEUE_HIGH_WATERMARK}.
+     * <p/>
+     * The value must be {@link OutboundOverflowPolicy} or its name. Default value is {@link
+     * OutboundOverflowPolicy#BLOCK}.
+     */
+    public static final String OUTBOUND_QUEUE_OVERFLOW_POLICY = "org.glassfish.tyrus.outboundQueueOverflowPolicy";
+
+    /**
+     * Use direct buffers for incoming data.
+     * <p/>
+     * Incoming frames are parsed directly from the buffer passed by the container; only a partial frame waiting for
+     * more data is copied to a buffer leased from the {@link ByteBufferPool} shared by all connections. This property
+     * selects whether that pool holds direct or heap buffers.
+     * <p/>
+     * The value must be {@link java.lang.Boolean} or its primitive alternative. Default value is {@code false}.
+     *
+     * @see #getInboundBufferPool()
+     */
+    public static final String INBOUND_BUFFER_POOL_DIRECT = "org.glassfish.tyrus.inboundBufferPoolDirect";
+
     private static final Logger LOGGER = Logger.getLogger(TyrusWebSocketEngine.class.getName());
 
     private static final UpgradeInfo NOT_APPLICABLE_UPGRADE_INFO =
@@ -177,6 +233,7 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
 
     private final Set<TyrusEndpointWrapper> endpointWrappers =
             Collections.newSetFromMap(new ConcurrentHashMap<TyrusEndpointWrapper, Boolean>());
+    private final PathTrie pathTrie = new PathTrie();
     private final ComponentProviderService componentProviderService = ComponentProviderService.create();
     private final WebSocketContainer webSocketContainer;
 
@@ -186,6 +243,11 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
     private final ApplicationEventListener applicationEventListener;
     private final TyrusEndpointWrapper.SessionListener sessionListener;
     private final Boolean parallelBroadcastEnabled;
+    private final boolean frameStreamingEnabled;
+    private final int outboundQueueHighWatermark;
+    private final int outboundQueueLowWatermark;
+    private final OutboundOverflowPolicy outboundOverflowPolicy;
+    private final ByteBufferPool inboundBufferPool;
 
     private final DebugContext.TracingType tracingType;
     private final DebugContext.TracingThreshold tracingThreshold;
@@ -217,18 +279,35 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
      * @param tracingType              type of tracing.
      * @param tracingThreshold         tracing threshold.
      * @param parallelBroadcastEnabled {@code true} if parallel broadcast should be enabled, {@code true} is default.
+     * @param frameStreamingEnabled    {@code true} if streaming of frames bigger than incoming buffer should be
+     *                                 enabled, {@code false} is default.
+     * @param outboundHighWatermark    maximal number of bytes waiting to be written to a connection. If {@code
+     *                                 null}, no limit is applied.
+     * @param outboundLowWatermark     number of bytes waiting to be written under which a connection stops being
+     *                                 saturated. If {@code null}, half of {@code outboundHighWatermark} is used.
+     * @param outboundOverflowPolicy   handling of messages sent to a saturated connection. If {@code null}, {@link
+     *                                 OutboundOverflowPolicy#BLOCK} is used.
+     * @param inboundBufferPoolDirect  {@code true} if partial incoming frames should be kept in direct buffers,
+     *                                 {@code false} is default.
      */
     private TyrusWebSocketEngine(WebSocketContainer webSocketContainer, Integer incomingBufferSize,
                                  ClusterContext clusterContext, ApplicationEventListener applicationEventListener,
                                  final Integer maxSessionsPerApp, final Integer maxSessionsPerRemoteAddr,
                                  DebugContext.TracingType tracingType, DebugContext.TracingThreshold tracingThreshold,
-                                 Boolean parallelBroadcastEnabled) {
+                                 Boolean parallelBroadcastEnabled, Boolean frameStreamingEnabled,
+                                 Integer outboundHighWatermark, Integer outboundLowWatermark,
+                                 OutboundOverflowPolicy outboundOverflowPolicy, Boolean inboundBufferPoolDirect) {
         if (incomingBufferSize != null) {
             this.incomingBufferSize = incomingBufferSize;
         }
         this.webSocketContainer = webSocketContainer;
         this.clusterContext = clusterContext;
         this.parallelBroadcastEnabled = parallelBroadcastEnabled;
+        this.frameStreamingEnabled = frameStreamingEnabled != null && frameStreamingEnabled;
+        this.outboundQueueHighWatermark = outboundHighWatermark == null ? -1 : outboundHighWatermark;
+        this.outboundQueueLowWatermark = outboundLowWatermark == null ? -1 : outboundLowWatermark;
+        this.outboundOverflowPolicy = outboundOverflowPolicy;
+        this.inboundBufferPool = ByteBufferPool.getShared(inboundBufferPoolDirect != null && inboundBufferPoolDirect);
         if (applicationEventListener == null) {
             // create dummy instance in order not to have to check null pointer
             this.applicationEventListener = ApplicationEventListener.NO_OP;
@@ -243,6 +322,12 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
         LOGGER.config("Max sessions per remote address: " + maxSessionsPerRemoteAddr);
         // parallel broadcast is enabled by default, so null means true
         LOGGER.config("Parallel broadcast enabled: " + (parallelBroadcastEnabled != null && parallelBroadcastEnabled));
+        LOGGER.config("Frame streaming enabled: " + this.frameStreamingEnabled);
+        LOGGER.config("Inbound buffer pool direct: " + inboundBufferPool.isDirect());
+        if (outboundHighWatermark != null) {
+            LOGGER.config("Outbound queue high watermark: " + outboundHighWatermark + ", low watermark: " +
+                                  outboundLowWatermark + ", overflow policy: " + outboundOverflowPolicy);
+        }
 
         this.tracingType = tracingType;
         this.tracingThreshold = tracingThreshold;
@@ -330,7 +415,7 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
 
         final String requestPath = request.getRequestUri();
 
-        for (Match m : Match.getAllMatches(requestPath, endpointWrappers, debugContext)) {
+        for (Match m : pathTrie.getAllMatches(requestPath, debugContext)) {
             final TyrusEndpointWrapper endpointWrapper = m.getEndpointWrapper();
 
             for (Map.Entry<String, String> parameter : m.getParameters().entrySet()) {
@@ -385,6 +470,13 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
                 return HANDSHAKE_FAILED_UPGRADE_INFO;
             }
 
+            if (frameStreamingEnabled) {
+                protocolHandler.enableFrameStreaming(incomingBufferSize);
+            }
+
+            protocolHandler.setOutboundQueueLimits(outboundQueueHighWatermark, outboundQueueLowWatermark,
+                                                   outboundOverflowPolicy);
+
             final ExtendedExtension.ExtensionContext extensionContext = new ExtendedExtension.ExtensionContext() {
 
                 private final Map<String, Object> properties = new HashMap<String, Object>();
@@ -424,8 +516,8 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
             }
 
             response.getHeaders().putAll(debugContext.getTracingHeaders());
-            return new SuccessfulUpgradeInfo(endpointWrapper, protocolHandler, incomingBufferSize, request, response,
-                                             extensionContext, debugContext);
+            return new SuccessfulUpgradeInfo(endpointWrapper, protocolHandler, incomingBufferSize, inboundBufferPool,
+                                             request, response, extensionContext, debugContext);
         }
 
         response.setStatus(500);
@@ -495,75 +587,33 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
 
     private static class TyrusReadHandler implements ReadHandler {
 
-        private final ProtocolHandler protocolHandler;
         private final TyrusWebSocket socket;
         private final TyrusEndpointWrapper endpointWrapper;
-        private final int incomingBufferSize;
-        private final ExtendedExtension.ExtensionContext extensionContext;
         private final DebugContext debugContext;
-
-        private volatile ByteBuffer buffer;
+        private final FrameReader frameReader;
 
         private TyrusReadHandler(ProtocolHandler protocolHandler, TyrusWebSocket socket,
                                  TyrusEndpointWrapper endpointWrapper, int incomingBufferSize,
-                                 ExtendedExtension.ExtensionContext extensionContext, DebugContext debugContext) {
-            this.extensionContext = extensionContext;
-            this.protocolHandler = protocolHandler;
+                                 ByteBufferPool bufferPool, ExtendedExtension.ExtensionContext extensionContext,
+                                 final DebugContext debugContext) {
             this.socket = socket;
             this.endpointWrapper = endpointWrapper;
-            this.incomingBufferSize = incomingBufferSize;
             this.debugContext = debugContext;
+            this.frameReader = new FrameReader(protocolHandler, socket, protocolHandler.getExtensions(),
+                                               extensionContext, incomingBufferSize, bufferPool) {
+                @Override
+                protected void onExtensionException(Extension extension, Throwable t) {
+                    debugContext.appendLogMessageWithThrowable(
+                            LOGGER, Level.FINE, DebugContext.Type.MESSAGE_IN, t, "Extension '", extension.getName(),
+                            "' threw an exception during processIncoming method invocation: ", t.getMessage());
+                }
+            };
         }
 
         @Override
         public void handle(ByteBuffer data) {
             try {
-                if (data != null && data.hasRemaining()) {
-
-                    if (buffer != null) {
-                        data = Utils.appendBuffers(buffer, data, incomingBufferSize, BUFFER_STEP_SIZE);
-                    } else {
-                        int newSize = data.remaining();
-                        if (newSize > incomingBufferSize) {
-                            throw new IllegalArgumentException(LocalizationMessages.BUFFER_OVERFLOW());
-                        } else {
-                            final int roundedSize = (newSize % BUFFER_STEP_SIZE) > 0 ?
-                                    ((newSize / BUFFER_STEP_SIZE) + 1) * BUFFER_STEP_SIZE : newSize;
-                            final ByteBuffer result =
-                                    ByteBuffer.allocate(roundedSize > incomingBufferSize ? newSize : roundedSize);
-                            result.flip();
-                            data = Utils.appendBuffers(result, data, incomingBufferSize, BUFFER_STEP_SIZE);
-                        }
-                    }
-
-                    do {
-                        final Frame incomingFrame = protocolHandler.unframe(data);
-
-                        if (incomingFrame == null) {
-                            buffer = data;
-                            break;
-                        } else {
-                            Frame frame = incomingFrame;
-
-                            for (Extension extension : protocolHandler.getExtensions()) {
-                                if (extension instanceof ExtendedExtension) {
-                                    try {
-                                        frame = ((ExtendedExtension) extension)
-                                                .processIncoming(extensionContext, frame);
-                                    } catch (Throwable t) {
-                                        debugContext.appendLogMessageWithThrowable(
-                                                LOGGER, Level.FINE, DebugContext.Type.MESSAGE_IN, t, "Extension '",
-                                                extension.getName(),
-                                                "' threw an exception during processIncoming method invocation: ",
-                                                t.getMessage());
-                                    }
-                                }
-                            }
-
-                            protocolHandler.process(frame, socket);
-                        }
-                    } while (true);
-                }
+                frameReader.read(data);
             } catch (WebSocketException e) {
                 debugContext.appendLogMessageWithThrowable(LOGGER, Level.FINE, DebugContext.Type.MESSAGE_IN, e,
                                                            e.getMessage());
@@ -582,6 +632,13 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
                 }
             }
         }
+
+        /**
+         * Return buffered partial frame to the pool; called when the connection is closed.
+         */
+        void release() {
+            frameReader.release();
+        }
     }
 
     /**
@@ -606,6 +663,7 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
         checkPath(endpointWrapper);
         LOGGER.log(Level.FINER, "Registered endpoint: " + endpointWrapper);
         endpointWrappers.add(endpointWrapper);
+        pathTrie.add(endpointWrapper);
     }
 
     @Override
@@ -688,11 +746,10 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
     }
 
     private void checkPath(TyrusEndpointWrapper endpoint) throws DeploymentException {
-        for (TyrusEndpointWrapper endpointWrapper : endpointWrappers) {
-            if (Match.isEquivalent(endpoint.getEndpointPath(), endpointWrapper.getEndpointPath())) {
-                throw new DeploymentException(LocalizationMessages.EQUIVALENT_PATHS(endpoint.getEndpointPath(),
-                                                                                    endpointWrapper.getEndpointPath()));
-            }
+        final TyrusEndpointWrapper endpointWrapper = pathTrie.getEquivalent(endpoint.getEndpointPath());
+        if (endpointWrapper != null) {
+            throw new DeploymentException(LocalizationMessages.EQUIVALENT_PATHS(endpoint.getEndpointPath(),
+                                                                                endpointWrapper.getEndpointPath()));
         }
     }
 
@@ -703,6 +760,7 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
      */
     public void unregister(TyrusEndpointWrapper endpointWrapper) {
         endpointWrappers.remove(endpointWrapper);
+        pathTrie.remove(endpointWrapper);
         applicationEventListener.onEndpointUnregistered(endpointWrapper.getEndpointPath());
     }
 
@@ -729,18 +787,20 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
         private final TyrusEndpointWrapper endpointWrapper;
         private final ProtocolHandler protocolHandler;
         private final int incomingBufferSize;
+        private final ByteBufferPool bufferPool;
         private final UpgradeRequest upgradeRequest;
         private final UpgradeResponse upgradeResponse;
         private final ExtendedExtension.ExtensionContext extensionContext;
         private final DebugContext debugContext;
 
         SuccessfulUpgradeInfo(TyrusEndpointWrapper endpointWrapper, ProtocolHandler protocolHandler,
-                              int incomingBufferSize,
+                              int incomingBufferSize, ByteBufferPool bufferPool,
                               UpgradeRequest upgradeRequest, UpgradeResponse upgradeResponse,
                               ExtendedExtension.ExtensionContext extensionContext, DebugContext debugContext) {
             this.endpointWrapper = endpointWrapper;
             this.protocolHandler = protocolHandler;
             this.incomingBufferSize = incomingBufferSize;
+            this.bufferPool = bufferPool;
             this.upgradeRequest = upgradeRequest;
             this.upgradeResponse = upgradeResponse;
             this.extensionContext = extensionContext;
@@ -755,8 +815,9 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
         @Override
         public Connection createConnection(Writer writer, Connection.CloseListener closeListener) {
             TyrusConnection tyrusConnection =
-                    new TyrusConnection(endpointWrapper, protocolHandler, incomingBufferSize, writer, closeListener,
-                                        upgradeRequest, upgradeResponse, extensionContext, debugContext);
+                    new TyrusConnection(endpointWrapper, protocolHandler, incomingBufferSize, bufferPool, writer,
+                                        closeListener, upgradeRequest, upgradeResponse, extensionContext,
+                                        debugContext);
             debugContext.flush();
             return tyrusConnection;
         }
@@ -772,6 +833,18 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
         return applicationEventListener;
     }
 
+    /**
+     * Get {@link ByteBufferPool} partial incoming frames of connections handled by this engine are kept in.
+     * <p/>
+     * The pool is shared with other engines using the same kind of buffers.
+     *
+     * @return inbound buffer pool.
+     * @see #INBOUND_BUFFER_POOL_DIRECT
+     */
+    public ByteBufferPool getInboundBufferPool() {
+        return inboundBufferPool;
+    }
+
     /**
      * Get {@link org.glassfish.tyrus.core.wsadl.model.Application} representing current set of deployed endpoints.
      *
@@ -792,7 +865,7 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
 
     static class TyrusConnection implements Connection {
 
-        private final ReadHandler readHandler;
+        private final TyrusReadHandler readHandler;
         private final Writer writer;
         private final CloseListener closeListener;
         private final TyrusWebSocket socket;
@@ -800,7 +873,7 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
         private final List<Extension> extensions;
 
         TyrusConnection(TyrusEndpointWrapper endpointWrapper, ProtocolHandler protocolHandler, int incomingBufferSize,
-                        Writer writer, CloseListener closeListener,
+                        ByteBufferPool bufferPool, Writer writer, CloseListener closeListener,
                         UpgradeRequest upgradeRequest, UpgradeResponse upgradeResponse,
                         ExtendedExtension.ExtensionContext extensionContext, DebugContext debugContext) {
             protocolHandler.setWriter(writer);
@@ -822,8 +895,8 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
                                   debugContext);
 
             this.readHandler =
-                    new TyrusReadHandler(protocolHandler, socket, endpointWrapper, incomingBufferSize, extensionContext,
-                                         debugContext);
+                    new TyrusReadHandler(protocolHandler, socket, endpointWrapper, incomingBufferSize, bufferPool,
+                                         extensionContext, debugContext);
             this.writer = writer;
             this.closeListener = closeListener;
             this.extensionContext = extensionContext;
@@ -846,6 +919,8 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
 
         @Override
         public void close(CloseReason reason) {
+            readHandler.release();
+
             if (!socket.isConnected()) {
                 return;
             }
@@ -879,6 +954,11 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
         private DebugContext.TracingType tracingType = null;
         private DebugContext.TracingThreshold tracingThreshold = null;
         private Boolean parallelBroadcastEnabled = null;
+        private Boolean frameStreamingEnabled = null;
+        private Integer outboundQueueHighWatermark = null;
+        private Integer outboundQueueLowWatermark = null;
+        private OutboundOverflowPolicy outboundOverflowPolicy = null;
+        private Boolean inboundBufferPoolDirect = null;
 
         /**
          * Create new {@link org.glassfish.tyrus.core.TyrusWebSocketEngine} instance with current set of parameters.
@@ -909,7 +989,10 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
 
             return new TyrusWebSocketEngine(webSocketContainer, incomingBufferSize, clusterContext,
                                             applicationEventListener, maxSessionsPerApp, maxSessionsPerRemoteAddr,
-                                            tracingType, tracingThreshold, parallelBroadcastEnabled);
+                                            tracingType, tracingThreshold, parallelBroadcastEnabled,
+                                            frameStreamingEnabled, outboundQueueHighWatermark,
+                                            outboundQueueLowWatermark, outboundOverflowPolicy,
+                                            inboundBufferPoolDirect);
         }
 
         TyrusWebSocketEngineBuilder(WebSocketContainer webSocketContainer) {
@@ -1009,6 +1092,70 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
             this.parallelBroadcastEnabled = parallelBroadcastEnabled;
             return this;
         }
+
+        /**
+         * Enable or disable streaming of incoming frames bigger than incoming buffer.
+         *
+         * @param frameStreamingEnabled {@code true} if frame streaming should be enabled. If {@code null}, streaming
+         *                              is disabled.
+         * @return updated builder.
+         * @see TyrusWebSocketEngine#FRAME_STREAMING_ENABLED
+         */
+        public TyrusWebSocketEngineBuilder frameStreamingEnabled(Boolean frameStreamingEnabled) {
+            this.frameStreamingEnabled = frameStreamingEnabled;
+            return this;
+        }
+
+        /**
+         * Set the high watermark of outbound queue of each connection.
+         *
+         * @param outboundQueueHighWatermark maximal number of bytes waiting to be written to a connection. If {@code
+         *                                   null}, no limit is applied.
+         * @return updated builder.
+         * @see TyrusWebSocketEngine#OUTBOUND_QUEUE_HIGH_WATERMARK
+         */
+        public TyrusWebSocketEngineBuilder outboundQueueHighWatermark(Integer outboundQueueHighWatermark) {
+            this.outboundQueueHighWatermark = outboundQueueHighWatermark;
+            return this;
+        }
+
+        /**
+         * Set the low watermark of outbound queue of each connection.
+         *
+         * @param outboundQueueLowWatermark number of bytes waiting to be written under which a connection stops being
+         *                                  saturated. If {@code null}, half of the high watermark is used.
+         * @return updated builder.
+         * @see TyrusWebSocketEngine#OUTBOUND_QUEUE_LOW_WATERMARK
+         */
+        public TyrusWebSocketEngineBuilder outboundQueueLowWatermark(Integer outboundQueueLowWatermark) {
+            this.outboundQueueLowWatermark = outboundQueueLowWatermark;
+            return this;
+        }
+
+        /**
+         * Set handling of messages sent to a saturated connection.
+         *
+         * @param outboundOverflowPolicy overflow policy. If {@code null}, {@link OutboundOverflowPolicy#BLOCK} is used.
+         * @return updated builder.
+         * @see TyrusWebSocketEngine#OUTBOUND_QUEUE_OVERFLOW_POLICY
+         */
+        public TyrusWebSocketEngineBuilder outboundOverflowPolicy(OutboundOverflowPolicy outboundOverflowPolicy) {
+            this.outboundOverflowPolicy = outboundOverflowPolicy;
+            return this;
+        }
+
+        /**
+         * Select the kind of buffers partial incoming frames are kept in.
+         *
+         * @param inboundBufferPoolDirect {@code true} if direct buffers should be used. If {@code null}, heap buffers
+         *                                are used.
+         * @return updated builder.
+         * @see TyrusWebSocketEngine#INBOUND_BUFFER_POOL_DIRECT
+         */
+        public TyrusWebSocketEngineBuilder inboundBufferPoolDirect(Boolean inboundBufferPoolDirect) {
+            this.inboundBufferPoolDirect = inboundBufferPoolDirect;
+            return this;
+        }
     }
 
     /**
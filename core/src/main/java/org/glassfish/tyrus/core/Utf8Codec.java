@@ -0,0 +1,263 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+
+/**
+ * Strict UTF-8 codec for text frames.
+ * <p>
+ * Decoding validates input with the same rules as {@link StrictUtf8}, but the decoder and its char buffer are reused
+ * and the payload is decoded directly into the char buffer. One instance is meant to be used by a single connection,
+ * i.e. by one thread at a time; it is not thread safe.
+ * <p>
+ * Encoding is static: the exact UTF-8 length of the string is computed first and the string is then encoded directly
+ * into an array of that size.
+ */
+public final class Utf8Codec {
+
+    private static final int INITIAL_CAPACITY = 256;
+    // larger buffers are allocated per message, so that a single huge message does not keep its buffer alive.
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private final CharsetDecoder decoder = new StrictUtf8().newDecoder();
+    private char[] chars = new char[INITIAL_CAPACITY];
+    private ByteBuffer remainder;
+
+    /**
+     * Decode a text frame payload.
+     *
+     * @param data          payload. Its position will be moved to the limit.
+     * @param remainder     bytes of an incomplete character left over from the previous fragment, may be {@code null}.
+     * @param finalFragment {@code true} when this is the last fragment of the message.
+     * @return decoded text.
+     * @throws Utf8DecodingException when the payload is not a valid UTF-8 sequence.
+     */
+    public String decode(ByteBuffer data, ByteBuffer remainder, boolean finalFragment) {
+        final int remainderLength = remainder == null ? 0 : remainder.remaining();
+        // UTF-8 never produces more chars than bytes.
+        final char[] da = getCharArray(remainderLength + data.remaining());
+        this.remainder = null;
+
+        int dp = 0;
+        ByteBuffer b = data;
+        if (remainderLength > 0) {
+            // finish the character split by the previous fragment boundary; only its missing bytes are copied.
+            final ByteBuffer head = completeCharacter(remainder, data);
+            dp = decodeInto(head, da, dp, false);
+            if (head.hasRemaining()) {
+                if (data.hasRemaining()) {
+                    throw new Utf8DecodingException();
+                }
+                // the fragment was too short to complete the character.
+                b = head;
+            }
+        }
+
+        if (b.hasRemaining() || finalFragment) {
+            dp = decodeInto(b, da, dp, finalFragment);
+        }
+
+        if (b.hasRemaining()) {
+            // payload may be backed by the read buffer, which will be reused - remainder has to be copied.
+            final ByteBuffer copy = ByteBuffer.allocate(b.remaining());
+            copy.put(b).flip();
+            this.remainder = copy;
+        }
+
+        return new String(da, 0, dp);
+    }
+
+    /**
+     * Bytes of an incomplete character at the end of the data passed to the last {@link #decode(ByteBuffer,
+     * ByteBuffer, boolean)} call.
+     *
+     * @return decoding remainder or {@code null} if the last fragment ended on a character boundary.
+     */
+    public ByteBuffer getRemainder() {
+        return remainder;
+    }
+
+    private int decodeInto(ByteBuffer b, char[] da, int dp, boolean endOfInput) {
+        final CharBuffer cb = CharBuffer.wrap(da, dp, da.length - dp);
+
+        // UTF-8 decoder does not keep any state between calls, incomplete input is left in the buffer.
+        decoder.reset();
+        CoderResult result = decoder.decode(b, cb, endOfInput);
+        if (result.isUnderflow() && endOfInput) {
+            result = decoder.flush(cb);
+        }
+        if (result.isError() || endOfInput && b.hasRemaining()) {
+            throw new Utf8DecodingException();
+        }
+
+        return cb.position();
+    }
+
+    private char[] getCharArray(int length) {
+        if (chars.length >= length) {
+            return chars;
+        } else if (length > MAX_RETAINED_CAPACITY) {
+            return new char[length];
+        }
+
+        chars = new char[Math.min(MAX_RETAINED_CAPACITY, Math.max(length, chars.length * 2))];
+        return chars;
+    }
+
+    /**
+     * Create a buffer with the remainder of the previous fragment followed by the bytes of {@code data} needed to
+     * complete the character the remainder starts. Position of {@code data} is moved past the consumed bytes.
+     */
+    private static ByteBuffer completeCharacter(ByteBuffer remainder, ByteBuffer data) {
+        final int missing = sequenceLength(remainder.get(remainder.position())) - remainder.remaining();
+        final int take = Math.max(0, Math.min(missing, data.remaining()));
+
+        final ByteBuffer head = ByteBuffer.allocate(remainder.remaining() + take);
+        head.put(remainder.duplicate());
+        for (int i = 0; i < take; i++) {
+            head.put(data.get());
+        }
+        head.flip();
+        return head;
+    }
+
+    /**
+     * Length of UTF-8 sequence started by given byte. Invalid lead bytes are reported as single byte sequences, the
+     * decoder will reject them.
+     */
+    private static int sequenceLength(byte lead) {
+        if ((lead & 0xE0) == 0xC0) {
+            return 2;
+        } else if ((lead & 0xF0) == 0xE0) {
+            return 3;
+        } else if ((lead & 0xF8) == 0xF0) {
+            return 4;
+        }
+        return 1;
+    }
+
+    /**
+     * Encode a string to UTF-8.
+     *
+     * @param s string to be encoded.
+     * @return UTF-8 representation of the string or {@code null} if the string contains an unpaired surrogate.
+     */
+    public static byte[] encode(String s) {
+        final int length = encodedLength(s);
+        if (length < 0) {
+            return null;
+        }
+
+        final byte[] da = new byte[length];
+        final int sl = s.length();
+
+        int dp = 0;
+        int sp = 0;
+        // ASCII only loop
+        while (sp < sl) {
+            final char c = s.charAt(sp);
+            if (c >= 0x80) {
+                break;
+            }
+            da[dp++] = (byte) c;
+            sp++;
+        }
+
+        while (sp < sl) {
+            final char c = s.charAt(sp++);
+            if (c < 0x80) {
+                da[dp++] = (byte) c;
+            } else if (c < 0x800) {
+                da[dp++] = (byte) (0xc0 | (c >> 6));
+                da[dp++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c)) {
+                final int uc = Character.toCodePoint(c, s.charAt(sp++));
+                da[dp++] = (byte) (0xf0 | ((uc >> 18)));
+                da[dp++] = (byte) (0x80 | ((uc >> 12) & 0x3f));
+                da[dp++] = (byte) (0x80 | ((uc >> 6) & 0x3f));
+                da[dp++] = (byte) (0x80 | (uc & 0x3f));
+            } else {
+                da[dp++] = (byte) (0xe0 | ((c >> 12)));
+                da[dp++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                da[dp++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+
+        return da;
+    }
+
+    /**
+     * Compute length of UTF-8 representation of a string.
+     *
+     * @param s string.
+     * @return number of bytes or {@code -1} if the string contains an unpaired surrogate.
+     */
+    static int encodedLength(String s) {
+        final int sl = s.length();
+        int length = sl;
+
+        for (int i = 0; i < sl; i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+
+            if (c < 0x800) {
+                length += 1;
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                if (!Character.isHighSurrogate(c) || i + 1 >= sl || !Character.isLowSurrogate(s.charAt(i + 1))) {
+                    return -1;
+                }
+                // two chars, four bytes
+                length += 2;
+                i++;
+            } else {
+                length += 2;
+            }
+        }
+
+        return length;
+    }
+}
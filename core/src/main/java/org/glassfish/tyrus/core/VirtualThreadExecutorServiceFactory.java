@@ -0,0 +1,99 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link ExecutorServiceFactory} creating executor service which runs each task in a new virtual thread.
+ * <p/>
+ * Blocking calls in message handlers (for example {@link javax.websocket.RemoteEndpoint.Basic} sends) do not occupy
+ * a platform thread per session then. Virtual threads are available since JDK 21; on older JDKs the factory falls back
+ * to the cached thread pool, which is used by default.
+ */
+@Beta
+public class VirtualThreadExecutorServiceFactory extends ExecutorServiceFactory {
+
+    private static final Logger LOGGER = Logger.getLogger(VirtualThreadExecutorServiceFactory.class.getName());
+
+    // looked up reflectively, Tyrus is compiled against Java 6 API.
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = lookupFactoryMethod();
+
+    /**
+     * Check whether virtual threads are supported by the current JDK.
+     *
+     * @return {@code true} when executor services created by this factory run tasks in virtual threads, {@code false}
+     * when cached thread pool is used instead.
+     */
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    @Override
+    public ExecutorService createExecutorService(ThreadFactory threadFactory) {
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+            } catch (Exception e) {
+                LOGGER.log(Level.CONFIG, "Virtual thread executor cannot be created, cached thread pool is used.", e);
+            }
+        } else {
+            LOGGER.config("Virtual threads are not supported by the current JDK, cached thread pool is used.");
+        }
+
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+
+    private static Method lookupFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (SecurityException e) {
+            return null;
+        }
+    }
+}
@@ -162,6 +162,16 @@ public interface ExtendedExtension extends Extension {
      */
     interface ExtensionContext {
 
+        /**
+         * Name of the property holding the {@link org.glassfish.tyrus.core.monitoring.MessageEventListener} of the
+         * connection.
+         * <p/>
+         * Extensions can use it to report statistics of the frames they process, e.g. {@link
+         * org.glassfish.tyrus.core.monitoring.CompressionEventListener#onFrameCompressed(long, long, long)} when the
+         * listener implements {@link org.glassfish.tyrus.core.monitoring.CompressionEventListener}.
+         */
+        String MESSAGE_EVENT_LISTENER = "org.glassfish.tyrus.core.extension.messageEventListener";
+
         /**
          * Mutable, not synchronised property map.
          * <p/>
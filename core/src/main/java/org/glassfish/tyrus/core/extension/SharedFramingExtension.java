@@ -0,0 +1,68 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core.extension;
+
+/**
+ * {@link ExtendedExtension} which can declare that its outgoing frames do not depend on per-session state.
+ * <p/>
+ * When a message is broadcast, sessions with the same negotiated extensions and equal sharing keys are framed only
+ * once; the result of {@link #processOutgoing(ExtendedExtension.ExtensionContext, org.glassfish.tyrus.core.frame
+ * .Frame)} invoked for one of them is sent to all of them. This can save lots of work, for example compression of
+ * the same payload for each recipient.
+ * <p/>
+ * Extensions which keep state among processed messages (for example compression with context takeover) must return
+ * {@code null} for such sessions.
+ */
+public interface SharedFramingExtension extends ExtendedExtension {
+
+    /**
+     * Get sharing key of outgoing frames of a session.
+     * <p/>
+     * Two sessions with equal keys must get the same result of {@link #processOutgoing(ExtendedExtension
+     * .ExtensionContext, org.glassfish.tyrus.core.frame.Frame)} for the same frame, so the key typically represents
+     * negotiated parameters. The key is obtained once per session, after the extension negotiation.
+     *
+     * @param context per-connection/session context.
+     * @return sharing key with properly implemented {@link Object#equals(Object)} and {@link Object#hashCode()} or
+     * {@code null} when outgoing frames of the session depend on its state and cannot be shared.
+     */
+    Object getSharedFramingKey(ExtensionContext context);
+}
@@ -40,6 +40,8 @@
 
 package org.glassfish.tyrus.core.frame;
 
+import java.nio.ByteBuffer;
+
 /**
  * WebSocket frame representation.
  * <p/>
@@ -62,7 +64,7 @@ public class Frame {
     private final long payloadLength;
     private final Integer maskingKey;
 
-    private final byte[] payloadData;
+    private final ByteBuffer payloadData;
 
     private final boolean controlFrame;
 
@@ -88,7 +90,7 @@ public class Frame {
     }
 
     private Frame(boolean fin, boolean rsv1, boolean rsv2, boolean rsv3, boolean mask, byte opcode, long payloadLength,
-                  Integer maskingKey, byte[] payloadData) {
+                  Integer maskingKey, ByteBuffer payloadData) {
         this.fin = fin;
         this.rsv1 = rsv1;
         this.rsv2 = rsv2;
@@ -185,10 +187,32 @@ public class Frame {
      */
     public byte[] getPayloadData() {
         byte[] tmp = new byte[(int) payloadLength];
-        System.arraycopy(payloadData, 0, tmp, 0, (int) payloadLength);
+        if (payloadLength > 0) {
+            payloadData.duplicate().get(tmp);
+        }
         return tmp;
     }
 
+    /**
+     * Get payload data as a {@link ByteBuffer} without copying it.
+     * <p/>
+     * Returned buffer shares its content with current {@link Frame} instance (and possibly with the buffer the frame
+     * was parsed from), so the content is valid only during the processing of this frame. Use {@link
+     * #getPayloadData()} when the data needs to be retained. Position of returned buffer is set to {@code 0} and its
+     * limit to {@link #getPayloadLength()}.
+     *
+     * @return payload data.
+     */
+    public ByteBuffer getPayload() {
+        if (payloadData == null) {
+            return ByteBuffer.allocate(0);
+        }
+
+        final ByteBuffer payload = payloadData.duplicate();
+        payload.limit((int) payloadLength);
+        return payload;
+    }
+
     /**
      * Get information about frame type.
      *
@@ -247,7 +271,7 @@ public class Frame {
         private long payloadLength;
         private Integer maskingKey = null;
 
-        private byte[] payloadData;
+        private ByteBuffer payloadData;
 
         /**
          * Constructor.
@@ -381,9 +405,25 @@ public class Frame {
          * @see #payloadLength(long)
          */
         public Builder payloadData(byte[] payloadData) {
-            this.payloadData = payloadData;
+            this.payloadData = ByteBuffer.wrap(payloadData);
             this.payloadLength = payloadData.length;
             return this;
         }
+
+        /**
+         * Set payload data. {@link #payloadLength(long)} is also updated with {@code payloadData.remaining()}.
+         * <p/>
+         * Remaining bytes of given buffer are used as the payload; the data is *not* copied, so the buffer content must
+         * not be changed for as long as the built {@link Frame} is in use.
+         *
+         * @param payloadData data to be set.
+         * @return updated {@link Frame.Builder} instance.
+         * @see #payloadLength(long)
+         */
+        public Builder payloadData(ByteBuffer payloadData) {
+            this.payloadData = payloadData.slice();
+            this.payloadLength = payloadData.remaining();
+            return this;
+        }
     }
 }
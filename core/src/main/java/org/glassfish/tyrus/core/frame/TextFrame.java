@@ -44,13 +44,12 @@ import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
-import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
 
 import org.glassfish.tyrus.core.StrictUtf8;
 import org.glassfish.tyrus.core.TyrusWebSocket;
-import org.glassfish.tyrus.core.Utf8DecodingException;
+import org.glassfish.tyrus.core.Utf8Codec;
 
 /**
  * Text frame representation.
@@ -59,12 +58,9 @@ import org.glassfish.tyrus.core.Utf8DecodingException;
  */
 public class TextFrame extends TyrusFrame {
 
-    private final Charset utf8 = new StrictUtf8();
-    private final CharsetDecoder currentDecoder = utf8.newDecoder();
     private final String textPayload;
     private final boolean continuation;
-
-    private ByteBuffer remainder;
+    private final ByteBuffer remainder;
 
     /**
      * Constructor.
@@ -73,9 +69,7 @@ public class TextFrame extends TyrusFrame {
      * @param remainder UTF-8 decoding remainder from previously processed frame.
      */
     public TextFrame(Frame frame, ByteBuffer remainder) {
-        super(frame, FrameType.TEXT);
-        this.textPayload = utf8Decode(isFin(), getPayloadData(), remainder);
-        this.continuation = false;
+        this(frame, remainder, false);
     }
 
     /**
@@ -86,8 +80,21 @@ public class TextFrame extends TyrusFrame {
      * @param continuation {@code true} when this frame is continuation frame, {@code false} otherwise.
      */
     public TextFrame(Frame frame, ByteBuffer remainder, boolean continuation) {
+        this(frame, remainder, continuation, new Utf8Codec());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param frame        original (text) frame.
+     * @param remainder    UTF-8 decoding remainder from previously processed frame.
+     * @param continuation {@code true} when this frame is continuation frame, {@code false} otherwise.
+     * @param utf8Codec    codec used to decode the payload, usually shared by all frames of a connection.
+     */
+    public TextFrame(Frame frame, ByteBuffer remainder, boolean continuation, Utf8Codec utf8Codec) {
         super(frame, continuation ? FrameType.TEXT_CONTINUATION : FrameType.TEXT);
-        this.textPayload = utf8Decode(isFin(), getPayloadData(), remainder);
+        this.textPayload = utf8Codec.decode(getPayload(), remainder, isFin());
+        this.remainder = utf8Codec.getRemainder();
         this.continuation = continuation;
     }
 
@@ -101,12 +108,13 @@ public class TextFrame extends TyrusFrame {
      */
     public TextFrame(String message, boolean continuation, boolean fin) {
         super(Frame.builder()
-                   .payloadData(encode(new StrictUtf8(), message))
+                   .payloadData(encode(message))
                    .opcode(continuation ? (byte) 0x00 : (byte) 0x01)
                    .fin(fin)
                    .build(), continuation ? FrameType.TEXT_CONTINUATION : FrameType.TEXT);
         this.continuation = continuation;
         this.textPayload = message;
+        this.remainder = null;
     }
 
     /**
@@ -144,58 +152,6 @@ public class TextFrame extends TyrusFrame {
 
     }
 
-    private String utf8Decode(boolean finalFragment, byte[] data, ByteBuffer remainder) {
-        final ByteBuffer b = getByteBuffer(data, remainder);
-        int n = (int) (b.remaining() * currentDecoder.averageCharsPerByte());
-        CharBuffer cb = CharBuffer.allocate(n);
-        String res;
-        while (true) {
-            CoderResult result = currentDecoder.decode(b, cb, finalFragment);
-            if (result.isUnderflow()) {
-                if (finalFragment) {
-                    currentDecoder.flush(cb);
-                    if (b.hasRemaining()) {
-                        throw new IllegalStateException("Final UTF-8 fragment received, but not all bytes consumed by" +
-                                                                " decode process");
-                    }
-                    currentDecoder.reset();
-                } else {
-                    if (b.hasRemaining()) {
-                        this.remainder = b;
-                    }
-                }
-                cb.flip();
-                res = cb.toString();
-                break;
-            }
-            if (result.isOverflow()) {
-                CharBuffer tmp = CharBuffer.allocate(2 * n + 1);
-                cb.flip();
-                tmp.put(cb);
-                cb = tmp;
-                continue;
-            }
-            if (result.isError() || result.isMalformed()) {
-                throw new Utf8DecodingException();
-            }
-        }
-
-        return res;
-    }
-
-    private ByteBuffer getByteBuffer(final byte[] data, ByteBuffer remainder) {
-        if (remainder == null) {
-            return ByteBuffer.wrap(data);
-        } else {
-            final int rem = remainder.remaining();
-            final byte[] orig = remainder.array();
-            byte[] b = new byte[rem + data.length];
-            System.arraycopy(orig, orig.length - rem, b, 0, rem);
-            System.arraycopy(data, 0, b, rem, data.length);
-            return ByteBuffer.wrap(b);
-        }
-    }
-
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder(super.toString());
@@ -203,6 +159,16 @@ public class TextFrame extends TyrusFrame {
         return sb.toString();
     }
 
+    private static byte[] encode(String string) {
+        if (string == null || string.isEmpty()) {
+            return new byte[0];
+        }
+
+        final byte[] bytes = Utf8Codec.encode(string);
+        // unpaired surrogate - let the strict encoder report it.
+        return bytes != null ? bytes : encode(new StrictUtf8(), string);
+    }
+
     private static byte[] encode(Charset charset, String string) {
         if (string == null || string.isEmpty()) {
             return new byte[0];
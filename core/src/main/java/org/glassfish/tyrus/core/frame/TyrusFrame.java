@@ -45,6 +45,7 @@ import java.util.Locale;
 
 import org.glassfish.tyrus.core.ProtocolException;
 import org.glassfish.tyrus.core.TyrusWebSocket;
+import org.glassfish.tyrus.core.Utf8Codec;
 
 /**
  * Frame representation used in Tyrus runtime.
@@ -95,16 +96,29 @@ public abstract class TyrusFrame extends Frame {
      * @return new TyrusFrame.
      */
     public static TyrusFrame wrap(Frame frame, byte inFragmentedType, ByteBuffer remainder) {
+        return wrap(frame, inFragmentedType, remainder, new Utf8Codec());
+    }
+
+    /**
+     * {@link TyrusFrame} factory method.
+     *
+     * @param frame            original plain frame.
+     * @param inFragmentedType type of fragment (text or binary).
+     * @param remainder        decoding remainder. Used only for partial text frames.
+     * @param utf8Codec        codec used to decode text frames.
+     * @return new TyrusFrame.
+     */
+    public static TyrusFrame wrap(Frame frame, byte inFragmentedType, ByteBuffer remainder, Utf8Codec utf8Codec) {
 
         switch (frame.getOpcode()) {
             case 0x00:
                 if ((inFragmentedType & 0x01) == 0x01) {
-                    return new TextFrame(frame, remainder, true);
+                    return new TextFrame(frame, remainder, true, utf8Codec);
                 } else {
                     return new BinaryFrame(frame, true);
                 }
             case 0x01:
-                return new TextFrame(frame, remainder);
+                return new TextFrame(frame, remainder, false, utf8Codec);
             case 0x02:
                 return new BinaryFrame(frame);
             case 0x08:
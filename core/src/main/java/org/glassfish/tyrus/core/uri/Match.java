@@ -75,7 +75,7 @@ public class Match {
      *
      * @param endpointWrapper {@link TyrusEndpointWrapper} instance.
      */
-    private Match(TyrusEndpointWrapper endpointWrapper) {
+    Match(TyrusEndpointWrapper endpointWrapper) {
         this.endpointWrapper = endpointWrapper;
     }
 
@@ -244,11 +244,11 @@ public class Match {
         return equivalenceList;
     }
 
-    private static boolean isVariable(String segment) {
+    static boolean isVariable(String segment) {
         return segment.startsWith("{") && segment.endsWith("}");
     }
 
-    private static String getVariableName(String segment) {
+    static String getVariableName(String segment) {
         return segment.substring(1, segment.length() - 1);
     }
 }
@@ -0,0 +1,232 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core.uri;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.tyrus.core.DebugContext;
+import org.glassfish.tyrus.core.TyrusEndpointWrapper;
+import org.glassfish.tyrus.core.uri.internal.PathSegment;
+import org.glassfish.tyrus.core.uri.internal.UriComponent;
+
+/**
+ * Segment trie of endpoint paths, used to match request paths against registered endpoints.
+ * <p>
+ * Endpoint paths are decoded and split into segments once, when the endpoint is added. All variable segments
+ * ({@code {name}}) on the same level share one child node, so lookup of a request path walks the trie in time
+ * proportional to the length of the path instead of the number of registered endpoints. Literal children are visited
+ * before the variable child, which yields matches in the same order as {@link MatchComparator} - exact matches first,
+ * then templates with the rightmost leftmost variable.
+ * <p>
+ * The trie is copy-on-write: {@link #add(TyrusEndpointWrapper)} and {@link #remove(TyrusEndpointWrapper)} rebuild it,
+ * lookups are lock-free.
+ */
+public class PathTrie {
+
+    private static final Logger LOGGER = Logger.getLogger(PathTrie.class.getName());
+
+    private final List<TyrusEndpointWrapper> endpoints = new ArrayList<TyrusEndpointWrapper>();
+
+    private volatile Node root = new Node();
+
+    /**
+     * Add an endpoint.
+     *
+     * @param endpoint endpoint to be added.
+     */
+    public synchronized void add(TyrusEndpointWrapper endpoint) {
+        endpoints.add(endpoint);
+        root = build(endpoints);
+    }
+
+    /**
+     * Remove an endpoint.
+     *
+     * @param endpoint endpoint to be removed.
+     */
+    public synchronized void remove(TyrusEndpointWrapper endpoint) {
+        if (endpoints.remove(endpoint)) {
+            root = build(endpoints);
+        }
+    }
+
+    /**
+     * Get an endpoint registered on a path equivalent to the provided one.
+     *
+     * @param path endpoint path.
+     * @return endpoint registered on an equivalent path or {@code null} if there is no such endpoint.
+     * @see Match#isEquivalent(String, String)
+     */
+    public TyrusEndpointWrapper getEquivalent(String path) {
+        Node node = root;
+
+        for (PathSegment segment : UriComponent.decodePath(path, true)) {
+            final String s = segment.getPath();
+            node = Match.isVariable(s) ? node.variable : node.literals.get(s);
+
+            if (node == null) {
+                return null;
+            }
+        }
+
+        return node.terminals.isEmpty() ? null : node.terminals.get(0).endpoint;
+    }
+
+    /**
+     * Return a list of all endpoints with path matching the request path. The endpoints are in order of match
+     * preference, best match first.
+     *
+     * @param requestPath  request path.
+     * @param debugContext debug context.
+     * @return a list of all endpoints with path matching the request path. The endpoints are in order of match
+     * preference, best match first.
+     * @see Match#getAllMatches(String, java.util.Set, DebugContext)
+     */
+    public List<Match> getAllMatches(String requestPath, DebugContext debugContext) {
+        final List<PathSegment> pathSegments = UriComponent.decodePath(requestPath, true);
+
+        final List<Match> matches;
+        if (pathSegments.isEmpty()) {
+            matches = Collections.emptyList();
+        } else {
+            final String[] segments = new String[pathSegments.size()];
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = pathSegments.get(i).getPath();
+            }
+
+            matches = new ArrayList<Match>(1);
+            collect(root, segments, 0, matches);
+        }
+
+        debugContext.appendTraceMessage(LOGGER, Level.FINE, DebugContext.Type.MESSAGE_IN,
+                                        "Endpoints matched to the request URI: ", matches);
+        return matches;
+    }
+
+    private static void collect(Node node, String[] segments, int depth, List<Match> matches) {
+        if (depth == segments.length) {
+            for (Terminal terminal : node.terminals) {
+                matches.add(terminal.createMatch(segments));
+            }
+            return;
+        }
+
+        final Node literal = node.literals.get(segments[depth]);
+        if (literal != null) {
+            collect(literal, segments, depth + 1, matches);
+        }
+
+        if (node.variable != null) {
+            collect(node.variable, segments, depth + 1, matches);
+        }
+    }
+
+    private static Node build(List<TyrusEndpointWrapper> endpoints) {
+        final Node root = new Node();
+
+        for (TyrusEndpointWrapper endpoint : endpoints) {
+            final List<PathSegment> segments = UriComponent.decodePath(endpoint.getEndpointPath(), true);
+            final List<Integer> variableIndices = new ArrayList<Integer>();
+            final List<String> variableNames = new ArrayList<String>();
+
+            Node node = root;
+            for (int i = 0; i < segments.size(); i++) {
+                final String segment = segments.get(i).getPath();
+
+                if (Match.isVariable(segment)) {
+                    if (node.variable == null) {
+                        node.variable = new Node();
+                    }
+                    node = node.variable;
+                    variableIndices.add(i);
+                    variableNames.add(Match.getVariableName(segment));
+                } else {
+                    Node child = node.literals.get(segment);
+                    if (child == null) {
+                        child = new Node();
+                        node.literals.put(segment, child);
+                    }
+                    node = child;
+                }
+            }
+
+            node.terminals.add(new Terminal(endpoint, variableIndices, variableNames));
+        }
+
+        return root;
+    }
+
+    private static class Node {
+
+        private final Map<String, Node> literals = new HashMap<String, Node>();
+        private final List<Terminal> terminals = new ArrayList<Terminal>(1);
+        private Node variable;
+    }
+
+    private static class Terminal {
+
+        private final TyrusEndpointWrapper endpoint;
+        private final int[] variableIndices;
+        private final String[] variableNames;
+
+        private Terminal(TyrusEndpointWrapper endpoint, List<Integer> variableIndices, List<String> variableNames) {
+            this.endpoint = endpoint;
+            this.variableIndices = new int[variableIndices.size()];
+            for (int i = 0; i < this.variableIndices.length; i++) {
+                this.variableIndices[i] = variableIndices.get(i);
+            }
+            this.variableNames = variableNames.toArray(new String[variableNames.size()]);
+        }
+
+        private Match createMatch(String[] segments) {
+            final Match match = new Match(endpoint);
+            for (int i = 0; i < variableIndices.length; i++) {
+                match.addParameter(variableNames[i], segments[variableIndices[i]], variableIndices[i]);
+            }
+            return match;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests {@link ByteBufferPool}.
+ */
+public class ByteBufferPoolTest {
+
+    @Test
+    public void testSizeClasses() {
+        final ByteBufferPool pool = new ByteBufferPool(false, ByteBufferPool.DEFAULT_MAX_POOLED_BYTES);
+
+        assertEquals(256, pool.lease(1).capacity());
+        assertEquals(256, pool.lease(256).capacity());
+        assertEquals(384, pool.lease(257).capacity());
+        assertEquals(512, pool.lease(385).capacity());
+        assertEquals(24576, pool.lease(17000).capacity());
+        assertEquals(ByteBufferPool.MAX_POOLED_BUFFER_SIZE, pool.lease(ByteBufferPool.MAX_POOLED_BUFFER_SIZE).capacity());
+        assertEquals(ByteBufferPool.MAX_POOLED_BUFFER_SIZE + 1,
+                     pool.lease(ByteBufferPool.MAX_POOLED_BUFFER_SIZE + 1).capacity());
+    }
+
+    @Test
+    public void testReuse() {
+        final ByteBufferPool pool = new ByteBufferPool(true, ByteBufferPool.DEFAULT_MAX_POOLED_BYTES);
+
+        final ByteBuffer buffer = pool.lease(1000);
+        assertTrue(buffer.isDirect());
+        assertEquals(1, pool.getLeasedBuffers());
+        assertEquals(1024, pool.getLeasedBytes());
+
+        buffer.put((byte) 1).flip();
+        pool.release(buffer);
+        assertEquals(0, pool.getLeasedBuffers());
+        assertEquals(0, pool.getLeasedBytes());
+        assertEquals(1, pool.getPooledBuffers());
+        assertEquals(1024, pool.getPooledBytes());
+
+        final ByteBuffer reused = pool.lease(900);
+        assertSame(buffer, reused);
+        assertEquals(0, reused.position());
+        assertEquals(1024, reused.limit());
+        assertEquals(0, pool.getPooledBuffers());
+        assertEquals(1, pool.getAllocatedBuffers());
+
+        // different size class.
+        assertNotSame(buffer, pool.lease(100));
+        assertEquals(2, pool.getAllocatedBuffers());
+    }
+
+    @Test
+    public void testMaxPooledBytes() {
+        final ByteBufferPool pool = new ByteBufferPool(false, 1024);
+
+        final ByteBuffer first = pool.lease(1024);
+        final ByteBuffer second = pool.lease(1024);
+        final ByteBuffer large = pool.lease(ByteBufferPool.MAX_POOLED_BUFFER_SIZE * 2);
+        assertEquals(3, pool.getLeasedBuffers());
+
+        pool.release(first);
+        pool.release(second);
+        pool.release(large);
+
+        assertEquals(0, pool.getLeasedBuffers());
+        assertEquals(0, pool.getLeasedBytes());
+        assertEquals(1, pool.getPooledBuffers());
+        assertEquals(1024, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testAppend() {
+        final ByteBufferPool pool = new ByteBufferPool(false, ByteBufferPool.DEFAULT_MAX_POOLED_BYTES);
+
+        ByteBuffer buffer = pool.append(null, ByteBuffer.wrap(new byte[]{1, 2, 3}), 10000);
+        assertEquals(3, buffer.remaining());
+        assertEquals(256, buffer.capacity());
+
+        buffer.get();
+        final ByteBuffer data = ByteBuffer.wrap(new byte[300]);
+        data.put(299, (byte) 4);
+        final ByteBuffer grown = pool.append(buffer, data, 10000);
+        assertFalse(data.hasRemaining());
+        assertEquals(302, grown.remaining());
+        assertEquals(512, grown.capacity());
+        assertEquals(2, grown.get());
+        assertEquals(3, grown.get());
+        assertEquals(4, grown.get(grown.limit() - 1));
+
+        // the original buffer was returned to the pool.
+        assertEquals(1, pool.getLeasedBuffers());
+        assertEquals(1, pool.getPooledBuffers());
+
+        // fits into the remaining space, the same buffer is returned.
+        grown.position(grown.limit());
+        assertSame(grown, pool.append(grown, ByteBuffer.wrap(new byte[]{5}), 10000));
+        assertEquals(1, grown.remaining());
+        assertEquals(5, grown.get(grown.position()));
+
+        try {
+            pool.append(grown, ByteBuffer.wrap(new byte[10000]), 10000);
+            fail("IllegalArgumentException expected.");
+        } catch (IllegalArgumentException e) {
+            // expected.
+        }
+    }
+}
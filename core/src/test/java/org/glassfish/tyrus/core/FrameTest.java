@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2014-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -40,12 +40,16 @@
 
 package org.glassfish.tyrus.core;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import org.glassfish.tyrus.core.frame.Frame;
+import org.glassfish.tyrus.core.frame.TextFrame;
 
 import org.junit.Test;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -95,6 +99,210 @@ public class FrameTest {
 
     }
 
+    @Test
+    public void testPayloadBuffer() throws Exception {
+        final ByteBuffer buffer = ByteBuffer.wrap(new byte[]{'x', '0', '1', '2', '3'});
+        buffer.position(1);
+
+        final Frame frame = new Frame.Builder().payloadData(buffer).payloadLength(3).build();
+        final ByteBuffer payload = frame.getPayload();
+        assertEquals(0, payload.position());
+        assertEquals(3, payload.limit());
+        assertTrue(Arrays.equals(new byte[]{'0', '1', '2'}, frame.getPayloadData()));
+
+        // payload buffer is not copied.
+        buffer.put(1, (byte) '9');
+        assertEquals('9', frame.getPayload().get(0));
+    }
+
+    @Test
+    public void testUnframeInPlace() throws Exception {
+        final byte[] payload = new byte[300];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+
+        final ProtocolHandler client = new ProtocolHandler(true, null);
+        final ByteBuffer first = client.frame(
+                new Frame.Builder().fin(true).opcode((byte) 0x02).maskingKey(0x01020304).payloadData(payload).build());
+        final ByteBuffer second = client.frame(
+                new Frame.Builder().fin(true).opcode((byte) 0x02).maskingKey(0x0A0B0C0D).payloadData(payload).build());
+
+        final ByteBuffer buffer = ByteBuffer.allocate(first.remaining() + second.remaining() - 1);
+        buffer.put(first).put(second.array(), 0, second.remaining() - 1).flip();
+
+        final ProtocolHandler server = new ProtocolHandler(false, null);
+        final Frame frame = server.unframe(buffer);
+        assertEquals(payload.length, frame.getPayloadLength());
+        assertTrue(Arrays.equals(payload, frame.getPayloadData()));
+
+        // payload is a view of the (unmasked in place) read buffer.
+        final ByteBuffer view = frame.getPayload();
+        assertEquals(buffer.array(), view.array());
+
+        // incomplete second frame.
+        assertNull(server.unframe(buffer));
+
+        final ByteBuffer rest = ByteBuffer.allocate(buffer.remaining() + 1);
+        rest.put(buffer).put(second.array()[second.limit() - 1]).flip();
+        assertTrue(Arrays.equals(payload, server.unframe(rest).getPayloadData()));
+    }
+
+    @Test
+    public void testUnframeStreamed() throws Exception {
+        final byte[] payload = new byte[1000];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+
+        final ProtocolHandler client = new ProtocolHandler(true, null);
+        final ByteBuffer packet = client.frame(
+                new Frame.Builder().fin(true).opcode((byte) 0x02).maskingKey(0x01020304).payloadData(payload).build());
+
+        final ProtocolHandler server = new ProtocolHandler(false, null);
+        server.enableFrameStreaming(214);
+
+        final ByteBuffer received = ByteBuffer.allocate(payload.length);
+        int frames = 0;
+        while (packet.hasRemaining()) {
+            final ByteBuffer read = packet.slice();
+            read.limit(Math.min(300, packet.remaining()));
+            packet.position(packet.position() + read.limit());
+
+            final Frame frame = server.unframe(read);
+            assertFalse(read.hasRemaining());
+
+            assertEquals(frames == 0 ? 0x02 : 0x00, frame.getOpcode());
+            assertEquals(!packet.hasRemaining(), frame.isFin());
+            received.put(frame.getPayload());
+            frames++;
+        }
+
+        assertEquals(4, frames);
+        assertTrue(Arrays.equals(payload, received.array()));
+
+        // small frames are not streamed.
+        final ByteBuffer small = client.frame(new Frame.Builder().fin(true).opcode((byte) 0x02).payloadData(
+                Arrays.copyOf(payload, 200)).build());
+        final ByteBuffer smallRead = small.duplicate();
+        smallRead.limit(100);
+        assertNull(server.unframe(smallRead));
+    }
+
+    @Test
+    public void testStreamingEncoder() throws Exception {
+        final byte[] payload = new byte[300];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+
+        final ProtocolHandler client = new ProtocolHandler(true, new MaskingKeyGenerator() {
+            @Override
+            public int nextInt() {
+                return 0x01020304;
+            }
+        });
+        final ByteBuffer expected = client.frame(
+                new Frame.Builder().fin(true).opcode((byte) 0x02).payloadData(payload).build());
+
+        final StreamingFrameEncoder encoder = new StreamingFrameEncoder((byte) 0x82, payload.length, 0x01020304);
+        final ByteBuffer encoded = ByteBuffer.allocate(expected.remaining());
+        encoded.put(encoder.getHeader());
+        encoded.put(encoder.encode(ByteBuffer.wrap(payload, 0, 7)));
+        encoded.put(encoder.encode(ByteBuffer.wrap(payload, 7, 200)));
+        encoded.put(encoder.encode(ByteBuffer.wrap(payload, 207, 93)));
+        assertEquals(0, encoder.getRemaining());
+        encoded.flip();
+
+        assertEquals(expected, encoded);
+    }
+
+    @Test
+    public void testStreamingEncoderInPlace() throws Exception {
+        final byte[] payload = new byte[300];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+
+        final StreamingFrameEncoder copying = new StreamingFrameEncoder((byte) 0x82, payload.length, 0x01020304);
+        final StreamingFrameEncoder inPlace = new StreamingFrameEncoder((byte) 0x82, payload.length, 0x01020304);
+
+        // the same buffer is reused for all chunks.
+        final ByteBuffer chunk = ByteBuffer.allocate(128);
+        for (int offset = 0; offset < payload.length; offset += chunk.capacity()) {
+            final int length = Math.min(chunk.capacity(), payload.length - offset);
+            chunk.clear();
+            chunk.put(payload, offset, length).flip();
+
+            final ByteBuffer expected = copying.encode(ByteBuffer.wrap(payload, offset, length));
+            final ByteBuffer encoded = inPlace.encodeInPlace(chunk);
+            assertEquals(expected, encoded);
+            assertEquals(chunk.array(), encoded.array());
+        }
+        assertEquals(0, inPlace.getRemaining());
+    }
+
+    @Test
+    public void testStreamingEncoderLongLength() throws Exception {
+        final long length = 3L * 1024 * 1024 * 1024;
+
+        final ByteBuffer header = new StreamingFrameEncoder((byte) 0x82, length, null).getHeader();
+        assertEquals(10, header.remaining());
+        assertEquals((byte) 0x82, header.get());
+        assertEquals(127, header.get());
+        assertEquals(length, header.getLong());
+
+        final ByteBuffer maskedHeader = new StreamingFrameEncoder((byte) 0x82, length, 0x01020304).getHeader();
+        assertEquals(14, maskedHeader.remaining());
+        assertEquals((byte) 0xFF, maskedHeader.get(1));
+        assertEquals(0x01020304, maskedHeader.getInt(10));
+
+        // unframed length is not truncated.
+        final ProtocolHandler server = new ProtocolHandler(false, null);
+        server.enableFrameStreaming(1024);
+
+        final ByteBuffer buffer = ByteBuffer.allocate(maskedHeader.remaining() + 10);
+        buffer.put(maskedHeader).put(new byte[10]).flip();
+        final Frame frame = server.unframe(buffer);
+        assertEquals(10, frame.getPayloadLength());
+        assertFalse(frame.isFin());
+    }
+
+    @Test
+    public void testTextFragmentedInsideCharacter() throws Exception {
+        final String text = "a\u00e9\u20ac\ud83d\ude00b";
+        final byte[] bytes = text.getBytes("UTF-8");
+
+        // split the message into three fragments at every possible pair of positions.
+        for (int i = 0; i <= bytes.length; i++) {
+            for (int j = i; j <= bytes.length; j++) {
+                final StringBuilder sb = new StringBuilder();
+
+                final TextFrame first = new TextFrame(fragment(bytes, 0, i, false), null, false);
+                sb.append(first.getTextPayload());
+                final TextFrame second = new TextFrame(fragment(bytes, i, j, false), first.getRemainder(), true);
+                sb.append(second.getTextPayload());
+                final TextFrame third = new TextFrame(fragment(bytes, j, bytes.length, true), second.getRemainder(),
+                                                      true);
+                sb.append(third.getTextPayload());
+
+                assertEquals(text, sb.toString());
+            }
+        }
+    }
+
+    @Test(expected = Utf8DecodingException.class)
+    public void testTextFragmentedIncompleteCharacter() throws Exception {
+        final byte[] bytes = "\u20ac".getBytes("UTF-8");
+
+        final TextFrame first = new TextFrame(fragment(bytes, 0, 1, false), null, false);
+        new TextFrame(fragment(bytes, 1, 2, true), first.getRemainder(), true);
+    }
+
+    private static Frame fragment(byte[] bytes, int from, int to, boolean fin) {
+        return Frame.builder().payloadData(Arrays.copyOfRange(bytes, from, to)).fin(fin).build();
+    }
+
     /**
      * TODO: test validation when added to Frame.
      */
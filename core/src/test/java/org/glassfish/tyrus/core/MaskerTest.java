@@ -0,0 +1,151 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link Masker}.
+ */
+public class MaskerTest {
+
+    private static final int MASKING_KEY = 0xCAFEBABE;
+
+    @Test
+    public void testMaskHeap() {
+        for (int length = 0; length < 40; length++) {
+            final byte[] data = randomBytes(length);
+            final ByteBuffer buffer = ByteBuffer.wrap(data.clone());
+
+            new Masker(MASKING_KEY).mask(buffer, 0, length);
+
+            assertArrayEquals(referenceMask(data, 0), buffer.array());
+        }
+    }
+
+    @Test
+    public void testMaskDirect() {
+        for (int length = 0; length < 40; length++) {
+            final byte[] data = randomBytes(length);
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+            buffer.put(data).flip();
+
+            new Masker(MASKING_KEY).unmask(buffer);
+
+            assertEquals(0, buffer.position());
+            final byte[] result = new byte[length];
+            buffer.get(result);
+            assertArrayEquals(referenceMask(data, 0), result);
+        }
+    }
+
+    @Test
+    public void testMaskLittleEndian() {
+        final byte[] data = randomBytes(37);
+        final ByteBuffer buffer = ByteBuffer.wrap(data.clone()).order(ByteOrder.LITTLE_ENDIAN);
+
+        new Masker(MASKING_KEY).mask(buffer, 0, data.length);
+
+        assertArrayEquals(referenceMask(data, 0), buffer.array());
+    }
+
+    @Test
+    public void testMaskInChunks() {
+        final byte[] data = randomBytes(100);
+        final ByteBuffer buffer = ByteBuffer.wrap(data.clone());
+        final Masker masker = new Masker(MASKING_KEY);
+
+        masker.mask(buffer, 0, 3);
+        masker.mask(buffer, 3, 17);
+        masker.mask(buffer, 20, 1);
+        masker.mask(buffer, 21, 79);
+
+        assertArrayEquals(referenceMask(data, 0), buffer.array());
+    }
+
+    @Test
+    public void testMaskArray() {
+        final byte[] data = randomBytes(29);
+        final byte[] target = new byte[data.length + 5];
+
+        new Masker(MASKING_KEY).mask(target, 5, data, data.length);
+
+        final byte[] expected = new byte[target.length];
+        System.arraycopy(referenceMask(data, 0), 0, expected, 5, data.length);
+        assertArrayEquals(expected, target);
+    }
+
+    @Test
+    public void testUnmaskReadMask() {
+        final byte[] data = randomBytes(21);
+        final byte[] masked = referenceMask(data, 0);
+        final ByteBuffer buffer = ByteBuffer.allocate(ProtocolHandler.MASK_SIZE + masked.length);
+        buffer.putInt(MASKING_KEY).put(masked).flip();
+
+        final Masker masker = new Masker(buffer);
+        masker.readMask();
+
+        assertArrayEquals(new byte[]{(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE}, masker.getMask());
+        assertArrayEquals(data, masker.unmask(data.length));
+    }
+
+    private static byte[] randomBytes(int length) {
+        final byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] referenceMask(byte[] data, int index) {
+        final byte[] mask = {(byte) (MASKING_KEY >> 24), (byte) (MASKING_KEY >> 16), (byte) (MASKING_KEY >> 8),
+                (byte) MASKING_KEY};
+        final byte[] result = new byte[data.length];
+        for (int i = 0; i < data.length; i++) {
+            result[i] = (byte) (data[i] ^ mask[(index + i) % ProtocolHandler.MASK_SIZE]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.tyrus.core.frame.Frame;
+import org.glassfish.tyrus.core.frame.PongFrame;
+import org.glassfish.tyrus.spi.CompletionHandler;
+import org.glassfish.tyrus.spi.Writer;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests limits of the outbound queue of {@link ProtocolHandler}.
+ */
+public class OutboundQueueTest {
+
+    // text frame "abcdefgh" takes 10 bytes (2 bytes header), "x" takes 3 bytes.
+    private static final String TEN_BYTES = "abcdefgh";
+
+    @Test
+    public void testUnlimited() {
+        final DeferredWriter writer = new DeferredWriter();
+        final ProtocolHandler protocolHandler = createProtocolHandler(writer, -1, null);
+
+        protocolHandler.send(TEN_BYTES);
+        protocolHandler.send(TEN_BYTES);
+        assertEquals(2, writer.buffers.size());
+        assertEquals(20, protocolHandler.getPendingWriteBytes());
+
+        writer.completeAll();
+        assertEquals(0, protocolHandler.getPendingWriteBytes());
+    }
+
+    @Test
+    public void testFail() throws InterruptedException, ExecutionException {
+        final DeferredWriter writer = new DeferredWriter();
+        final ProtocolHandler protocolHandler = createProtocolHandler(writer, 10, OutboundOverflowPolicy.FAIL);
+
+        final Future<Frame> first = protocolHandler.send(TEN_BYTES);
+        final Future<Frame> refused = protocolHandler.send("x");
+        assertEquals(1, writer.buffers.size());
+        assertFailed(refused);
+
+        writer.completeAll();
+        first.get();
+
+        protocolHandler.send("x");
+        assertEquals(1, writer.buffers.size());
+    }
+
+    @Test
+    public void testLowWatermark() {
+        final DeferredWriter writer = new DeferredWriter();
+        final ProtocolHandler protocolHandler = createProtocolHandler(writer, 10, OutboundOverflowPolicy.FAIL);
+
+        for (int i = 0; i < 3; i++) {
+            protocolHandler.send("x");
+        }
+        assertEquals(3, writer.buffers.size());
+
+        // 9 + 3 bytes would exceed high watermark, connection is saturated.
+        assertFailed(protocolHandler.send("x"));
+
+        // 6 bytes pending, still over the low watermark (5).
+        writer.complete(0);
+        assertFailed(protocolHandler.send("x"));
+
+        // 3 bytes pending.
+        writer.complete(0);
+        protocolHandler.send("x");
+        assertEquals(2, writer.buffers.size());
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException, ExecutionException {
+        final DeferredWriter writer = new DeferredWriter();
+        final ProtocolHandler protocolHandler = createProtocolHandler(writer, 10, OutboundOverflowPolicy.DROP_OLDEST);
+
+        protocolHandler.send(TEN_BYTES);
+        final Future<Frame> dropped = protocolHandler.send("a");
+        final Future<Frame> kept = protocolHandler.send("b");
+        assertEquals(1, writer.buffers.size());
+        assertEquals(13, protocolHandler.getPendingWriteBytes());
+        assertFailed(dropped);
+
+        writer.completeAll();
+        assertEquals(1, writer.buffers.size());
+        assertEquals('b', writer.buffers.get(0).get(2));
+        writer.completeAll();
+        kept.get();
+        assertEquals(0, protocolHandler.getPendingWriteBytes());
+    }
+
+    @Test
+    public void testBlock() throws InterruptedException {
+        final DeferredWriter writer = new DeferredWriter();
+        final ProtocolHandler protocolHandler = createProtocolHandler(writer, 10, OutboundOverflowPolicy.BLOCK);
+
+        protocolHandler.send(TEN_BYTES);
+
+        final CountDownLatch sentLatch = new CountDownLatch(1);
+        new Thread() {
+            @Override
+            public void run() {
+                protocolHandler.send("x");
+                sentLatch.countDown();
+            }
+        }.start();
+
+        assertFalse(sentLatch.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, writer.buffers.size());
+
+        writer.completeAll();
+        assertTrue(sentLatch.await(1, TimeUnit.SECONDS));
+        assertEquals(1, writer.buffers.size());
+    }
+
+    @Test
+    public void testBlockTimeout() throws InterruptedException {
+        final DeferredWriter writer = new DeferredWriter();
+        final ProtocolHandler protocolHandler = createProtocolHandler(writer, 10, OutboundOverflowPolicy.BLOCK);
+
+        protocolHandler.send(TEN_BYTES);
+
+        final long start = System.currentTimeMillis();
+        assertFailed(protocolHandler.send("x"));
+        assertTrue(System.currentTimeMillis() - start >= ProtocolHandler.SEND_TIMEOUT);
+        assertEquals(1, writer.buffers.size());
+    }
+
+    @Test
+    public void testBlockFailsOnClose() throws InterruptedException {
+        final DeferredWriter writer = new DeferredWriter();
+        final ProtocolHandler protocolHandler = createProtocolHandler(writer, 10, OutboundOverflowPolicy.BLOCK);
+
+        protocolHandler.send(TEN_BYTES);
+
+        final CountDownLatch sentLatch = new CountDownLatch(1);
+        final List<Future<Frame>> futures = new ArrayList<Future<Frame>>();
+        new Thread() {
+            @Override
+            public void run() {
+                futures.add(protocolHandler.send("x"));
+                sentLatch.countDown();
+            }
+        }.start();
+        assertFalse(sentLatch.await(200, TimeUnit.MILLISECONDS));
+
+        protocolHandler.doClose();
+        assertTrue(sentLatch.await(1, TimeUnit.SECONDS));
+        assertFailed(futures.get(0));
+        assertEquals(1, writer.buffers.size());
+    }
+
+    @Test
+    public void testBlockDoesNotDelayControlFrames() throws InterruptedException {
+        final DeferredWriter writer = new DeferredWriter();
+        final ProtocolHandler protocolHandler = createProtocolHandler(writer, 10, OutboundOverflowPolicy.BLOCK);
+
+        protocolHandler.send(TEN_BYTES);
+
+        final CountDownLatch sentLatch = new CountDownLatch(1);
+        new Thread() {
+            @Override
+            public void run() {
+                protocolHandler.send("x");
+                sentLatch.countDown();
+            }
+        }.start();
+        assertFalse(sentLatch.await(200, TimeUnit.MILLISECONDS));
+
+        // pong sent from the read thread is not blocked by the waiting sender.
+        protocolHandler.send(new PongFrame(new byte[0]));
+        assertEquals(2, writer.buffers.size());
+
+        writer.completeAll();
+        assertTrue(sentLatch.await(1, TimeUnit.SECONDS));
+        assertEquals(1, writer.buffers.size());
+    }
+
+    private static ProtocolHandler createProtocolHandler(Writer writer, int highWatermark,
+                                                         OutboundOverflowPolicy policy) {
+        final ProtocolHandler protocolHandler = new ProtocolHandler(false, null);
+        protocolHandler.setWriter(writer);
+        protocolHandler.setOutboundQueueLimits(highWatermark, -1, policy);
+        return protocolHandler;
+    }
+
+    private static void assertFailed(Future<Frame> future) {
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        } catch (InterruptedException e) {
+            fail();
+        }
+    }
+
+    /**
+     * Writer completing writes only when asked to.
+     */
+    private static class DeferredWriter extends Writer {
+
+        private final List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+        private final List<CompletionHandler<ByteBuffer>> handlers = new ArrayList<CompletionHandler<ByteBuffer>>();
+
+        @Override
+        public synchronized void write(ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler) {
+            buffers.add(buffer);
+            handlers.add(completionHandler);
+        }
+
+        void complete(int index) {
+            final ByteBuffer buffer;
+            final CompletionHandler<ByteBuffer> handler;
+            synchronized (this) {
+                buffer = buffers.remove(index);
+                handler = handlers.remove(index);
+            }
+            handler.completed(buffer);
+        }
+
+        void completeAll() {
+            final int count;
+            synchronized (this) {
+                count = buffers.size();
+            }
+            for (int i = 0; i < count; i++) {
+                complete(0);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+}
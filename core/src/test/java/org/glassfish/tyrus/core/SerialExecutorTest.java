@@ -0,0 +1,167 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link SerialExecutor} and {@link ExecutorServiceFactory} resolution.
+ */
+public class SerialExecutorTest {
+
+    @Test
+    public void testOrderingOnThreadPerTaskExecutor() throws InterruptedException {
+        final ExecutorService executorService = Executors.newCachedThreadPool();
+        try {
+            final SerialExecutor executor = new SerialExecutor(executorService);
+            final List<Integer> executed = Collections.synchronizedList(new ArrayList<Integer>());
+            final AtomicInteger running = new AtomicInteger(0);
+            final AtomicInteger maxRunning = new AtomicInteger(0);
+            final CountDownLatch latch = new CountDownLatch(1000);
+
+            for (int i = 0; i < 1000; i++) {
+                final int index = i;
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        final int current = running.incrementAndGet();
+                        if (current > maxRunning.get()) {
+                            maxRunning.set(current);
+                        }
+                        executed.add(index);
+                        running.decrementAndGet();
+                        latch.countDown();
+                    }
+                });
+            }
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(1, maxRunning.get());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i, (int) executed.get(i));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailingTask() throws InterruptedException {
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            final SerialExecutor executor = new SerialExecutor(executorService);
+            final CountDownLatch latch = new CountDownLatch(1);
+
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    throw new IllegalStateException("expected");
+                }
+            });
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            });
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFactoryFromProperties() {
+        assertNull(ExecutorServiceFactory.fromProperties(null));
+        assertNull(ExecutorServiceFactory.fromValue(""));
+        assertNull(ExecutorServiceFactory.fromValue(String.class.getName()));
+        assertNull(ExecutorServiceFactory.fromValue("org.glassfish.tyrus.core.NonExistentFactory"));
+
+        final ExecutorServiceFactory factory = new VirtualThreadExecutorServiceFactory();
+        assertSame(factory, ExecutorServiceFactory.fromProperties(
+                Collections.<String, Object>singletonMap(ExecutorServiceFactory.EXECUTOR_SERVICE_FACTORY, factory)));
+        assertTrue(ExecutorServiceFactory.fromValue(VirtualThreadExecutorServiceFactory.class.getName())
+                           instanceof VirtualThreadExecutorServiceFactory);
+    }
+
+    @Test
+    public void testVirtualThreadFactory() throws Exception {
+        final ExecutorService executorService =
+                new VirtualThreadExecutorServiceFactory().createExecutorService(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        return new Thread(r, "fallback");
+                    }
+                });
+        try {
+            final String threadName = executorService.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    return Thread.currentThread().getName();
+                }
+            }).get(5, TimeUnit.SECONDS);
+
+            assertNotNull(threadName);
+            if (!VirtualThreadExecutorServiceFactory.isSupported()) {
+                assertEquals("fallback", threadName);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link TimerWheel}.
+ */
+public class TimerWheelTest {
+
+    private final TestProvider provider = new TestProvider();
+
+    @After
+    public void tearDown() {
+        provider.shutdown();
+    }
+
+    @Test
+    public void testExpiration() throws InterruptedException {
+        final TimerWheel timerWheel = new TimerWheel(provider, 10, 8);
+        final CountDownLatch latch = new CountDownLatch(2);
+        final long start = System.nanoTime();
+
+        timerWheel.schedule(new CountDownTask(latch), 20);
+        // longer than one round of the wheel.
+        timerWheel.schedule(new CountDownTask(latch), 200);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        final TimerWheel timerWheel = new TimerWheel(provider, 10, 8);
+        final AtomicInteger counter = new AtomicInteger(0);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        final TimerWheel.Timeout timeout = timerWheel.schedule(new Runnable() {
+            @Override
+            public void run() {
+                counter.incrementAndGet();
+            }
+        }, 50);
+        timeout.cancel();
+        timerWheel.schedule(new CountDownTask(latch), 100);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(timeout.isCancelled());
+        assertEquals(0, counter.get());
+    }
+
+    @Test
+    public void testRestartAfterExecutorShutdown() throws InterruptedException {
+        final TimerWheel timerWheel = new TimerWheel(provider, 10, 8);
+
+        final CountDownLatch first = new CountDownLatch(1);
+        timerWheel.schedule(new CountDownTask(first), 10);
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+
+        // the tick task is cancelled together with the executor, the wheel has to notice it.
+        provider.shutdown();
+
+        final CountDownLatch second = new CountDownLatch(1);
+        timerWheel.schedule(new CountDownTask(second), 10);
+        assertTrue(second.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStop() throws InterruptedException {
+        final TimerWheel timerWheel = new TimerWheel(provider, 10, 8);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        timerWheel.schedule(new CountDownTask(latch), 50);
+        timerWheel.stop();
+
+        assertFalse(latch.await(200, TimeUnit.MILLISECONDS));
+    }
+
+    private static class CountDownTask implements Runnable {
+
+        private final CountDownLatch latch;
+
+        CountDownTask(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void run() {
+            latch.countDown();
+        }
+    }
+
+    private static class TestProvider extends ExecutorServiceProvider {
+
+        private ScheduledExecutorService scheduledExecutorService;
+
+        @Override
+        public ExecutorService getExecutorService() {
+            return getScheduledExecutorService();
+        }
+
+        @Override
+        public synchronized ScheduledExecutorService getScheduledExecutorService() {
+            if (scheduledExecutorService == null) {
+                scheduledExecutorService = Executors.newScheduledThreadPool(2);
+            }
+            return scheduledExecutorService;
+        }
+
+        synchronized void shutdown() {
+            if (scheduledExecutorService != null) {
+                scheduledExecutorService.shutdownNow();
+                scheduledExecutorService = null;
+            }
+        }
+    }
+}
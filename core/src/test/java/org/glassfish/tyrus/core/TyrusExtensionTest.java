@@ -41,13 +41,22 @@ package org.glassfish.tyrus.core;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.websocket.Extension;
 
+import org.glassfish.tyrus.core.extension.ExtendedExtension;
+import org.glassfish.tyrus.core.extension.SharedFramingExtension;
+import org.glassfish.tyrus.core.frame.Frame;
+
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -232,4 +241,79 @@ public class TyrusExtensionTest {
             }
         });
     }
+
+    @Test
+    public void testSharedFramingKey() {
+        final ProtocolHandler plain = createServerProtocolHandler(new TyrusExtension("plain"), null);
+        final ProtocolHandler shared1 = createServerProtocolHandler(new TestSharedFramingExtension(), "one");
+        final ProtocolHandler shared2 = createServerProtocolHandler(new TestSharedFramingExtension(), "one");
+        final ProtocolHandler shared3 = createServerProtocolHandler(new TestSharedFramingExtension(), "two");
+        final ProtocolHandler stateful = createServerProtocolHandler(new TestSharedFramingExtension(), null);
+
+        assertEquals(Collections.emptyList(), plain.getSharedFramingKey());
+        assertEquals(Collections.emptyList(), new ProtocolHandler(false, null).getSharedFramingKey());
+        assertNotNull(shared1.getSharedFramingKey());
+        assertEquals(shared1.getSharedFramingKey(), shared2.getSharedFramingKey());
+        assertFalse(shared1.getSharedFramingKey().equals(shared3.getSharedFramingKey()));
+        assertNull(stateful.getSharedFramingKey());
+        assertNull(new ProtocolHandler(true, null).getSharedFramingKey());
+    }
+
+    private static ProtocolHandler createServerProtocolHandler(Extension extension, String key) {
+        final ProtocolHandler protocolHandler = new ProtocolHandler(false, null);
+        final Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put(TestSharedFramingExtension.KEY, key);
+
+        protocolHandler.setExtensions(Collections.singletonList(extension));
+        protocolHandler.setExtensionContext(new ExtendedExtension.ExtensionContext() {
+            @Override
+            public Map<String, Object> getProperties() {
+                return properties;
+            }
+        });
+        return protocolHandler;
+    }
+
+    private static class TestSharedFramingExtension implements SharedFramingExtension {
+
+        private static final String KEY = "key";
+
+        @Override
+        public Object getSharedFramingKey(ExtensionContext context) {
+            return context.getProperties().get(KEY);
+        }
+
+        @Override
+        public Frame processIncoming(ExtensionContext context, Frame frame) {
+            return frame;
+        }
+
+        @Override
+        public Frame processOutgoing(ExtensionContext context, Frame frame) {
+            return frame;
+        }
+
+        @Override
+        public List<Parameter> onExtensionNegotiation(ExtensionContext context, List<Parameter> requestedParameters) {
+            return null;
+        }
+
+        @Override
+        public void onHandshakeResponse(ExtensionContext context, List<Parameter> responseParameters) {
+        }
+
+        @Override
+        public void destroy(ExtensionContext context) {
+        }
+
+        @Override
+        public String getName() {
+            return "shared";
+        }
+
+        @Override
+        public List<Parameter> getParameters() {
+            return null;
+        }
+    }
 }
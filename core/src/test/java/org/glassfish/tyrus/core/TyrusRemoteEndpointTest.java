@@ -42,6 +42,7 @@ package org.glassfish.tyrus.core;
 
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Writer;
 import java.net.URI;
@@ -71,6 +72,7 @@ import javax.websocket.Session;
 import javax.websocket.server.ServerEndpoint;
 
 import org.glassfish.tyrus.core.frame.Frame;
+import org.glassfish.tyrus.spi.CompletionHandler;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -320,12 +322,168 @@ public class TyrusRemoteEndpointTest {
         rew.sendObject(null);
     }
 
+    @Test
+    public void testBatchingFlush() throws IOException, InterruptedException, ExecutionException {
+        RecordingWriter writer = new RecordingWriter();
+        TyrusWebSocket webSocket = createConnectedSocket(writer);
+        TyrusSession testSession = createTestSession(webSocket, endpointWrapper);
+        TyrusRemoteEndpoint.Async rew = new TyrusRemoteEndpoint.Async(testSession, webSocket, endpointWrapper);
+
+        Assert.assertFalse(rew.getBatchingAllowed());
+        rew.setBatchingAllowed(true);
+        Assert.assertTrue(rew.getBatchingAllowed());
+
+        Future<Void> first = rew.sendText("first");
+        Future<Void> second = rew.sendBinary(ByteBuffer.wrap(sentBytes));
+        Assert.assertEquals(0, writer.buffers.size());
+        Assert.assertFalse(first.isDone());
+        Assert.assertFalse(second.isDone());
+
+        rew.flushBatch();
+
+        Assert.assertEquals(1, writer.buffers.size());
+        // text frame: 2 + 5 bytes, binary frame: 2 + 3 bytes.
+        Assert.assertEquals(12, writer.buffers.get(0).remaining());
+        first.get();
+        second.get();
+
+        rew.setBatchingAllowed(false);
+        Assert.assertFalse(rew.getBatchingAllowed());
+        rew.sendText("third");
+        Assert.assertEquals(2, writer.buffers.size());
+    }
+
+    @Test
+    public void testBatchingMaxSize() throws IOException, DeploymentException {
+        TyrusEndpointWrapper wrapper = new TyrusEndpointWrapper(EchoEndpoint.class, null,
+                                                                ComponentProviderService.create(), new TestContainer(),
+                                                                null, null, null, null, null, null);
+        wrapper.getEndpointConfig().getUserProperties().put(TyrusRemoteEndpoint.BATCH_MAX_SIZE, 12);
+
+        RecordingWriter writer = new RecordingWriter();
+        TyrusWebSocket webSocket = createConnectedSocket(writer);
+        TyrusSession testSession = createTestSession(webSocket, wrapper);
+        TyrusRemoteEndpoint.Basic rew = new TyrusRemoteEndpoint.Basic(testSession, webSocket, wrapper);
+
+        rew.setBatchingAllowed(true);
+
+        rew.sendText("abc");
+        rew.sendText("abc");
+        Assert.assertEquals(0, writer.buffers.size());
+
+        // batch would exceed max size, so the previous two frames are written.
+        rew.sendText("abc");
+        Assert.assertEquals(1, writer.buffers.size());
+        Assert.assertEquals(10, writer.buffers.get(0).remaining());
+
+        // frame bigger than the batch is written directly, after the pending batch.
+        rew.sendText("abcdefghijkl");
+        Assert.assertEquals(3, writer.buffers.size());
+        Assert.assertEquals(5, writer.buffers.get(1).remaining());
+        Assert.assertEquals(14, writer.buffers.get(2).remaining());
+    }
+
+    @Test
+    public void testBatchingOversizedFrameFailure() throws IOException, DeploymentException {
+        TyrusEndpointWrapper wrapper = new TyrusEndpointWrapper(EchoEndpoint.class, null,
+                                                                ComponentProviderService.create(), new TestContainer(),
+                                                                null, null, null, null, null, null);
+        wrapper.getEndpointConfig().getUserProperties().put(TyrusRemoteEndpoint.BATCH_MAX_SIZE, 12);
+
+        final List<ByteBuffer> written = new ArrayList<ByteBuffer>();
+        TyrusWebSocket webSocket = createConnectedSocket(new RecordingWriter() {
+            @Override
+            public void write(ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler) {
+                written.add(buffer);
+                completionHandler.failed(new IOException("write failed"));
+            }
+        });
+        TyrusSession testSession = createTestSession(webSocket, wrapper);
+        TyrusRemoteEndpoint.Basic rew = new TyrusRemoteEndpoint.Basic(testSession, webSocket, wrapper);
+
+        rew.setBatchingAllowed(true);
+
+        // batched message is considered to be sent.
+        rew.sendText("abc");
+        Assert.assertEquals(0, written.size());
+
+        // frame bigger than the batch is written directly, so its write failure is reported.
+        try {
+            rew.sendText("abcdefghijkl");
+            Assert.fail("IOException expected.");
+        } catch (IOException e) {
+            Assert.assertEquals("write failed", e.getMessage());
+        }
+        Assert.assertEquals(2, written.size());
+    }
+
+    @Test
+    public void testGatheringWrite() throws IOException {
+        GatheringRecordingWriter writer = new GatheringRecordingWriter();
+        TyrusWebSocket webSocket = createConnectedSocket(writer);
+        TyrusSession testSession = createTestSession(webSocket, endpointWrapper);
+        TyrusRemoteEndpoint.Basic rew = new TyrusRemoteEndpoint.Basic(testSession, webSocket, endpointWrapper);
+
+        rew.sendBinary(ByteBuffer.wrap(sentBytes));
+
+        // frame header and payload are written separately.
+        Assert.assertEquals(1, writer.gatheringWrites.size());
+        ByteBuffer[] buffers = writer.gatheringWrites.get(0);
+        Assert.assertEquals(2, buffers.length);
+        Assert.assertEquals(2, buffers[0].remaining());
+        Assert.assertEquals(ByteBuffer.wrap(sentBytes), buffers[1]);
+
+        rew.setBatchingAllowed(true);
+        rew.sendBinary(ByteBuffer.wrap(sentBytes));
+        rew.sendText("abc");
+        rew.flushBatch();
+
+        // whole batch is written at once, without copying.
+        Assert.assertEquals(2, writer.gatheringWrites.size());
+        Assert.assertEquals(4, writer.gatheringWrites.get(1).length);
+        Assert.assertEquals(0, writer.buffers.size());
+    }
+
+    private TyrusWebSocket createConnectedSocket(org.glassfish.tyrus.spi.Writer writer) {
+        ProtocolHandler protocolHandler = new ProtocolHandler(false, null);
+        protocolHandler.setWriter(writer);
+        TyrusWebSocket webSocket = new TyrusWebSocket(protocolHandler, null);
+        webSocket.onConnect(null, null, null, null, null);
+        return webSocket;
+    }
+
     private TyrusSession createTestSession(TyrusWebSocket webSocket, TyrusEndpointWrapper endpointWrapper) {
         return new TyrusSession(null, webSocket, endpointWrapper, null, null, true, null, null,
                                 Collections.<String, String>emptyMap(), null, new HashMap<String, List<String>>(), null,
                                 null, null, new DebugContext());
     }
 
+    private static class RecordingWriter extends org.glassfish.tyrus.spi.Writer {
+
+        final List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+
+        @Override
+        public void write(ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler) {
+            buffers.add(buffer);
+            completionHandler.completed(buffer);
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private static class GatheringRecordingWriter extends RecordingWriter {
+
+        private final List<ByteBuffer[]> gatheringWrites = new ArrayList<ByteBuffer[]>();
+
+        @Override
+        public void write(ByteBuffer[] buffers, CompletionHandler<ByteBuffer[]> completionHandler) {
+            gatheringWrites.add(buffers);
+            completionHandler.completed(buffers);
+        }
+    }
+
     private class TestRemoteEndpoint extends TyrusWebSocket {
 
         private final ArrayList<Byte> bytesToSend = new ArrayList<Byte>();
@@ -403,6 +561,14 @@ public class TyrusRemoteEndpointTest {
             };
         }
 
+        @Override
+        public void sendBinary(InputStream payload, long payloadLength, boolean isLast) throws IOException {
+            lastSentMessageSize = (int) payloadLength;
+            for (long i = 0; i < payloadLength; i++) {
+                bytesToSend.add((byte) payload.read());
+            }
+        }
+
         public byte[] getBytesAndClearBuffer() {
             byte[] result = new byte[bytesToSend.size()];
 
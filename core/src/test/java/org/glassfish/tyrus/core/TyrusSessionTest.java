@@ -45,6 +45,7 @@ import java.io.Reader;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.websocket.DeploymentException;
 import javax.websocket.Endpoint;
@@ -56,6 +57,7 @@ import javax.websocket.Session;
 import javax.websocket.server.ServerEndpoint;
 
 import org.junit.Test;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -414,6 +416,42 @@ public class TyrusSessionTest {
         assertFalse(session.getMessageHandlers().contains(handler3));
     }
 
+    @Test
+    public void dispatchAfterHandlerChange() throws Exception {
+        TyrusSession session = createSession(endpointWrapper);
+
+        final AtomicReference<Object> received1 = new AtomicReference<Object>();
+        final AtomicReference<Object> received2 = new AtomicReference<Object>();
+
+        final MessageHandler.Whole<String> handler1 = new MessageHandler.Whole<String>() {
+            @Override
+            public void onMessage(String message) {
+                received1.set(message);
+            }
+        };
+        final MessageHandler.Whole<ByteBuffer> handler2 = new MessageHandler.Whole<ByteBuffer>() {
+            @Override
+            public void onMessage(ByteBuffer message) {
+                received2.set(message);
+            }
+        };
+
+        session.addMessageHandler(handler1);
+        session.notifyMessageHandlers("text");
+        assertEquals("text", received1.get());
+
+        // binary table has not been compiled yet, the text one has to be recompiled.
+        session.removeMessageHandler(handler1);
+        session.addMessageHandler(handler2);
+
+        final ByteBuffer binary = ByteBuffer.wrap(new byte[]{1, 2, 3});
+        session.notifyMessageHandlers(binary);
+        session.notifyMessageHandlers("other text");
+
+        assertEquals(binary, received2.get());
+        assertEquals("text", received1.get());
+    }
+
     @Test
     public void idTest() {
         Session session1 = createSession(endpointWrapper);
@@ -0,0 +1,139 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests {@link Utf8Codec}.
+ */
+public class Utf8CodecTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testDecode() {
+        final Utf8Codec codec = new Utf8Codec();
+
+        for (String s : new String[]{"", "ascii only text", "a\u00e9\u20ac\ud83d\ude00b", "\u00e9 and then ascii"}) {
+            assertEquals(s, codec.decode(ByteBuffer.wrap(s.getBytes(UTF_8)), null, true));
+            assertNull(codec.getRemainder());
+        }
+    }
+
+    @Test
+    public void testDecodeAsciiSlice() {
+        final byte[] bytes = "\u20acascii\u20ac".getBytes(UTF_8);
+        final ByteBuffer data = ByteBuffer.wrap(bytes, 3, 5).slice();
+
+        final Utf8Codec codec = new Utf8Codec();
+        assertEquals("ascii", codec.decode(data, null, false));
+        assertNull(codec.getRemainder());
+        assertEquals(0, data.remaining());
+    }
+
+    @Test
+    public void testDecodeLarge() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            sb.append(i % 10 == 0 ? '\u20ac' : (char) ('a' + i % 26));
+        }
+        final String s = sb.toString();
+
+        final Utf8Codec codec = new Utf8Codec();
+        assertEquals(s, codec.decode(ByteBuffer.wrap(s.getBytes(UTF_8)), null, true));
+        // the codec stays usable for small messages.
+        assertEquals("x", codec.decode(ByteBuffer.wrap(new byte[]{'x'}), null, true));
+    }
+
+    @Test
+    public void testDecodeInvalid() {
+        final byte[][] invalid = {
+                {(byte) 0xc0, (byte) 0x80},                           // overlong
+                {'a', (byte) 0xed, (byte) 0xa0, (byte) 0x80},         // surrogate
+                {(byte) 0xf4, (byte) 0x90, (byte) 0x80, (byte) 0x80}, // above U+10FFFF
+                {'a', 'b', (byte) 0xe2, (byte) 0x82}                  // truncated
+        };
+
+        final Utf8Codec codec = new Utf8Codec();
+        for (byte[] bytes : invalid) {
+            try {
+                codec.decode(ByteBuffer.wrap(bytes), null, true);
+                fail(Arrays.toString(bytes));
+            } catch (Utf8DecodingException e) {
+                // expected
+            }
+        }
+
+        // previous errors do not affect next messages.
+        assertEquals("ok", codec.decode(ByteBuffer.wrap(new byte[]{'o', 'k'}), null, true));
+    }
+
+    @Test
+    public void testDecodeRemainder() {
+        final byte[] bytes = "ab\u20ac".getBytes(UTF_8);
+        final Utf8Codec codec = new Utf8Codec();
+
+        assertEquals("ab", codec.decode(ByteBuffer.wrap(bytes, 0, 3), null, false));
+        final ByteBuffer remainder = codec.getRemainder();
+        assertEquals(1, remainder.remaining());
+
+        assertEquals("\u20ac", codec.decode(ByteBuffer.wrap(bytes, 3, 2).slice(), remainder, true));
+    }
+
+    @Test
+    public void testEncode() {
+        for (String s : new String[]{"", "ascii", "a\u00e9\u20ac\ud83d\ude00b", "\u07ff\u0800\uffff"}) {
+            assertTrue(s, Arrays.equals(s.getBytes(UTF_8), Utf8Codec.encode(s)));
+        }
+
+        assertNull(Utf8Codec.encode(new String(new char[]{'a', (char) 0xd83d})));
+        assertNull(Utf8Codec.encode(new String(new char[]{(char) 0xde00, 'a'})));
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core.uri;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.websocket.DeploymentException;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.Session;
+
+import org.glassfish.tyrus.core.ComponentProviderService;
+import org.glassfish.tyrus.core.DebugContext;
+import org.glassfish.tyrus.core.TyrusEndpointWrapper;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link PathTrie}.
+ */
+public class PathTrieTest {
+
+    @Test
+    public void testSameOrderAsMatch() throws DeploymentException {
+        final List<TyrusEndpointWrapper> endpoints = Arrays.<TyrusEndpointWrapper>asList(
+                new PathEndpointWrapper("/a"), new PathEndpointWrapper("/{var1}"),
+                new PathEndpointWrapper("/a/b"), new PathEndpointWrapper("/{var1}/b"),
+                new PathEndpointWrapper("/a/{var2}"), new PathEndpointWrapper("/{var1}/{var2}"),
+                new PathEndpointWrapper("/a/b/c"), new PathEndpointWrapper("/a/{var2}/{var3}"),
+                new PathEndpointWrapper("/a/{var2}/c"), new PathEndpointWrapper("/{var1}/b/{var3}"),
+                new PathEndpointWrapper("/{var1}/{var2}/c"), new PathEndpointWrapper("/a%20b/{var2}"));
+
+        final PathTrie trie = new PathTrie();
+        for (TyrusEndpointWrapper endpoint : endpoints) {
+            trie.add(endpoint);
+        }
+
+        final String[] requestPaths = {"/", "", "/a", "/x", "/a/b", "/x/b", "/a/y", "/x/y", "/a/b/c", "/a/y/c",
+                "/x/b/c", "/x/y/c", "/a/b/z", "/x/y/z", "/a/b/c/d", "/a%20b/c", "/a b/c"};
+
+        for (String requestPath : requestPaths) {
+            final List<Match> expected =
+                    Match.getAllMatches(requestPath, new HashSet<TyrusEndpointWrapper>(endpoints), new DebugContext());
+            final List<Match> actual = trie.getAllMatches(requestPath, new DebugContext());
+
+            assertEquals(requestPath, toPaths(expected), toPaths(actual));
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(requestPath, expected.get(i).getParameters(), actual.get(i).getParameters());
+                assertEquals(requestPath, expected.get(i).getVariableSegmentIndices(),
+                             actual.get(i).getVariableSegmentIndices());
+            }
+        }
+    }
+
+    @Test
+    public void testParameters() throws DeploymentException {
+        final PathTrie trie = new PathTrie();
+        trie.add(new PathEndpointWrapper("/chat/{room}/{user}"));
+
+        final List<Match> matches = trie.getAllMatches("/chat/lobby/joe", new DebugContext());
+        assertEquals(1, matches.size());
+        assertEquals("lobby", matches.get(0).getParameters().get("room"));
+        assertEquals("joe", matches.get(0).getParameters().get("user"));
+        assertEquals(Arrays.asList(2, 3), matches.get(0).getVariableSegmentIndices());
+    }
+
+    @Test
+    public void testRemove() throws DeploymentException {
+        final PathTrie trie = new PathTrie();
+        final TyrusEndpointWrapper exact = new PathEndpointWrapper("/a/b");
+        final TyrusEndpointWrapper template = new PathEndpointWrapper("/a/{var}");
+        trie.add(exact);
+        trie.add(template);
+
+        assertEquals(Arrays.asList("/a/b", "/a/{var}"), toPaths(trie.getAllMatches("/a/b", new DebugContext())));
+
+        trie.remove(exact);
+        assertEquals(Arrays.asList("/a/{var}"), toPaths(trie.getAllMatches("/a/b", new DebugContext())));
+
+        trie.remove(template);
+        assertTrue(trie.getAllMatches("/a/b", new DebugContext()).isEmpty());
+    }
+
+    @Test
+    public void testEquivalent() throws DeploymentException {
+        final PathTrie trie = new PathTrie();
+        final TyrusEndpointWrapper endpoint = new PathEndpointWrapper("/a/{var1}/c");
+        trie.add(endpoint);
+
+        assertSame(endpoint, trie.getEquivalent("/a/{var2}/c"));
+        assertSame(endpoint, trie.getEquivalent("/a/{x}/c"));
+        assertNull(trie.getEquivalent("/a/b/c"));
+        assertNull(trie.getEquivalent("/a/{var1}"));
+        assertNull(trie.getEquivalent("/a/{var1}/c/d"));
+    }
+
+    private static List<String> toPaths(List<Match> matches) {
+        final List<String> paths = new ArrayList<String>();
+        for (Match match : matches) {
+            paths.add(match.getEndpointWrapper().getEndpointPath());
+        }
+        return paths;
+    }
+
+    private static class PathEndpointWrapper extends TyrusEndpointWrapper {
+
+        private final String path;
+
+        private PathEndpointWrapper(String path) throws DeploymentException {
+            super(NoOpEndpoint.class, null, ComponentProviderService.createClient(), null, null, null, null, null,
+                  null, null);
+            this.path = path;
+        }
+
+        @Override
+        public String getEndpointPath() {
+            return path;
+        }
+    }
+
+    public static class NoOpEndpoint extends Endpoint {
+
+        @Override
+        public void onOpen(Session session, EndpointConfig config) {
+        }
+    }
+}
@@ -0,0 +1,453 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.ext.client.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.OnMessage;
+import javax.websocket.Session;
+import javax.websocket.server.ServerEndpoint;
+import javax.websocket.server.ServerEndpointConfig;
+
+import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.client.ClientProperties;
+import org.glassfish.tyrus.container.inmemory.InMemoryClientContainer;
+import org.glassfish.tyrus.container.jdk.client.JdkClientContainer;
+import org.glassfish.tyrus.core.TyrusSession;
+import org.glassfish.tyrus.server.Server;
+import org.glassfish.tyrus.server.TyrusServerConfiguration;
+
+/**
+ * Throughput and latency harness.
+ * <p/>
+ * Opens the requested number of client sessions to an echo or broadcast endpoint, sends text messages of the given size
+ * either in a closed loop (every session sends its next message as soon as its previous one came back) or at a fixed
+ * aggregate rate and reports received messages per second together with p50/p99/p999 round-trip latency. Every
+ * message carries its send timestamp, so the latency is measured on the receiving client.
+ * <p/>
+ * Unless {@code --uri} is given, the endpoints are deployed to an embedded Grizzly server on loopback ({@code jdk}
+ * transport) or each client session is connected to its own in-memory server ({@code inmemory} transport), so the
+ * whole run happens in one JVM. Run {@code java -cp tyrus-client-cli.jar
+ * org.glassfish.tyrus.ext.client.cli.LoadGenerator --help} to list the options.
+ */
+public class LoadGenerator {
+
+    private static final String NAME = "tyrus-load-generator";
+    private static final String TRANSPORT_JDK = "jdk";
+    private static final String TRANSPORT_INMEMORY = "inmemory";
+    private static final String ENDPOINT_ECHO = "echo";
+    private static final String ENDPOINT_BROADCAST = "broadcast";
+
+    /**
+     * Length of the header of every message: 16 hex digits of the send timestamp (nanoseconds since the generator was
+     * created, so it is never negative) followed by 8 hex digits of the sending session index.
+     */
+    private static final int HEADER_LENGTH = 24;
+    private static final long RATE_TICK_MILLIS = 1;
+
+    private final String transport;
+    private final String endpoint;
+    private final URI uri;
+    private final int port;
+    private final int sessions;
+    private final int size;
+    private final int rate;
+    private final int duration;
+    private final int warmup;
+
+    private final long startTime = System.nanoTime();
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    private final List<Session> clientSessions = new ArrayList<Session>();
+    private volatile String padding;
+    private volatile boolean running;
+    private volatile boolean measuring;
+
+    private ExecutorService sendExecutor;
+
+    /**
+     * Echo endpoint, replies with every received message.
+     */
+    @ServerEndpoint("/" + ENDPOINT_ECHO)
+    public static class EchoEndpoint {
+
+        @OnMessage
+        public String onMessage(String message) {
+            return message;
+        }
+    }
+
+    /**
+     * Broadcast endpoint, sends every received message to all sessions connected to this endpoint.
+     */
+    @ServerEndpoint("/" + ENDPOINT_BROADCAST)
+    public static class BroadcastEndpoint {
+
+        @OnMessage
+        public void onMessage(Session session, String message) {
+            ((TyrusSession) session).broadcast(message);
+        }
+    }
+
+    /* package */ LoadGenerator(String transport, String endpoint, URI uri, int port, int sessions, int size, int rate,
+                                int duration, int warmup) {
+        this.transport = transport;
+        this.endpoint = endpoint;
+        this.uri = uri;
+        this.port = port;
+        this.sessions = sessions;
+        this.size = Math.max(HEADER_LENGTH, size);
+        this.rate = rate;
+        this.duration = duration;
+        this.warmup = warmup;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String transport = TRANSPORT_JDK;
+        String endpoint = ENDPOINT_ECHO;
+        URI uri = null;
+        int port = 8025;
+        int sessions = 1000;
+        int size = 128;
+        int rate = 0;
+        int duration = 30;
+        int warmup = 10;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                final String option = args[i];
+                if ("--help".equals(option) || "-h".equals(option)) {
+                    printUsage(System.out);
+                    return;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value of option " + option);
+                }
+
+                final String value = args[++i];
+                if ("--transport".equals(option)) {
+                    transport = value;
+                } else if ("--endpoint".equals(option)) {
+                    endpoint = value;
+                } else if ("--uri".equals(option)) {
+                    uri = URI.create(value);
+                } else if ("--port".equals(option)) {
+                    port = Integer.parseInt(value);
+                } else if ("--sessions".equals(option)) {
+                    sessions = Integer.parseInt(value);
+                } else if ("--size".equals(option)) {
+                    size = Integer.parseInt(value);
+                } else if ("--rate".equals(option)) {
+                    rate = Integer.parseInt(value);
+                } else if ("--duration".equals(option)) {
+                    duration = Integer.parseInt(value);
+                } else if ("--warmup".equals(option)) {
+                    warmup = Integer.parseInt(value);
+                } else {
+                    throw new IllegalArgumentException("Unknown option " + option);
+                }
+            }
+
+            if (!TRANSPORT_JDK.equals(transport) && !TRANSPORT_INMEMORY.equals(transport)) {
+                throw new IllegalArgumentException("Unknown transport " + transport);
+            }
+            if (!ENDPOINT_ECHO.equals(endpoint) && !ENDPOINT_BROADCAST.equals(endpoint)) {
+                throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+            }
+            if (TRANSPORT_INMEMORY.equals(transport) && ENDPOINT_BROADCAST.equals(endpoint)) {
+                // every in-memory connection gets its own server container, a broadcast would reach only its sender.
+                throw new IllegalArgumentException("Broadcast endpoint is not supported with the in-memory transport");
+            }
+            if (TRANSPORT_INMEMORY.equals(transport) && uri != null) {
+                throw new IllegalArgumentException("Option --uri cannot be used with the in-memory transport");
+            }
+            if (sessions < 1 || size < 0 || rate < 0 || duration < 1 || warmup < 0) {
+                throw new IllegalArgumentException("Option values must not be negative, sessions and duration positive");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            printUsage(System.err);
+            System.exit(1);
+            return;
+        }
+
+        new LoadGenerator(transport, endpoint, uri, port, sessions, size, rate, duration, warmup).run(System.out);
+    }
+
+    /**
+     * Connect the sessions, generate the load and print the report.
+     *
+     * @param out stream the progress and the report will be printed to.
+     * @throws Exception when the server cannot be started or the sessions cannot be connected.
+     */
+    /* package */ void run(PrintStream out) throws Exception {
+        Server server = null;
+        ScheduledExecutorService scheduler = null;
+        final ClientManager client;
+        final ClientEndpointConfig config = ClientEndpointConfig.Builder.create().build();
+        URI target = uri;
+
+        if (TRANSPORT_INMEMORY.equals(transport)) {
+            client = ClientManager.createClient(InMemoryClientContainer.class.getName());
+            config.getUserProperties().put(InMemoryClientContainer.SERVER_CONFIG, new TyrusServerConfiguration(
+                    new HashSet<Class<?>>(Arrays.<Class<?>>asList(EchoEndpoint.class)),
+                    Collections.<ServerEndpointConfig>emptySet()));
+            target = URI.create("ws://localhost/" + endpoint);
+        } else {
+            client = ClientManager.createClient(JdkClientContainer.class.getName());
+            client.getProperties().put(ClientProperties.SHARED_CONTAINER, true);
+            if (target == null) {
+                server = new Server("localhost", port, "/", null, EchoEndpoint.class, BroadcastEndpoint.class);
+                server.start();
+                target = URI.create("ws://localhost:" + port + "/" + endpoint);
+            }
+        }
+
+        final StringBuilder sb = new StringBuilder(size - HEADER_LENGTH);
+        for (int i = HEADER_LENGTH; i < size; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        padding = sb.toString();
+
+        sendExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        running = true;
+
+        try {
+            out.printf("Connecting %d sessions to %s (%s transport)%n", sessions, target, transport);
+            final long connectStart = System.nanoTime();
+            for (int i = 0; i < sessions; i++) {
+                clientSessions.add(client.connectToServer(new LoadEndpoint(i), config, target));
+            }
+            out.printf(Locale.US, "Connected in %.2f s%n", (System.nanoTime() - connectStart) / 1e9);
+
+            if (rate == 0) {
+                for (int i = 0; i < sessions; i++) {
+                    sendAsync(i);
+                }
+            } else {
+                scheduler = Executors.newSingleThreadScheduledExecutor();
+                scheduler.scheduleAtFixedRate(new RateTicker(), 0, RATE_TICK_MILLIS, TimeUnit.MILLISECONDS);
+            }
+
+            if (warmup > 0) {
+                out.printf("Warming up for %d s%n", warmup);
+                Thread.sleep(TimeUnit.SECONDS.toMillis(warmup));
+            }
+
+            histogram.reset();
+            sent.set(0);
+            received.set(0);
+            measuring = true;
+
+            out.printf("Measuring for %d s%n", duration);
+            final long measureStart = System.nanoTime();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(duration));
+            measuring = false;
+            final double elapsed = (System.nanoTime() - measureStart) / 1e9;
+
+            printReport(out, elapsed);
+        } finally {
+            running = false;
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+            }
+            sendExecutor.shutdownNow();
+            for (Session session : clientSessions) {
+                try {
+                    session.close();
+                } catch (IOException e) {
+                    // ignore - the run is over.
+                }
+            }
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+
+    private void printReport(PrintStream out, double elapsed) {
+        out.println();
+        out.printf("%s: %s endpoint, %s transport, %d sessions, %d B messages, %s%n", NAME, endpoint, transport,
+                   sessions, size, rate == 0 ? "closed loop" : rate + " msgs/s offered");
+        out.printf(Locale.US, "sent:       %d (%.1f msgs/s)%n", sent.get(), sent.get() / elapsed);
+        out.printf(Locale.US, "received:   %d (%.1f msgs/s)%n", received.get(), received.get() / elapsed);
+        out.printf("errors:     %d%n", errors.get());
+        out.printf("latency us: p50=%d p99=%d p999=%d max=%d%n", histogram.getPercentile(0.5),
+                   histogram.getPercentile(0.99), histogram.getPercentile(0.999), histogram.getMax());
+    }
+
+    private static void printUsage(PrintStream out) {
+        out.println("Usage: " + NAME + " [options]");
+        out.println("  --transport jdk|inmemory  client container to use (default jdk)");
+        out.println("  --endpoint echo|broadcast server endpoint (default echo, broadcast requires jdk transport)");
+        out.println("  --uri <uri>               connect to a running server instead of the embedded one");
+        out.println("  --port <port>             port of the embedded server (default 8025)");
+        out.println("  --sessions <n>            number of client sessions (default 1000)");
+        out.println("  --size <bytes>            message size, at least " + HEADER_LENGTH + " (default 128)");
+        out.println("  --rate <msgs/s>           aggregate send rate, 0 for closed loop (default 0)");
+        out.println("  --duration <s>            length of the measurement (default 30)");
+        out.println("  --warmup <s>              length of the warmup (default 10)");
+    }
+
+    private String createMessage(int sessionIndex) {
+        final String timestamp = Long.toHexString(System.nanoTime() - startTime);
+        final String index = Integer.toHexString(sessionIndex);
+
+        final StringBuilder sb = new StringBuilder(size);
+        for (int i = timestamp.length(); i < 16; i++) {
+            sb.append('0');
+        }
+        sb.append(timestamp);
+        for (int i = index.length(); i < 8; i++) {
+            sb.append('0');
+        }
+        sb.append(index);
+        sb.append(padding);
+        return sb.toString();
+    }
+
+    private void send(int sessionIndex) {
+        if (!running) {
+            return;
+        }
+
+        try {
+            clientSessions.get(sessionIndex).getAsyncRemote().sendText(createMessage(sessionIndex));
+            sent.incrementAndGet();
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+        }
+    }
+
+    private void sendAsync(final int sessionIndex) {
+        // never send from the thread delivering the previous message - the in-memory transport delivers synchronously.
+        if (running) {
+            sendExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    send(sessionIndex);
+                }
+            });
+        }
+    }
+
+    private void onMessage(int sessionIndex, String message) {
+        final long now = System.nanoTime() - startTime;
+        if (message.length() < HEADER_LENGTH) {
+            errors.incrementAndGet();
+            return;
+        }
+
+        if (measuring) {
+            histogram.record(now - Long.parseLong(message.substring(0, 16), 16));
+            received.incrementAndGet();
+        }
+
+        // closed loop - the sender continues when its own message returns.
+        if (rate == 0 && Integer.parseInt(message.substring(16, HEADER_LENGTH), 16) == sessionIndex) {
+            sendAsync(sessionIndex);
+        }
+    }
+
+    private class LoadEndpoint extends Endpoint {
+
+        private final int sessionIndex;
+
+        LoadEndpoint(int sessionIndex) {
+            this.sessionIndex = sessionIndex;
+        }
+
+        @Override
+        public void onOpen(Session session, EndpointConfig config) {
+            session.setMaxIdleTimeout(0);
+            session.addMessageHandler(new MessageHandler.Whole<String>() {
+                @Override
+                public void onMessage(String message) {
+                    LoadGenerator.this.onMessage(sessionIndex, message);
+                }
+            });
+        }
+
+        @Override
+        public void onError(Session session, Throwable thr) {
+            errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Spreads the offered rate over the sessions in round robin, sending whatever is due since the start.
+     */
+    private class RateTicker implements Runnable {
+
+        private final long start = System.nanoTime();
+        private long scheduled = 0;
+        private int next = 0;
+
+        @Override
+        public void run() {
+            final long due = (long) ((System.nanoTime() - start) / 1e9 * rate);
+            while (scheduled < due && running) {
+                send(next);
+                next = (next + 1) % sessions;
+                scheduled++;
+            }
+        }
+    }
+}
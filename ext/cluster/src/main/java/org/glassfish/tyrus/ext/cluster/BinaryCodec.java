@@ -0,0 +1,320 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.ext.cluster;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.websocket.Extension;
+
+import org.glassfish.tyrus.core.TyrusExtension;
+
+/**
+ * Binary encoding of values exchanged among cluster nodes.
+ * <p/>
+ * Strings, byte arrays and all the types used in distributed session properties (primitive wrappers, {@link URI},
+ * lists, maps, {@link Extension} and {@link Principal}) are written in a compact binary form. Other values are not
+ * supported; Java serialization is intentionally not used, so that data received from other nodes cannot instantiate
+ * arbitrary classes.
+ * <p/>
+ * Values are always read from a whole message held in memory; lengths and sizes are checked against the number of
+ * remaining bytes, so a malformed message cannot cause a large allocation.
+ */
+final class BinaryCodec {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte BYTES = 6;
+    private static final byte URI_VALUE = 7;
+    private static final byte LIST = 8;
+    private static final byte MAP = 9;
+    private static final byte EXTENSION = 10;
+    private static final byte PRINCIPAL = 11;
+
+    /**
+     * Prevents instantiation.
+     */
+    private BinaryCodec() {
+    }
+
+    /**
+     * Write a string, unlike {@link DataOutputStream#writeUTF(String)} not limited in length.
+     *
+     * @param out    stream to be written to.
+     * @param string string to be written, can be {@code null}.
+     * @throws IOException when the stream cannot be written.
+     */
+    static void writeString(DataOutputStream out, String string) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+        } else {
+            writeBytes(out, string.getBytes(UTF_8));
+        }
+    }
+
+    /**
+     * Read a string written by {@link #writeString(DataOutputStream, String)}.
+     *
+     * @param in stream to be read from.
+     * @return read string, can be {@code null}.
+     * @throws IOException when the stream cannot be read.
+     */
+    static String readString(DataInputStream in) throws IOException {
+        final byte[] bytes = readBytes(in);
+        return bytes == null ? null : new String(bytes, UTF_8);
+    }
+
+    /**
+     * Write a byte array.
+     *
+     * @param out   stream to be written to.
+     * @param bytes bytes to be written, can be {@code null}.
+     * @throws IOException when the stream cannot be written.
+     */
+    static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Read a byte array written by {@link #writeBytes(DataOutputStream, byte[])}.
+     *
+     * @param in stream to be read from.
+     * @return read bytes, can be {@code null}.
+     * @throws IOException when the stream cannot be read or the length exceeds the remaining data.
+     */
+    static byte[] readBytes(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        checkRemaining(in, length);
+
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Write a value of one of the supported types.
+     *
+     * @param out   stream to be written to.
+     * @param value value to be written, can be {@code null}.
+     * @throws IOException when the stream cannot be written or the value is not supported.
+     */
+    static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof byte[]) {
+            out.writeByte(BYTES);
+            writeBytes(out, (byte[]) value);
+        } else if (value instanceof URI) {
+            out.writeByte(URI_VALUE);
+            writeString(out, value.toString());
+        } else if (value instanceof List) {
+            out.writeByte(LIST);
+            final List<?> list = (List<?>) value;
+            out.writeInt(list.size());
+            for (Object item : list) {
+                writeValue(out, item);
+            }
+        } else if (value instanceof Map) {
+            out.writeByte(MAP);
+            final Map<?, ?> map = (Map<?, ?>) value;
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof Extension) {
+            out.writeByte(EXTENSION);
+            final Extension extension = (Extension) value;
+            writeString(out, extension.getName());
+            final List<Extension.Parameter> parameters = extension.getParameters();
+            out.writeInt(parameters == null ? 0 : parameters.size());
+            if (parameters != null) {
+                for (Extension.Parameter parameter : parameters) {
+                    writeString(out, parameter.getName());
+                    writeString(out, parameter.getValue());
+                }
+            }
+        } else if (value instanceof Principal) {
+            out.writeByte(PRINCIPAL);
+            writeString(out, ((Principal) value).getName());
+        } else {
+            throw new NotSerializableException(value.getClass().getName());
+        }
+    }
+
+    /**
+     * Read a value written by {@link #writeValue(DataOutputStream, Object)}.
+     *
+     * @param in stream to be read from.
+     * @return read value, can be {@code null}.
+     * @throws IOException when the stream cannot be read.
+     */
+    static Object readValue(DataInputStream in) throws IOException {
+        final byte type = in.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case BOOLEAN:
+                return in.readBoolean();
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case BYTES:
+                return readBytes(in);
+            case URI_VALUE:
+                return URI.create(readString(in));
+            case LIST: {
+                final int size = readSize(in);
+                final List<Object> list = new ArrayList<Object>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case MAP: {
+                final int size = readSize(in);
+                final Map<Object, Object> map = new HashMap<Object, Object>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(in), readValue(in));
+                }
+                return map;
+            }
+            case EXTENSION: {
+                final String name = readString(in);
+                final int size = readSize(in);
+                final List<Extension.Parameter> parameters = new ArrayList<Extension.Parameter>(size);
+                for (int i = 0; i < size; i++) {
+                    parameters.add(new TyrusExtension.TyrusParameter(readString(in), readString(in)));
+                }
+                return new TyrusExtension(name, parameters);
+            }
+            case PRINCIPAL:
+                return new RemotePrincipal(readString(in));
+            default:
+                throw new IOException("Unknown value type: " + type);
+        }
+    }
+
+    // every item takes at least one byte.
+    private static int readSize(DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Invalid size: " + size);
+        }
+        checkRemaining(in, size);
+        return size;
+    }
+
+    // messages are read from a byte array, so the number of available bytes is exact.
+    private static void checkRemaining(DataInputStream in, int length) throws IOException {
+        if (length > in.available()) {
+            throw new IOException("Length " + length + " exceeds remaining " + in.available() + " bytes.");
+        }
+    }
+
+    /**
+     * Principal of a session connected to another node; only its name is distributed.
+     */
+    private static class RemotePrincipal implements Principal, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+
+        private RemotePrincipal(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,1006 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.ext.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.websocket.CloseReason;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+
+import org.glassfish.tyrus.core.TyrusFuture;
+import org.glassfish.tyrus.core.cluster.BroadcastListener;
+import org.glassfish.tyrus.core.cluster.ClusterContext;
+import org.glassfish.tyrus.core.cluster.RemoteSession;
+import org.glassfish.tyrus.core.cluster.SessionEventListener;
+import org.glassfish.tyrus.core.cluster.SessionListener;
+
+/**
+ * {@link ClusterContext} exchanging messages among nodes over a {@link ClusterTransport}.
+ * <p/>
+ * Every node keeps a registry of sessions connected to the other nodes together with their distributed properties.
+ * Session events, property changes, broadcasts and commands for remote sessions are encoded in a compact binary form
+ * (see {@link BinaryCodec}) and queued; a single sender thread drains the queue and passes all queued messages to the
+ * transport as one packet, so a burst of broadcasts is sent to other nodes in a few packets.
+ * <p/>
+ * Distributed maps returned by this context do not support {@code null} values; putting {@code null} removes the key.
+ * Commands for sessions connected to other nodes which are not acknowledged within the request timeout fail.
+ * <p/>
+ * Usage:
+ * <pre>
+ * final BusClusterContext clusterContext =
+ *         new BusClusterContext(new LocalSocketTransport(9001, 9002, 9003));
+ * clusterContext.start();
+ * serverProperties.put(ClusterContext.CLUSTER_CONTEXT, clusterContext);
+ * </pre>
+ * Nodes which do not leave the cluster properly (by {@link #shutdown()}) are not detected; their sessions remain
+ * registered on the other nodes.
+ */
+public class BusClusterContext extends ClusterContext {
+
+    private static final Logger LOGGER = Logger.getLogger(BusClusterContext.class.getName());
+
+    /**
+     * Packet size limit; the sender stops adding queued messages to a packet when it is exceeded.
+     */
+    private static final int MAX_BATCH_SIZE = 64 * 1024;
+
+    /**
+     * Default time in milliseconds to wait for acknowledgement of a command for a session connected to another node.
+     */
+    public static final long DEFAULT_REQUEST_TIMEOUT = 30000;
+
+    /**
+     * Period in milliseconds of checking for unacknowledged requests.
+     */
+    private static final long EXPIRATION_PERIOD = 100;
+
+    // message types
+    private static final byte HELLO = 0;
+    private static final byte SESSION_OPENED = 1;
+    private static final byte SESSION_CLOSED = 2;
+    private static final byte SESSION_PROPERTY = 3;
+    private static final byte USER_PROPERTY = 4;
+    private static final byte USER_PROPERTIES_DESTROYED = 5;
+    private static final byte BROADCAST_TEXT = 6;
+    private static final byte BROADCAST_BINARY = 7;
+    private static final byte COMMAND = 8;
+    private static final byte ACK = 9;
+
+    // commands for sessions connected to other nodes
+    private static final byte SEND_TEXT = 0;
+    private static final byte SEND_PARTIAL_TEXT = 1;
+    private static final byte SEND_BINARY = 2;
+    private static final byte SEND_PARTIAL_BINARY = 3;
+    private static final byte SEND_PING = 4;
+    private static final byte SEND_PONG = 5;
+    private static final byte CLOSE = 6;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ClusterTransport transport;
+    private final ExecutorService executorService;
+    private final BlockingQueue<byte[]> outgoing = new LinkedBlockingQueue<byte[]>();
+    private final long requestTimeout;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final AtomicLong requestIds = new AtomicLong(0);
+    private final Map<Long, PendingRequest> pendingRequests = new ConcurrentHashMap<Long, PendingRequest>();
+
+    private final Map<String, LocalSession> localSessions = new ConcurrentHashMap<String, LocalSession>();
+    private final Map<String, RemoteSessionInfo> remoteSessions = new ConcurrentHashMap<String, RemoteSessionInfo>();
+    private final ConcurrentMap<String, DistributedMap<RemoteSession.DistributedMapKey>> sessionProperties =
+            new ConcurrentHashMap<String, DistributedMap<RemoteSession.DistributedMapKey>>();
+    private final ConcurrentMap<String, DistributedMap<String>> userProperties =
+            new ConcurrentHashMap<String, DistributedMap<String>>();
+    private final ConcurrentMap<String, List<SessionListener>> sessionListeners =
+            new ConcurrentHashMap<String, List<SessionListener>>();
+    private final ConcurrentMap<String, List<BroadcastListener>> broadcastListeners =
+            new ConcurrentHashMap<String, List<BroadcastListener>>();
+
+    private volatile boolean running = true;
+    private volatile Thread sender;
+
+    /**
+     * Create a cluster node with {@link #DEFAULT_REQUEST_TIMEOUT default request timeout}. The node has to be started
+     * by {@link #start()} before it is used.
+     *
+     * @param transport transport connecting this node to the other nodes.
+     */
+    public BusClusterContext(ClusterTransport transport) {
+        this(transport, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Create a cluster node. The node has to be started by {@link #start()} before it is used.
+     *
+     * @param transport      transport connecting this node to the other nodes.
+     * @param requestTimeout time in milliseconds to wait for acknowledgement of a command for a session connected to
+     *                       another node; futures and send handlers of commands which are not acknowledged in time
+     *                       are completed with an {@link IOException}.
+     */
+    public BusClusterContext(ClusterTransport transport, long requestTimeout) {
+        this.transport = transport;
+        this.requestTimeout = requestTimeout;
+        this.executorService = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, "tyrus-cluster-worker-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Start the node: start the transport and announce this node to the other nodes. Subsequent invocations have no
+     * effect.
+     *
+     * @throws IOException when the transport cannot be started.
+     */
+    public void start() throws IOException {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+
+        transport.start(new ClusterTransport.Receiver() {
+            @Override
+            public void onPacket(byte[] packet) {
+                receive(packet);
+            }
+        });
+
+        final Thread sender = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                sendQueued();
+            }
+        }, "tyrus-cluster-sender");
+        sender.setDaemon(true);
+        sender.start();
+        this.sender = sender;
+
+        publish(new MessageWriter(HELLO));
+    }
+
+    @Override
+    public Future<Void> sendText(String sessionId, String text) {
+        return command(sessionId, SEND_TEXT, text, true, null);
+    }
+
+    @Override
+    public Future<Void> sendText(String sessionId, String text, boolean isLast) {
+        return command(sessionId, SEND_PARTIAL_TEXT, text, isLast, null);
+    }
+
+    @Override
+    public Future<Void> sendBinary(String sessionId, byte[] data) {
+        return command(sessionId, SEND_BINARY, data, true, null);
+    }
+
+    @Override
+    public Future<Void> sendBinary(String sessionId, byte[] data, boolean isLast) {
+        return command(sessionId, SEND_PARTIAL_BINARY, data, isLast, null);
+    }
+
+    @Override
+    public Future<Void> sendPing(String sessionId, byte[] data) {
+        return command(sessionId, SEND_PING, data, true, null);
+    }
+
+    @Override
+    public Future<Void> sendPong(String sessionId, byte[] data) {
+        return command(sessionId, SEND_PONG, data, true, null);
+    }
+
+    @Override
+    public void sendText(String sessionId, String text, SendHandler sendHandler) {
+        command(sessionId, SEND_TEXT, text, true, sendHandler);
+    }
+
+    @Override
+    public void sendBinary(String sessionId, byte[] data, SendHandler sendHandler) {
+        command(sessionId, SEND_BINARY, data, true, sendHandler);
+    }
+
+    @Override
+    public void broadcastText(String endpointPath, String text) {
+        // local sessions get the message through the broadcast listener, as if it came from another node.
+        onBroadcast(endpointPath, text);
+
+        final MessageWriter message = new MessageWriter(BROADCAST_TEXT);
+        message.writeString(endpointPath);
+        message.writeString(text);
+        publish(message);
+    }
+
+    @Override
+    public void broadcastBinary(String endpointPath, byte[] data) {
+        onBroadcast(endpointPath, data);
+
+        final MessageWriter message = new MessageWriter(BROADCAST_BINARY);
+        message.writeString(endpointPath);
+        message.writeBytes(data);
+        publish(message);
+    }
+
+    @Override
+    public boolean isSessionOpen(String sessionId, String endpointPath) {
+        final LocalSession localSession = localSessions.get(sessionId);
+        if (localSession != null) {
+            return localSession.endpointPath.equals(endpointPath);
+        }
+
+        final RemoteSessionInfo remoteSession = remoteSessions.get(sessionId);
+        return remoteSession != null && remoteSession.endpointPath.equals(endpointPath);
+    }
+
+    @Override
+    public Future<Void> close(String sessionId) {
+        return command(sessionId, CLOSE, null, true, null);
+    }
+
+    @Override
+    public Future<Void> close(String sessionId, CloseReason closeReason) {
+        return command(sessionId, CLOSE, closeReason, true, null);
+    }
+
+    @Override
+    public Set<String> getRemoteSessionIds(String endpointPath) {
+        final Set<String> result = new HashSet<String>();
+        for (Map.Entry<String, RemoteSessionInfo> entry : remoteSessions.entrySet()) {
+            if (entry.getValue().endpointPath.equals(endpointPath)) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String createSessionId() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Override
+    public String createConnectionId() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Override
+    public void registerSession(String sessionId, String endpointPath, SessionEventListener listener) {
+        localSessions.put(sessionId, new LocalSession(endpointPath, listener));
+
+        final DistributedMap<RemoteSession.DistributedMapKey> properties = getSessionProperties(sessionId);
+        publish(sessionOpened(sessionId, endpointPath, properties));
+        // later changes are propagated one by one.
+        properties.published = true;
+    }
+
+    @Override
+    public void registerSessionListener(String endpointPath, SessionListener listener) {
+        getListeners(sessionListeners, endpointPath).add(listener);
+    }
+
+    @Override
+    public void registerBroadcastListener(String endpointPath, BroadcastListener listener) {
+        getListeners(broadcastListeners, endpointPath).add(listener);
+    }
+
+    @Override
+    public Map<RemoteSession.DistributedMapKey, Object> getDistributedSessionProperties(String sessionId) {
+        return getSessionProperties(sessionId);
+    }
+
+    @Override
+    public Map<String, Object> getDistributedUserProperties(String connectionId) {
+        DistributedMap<String> properties = userProperties.get(connectionId);
+        if (properties == null) {
+            final DistributedMap<String> newProperties = new DistributedMap<String>(USER_PROPERTY, connectionId);
+            newProperties.published = true;
+            properties = userProperties.putIfAbsent(connectionId, newProperties);
+            if (properties == null) {
+                properties = newProperties;
+            }
+        }
+        return properties;
+    }
+
+    @Override
+    public void destroyDistributedUserProperties(String connectionId) {
+        userProperties.remove(connectionId);
+
+        final MessageWriter message = new MessageWriter(USER_PROPERTIES_DESTROYED);
+        message.writeString(connectionId);
+        publish(message);
+    }
+
+    @Override
+    public void removeSession(String sessionId, String endpointPath) {
+        localSessions.remove(sessionId);
+        sessionProperties.remove(sessionId);
+
+        publish(sessionClosed(sessionId, endpointPath));
+    }
+
+    @Override
+    public void shutdown() {
+        for (Map.Entry<String, LocalSession> entry : localSessions.entrySet()) {
+            publish(sessionClosed(entry.getKey(), entry.getValue().endpointPath));
+        }
+
+        running = false;
+        final Thread sender = this.sender;
+        if (sender != null) {
+            try {
+                sender.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        transport.shutdown();
+        executorService.shutdownNow();
+
+        for (Long requestId : new ArrayList<Long>(pendingRequests.keySet())) {
+            complete(requestId, "Cluster context has been shut down.");
+        }
+    }
+
+    private DistributedMap<RemoteSession.DistributedMapKey> getSessionProperties(String sessionId) {
+        DistributedMap<RemoteSession.DistributedMapKey> properties = sessionProperties.get(sessionId);
+        if (properties == null) {
+            final DistributedMap<RemoteSession.DistributedMapKey> newProperties =
+                    new DistributedMap<RemoteSession.DistributedMapKey>(SESSION_PROPERTY, sessionId);
+            properties = sessionProperties.putIfAbsent(sessionId, newProperties);
+            if (properties == null) {
+                properties = newProperties;
+            }
+        }
+        return properties;
+    }
+
+    private static <T> List<T> getListeners(ConcurrentMap<String, List<T>> listeners, String endpointPath) {
+        List<T> list = listeners.get(endpointPath);
+        if (list == null) {
+            final List<T> newList = new CopyOnWriteArrayList<T>();
+            list = listeners.putIfAbsent(endpointPath, newList);
+            if (list == null) {
+                list = newList;
+            }
+        }
+        return list;
+    }
+
+    private Future<Void> command(String sessionId, byte command, Object payload, boolean isLast,
+                                 SendHandler sendHandler) {
+        final TyrusFuture<Void> future = new TyrusFuture<Void>();
+        final RemoteSessionInfo remoteSession = remoteSessions.get(sessionId);
+        if (remoteSession == null) {
+            final IOException exception = new IOException("Remote session " + sessionId + " is not open.");
+            future.setFailure(exception);
+            if (sendHandler != null) {
+                sendHandler.onResult(new SendResult(exception));
+            }
+            return future;
+        }
+
+        final long requestId = requestIds.incrementAndGet();
+        pendingRequests.put(requestId, new PendingRequest(
+                future, sendHandler, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(requestTimeout)));
+
+        final MessageWriter message = new MessageWriter(COMMAND);
+        message.writeString(remoteSession.nodeId);
+        message.writeLong(requestId);
+        message.writeString(sessionId);
+        message.writeByte(command);
+        if (payload instanceof CloseReason) {
+            final CloseReason closeReason = (CloseReason) payload;
+            message.writeValue(closeReason.getCloseCode().getCode());
+            message.writeValue(closeReason.getReasonPhrase());
+        } else {
+            message.writeValue(payload);
+        }
+        message.writeBoolean(isLast);
+        publish(message);
+
+        return future;
+    }
+
+    private void complete(long requestId, String error) {
+        final PendingRequest request = pendingRequests.remove(requestId);
+        if (request == null) {
+            return;
+        }
+
+        if (error == null) {
+            request.future.setResult(null);
+            if (request.sendHandler != null) {
+                request.sendHandler.onResult(new SendResult());
+            }
+        } else {
+            final IOException exception = new IOException(error);
+            request.future.setFailure(exception);
+            if (request.sendHandler != null) {
+                request.sendHandler.onResult(new SendResult(exception));
+            }
+        }
+    }
+
+    /**
+     * Fail requests which were not acknowledged within the request timeout.
+     */
+    private void expireRequests() {
+        final long now = System.nanoTime();
+        for (Map.Entry<Long, PendingRequest> entry : pendingRequests.entrySet()) {
+            if (now - entry.getValue().deadline >= 0) {
+                complete(entry.getKey(), "Request has not been acknowledged within " + requestTimeout + " ms.");
+            }
+        }
+    }
+
+    private MessageWriter sessionOpened(String sessionId, String endpointPath,
+                                        Map<RemoteSession.DistributedMapKey, Object> properties) {
+        final MessageWriter message = new MessageWriter(SESSION_OPENED);
+        message.writeString(sessionId);
+        message.writeString(endpointPath);
+
+        final Map<String, Object> values = new HashMap<String, Object>();
+        for (Map.Entry<RemoteSession.DistributedMapKey, Object> entry : properties.entrySet()) {
+            values.put(entry.getKey().name(), entry.getValue());
+        }
+        message.writeValue(values);
+        return message;
+    }
+
+    private MessageWriter sessionClosed(String sessionId, String endpointPath) {
+        final MessageWriter message = new MessageWriter(SESSION_CLOSED);
+        message.writeString(sessionId);
+        message.writeString(endpointPath);
+        return message;
+    }
+
+    private void publish(MessageWriter message) {
+        final byte[] bytes = message.toByteArray();
+        if (bytes != null) {
+            outgoing.add(bytes);
+        }
+    }
+
+    /**
+     * Sender thread loop; passes queued messages to the transport in batches and expires unacknowledged requests.
+     */
+    private void sendQueued() {
+        final List<byte[]> batch = new ArrayList<byte[]>();
+        long nextExpiration = System.nanoTime();
+
+        while (running || !outgoing.isEmpty()) {
+            if (System.nanoTime() - nextExpiration >= 0) {
+                expireRequests();
+                nextExpiration = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(EXPIRATION_PERIOD);
+            }
+
+            try {
+                final byte[] first = outgoing.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.clear();
+                batch.add(first);
+                int size = first.length;
+                byte[] next;
+                while (size < MAX_BATCH_SIZE && (next = outgoing.poll()) != null) {
+                    batch.add(next);
+                    size += next.length;
+                }
+
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream(size + 64 + 4 * batch.size());
+                final DataOutputStream out = new DataOutputStream(bytes);
+                BinaryCodec.writeString(out, nodeId);
+                out.writeInt(batch.size());
+                for (byte[] message : batch) {
+                    BinaryCodec.writeBytes(out, message);
+                }
+                out.flush();
+
+                transport.send(bytes.toByteArray());
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Cluster messages could not be sent.", e);
+            }
+        }
+    }
+
+    private void receive(byte[] packet) {
+        try {
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(packet));
+            final String sourceNodeId = BinaryCodec.readString(in);
+            final int count = in.readInt();
+
+            for (int i = 0; i < count; i++) {
+                final byte[] message = BinaryCodec.readBytes(in);
+                try {
+                    receive(sourceNodeId, new DataInputStream(new ByteArrayInputStream(message)));
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Cluster message could not be processed.", e);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Malformed cluster packet.", e);
+        }
+    }
+
+    private void receive(final String sourceNodeId, DataInputStream in) throws IOException {
+        final byte type = in.readByte();
+
+        switch (type) {
+            case HELLO:
+                // new node; let it know about local sessions.
+                for (Map.Entry<String, LocalSession> entry : localSessions.entrySet()) {
+                    final DistributedMap<RemoteSession.DistributedMapKey> properties =
+                            sessionProperties.get(entry.getKey());
+                    if (properties != null) {
+                        publish(sessionOpened(entry.getKey(), entry.getValue().endpointPath, properties));
+                    }
+                }
+                break;
+
+            case SESSION_OPENED: {
+                final String sessionId = BinaryCodec.readString(in);
+                final String endpointPath = BinaryCodec.readString(in);
+                final Map<?, ?> values = (Map<?, ?>) BinaryCodec.readValue(in);
+
+                final DistributedMap<RemoteSession.DistributedMapKey> properties = getSessionProperties(sessionId);
+                for (Map.Entry<?, ?> entry : values.entrySet()) {
+                    properties.apply(RemoteSession.DistributedMapKey.valueOf((String) entry.getKey()),
+                                     entry.getValue());
+                }
+
+                if (remoteSessions.put(sessionId, new RemoteSessionInfo(sourceNodeId, endpointPath)) == null) {
+                    for (SessionListener listener : getListeners(sessionListeners, endpointPath)) {
+                        listener.onSessionOpened(sessionId);
+                    }
+                }
+                break;
+            }
+
+            case SESSION_CLOSED: {
+                final String sessionId = BinaryCodec.readString(in);
+                final String endpointPath = BinaryCodec.readString(in);
+
+                if (remoteSessions.remove(sessionId) != null) {
+                    sessionProperties.remove(sessionId);
+                    for (SessionListener listener : getListeners(sessionListeners, endpointPath)) {
+                        listener.onSessionClosed(sessionId);
+                    }
+                }
+                break;
+            }
+
+            case SESSION_PROPERTY: {
+                final DistributedMap<RemoteSession.DistributedMapKey> properties =
+                        sessionProperties.get(BinaryCodec.readString(in));
+                final RemoteSession.DistributedMapKey key =
+                        RemoteSession.DistributedMapKey.valueOf(BinaryCodec.readString(in));
+                final Object value = BinaryCodec.readValue(in);
+                if (properties != null) {
+                    properties.apply(key, value);
+                }
+                break;
+            }
+
+            case USER_PROPERTY: {
+                final DistributedMap<String> properties =
+                        (DistributedMap<String>) getDistributedUserProperties(BinaryCodec.readString(in));
+                properties.apply(BinaryCodec.readString(in), BinaryCodec.readValue(in));
+                break;
+            }
+
+            case USER_PROPERTIES_DESTROYED:
+                userProperties.remove(BinaryCodec.readString(in));
+                break;
+
+            case BROADCAST_TEXT:
+                onBroadcast(BinaryCodec.readString(in), BinaryCodec.readString(in));
+                break;
+
+            case BROADCAST_BINARY:
+                onBroadcast(BinaryCodec.readString(in), BinaryCodec.readBytes(in));
+                break;
+
+            case COMMAND:
+                if (nodeId.equals(BinaryCodec.readString(in))) {
+                    onCommand(sourceNodeId, in);
+                }
+                break;
+
+            case ACK:
+                if (nodeId.equals(BinaryCodec.readString(in))) {
+                    final long requestId = in.readLong();
+                    complete(requestId, BinaryCodec.readString(in));
+                }
+                break;
+
+            default:
+                LOGGER.log(Level.WARNING, "Unknown cluster message type: {0}", type);
+        }
+    }
+
+    private void onBroadcast(String endpointPath, Object message) {
+        final List<BroadcastListener> listeners = broadcastListeners.get(endpointPath);
+        if (listeners == null) {
+            return;
+        }
+
+        for (BroadcastListener listener : listeners) {
+            try {
+                if (message instanceof String) {
+                    listener.onBroadcast((String) message);
+                } else {
+                    listener.onBroadcast((byte[]) message);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void onCommand(final String sourceNodeId, DataInputStream in) throws IOException {
+        final long requestId = in.readLong();
+        final String sessionId = BinaryCodec.readString(in);
+        final byte command = in.readByte();
+        final Object payload = BinaryCodec.readValue(in);
+        final Object closeReasonPhrase = command == CLOSE && payload != null ? BinaryCodec.readValue(in) : null;
+        final boolean isLast = in.readBoolean();
+
+        final LocalSession localSession = localSessions.get(sessionId);
+        if (localSession == null) {
+            acknowledge(sourceNodeId, requestId, "Session " + sessionId + " is not open.");
+            return;
+        }
+
+        localSession.execute(new Runnable() {
+            @Override
+            public void run() {
+                final SessionEventListener listener = localSession.listener;
+                String error = null;
+                try {
+                    switch (command) {
+                        case SEND_TEXT:
+                            listener.onSendText((String) payload);
+                            break;
+                        case SEND_PARTIAL_TEXT:
+                            listener.onSendText((String) payload, isLast);
+                            break;
+                        case SEND_BINARY:
+                            listener.onSendBinary((byte[]) payload);
+                            break;
+                        case SEND_PARTIAL_BINARY:
+                            listener.onSendBinary((byte[]) payload, isLast);
+                            break;
+                        case SEND_PING:
+                            listener.onSendPing((byte[]) payload);
+                            break;
+                        case SEND_PONG:
+                            listener.onSendPong((byte[]) payload);
+                            break;
+                        case CLOSE:
+                            if (payload == null) {
+                                listener.onClose();
+                            } else {
+                                listener.onClose(new CloseReason(CloseReason.CloseCodes.getCloseCode(
+                                        (Integer) payload), (String) closeReasonPhrase));
+                            }
+                            break;
+                        default:
+                            error = "Unknown command: " + command;
+                    }
+                } catch (Exception e) {
+                    error = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+                }
+
+                acknowledge(sourceNodeId, requestId, error);
+            }
+        });
+    }
+
+    private void acknowledge(String targetNodeId, long requestId, String error) {
+        final MessageWriter message = new MessageWriter(ACK);
+        message.writeString(targetNodeId);
+        message.writeLong(requestId);
+        message.writeString(error);
+        publish(message);
+    }
+
+    /**
+     * Serializes a single message; an {@link IOException} (not serializable value) discards the message.
+     */
+    private static class MessageWriter {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private IOException failure = null;
+
+        private MessageWriter(byte type) {
+            writeByte(type);
+        }
+
+        private void writeByte(byte value) {
+            try {
+                out.writeByte(value);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        private void writeBoolean(boolean value) {
+            try {
+                out.writeBoolean(value);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        private void writeLong(long value) {
+            try {
+                out.writeLong(value);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        private void writeString(String value) {
+            try {
+                BinaryCodec.writeString(out, value);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        private void writeBytes(byte[] value) {
+            try {
+                BinaryCodec.writeBytes(out, value);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        private void writeValue(Object value) {
+            try {
+                BinaryCodec.writeValue(out, value);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        /**
+         * Get serialized message.
+         *
+         * @return serialized message or {@code null} when the message could not be serialized.
+         */
+        private byte[] toByteArray() {
+            if (failure != null) {
+                LOGGER.log(Level.WARNING, "Cluster message could not be serialized.", failure);
+                return null;
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * Map replicated to other nodes.
+     * <p/>
+     * Local changes are published once the map is marked as published; changes received from other nodes are applied
+     * by {@link #apply(Object, Object)}.
+     *
+     * @param <K> key type.
+     */
+    private class DistributedMap<K> extends AbstractMap<K, Object> {
+
+        private final ConcurrentMap<K, Object> values = new ConcurrentHashMap<K, Object>();
+        private final byte type;
+        private final String id;
+        private volatile boolean published = false;
+
+        private DistributedMap(byte type, String id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public Object put(K key, Object value) {
+            final Object previous = value == null ? values.remove(key) : values.put(key, value);
+            if (published) {
+                final MessageWriter message = new MessageWriter(type);
+                message.writeString(id);
+                message.writeString(key instanceof Enum ? ((Enum<?>) key).name() : (String) key);
+                message.writeValue(value);
+                publish(message);
+            }
+            return previous;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object remove(Object key) {
+            final Object previous = values.get(key);
+            if (previous != null) {
+                put((K) key, null);
+            }
+            return previous;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return values.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public void clear() {
+            for (K key : new ArrayList<K>(values.keySet())) {
+                remove(key);
+            }
+        }
+
+        @Override
+        public Set<Entry<K, Object>> entrySet() {
+            return Collections.unmodifiableMap(values).entrySet();
+        }
+
+        private void apply(K key, Object value) {
+            if (value == null) {
+                values.remove(key);
+            } else {
+                values.put(key, value);
+            }
+        }
+    }
+
+    /**
+     * Session connected to this node.
+     * <p/>
+     * Commands for the session are executed one after another, in the order they were received.
+     */
+    private class LocalSession implements Runnable {
+
+        private final String endpointPath;
+        private final SessionEventListener listener;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        private LocalSession(String endpointPath, SessionEventListener listener) {
+            this.endpointPath = endpointPath;
+            this.listener = listener;
+        }
+
+        private void execute(Runnable task) {
+            tasks.add(task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+                try {
+                    executorService.execute(this);
+                } catch (RejectedExecutionException e) {
+                    LOGGER.log(Level.FINE, e.getMessage(), e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+            scheduled.set(false);
+            schedule();
+        }
+    }
+
+    /**
+     * Session connected to another node.
+     */
+    private static class RemoteSessionInfo {
+
+        private final String nodeId;
+        private final String endpointPath;
+
+        private RemoteSessionInfo(String nodeId, String endpointPath) {
+            this.nodeId = nodeId;
+            this.endpointPath = endpointPath;
+        }
+    }
+
+    /**
+     * Command waiting for acknowledgement from the node the session is connected to.
+     */
+    private static class PendingRequest {
+
+        private final TyrusFuture<Void> future;
+        private final SendHandler sendHandler;
+        private final long deadline;
+
+        private PendingRequest(TyrusFuture<Void> future, SendHandler sendHandler, long deadline) {
+            this.future = future;
+            this.sendHandler = sendHandler;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.ext.cluster;
+
+import java.io.IOException;
+
+/**
+ * Transport used by {@link BusClusterContext} to exchange data among cluster nodes.
+ * <p/>
+ * Transport delivers opaque packets; all packets are sent to all other nodes of the cluster. Implementations have to
+ * deliver packets sent from one node to each other node whole and in the same order they were sent in. Packets which
+ * could not be delivered (for example because the receiving node is not running) can be dropped.
+ */
+public interface ClusterTransport {
+
+    /**
+     * Start the transport.
+     *
+     * @param receiver receiver of packets sent by other nodes.
+     * @throws IOException when the transport cannot be started.
+     */
+    void start(Receiver receiver) throws IOException;
+
+    /**
+     * Send packet to all other nodes.
+     * <p/>
+     * Invoked always by a single thread.
+     *
+     * @param packet packet to be sent.
+     * @throws IOException when the packet cannot be sent to any node.
+     */
+    void send(byte[] packet) throws IOException;
+
+    /**
+     * Stop the transport and release all its resources.
+     */
+    void shutdown();
+
+    /**
+     * Receiver of packets sent by other nodes.
+     */
+    interface Receiver {
+
+        /**
+         * Invoked when a packet is received.
+         *
+         * @param packet received packet.
+         */
+        void onPacket(byte[] packet);
+    }
+}
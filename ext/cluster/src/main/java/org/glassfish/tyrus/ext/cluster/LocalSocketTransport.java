@@ -0,0 +1,248 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.ext.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reference {@link ClusterTransport} connecting nodes running on a single host.
+ * <p/>
+ * Each node listens on its own loopback port and sends packets to ports of all other nodes over TCP connections
+ * opened on demand. Packets are length-prefixed; a connection to a node which is not running is retried with the next
+ * packet and packets which cannot be delivered are dropped. Packets longer than {@value #MAX_PACKET_SIZE} bytes are
+ * neither sent nor accepted; a connection announcing a longer packet is closed before anything is allocated for it.
+ */
+public class LocalSocketTransport implements ClusterTransport {
+
+    private static final Logger LOGGER = Logger.getLogger(LocalSocketTransport.class.getName());
+    private static final int CONNECT_TIMEOUT = 1000;
+
+    /**
+     * Maximal length of a packet in bytes.
+     */
+    public static final int MAX_PACKET_SIZE = 16 * 1024 * 1024;
+
+    private final int port;
+    private final List<Peer> peers = new ArrayList<Peer>();
+    private final List<Socket> incoming = new CopyOnWriteArrayList<Socket>();
+
+    private volatile ServerSocket serverSocket;
+    private volatile boolean running;
+
+    /**
+     * Constructor.
+     *
+     * @param port      loopback port this node listens on.
+     * @param peerPorts loopback ports of the other nodes.
+     */
+    public LocalSocketTransport(int port, int... peerPorts) {
+        this.port = port;
+        for (int peerPort : peerPorts) {
+            if (peerPort != port) {
+                peers.add(new Peer(peerPort));
+            }
+        }
+    }
+
+    @Override
+    public void start(final Receiver receiver) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(getLoopbackAddress(), port));
+        running = true;
+
+        startThread("tyrus-cluster-accept-" + port, new Runnable() {
+            @Override
+            public void run() {
+                while (running) {
+                    try {
+                        final Socket socket = serverSocket.accept();
+                        incoming.add(socket);
+                        startThread("tyrus-cluster-receive-" + port, new Runnable() {
+                            @Override
+                            public void run() {
+                                receive(socket, receiver);
+                            }
+                        });
+                    } catch (IOException e) {
+                        if (running) {
+                            LOGGER.log(Level.WARNING, e.getMessage(), e);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public void send(byte[] packet) throws IOException {
+        if (packet.length > MAX_PACKET_SIZE) {
+            throw new IOException("Packet length " + packet.length + " exceeds " + MAX_PACKET_SIZE + " bytes.");
+        }
+
+        for (Peer peer : peers) {
+            peer.send(packet);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+
+        close(serverSocket);
+        for (Socket socket : incoming) {
+            close(socket);
+        }
+        for (Peer peer : peers) {
+            peer.close();
+        }
+    }
+
+    private void receive(Socket socket, Receiver receiver) {
+        try {
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            while (running) {
+                final int length = in.readInt();
+                if (length < 0 || length > MAX_PACKET_SIZE) {
+                    LOGGER.log(Level.WARNING, "Invalid packet length {0}, closing connection.", length);
+                    return;
+                }
+
+                final byte[] packet = new byte[length];
+                in.readFully(packet);
+                receiver.onPacket(packet);
+            }
+        } catch (EOFException e) {
+            // peer closed the connection.
+        } catch (IOException e) {
+            if (running) {
+                LOGGER.log(Level.FINE, e.getMessage(), e);
+            }
+        } finally {
+            incoming.remove(socket);
+            close(socket);
+        }
+    }
+
+    private static InetAddress getLoopbackAddress() throws IOException {
+        return InetAddress.getByName("127.0.0.1");
+    }
+
+    private static void startThread(String name, Runnable runnable) {
+        final Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // sockets are not Closeable on Java 6.
+    private static void close(Socket socket) {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINEST, e.getMessage(), e);
+            }
+        }
+    }
+
+    private static void close(ServerSocket serverSocket) {
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINEST, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Outgoing connection to another node.
+     */
+    private static class Peer {
+
+        private final int port;
+        private Socket socket;
+        private DataOutputStream out;
+
+        private Peer(int port) {
+            this.port = port;
+        }
+
+        private synchronized void send(byte[] packet) {
+            try {
+                if (socket == null) {
+                    socket = new Socket();
+                    socket.setTcpNoDelay(true);
+                    socket.connect(new InetSocketAddress(getLoopbackAddress(), port), CONNECT_TIMEOUT);
+                    out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                }
+
+                out.writeInt(packet.length);
+                out.write(packet);
+                out.flush();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Packet could not be delivered to port " + port, e);
+                close();
+            }
+        }
+
+        private synchronized void close() {
+            // closing the socket closes also its output stream.
+            LocalSocketTransport.close(socket);
+            out = null;
+            socket = null;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.ext.cluster;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.DeploymentException;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.OnMessage;
+import javax.websocket.Session;
+import javax.websocket.server.ServerEndpoint;
+
+import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.core.TyrusSession;
+import org.glassfish.tyrus.core.cluster.ClusterContext;
+import org.glassfish.tyrus.core.cluster.RemoteSession;
+import org.glassfish.tyrus.server.Server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Two servers forming a cluster over {@link LocalSocketTransport}.
+ */
+public class BusClusterContextTest {
+
+    private static final String HOST = "localhost";
+    private static final int PORT_A = 8025;
+    private static final int PORT_B = 8026;
+    private static final int BUS_PORT_A = 9125;
+    private static final int BUS_PORT_B = 9126;
+
+    @ServerEndpoint("/cluster")
+    public static class ClusterEndpoint {
+
+        @OnMessage
+        public void onMessage(Session session, String message) throws IOException {
+            if (message.startsWith("broadcast:")) {
+                ((TyrusSession) session).broadcast(message.substring("broadcast:".length()));
+            } else if (message.startsWith("remote:")) {
+                for (RemoteSession remoteSession : ((TyrusSession) session).getRemoteSessions()) {
+                    remoteSession.getBasicRemote().sendText(message.substring("remote:".length()));
+                }
+            }
+        }
+    }
+
+    private BusClusterContext contextA;
+    private BusClusterContext contextB;
+    private Server serverA;
+    private Server serverB;
+
+    @Before
+    public void startCluster() throws IOException, DeploymentException {
+        contextA = new BusClusterContext(new LocalSocketTransport(BUS_PORT_A, BUS_PORT_B));
+        contextB = new BusClusterContext(new LocalSocketTransport(BUS_PORT_B, BUS_PORT_A));
+        contextA.start();
+        contextB.start();
+        serverA = startServer(PORT_A, contextA);
+        serverB = startServer(PORT_B, contextB);
+    }
+
+    @After
+    public void stopCluster() {
+        if (serverA != null) {
+            serverA.stop();
+        }
+        if (serverB != null) {
+            serverB.stop();
+        }
+        if (contextA != null) {
+            contextA.shutdown();
+        }
+        if (contextB != null) {
+            contextB.shutdown();
+        }
+    }
+
+    @Test
+    public void testBroadcastReachesOtherNode() throws Exception {
+        final ClientManager client = ClientManager.createClient();
+        final CountDownLatch messageLatch = new CountDownLatch(1);
+        final AtomicReference<String> received = new AtomicReference<String>();
+
+        final Session sessionA = connect(client, PORT_A, messageLatch, received);
+        final Session sessionB = connect(client, PORT_B, null, null);
+        try {
+            sessionB.getBasicRemote().sendText("broadcast:hello cluster");
+
+            assertTrue(messageLatch.await(5, TimeUnit.SECONDS));
+            assertEquals("hello cluster", received.get());
+        } finally {
+            sessionA.close();
+            sessionB.close();
+        }
+    }
+
+    @Test
+    public void testSendToRemoteSession() throws Exception {
+        final ClientManager client = ClientManager.createClient();
+        final CountDownLatch messageLatch = new CountDownLatch(1);
+        final AtomicReference<String> received = new AtomicReference<String>();
+
+        final Session sessionA = connect(client, PORT_A, messageLatch, received);
+        final Session sessionB = connect(client, PORT_B, null, null);
+        try {
+            // session opened on node A is announced to node B asynchronously.
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (contextB.getRemoteSessionIds("/cluster").isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(1, contextB.getRemoteSessionIds("/cluster").size());
+
+            sessionB.getBasicRemote().sendText("remote:hello remote session");
+
+            assertTrue(messageLatch.await(5, TimeUnit.SECONDS));
+            assertEquals("hello remote session", received.get());
+        } finally {
+            sessionA.close();
+            sessionB.close();
+        }
+    }
+
+    @Test
+    public void testUnacknowledgedRequestTimesOut() throws Exception {
+        final ClusterTransport.Receiver[] receiver = new ClusterTransport.Receiver[1];
+        final BusClusterContext context = new BusClusterContext(new ClusterTransport() {
+            @Override
+            public void start(Receiver r) {
+                receiver[0] = r;
+            }
+
+            @Override
+            public void send(byte[] packet) {
+                // packets are lost.
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        }, 200);
+        context.start();
+
+        try {
+            // SESSION_OPENED message of a session connected to another node.
+            final ByteArrayOutputStream message = new ByteArrayOutputStream();
+            final DataOutputStream messageOut = new DataOutputStream(message);
+            messageOut.writeByte(1);
+            BinaryCodec.writeString(messageOut, "remote-session");
+            BinaryCodec.writeString(messageOut, "/cluster");
+            BinaryCodec.writeValue(messageOut, Collections.emptyMap());
+
+            final ByteArrayOutputStream packet = new ByteArrayOutputStream();
+            final DataOutputStream packetOut = new DataOutputStream(packet);
+            BinaryCodec.writeString(packetOut, "other-node");
+            packetOut.writeInt(1);
+            BinaryCodec.writeBytes(packetOut, message.toByteArray());
+            receiver[0].onPacket(packet.toByteArray());
+
+            final Future<Void> future = context.sendText("remote-session", "lost");
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+        } finally {
+            context.shutdown();
+        }
+    }
+
+    @Test
+    public void testOversizedPacketClosesConnection() throws Exception {
+        final Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress("127.0.0.1", BUS_PORT_A), 1000);
+            socket.setSoTimeout(5000);
+
+            final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(LocalSocketTransport.MAX_PACKET_SIZE + 1);
+            out.flush();
+
+            assertEquals(-1, socket.getInputStream().read());
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testSerializableValueNotSupported() throws Exception {
+        try {
+            BinaryCodec.writeValue(new DataOutputStream(new ByteArrayOutputStream()), new SerializableValue());
+            fail();
+        } catch (NotSerializableException e) {
+            // expected.
+        }
+    }
+
+    private static class SerializableValue implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static Server startServer(int port, ClusterContext clusterContext) throws DeploymentException {
+        final Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put(ClusterContext.CLUSTER_CONTEXT, clusterContext);
+
+        final Server server = new Server(HOST, port, "/", properties, ClusterEndpoint.class);
+        server.start();
+        return server;
+    }
+
+    private static Session connect(ClientManager client, int port, final CountDownLatch messageLatch,
+                                   final AtomicReference<String> received) throws Exception {
+        return client.connectToServer(new Endpoint() {
+            @Override
+            public void onOpen(Session session, EndpointConfig config) {
+                session.addMessageHandler(new MessageHandler.Whole<String>() {
+                    @Override
+                    public void onMessage(String message) {
+                        if (messageLatch != null) {
+                            received.set(message);
+                            messageLatch.countDown();
+                        }
+                    }
+                });
+            }
+        }, ClientEndpointConfig.Builder.create().build(), URI.create("ws://" + HOST + ":" + port + "/cluster"));
+    }
+}
@@ -40,217 +40,535 @@
 
 package org.glassfish.tyrus.ext.extension.deflate;
 
-import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
-import org.glassfish.tyrus.core.extension.ExtendedExtension;
+import org.glassfish.tyrus.core.TyrusExtension;
+import org.glassfish.tyrus.core.extension.SharedFramingExtension;
 import org.glassfish.tyrus.core.frame.Frame;
+import org.glassfish.tyrus.core.monitoring.CompressionEventListener;
+import org.glassfish.tyrus.core.monitoring.MessageEventListener;
 
 /**
  * Compression Extensions for WebSocket draft-ietf-hybi-permessage-compression-15
  * <p/>
  * http://tools.ietf.org/html/draft-ietf-hybi-permessage-compression-15
  * <p/>
+ * Context takeover and window size parameters are negotiated. Whenever one side does not take over the compression
+ * context between messages, the {@link Deflater} or {@link Inflater} of that direction is not held by the session,
+ * but leased from a pool shared by all sessions only for the time a message is being processed.
+ * <p/>
+ * {@link Deflater} does not allow to limit the size of its window, so when the peer limits it by {@code
+ * server_max_window_bits} (server-side) or {@code client_max_window_bits} (client-side), only messages which are not
+ * bigger than the window are compressed (each one with a fresh context) and other messages are sent uncompressed.
+ * <p/>
+ * Messages smaller than {@link #setMinCompressionSize(int)}, messages of a type excluded by {@link
+ * #setCompressTextMessages(boolean)} or {@link #setCompressBinaryMessages(boolean)} and binary messages starting with
+ * a signature of an already compressed format (gzip, zip, PNG, JPEG, ...) are sent uncompressed. When the context is
+ * not taken over, a message which would not get smaller by the compression is sent uncompressed as well.
+ * <p/>
+ * When the server does not take over the compression context, outgoing frames depend only on the negotiated
+ * parameters and on the settings of this extension, so a message broadcast to sessions with equal parameters is
+ * compressed only once (see {@link SharedFramingExtension}).
+ * <p/>
+ * Size and duration of every compression of a sent frame and of every decompression is reported to {@link
+ * CompressionEventListener#onFrameCompressed(long, long, long)} and {@link
+ * CompressionEventListener#onFrameDecompressed(long, long, long)}, when monitoring is enabled and the {@link
+ * MessageEventListener} implements {@link CompressionEventListener}.
  * <p/>
  * <pre>TODO:
- * - parameters (window sizes, context takeovers).
  * - context (some utility methods to get the typed params - T getParam(Class<T>))
  * </pre>
  *
  * @author Pavel Bucek (pavel.bucek at oracle.com)
  */
-public class PerMessageDeflateExtension implements ExtendedExtension {
+public class PerMessageDeflateExtension implements SharedFramingExtension {
+
+    private static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    private static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+    private static final String SERVER_MAX_WINDOW_BITS = "server_max_window_bits";
+    private static final String CLIENT_MAX_WINDOW_BITS = "client_max_window_bits";
+
+    private static final int MIN_WINDOW_BITS = 8;
+    private static final int MAX_WINDOW_BITS = 15;
+
+    // TODO: configurable compression level
+    private static final int COMPRESSION_LEVEL = 9;
+
+    private static final int MAX_POOLED_INSTANCES = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+
+    private static final Pool<Deflater> DEFLATER_POOL = new Pool<Deflater>(MAX_POOLED_INSTANCES) {
+        @Override
+        Deflater create() {
+            return createDeflater();
+        }
 
-    private static final Pool<byte[]> BYTE_ARRAY_POOL = new Pool<byte[]>() {
         @Override
-        byte[] create() {
-            return new byte[8192];
+        void reset(Deflater deflater) {
+            deflater.reset();
+        }
+
+        @Override
+        void dispose(Deflater deflater) {
+            deflater.end();
+        }
+    };
+
+    private static final Pool<Inflater> INFLATER_POOL = new Pool<Inflater>(MAX_POOLED_INSTANCES) {
+        @Override
+        Inflater create() {
+            return new Inflater(true);
+        }
+
+        @Override
+        void reset(Inflater inflater) {
+            inflater.reset();
+        }
+
+        @Override
+        void dispose(Inflater inflater) {
+            inflater.end();
         }
     };
 
-    private static final String INFLATER = PerMessageDeflateExtension.class.getName() + ".INFLATER";
-    private static final String DEFLATER = PerMessageDeflateExtension.class.getName() + ".DEFLATER";
+    private static final String STATE = PerMessageDeflateExtension.class.getName() + ".STATE";
 
     private static final Logger LOGGER = Logger.getLogger(PerMessageDeflateExtension.class.getName());
     private static final boolean DEBUG = LOGGER.isLoggable(Level.FINE);
 
     private static final byte[] TAIL = {0x00, 0x00, (byte) 0xff, (byte) 0xff};
 
+    // the output of a decompression starts at most this big and grows as needed.
+    private static final int MAX_INITIAL_INFLATE_BUFFER_SIZE = 8192;
+
+    /**
+     * Signatures of formats which are compressed already, compressing them again costs CPU and mostly makes them
+     * bigger.
+     */
+    private static final byte[][] COMPRESSED_FORMAT_SIGNATURES = {
+            {0x1f, (byte) 0x8b},                                   // gzip
+            {0x50, 0x4b, 0x03, 0x04},                              // zip, jar, docx, ...
+            {(byte) 0x89, 0x50, 0x4e, 0x47},                       // PNG
+            {(byte) 0xff, (byte) 0xd8, (byte) 0xff},               // JPEG
+            {0x47, 0x49, 0x46, 0x38},                              // GIF
+            {0x28, (byte) 0xb5, 0x2f, (byte) 0xfd},                // zstd
+            {0x42, 0x5a, 0x68},                                    // bzip2
+            {(byte) 0xfd, 0x37, 0x7a, 0x58, 0x5a, 0x00},           // xz
+            {0x37, 0x7a, (byte) 0xbc, (byte) 0xaf, 0x27, 0x1c},    // 7z
+            {0x4f, 0x67, 0x67, 0x53},                              // Ogg
+            {0x1a, 0x45, (byte) 0xdf, (byte) 0xa3},                // Matroska, WebM
+    };
+
+    private final boolean noContextTakeover;
+
+    private volatile int minCompressionSize = 0;
+    private volatile boolean compressTextMessages = true;
+    private volatile boolean compressBinaryMessages = true;
+
+    /**
+     * Create new permessage-deflate extension, which keeps the compression context between messages unless the peer
+     * requests otherwise.
+     */
+    public PerMessageDeflateExtension() {
+        this(false);
+    }
+
+    /**
+     * Create new permessage-deflate extension.
+     *
+     * @param noContextTakeover {@code true} if neither side should take over the compression context between
+     *                          messages. Lowers the compression ratio of small similar messages, but sessions don't
+     *                          have to hold their own {@link Deflater} and {@link Inflater}.
+     */
+    public PerMessageDeflateExtension(boolean noContextTakeover) {
+        this.noContextTakeover = noContextTakeover;
+    }
+
+    /**
+     * Set the minimal size of a message to be compressed.
+     * <p/>
+     * Compressing small messages (like heartbeats) costs CPU and mostly makes them bigger. Size of a fragmented
+     * message is not known when its first frame is sent, so only messages sent as a single frame are checked. Default
+     * value is {@code 0}, i.e. all messages are compressed.
+     *
+     * @param minCompressionSize size in bytes. Payloads smaller than this value will be sent uncompressed.
+     * @return updated {@link PerMessageDeflateExtension}.
+     */
+    public PerMessageDeflateExtension setMinCompressionSize(int minCompressionSize) {
+        this.minCompressionSize = minCompressionSize;
+        return this;
+    }
+
+    /**
+     * Set whether outgoing text messages should be compressed. Default value is {@code true}.
+     *
+     * @param compressTextMessages {@code false} if text messages should be sent uncompressed.
+     * @return updated {@link PerMessageDeflateExtension}.
+     */
+    public PerMessageDeflateExtension setCompressTextMessages(boolean compressTextMessages) {
+        this.compressTextMessages = compressTextMessages;
+        return this;
+    }
+
+    /**
+     * Set whether outgoing binary messages should be compressed. Default value is {@code true}.
+     * <p/>
+     * Binary messages starting with a signature of an already compressed format are never compressed.
+     *
+     * @param compressBinaryMessages {@code false} if binary messages should be sent uncompressed.
+     * @return updated {@link PerMessageDeflateExtension}.
+     */
+    public PerMessageDeflateExtension setCompressBinaryMessages(boolean compressBinaryMessages) {
+        this.compressBinaryMessages = compressBinaryMessages;
+        return this;
+    }
+
     @Override
     public Frame processIncoming(ExtensionContext context, Frame frame) {
-        final Inflater decompresser = (Inflater) context.getProperties().get(INFLATER);
+        final State state = (State) context.getProperties().get(STATE);
 
         if (DEBUG) {
             LOGGER.fine("Incoming frame: " + frame);
         }
 
+        if (frame.isControlFrame()) {
+            return frame;
+        }
+
         // per-message-deflate draft, chapter 8.2.3.1:
         // "Note that the RSV1 bit is set only on the first frame."
-        if ((frame.isRsv1() || frame.getOpcode() == 0x00) && !frame.isControlFrame()) {
-            // Decompress the bytes
-            final int payloadLength = (int) frame.getPayloadLength();
+        if (frame.getOpcode() != 0x00) {
+            state.incomingCompressed = frame.isRsv1();
+        } else if (frame.isRsv1()) {
+            state.incomingCompressed = true;
+        }
+
+        if (!state.incomingCompressed) {
+            return frame;
+        }
 
-            List<PartialResultWithLength<byte[]>> wholeResult = new ArrayList<PartialResultWithLength<byte[]>>();
-            int wholeResultLength = 0;
+        if (state.inflater == null) {
+            state.inflater = INFLATER_POOL.take();
+        }
 
-            int tmp = processCompressed(decompresser, frame.getPayloadData(), payloadLength, wholeResult);
-            if (tmp == -1) {
-                return frame;
+        final CompressionEventListener listener = getCompressionEventListener(context);
+        final long start = listener == null ? 0 : System.nanoTime();
+
+        final int payloadLength = (int) frame.getPayloadLength();
+        final Output output = new Output((int) Math.max(256, Math.min(MAX_INITIAL_INFLATE_BUFFER_SIZE,
+                                                                      payloadLength * 2L)));
+        try {
+            final ByteBuffer payload = frame.getPayload();
+            if (payload.hasArray()) {
+                inflate(state.inflater, payload.array(), payload.arrayOffset() + payload.position(), payloadLength,
+                        output);
             } else {
-                wholeResultLength += tmp;
+                inflate(state.inflater, frame.getPayloadData(), 0, payloadLength, output);
             }
 
             if (frame.isFin()) {
-                tmp = processCompressed(decompresser, TAIL, 4, wholeResult);
-                if (tmp == -1) {
-                    return frame;
-                } else {
-                    wholeResultLength += tmp;
-                }
+                inflate(state.inflater, TAIL, 0, TAIL.length, output);
             }
-
-            byte[] completeResult = new byte[wholeResultLength];
-            wholeResultLength = 0;
-            for (PartialResultWithLength<byte[]> partialResult : wholeResult) {
-                tmp = partialResult.getLength();
-                final byte[] result = partialResult.getResult();
-                System.arraycopy(result, 0, completeResult, wholeResultLength, tmp);
-                BYTE_ARRAY_POOL.recycle(result);
-                wholeResultLength += tmp;
+        } catch (DataFormatException e) {
+            LOGGER.log(Level.INFO, e.getMessage(), e);
+            if (state.incomingNoContextTakeover) {
+                state.inflater.end();
+                state.inflater = null;
             }
-
-            return Frame.builder(frame).payloadData(completeResult).rsv1(false).build();
-        } else {
             return frame;
         }
-    }
 
-    private int processCompressed(Inflater decompresser, byte[] compressed, int length,
-                                  List<PartialResultWithLength<byte[]>> partialResults) {
-        decompresser.setInput(compressed, 0, length);
-        int decompressedLength = 0;
-        do {
-            byte[] result = BYTE_ARRAY_POOL.take();
-            int partialResultLength;
-            try {
-                partialResultLength = decompresser.inflate(result);
-            } catch (DataFormatException e) {
-                LOGGER.log(Level.INFO, e.getMessage(), e);
-                return -1;
-            }
+        if (frame.isFin() && state.incomingNoContextTakeover) {
+            INFLATER_POOL.recycle(state.inflater);
+            state.inflater = null;
+        }
+
+        if (listener != null) {
+            listener.onFrameDecompressed(payloadLength, output.length, System.nanoTime() - start);
+        }
 
-            if (partialResultLength != 0) {
-                partialResults.add(new PartialResultWithLength<byte[]>(partialResultLength, result));
-                decompressedLength += partialResultLength;
+        return Frame.builder(frame).payloadData(output.data).payloadLength(output.length).rsv1(false).build();
+    }
+
+    private static void inflate(Inflater decompresser, byte[] compressed, int offset, int length, Output output)
+            throws DataFormatException {
+        decompresser.setInput(compressed, offset, length);
+        while (!decompresser.finished()) {
+            output.length += decompresser.inflate(output.data, output.length, output.data.length - output.length);
+            if (output.length < output.data.length) {
+                if (decompresser.needsInput() || decompresser.needsDictionary()) {
+                    break;
+                }
             } else {
-                BYTE_ARRAY_POOL.recycle(result);
+                output.grow();
             }
-        } while (decompresser.getRemaining() > 0);
+        }
 
-        return decompressedLength;
+        if (decompresser.finished()) {
+            // the peer has finished the stream by a final block, the next message starts a new one.
+            decompresser.reset();
+        }
     }
 
     @Override
     public Frame processOutgoing(ExtensionContext context, Frame frame) {
-        final Deflater compresser = (Deflater) context.getProperties().get(DEFLATER);
+        final State state = (State) context.getProperties().get(STATE);
 
         if (DEBUG) {
             LOGGER.fine("Outgoing frame: " + frame);
         }
 
-        if (!frame.isControlFrame()) {
+        if (frame.isControlFrame()) {
+            return frame;
+        }
+
+        final boolean firstFrame = frame.getOpcode() != 0x00;
+        if (firstFrame) {
+            state.outgoingCompressed = shouldCompress(state, frame);
+        }
 
-            List<PartialResultWithLength<byte[]>> wholeResult = new ArrayList<PartialResultWithLength<byte[]>>();
-            int wholeResultLength = 0;
+        if (!state.outgoingCompressed) {
+            return frame;
+        }
 
-            // Compress the bytes
-            final int payloadLength = (int) frame.getPayloadLength();
-            compresser.setInput(frame.getPayloadData(), 0, payloadLength);
+        if (state.deflater == null) {
+            state.deflater = DEFLATER_POOL.take();
+        }
 
-            int compressedDataLength;
-            do {
-                byte[] output = BYTE_ARRAY_POOL.take();
-                compressedDataLength = compresser.deflate(output, 0, output.length, Deflater.SYNC_FLUSH);
+        final CompressionEventListener listener = getCompressionEventListener(context);
+        final long start = listener == null ? 0 : System.nanoTime();
 
-                if (compressedDataLength > 0) {
-                    wholeResult.add(new PartialResultWithLength<byte[]>(compressedDataLength, output));
-                    wholeResultLength += compressedDataLength;
-                } else {
-                    BYTE_ARRAY_POOL.recycle(output);
-                }
-            } while (compressedDataLength > 0);
-
-            byte[] completeResult = new byte[wholeResultLength];
-            wholeResultLength = 0;
-            for (PartialResultWithLength<byte[]> partialResult : wholeResult) {
-                int tmp = partialResult.getLength();
-                final byte[] result = partialResult.getResult();
-                System.arraycopy(result, 0, completeResult, wholeResultLength, tmp);
-                BYTE_ARRAY_POOL.recycle(result);
-                wholeResultLength += tmp;
-            }
+        // Compress the bytes
+        final int payloadLength = (int) frame.getPayloadLength();
+        final ByteBuffer payload = frame.getPayload();
+        if (payload.hasArray()) {
+            state.deflater.setInput(payload.array(), payload.arrayOffset() + payload.position(), payloadLength);
+        } else {
+            state.deflater.setInput(frame.getPayloadData(), 0, payloadLength);
+        }
 
-            boolean strip = false;
-            if (completeResult.length >= 4 &&
-                    completeResult[completeResult.length - 4] == TAIL[0] &&
-                    completeResult[completeResult.length - 3] == TAIL[1] &&
-                    completeResult[completeResult.length - 2] == TAIL[2] &&
-                    completeResult[completeResult.length - 1] == TAIL[3]) {
-                strip = true;
+        // zlib deflateBound() for raw deflate + empty stored block written by the sync flush.
+        final Output output = new Output(payloadLength + (payloadLength >> 12) + (payloadLength >> 14) + 16);
+        while (true) {
+            output.length += state.deflater.deflate(output.data, output.length, output.data.length - output.length,
+                                                    Deflater.SYNC_FLUSH);
+            if (output.length < output.data.length) {
+                break;
             }
+            output.grow();
+        }
 
-            return Frame.builder(frame).payloadData(completeResult).payloadLength(strip ? completeResult.length - 4 :
-                                                                                          completeResult.length)
-                        .rsv1(true).build();
-        } else {
+        if (frame.isFin() && state.outgoingNoContextTakeover) {
+            DEFLATER_POOL.recycle(state.deflater);
+            state.deflater = null;
+        }
+
+        final byte[] result = output.data;
+        final int length = output.length;
+        // the tail is removed only from the end of the message, see processIncoming.
+        final boolean strip = frame.isFin() && length >= 4 &&
+                result[length - 4] == TAIL[0] &&
+                result[length - 3] == TAIL[1] &&
+                result[length - 2] == TAIL[2] &&
+                result[length - 1] == TAIL[3];
+        final int compressedLength = strip ? length - 4 : length;
+
+        // without context takeover, the peer won't miss the discarded data in its window.
+        if (firstFrame && frame.isFin() && state.outgoingNoContextTakeover && compressedLength >= payloadLength) {
             return frame;
         }
+
+        if (listener != null) {
+            listener.onFrameCompressed(payloadLength, compressedLength, System.nanoTime() - start);
+        }
+
+        return Frame.builder(frame).payloadData(result).payloadLength(compressedLength).rsv1(firstFrame).build();
     }
 
-    private void init(ExtensionContext context) {
-        // TODO: configurable compression level
-        Deflater compresser = new Deflater(9, true);
-        Inflater decompresser = new Inflater(true);
+    private boolean shouldCompress(State state, Frame frame) {
+        final boolean text = frame.getOpcode() == 0x01;
+        if (text ? !compressTextMessages : !compressBinaryMessages) {
+            return false;
+        }
 
-        compresser.setStrategy(Deflater.DEFAULT_STRATEGY);
+        if (frame.isFin() && frame.getPayloadLength() < minCompressionSize) {
+            return false;
+        }
 
-        context.getProperties().put(INFLATER, decompresser);
-        context.getProperties().put(DEFLATER, compresser);
+        if (state.outgoingWindowBits < MAX_WINDOW_BITS &&
+                (!frame.isFin() || frame.getPayloadLength() > (1 << state.outgoingWindowBits))) {
+            return false;
+        }
+
+        return text || !isCompressedFormat(frame.getPayload());
+    }
+
+    private static boolean isCompressedFormat(ByteBuffer payload) {
+        final int position = payload.position();
+        for (byte[] signature : COMPRESSED_FORMAT_SIGNATURES) {
+            if (payload.remaining() < signature.length) {
+                continue;
+            }
+
+            boolean matches = true;
+            for (int i = 0; i < signature.length && matches; i++) {
+                matches = payload.get(position + i) == signature[i];
+            }
+
+            if (matches) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static CompressionEventListener getCompressionEventListener(ExtensionContext context) {
+        final Object listener = context.getProperties().get(ExtensionContext.MESSAGE_EVENT_LISTENER);
+        if (listener instanceof CompressionEventListener) {
+            return (CompressionEventListener) listener;
+        }
+        return null;
+    }
+
+    @Override
+    public Object getSharedFramingKey(ExtensionContext context) {
+        final State state = (State) context.getProperties().get(STATE);
+
+        // with context takeover, each compressed message refers to the previous ones sent to the same session.
+        if (state == null || !state.outgoingNoContextTakeover) {
+            return null;
+        }
+
+        return Arrays.<Object>asList(state.outgoingNoContextTakeover, state.outgoingWindowBits, minCompressionSize,
+                                     compressTextMessages, compressBinaryMessages);
     }
 
     @Override
     public List<Parameter> onExtensionNegotiation(ExtensionContext context, List<Parameter> requestedParameters) {
-        init(context);
-        return Collections.<Parameter>emptyList();
+        final State state = new State();
+        state.outgoingNoContextTakeover = noContextTakeover;
+        state.incomingNoContextTakeover = noContextTakeover;
+
+        final List<Parameter> responseParameters = new ArrayList<Parameter>();
+        if (requestedParameters != null) {
+            for (Parameter parameter : requestedParameters) {
+                final String name = parameter.getName();
+                if (SERVER_NO_CONTEXT_TAKEOVER.equals(name)) {
+                    state.outgoingNoContextTakeover = true;
+                } else if (CLIENT_NO_CONTEXT_TAKEOVER.equals(name)) {
+                    state.incomingNoContextTakeover = true;
+                } else if (SERVER_MAX_WINDOW_BITS.equals(name)) {
+                    state.setOutgoingWindowBits(getWindowBits(parameter));
+                    responseParameters.add(
+                            new TyrusExtension.TyrusParameter(SERVER_MAX_WINDOW_BITS, "" + state.outgoingWindowBits));
+                }
+                // client_max_window_bits only allows the server to limit the client window, which is not needed.
+            }
+        }
+
+        if (state.outgoingNoContextTakeover) {
+            responseParameters.add(new TyrusExtension.TyrusParameter(SERVER_NO_CONTEXT_TAKEOVER, null));
+        }
+        if (state.incomingNoContextTakeover) {
+            responseParameters.add(new TyrusExtension.TyrusParameter(CLIENT_NO_CONTEXT_TAKEOVER, null));
+        }
+
+        init(context, state);
+        return responseParameters;
     }
 
     @Override
     public void onHandshakeResponse(ExtensionContext context, List<Parameter> responseParameters) {
-        init(context);
+        final State state = new State();
+        state.outgoingNoContextTakeover = noContextTakeover;
+        state.incomingNoContextTakeover = noContextTakeover;
+
+        if (responseParameters != null) {
+            for (Parameter parameter : responseParameters) {
+                final String name = parameter.getName();
+                if (SERVER_NO_CONTEXT_TAKEOVER.equals(name)) {
+                    state.incomingNoContextTakeover = true;
+                } else if (CLIENT_NO_CONTEXT_TAKEOVER.equals(name)) {
+                    state.outgoingNoContextTakeover = true;
+                } else if (CLIENT_MAX_WINDOW_BITS.equals(name)) {
+                    state.setOutgoingWindowBits(getWindowBits(parameter));
+                }
+                // server_max_window_bits does not matter, Inflater accepts any window size.
+            }
+        }
+
+        init(context, state);
+    }
+
+    private void init(ExtensionContext context, State state) {
+        if (!state.outgoingNoContextTakeover) {
+            state.deflater = createDeflater();
+        }
+        if (!state.incomingNoContextTakeover) {
+            state.inflater = new Inflater(true);
+        }
+
+        context.getProperties().put(STATE, state);
+    }
+
+    private static Deflater createDeflater() {
+        final Deflater compresser = new Deflater(COMPRESSION_LEVEL, true);
+        compresser.setStrategy(Deflater.DEFAULT_STRATEGY);
+        return compresser;
+    }
+
+    private static int getWindowBits(Parameter parameter) {
+        String value = parameter.getValue();
+        if (value == null) {
+            return MAX_WINDOW_BITS;
+        }
+
+        value = value.trim();
+        if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+            value = value.substring(1, value.length() - 1);
+        }
+
+        try {
+            final int windowBits = Integer.parseInt(value);
+            if (windowBits >= MIN_WINDOW_BITS && windowBits <= MAX_WINDOW_BITS) {
+                return windowBits;
+            }
+        } catch (NumberFormatException e) {
+            // ignore - handled below.
+        }
+
+        LOGGER.config(String.format("Invalid value of %s parameter: %s, using %d.", parameter.getName(),
+                                    parameter.getValue(), MIN_WINDOW_BITS));
+        return MIN_WINDOW_BITS;
     }
 
     @Override
     public void destroy(ExtensionContext context) {
-        final Inflater decompresser = (Inflater) context.getProperties().get(INFLATER);
-        final Deflater compresser = (Deflater) context.getProperties().get(DEFLATER);
+        final State state = (State) context.getProperties().remove(STATE);
 
-        context.getProperties().remove(DEFLATER);
-        context.getProperties().remove(INFLATER);
+        if (state == null) {
+            return;
+        }
 
-        if (decompresser != null) {
-            decompresser.end();
+        if (state.inflater != null) {
+            state.inflater.end();
+            state.inflater = null;
         }
 
-        if (compresser != null) {
-            compresser.end();
+        if (state.deflater != null) {
+            state.deflater.end();
+            state.deflater = null;
         }
     }
 
@@ -261,83 +579,124 @@ public class PerMessageDeflateExtension implements ExtendedExtension {
 
     @Override
     public List<Parameter> getParameters() {
+        if (noContextTakeover) {
+            return Arrays.<Parameter>asList(new TyrusExtension.TyrusParameter(CLIENT_NO_CONTEXT_TAKEOVER, null),
+                                            new TyrusExtension.TyrusParameter(SERVER_NO_CONTEXT_TAKEOVER, null));
+        }
         return Collections.<Parameter>emptyList();
     }
 
+    /**
+     * Per-session state of the extension.
+     */
+    private static class State {
+
+        private boolean outgoingNoContextTakeover;
+        private boolean incomingNoContextTakeover;
+        private int outgoingWindowBits = MAX_WINDOW_BITS;
+
+        /**
+         * Owned by the session when the context is taken over, leased from the pool for a message otherwise.
+         */
+        private Deflater deflater;
+        private Inflater inflater;
+
+        private boolean outgoingCompressed;
+        private boolean incomingCompressed;
+
+        private void setOutgoingWindowBits(int windowBits) {
+            outgoingWindowBits = windowBits;
+            // the window can be honoured only if no message refers to the previous ones.
+            if (windowBits < MAX_WINDOW_BITS) {
+                outgoingNoContextTakeover = true;
+            }
+        }
+    }
 
     /**
-     * Generic pool that instances of T which are expensive to create.
+     * Growable output of a single compression or decompression pass.
+     */
+    private static class Output {
+
+        private byte[] data;
+        private int length = 0;
+
+        private Output(int initialSize) {
+            data = new byte[initialSize];
+        }
+
+        private void grow() {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+    }
+
+    /**
+     * Bounded pool of instances which are expensive to create.
      *
      * @author Jitendra Kotamraju
      * @author Pavel Bucek (pavel.bucek at oracle.com)
      */
     private abstract static class Pool<T> {
 
-        // volatile since multiple threads may access queue reference
-        private volatile WeakReference<ConcurrentLinkedQueue<T>> queue;
+        private final ConcurrentLinkedQueue<T> queue = new ConcurrentLinkedQueue<T>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final int maxSize;
+
+        Pool(int maxSize) {
+            this.maxSize = maxSize;
+        }
 
         /**
          * Gets a new object from the pool.
          * <p/>
-         * <p/>
          * If no object is available in the pool, this method creates a new one.
          *
          * @return always non-null.
          */
         public final T take() {
-            T t = getQueue().poll();
+            T t = queue.poll();
             if (t == null) {
                 return create();
             }
+            size.decrementAndGet();
             return t;
         }
 
         /**
-         * Create new instance to be added into pool.
+         * Returns an object back to the pool. The object is reset or disposed when the pool is full.
          *
-         * @return new instance.
+         * @param t object to be returned.
          */
-        abstract T create();
-
-        private ConcurrentLinkedQueue<T> getQueue() {
-            WeakReference<ConcurrentLinkedQueue<T>> q = queue;
-            if (q != null) {
-                ConcurrentLinkedQueue<T> d = q.get();
-                if (d != null) {
-                    return d;
-                }
+        public final void recycle(T t) {
+            if (size.incrementAndGet() > maxSize) {
+                size.decrementAndGet();
+                dispose(t);
+                return;
             }
 
-            // overwrite the queue
-            ConcurrentLinkedQueue<T> d = new ConcurrentLinkedQueue<T>();
-            queue = new WeakReference<ConcurrentLinkedQueue<T>>(d);
-
-            return d;
+            reset(t);
+            queue.offer(t);
         }
 
         /**
-         * Returns an object back to the pool.
+         * Create new instance to be added into pool.
+         *
+         * @return new instance.
          */
-        public final void recycle(T t) {
-            getQueue().offer(t);
-        }
-    }
-
-    private static class PartialResultWithLength<T> {
-        private final int length;
-        private final T result;
-
-        private PartialResultWithLength(int length, T result) {
-            this.length = length;
-            this.result = result;
-        }
+        abstract T create();
 
-        public int getLength() {
-            return length;
-        }
+        /**
+         * Reset the state of an instance returned to the pool.
+         *
+         * @param t instance to be reset.
+         */
+        abstract void reset(T t);
 
-        public T getResult() {
-            return result;
-        }
+        /**
+         * Release resources of an instance which does not fit into the pool.
+         *
+         * @param t instance to be disposed.
+         */
+        abstract void dispose(T t);
     }
 }
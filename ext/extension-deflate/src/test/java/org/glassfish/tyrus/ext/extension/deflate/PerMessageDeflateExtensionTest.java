@@ -46,11 +46,14 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.websocket.ClientEndpointConfig;
 import javax.websocket.DeploymentException;
@@ -63,11 +66,23 @@ import javax.websocket.Session;
 import javax.websocket.server.ServerEndpointConfig;
 
 import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.core.TyrusExtension;
+import org.glassfish.tyrus.core.TyrusSession;
+import org.glassfish.tyrus.core.extension.ExtendedExtension;
+import org.glassfish.tyrus.core.frame.Frame;
+import org.glassfish.tyrus.core.frame.TyrusFrame;
+import org.glassfish.tyrus.core.monitoring.CompressionEventListener;
+import org.glassfish.tyrus.core.monitoring.MessageEventListener;
 import org.glassfish.tyrus.server.Server;
 import org.glassfish.tyrus.server.TyrusServerConfiguration;
 import org.glassfish.tyrus.test.tools.TestContainer;
 
 import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -90,6 +105,22 @@ public class PerMessageDeflateExtensionTest extends TestContainer {
         }
     }
 
+    public static class BroadcastApplicationConfig extends TyrusServerConfiguration {
+        public BroadcastApplicationConfig() {
+            super(Collections.<Class<?>>emptySet(), new HashSet<ServerEndpointConfig>() {
+                {
+                    add(ServerEndpointConfig.Builder.create(BroadcastEndpoint.class, "/compressionBroadcastTest")
+                                                    .extensions(Arrays.<Extension>asList(BROADCAST_EXTENSION))
+                                                    .build());
+                }
+
+                private static final long serialVersionUID = 4404839574524339468L;
+            });
+        }
+    }
+
+    private static final CountingDeflateExtension BROADCAST_EXTENSION = new CountingDeflateExtension();
+
     public static class EchoEndpoint extends Endpoint {
 
         @Override
@@ -166,6 +197,337 @@ public class PerMessageDeflateExtensionTest extends TestContainer {
 
     }
 
+    public static class BroadcastEndpoint extends Endpoint {
+
+        @Override
+        public void onOpen(final Session session, EndpointConfig config) {
+            session.addMessageHandler(new MessageHandler.Whole<String>() {
+                @Override
+                public void onMessage(String message) {
+                    ((TyrusSession) session).broadcast(message);
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testBroadcastCompressedOnce() throws DeploymentException, IOException, InterruptedException {
+        final int sessionCount = 3;
+        final String message = new String(createMessage(1000), Charset.forName("UTF-8"));
+
+        BROADCAST_EXTENSION.compressedMessages.set(0);
+        final Server server = startServer(BroadcastApplicationConfig.class);
+
+        try {
+            final CountDownLatch messageLatch = new CountDownLatch(sessionCount);
+            final List<Session> sessions = new ArrayList<Session>();
+            for (int i = 0; i < sessionCount; i++) {
+                final ClientEndpointConfig config = ClientEndpointConfig.Builder.create().extensions(
+                        Arrays.<Extension>asList(new PerMessageDeflateExtension(true))).build();
+
+                sessions.add(ClientManager.createClient().connectToServer(new Endpoint() {
+                    @Override
+                    public void onOpen(Session session, EndpointConfig config) {
+                        session.addMessageHandler(new MessageHandler.Whole<String>() {
+                            @Override
+                            public void onMessage(String received) {
+                                if (message.equals(received)) {
+                                    messageLatch.countDown();
+                                }
+                            }
+                        });
+                    }
+                }, config, getURI("/compressionBroadcastTest")));
+            }
+
+            sessions.get(0).getBasicRemote().sendText(message);
+            assertTrue(messageLatch.await(5, TimeUnit.SECONDS));
+
+            // sessions without context takeover share the compressed frame.
+            assertEquals(1, BROADCAST_EXTENSION.compressedMessages.get());
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    @Test
+    public void testSharedFramingKey() {
+        final ExtendedExtension.ExtensionContext takeoverContext = createContext();
+        final ExtendedExtension.ExtensionContext noTakeoverContext1 = createContext();
+        final ExtendedExtension.ExtensionContext noTakeoverContext2 = createContext();
+        final ExtendedExtension.ExtensionContext windowBitsContext = createContext();
+        final PerMessageDeflateExtension extension = new PerMessageDeflateExtension();
+
+        extension.onExtensionNegotiation(takeoverContext, null);
+        extension.onExtensionNegotiation(noTakeoverContext1, new PerMessageDeflateExtension(true).getParameters());
+        extension.onExtensionNegotiation(noTakeoverContext2, new PerMessageDeflateExtension(true).getParameters());
+        extension.onExtensionNegotiation(
+                windowBitsContext,
+                Arrays.<Extension.Parameter>asList(new TyrusExtension.TyrusParameter("server_max_window_bits", "10")));
+
+        assertNull(extension.getSharedFramingKey(takeoverContext));
+        assertNotNull(extension.getSharedFramingKey(noTakeoverContext1));
+        assertEquals(extension.getSharedFramingKey(noTakeoverContext1),
+                     extension.getSharedFramingKey(noTakeoverContext2));
+        assertFalse(extension.getSharedFramingKey(noTakeoverContext1)
+                             .equals(extension.getSharedFramingKey(windowBitsContext)));
+    }
+
+    @Test
+    public void testContextTakeover() {
+        final ExtendedExtension.ExtensionContext serverContext = createContext();
+        final ExtendedExtension.ExtensionContext clientContext = createContext();
+        final List<Extension.Parameter> response =
+                new PerMessageDeflateExtension().onExtensionNegotiation(serverContext, null);
+        new PerMessageDeflateExtension().onHandshakeResponse(clientContext, response);
+
+        assertTrue(response.isEmpty());
+
+        final byte[] message = createMessage(1000);
+        final Frame first = roundTrip(clientContext, serverContext, message);
+        final Frame second = roundTrip(clientContext, serverContext, message);
+
+        // second message refers to the first one.
+        assertTrue(second.getPayloadLength() < first.getPayloadLength());
+    }
+
+    @Test
+    public void testNoContextTakeover() {
+        final ExtendedExtension.ExtensionContext serverContext = createContext();
+        final ExtendedExtension.ExtensionContext clientContext = createContext();
+        final PerMessageDeflateExtension clientExtension = new PerMessageDeflateExtension(true);
+        final List<Extension.Parameter> response = new PerMessageDeflateExtension()
+                .onExtensionNegotiation(serverContext, clientExtension.getParameters());
+        clientExtension.onHandshakeResponse(clientContext, response);
+
+        assertEquals(2, response.size());
+
+        final byte[] message = createMessage(1000);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(roundTrip(clientContext, serverContext, message).getPayloadLength(),
+                         roundTrip(serverContext, clientContext, message).getPayloadLength());
+        }
+    }
+
+    @Test
+    public void testServerMaxWindowBits() {
+        final ExtendedExtension.ExtensionContext serverContext = createContext();
+        final ExtendedExtension.ExtensionContext clientContext = createContext();
+        final List<Extension.Parameter> response = new PerMessageDeflateExtension().onExtensionNegotiation(
+                serverContext,
+                Arrays.<Extension.Parameter>asList(new TyrusExtension.TyrusParameter("server_max_window_bits", "10")));
+        new PerMessageDeflateExtension().onHandshakeResponse(clientContext, response);
+
+        assertEquals("server_max_window_bits", response.get(0).getName());
+        assertEquals("10", response.get(0).getValue());
+
+        assertTrue(roundTrip(serverContext, clientContext, createMessage(1024)).isRsv1());
+        assertTrue(roundTrip(serverContext, clientContext, createMessage(1024)).isRsv1());
+        assertFalse(roundTrip(serverContext, clientContext, createMessage(1025)).isRsv1());
+        assertTrue(roundTrip(clientContext, serverContext, createMessage(5000)).isRsv1());
+    }
+
+    @Test
+    public void testFragmentedMessage() {
+        final ExtendedExtension.ExtensionContext serverContext = createContext();
+        final ExtendedExtension.ExtensionContext clientContext = createContext();
+        final PerMessageDeflateExtension extension = new PerMessageDeflateExtension(true);
+        new PerMessageDeflateExtension().onHandshakeResponse(
+                clientContext, extension.onExtensionNegotiation(serverContext, null));
+
+        for (int i = 0; i < 2; i++) {
+            final byte[] part = createMessage(500);
+            final Frame first = extension.processOutgoing(
+                    serverContext, Frame.builder().opcode((byte) 0x02).fin(false).payloadData(part).build());
+            final Frame last = extension.processOutgoing(
+                    serverContext, Frame.builder().opcode((byte) 0x00).fin(true).payloadData(part).build());
+
+            assertTrue(first.isRsv1());
+            assertFalse(last.isRsv1());
+
+            assertArrayEquals(part, extension.processIncoming(clientContext, first).getPayloadData());
+            assertArrayEquals(part, extension.processIncoming(clientContext, last).getPayloadData());
+        }
+    }
+
+    @Test
+    public void testBypass() {
+        final ExtendedExtension.ExtensionContext serverContext = createContext();
+        final ExtendedExtension.ExtensionContext clientContext = createContext();
+        final PerMessageDeflateExtension extension =
+                new PerMessageDeflateExtension(true).setMinCompressionSize(100).setCompressTextMessages(false);
+        new PerMessageDeflateExtension().onHandshakeResponse(
+                clientContext, extension.onExtensionNegotiation(serverContext, null));
+
+        // small message.
+        assertFalse(roundTrip(extension, serverContext, clientContext, createMessage(99)).isRsv1());
+        assertTrue(roundTrip(extension, serverContext, clientContext, createMessage(100)).isRsv1());
+
+        // already compressed.
+        final byte[] gzip = createMessage(1000);
+        gzip[0] = 0x1f;
+        gzip[1] = (byte) 0x8b;
+        assertFalse(roundTrip(extension, serverContext, clientContext, gzip).isRsv1());
+
+        // incompressible.
+        final byte[] random = new byte[1000];
+        new Random(42).nextBytes(random);
+        assertFalse(roundTrip(extension, serverContext, clientContext, random).isRsv1());
+
+        // excluded message type.
+        final Frame text = extension.processOutgoing(
+                serverContext, Frame.builder().opcode((byte) 0x01).fin(true).payloadData(createMessage(1000)).build());
+        assertFalse(text.isRsv1());
+        assertEquals(1000, text.getPayloadLength());
+    }
+
+    @Test
+    public void testStatistics() {
+        final ExtendedExtension.ExtensionContext serverContext = createContext();
+        final ExtendedExtension.ExtensionContext clientContext = createContext();
+        new PerMessageDeflateExtension().onHandshakeResponse(
+                clientContext, new PerMessageDeflateExtension().onExtensionNegotiation(serverContext, null));
+
+        final long[] compressed = new long[2];
+        final long[] decompressed = new long[2];
+        serverContext.getProperties().put(ExtendedExtension.ExtensionContext.MESSAGE_EVENT_LISTENER,
+                                          new StatisticsListener() {
+                                              @Override
+                                              public void onFrameCompressed(long payloadLength, long compressedLength,
+                                                                            long nanos) {
+                                                  compressed[0] += payloadLength;
+                                                  compressed[1] += compressedLength;
+                                              }
+                                          });
+        clientContext.getProperties().put(ExtendedExtension.ExtensionContext.MESSAGE_EVENT_LISTENER,
+                                          new StatisticsListener() {
+                                              @Override
+                                              public void onFrameDecompressed(long compressedLength,
+                                                                              long payloadLength, long nanos) {
+                                                  decompressed[0] += payloadLength;
+                                                  decompressed[1] += compressedLength;
+                                              }
+                                          });
+
+        final Frame sent = roundTrip(serverContext, clientContext, createMessage(1000));
+
+        assertEquals(1000, compressed[0]);
+        assertEquals(sent.getPayloadLength(), compressed[1]);
+        assertArrayEquals(compressed, decompressed);
+    }
+
+    @Test
+    public void testStatisticsOfUncompressedMessage() {
+        final ExtendedExtension.ExtensionContext serverContext = createContext();
+        final ExtendedExtension.ExtensionContext clientContext = createContext();
+        final PerMessageDeflateExtension extension = new PerMessageDeflateExtension(true);
+        new PerMessageDeflateExtension().onHandshakeResponse(
+                clientContext, extension.onExtensionNegotiation(serverContext, null));
+
+        final int[] reported = new int[1];
+        serverContext.getProperties().put(ExtendedExtension.ExtensionContext.MESSAGE_EVENT_LISTENER,
+                                          new StatisticsListener() {
+                                              @Override
+                                              public void onFrameCompressed(long payloadLength, long compressedLength,
+                                                                            long nanos) {
+                                                  reported[0]++;
+                                              }
+                                          });
+
+        // incompressible message is sent as it is and its compression is not reported.
+        final byte[] random = new byte[1000];
+        new Random(42).nextBytes(random);
+        assertFalse(roundTrip(extension, serverContext, clientContext, random).isRsv1());
+        assertEquals(0, reported[0]);
+
+        assertTrue(roundTrip(extension, serverContext, clientContext, createMessage(1000)).isRsv1());
+        assertEquals(1, reported[0]);
+    }
+
+    @Test
+    public void testHighlyCompressedMessage() {
+        final ExtendedExtension.ExtensionContext serverContext = createContext();
+        final ExtendedExtension.ExtensionContext clientContext = createContext();
+        new PerMessageDeflateExtension().onHandshakeResponse(
+                clientContext, new PerMessageDeflateExtension().onExtensionNegotiation(serverContext, null));
+
+        // decompressed payload is many times bigger than the initial output buffer.
+        final Frame sent = roundTrip(serverContext, clientContext, new byte[1 << 20]);
+        assertTrue(sent.getPayloadLength() < 8192);
+    }
+
+    private static Frame roundTrip(ExtendedExtension.ExtensionContext senderContext,
+                                   ExtendedExtension.ExtensionContext receiverContext, byte[] message) {
+        return roundTrip(new PerMessageDeflateExtension(), senderContext, receiverContext, message);
+    }
+
+    private static Frame roundTrip(PerMessageDeflateExtension extension,
+                                   ExtendedExtension.ExtensionContext senderContext,
+                                   ExtendedExtension.ExtensionContext receiverContext, byte[] message) {
+        final Frame sent = extension.processOutgoing(
+                senderContext, Frame.builder().opcode((byte) 0x02).fin(true).payloadData(message).build());
+        final Frame received = extension.processIncoming(receiverContext, sent);
+
+        assertArrayEquals(message, received.getPayloadData());
+        return sent;
+    }
+
+    private static byte[] createMessage(int length) {
+        final byte[] message = new byte[length];
+        for (int i = 0; i < length; i++) {
+            message[i] = (byte) ('a' + (i * 7 + i / 13) % 26);
+        }
+        return message;
+    }
+
+    private static ExtendedExtension.ExtensionContext createContext() {
+        return new ExtendedExtension.ExtensionContext() {
+
+            private final Map<String, Object> properties = new HashMap<String, Object>();
+
+            @Override
+            public Map<String, Object> getProperties() {
+                return properties;
+            }
+        };
+    }
+
+    /**
+     * Counts compressed outgoing text messages.
+     */
+    private static class CountingDeflateExtension extends PerMessageDeflateExtension {
+
+        private final AtomicInteger compressedMessages = new AtomicInteger();
+
+        @Override
+        public Frame processOutgoing(ExtensionContext context, Frame frame) {
+            final Frame processed = super.processOutgoing(context, frame);
+            if (frame.getOpcode() == 0x01 && processed.isRsv1()) {
+                compressedMessages.incrementAndGet();
+            }
+            return processed;
+        }
+    }
+
+    private static class StatisticsListener implements MessageEventListener, CompressionEventListener {
+
+        @Override
+        public void onFrameSent(TyrusFrame.FrameType frameType, long payloadLength) {
+        }
+
+        @Override
+        public void onFrameReceived(TyrusFrame.FrameType frameType, long payloadLength) {
+        }
+
+        @Override
+        public void onFrameCompressed(long payloadLength, long compressedLength, long nanos) {
+        }
+
+        @Override
+        public void onFrameDecompressed(long compressedLength, long payloadLength, long nanos) {
+        }
+    }
+
     public static class LoggingClientEndpointConfigurator extends ClientEndpointConfig.Configurator {
         @Override
         public void beforeRequest(Map<String, List<String>> headers) {
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2014-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -85,4 +85,46 @@ public interface ApplicationMXBean extends BaseMXBean {
      * @return list of MXBeans representing registered endpoints.
      */
     public List<EndpointMXBean> getEndpointMXBeans();
+
+    /**
+     * Get the number of outgoing frames compressed by extensions, e.g. permessage-deflate.
+     *
+     * @return the number of compressed outgoing frames.
+     */
+    public long getCompressedFramesCount();
+
+    /**
+     * Get the ratio of the compressed size to the original size of all compressed outgoing frame payloads.
+     *
+     * @return compression ratio of outgoing frames, {@code 1} when no frame has been compressed.
+     */
+    public double getCompressionRatio();
+
+    /**
+     * Get the time spent compressing outgoing frames.
+     *
+     * @return time spent compressing outgoing frames in milliseconds.
+     */
+    public long getCompressionTime();
+
+    /**
+     * Get the number of incoming frames decompressed by extensions, e.g. permessage-deflate.
+     *
+     * @return the number of decompressed incoming frames.
+     */
+    public long getDecompressedFramesCount();
+
+    /**
+     * Get the ratio of the compressed size to the decompressed size of all decompressed incoming frame payloads.
+     *
+     * @return compression ratio of incoming frames, {@code 1} when no frame has been decompressed.
+     */
+    public double getDecompressionRatio();
+
+    /**
+     * Get the time spent decompressing incoming frames.
+     *
+     * @return time spent decompressing incoming frames in milliseconds.
+     */
+    public long getDecompressionTime();
 }
@@ -57,6 +57,8 @@ class ApplicationMXBeanImpl extends BaseMXBeanImpl implements ApplicationMXBean,
             new ConcurrentHashMap<String, EndpointMXBean>();
     private final Callable<Integer> openSessionsCount;
     private final Callable<Integer> maxOpenSessionsCount;
+    private final CompressionStatistics compressionStatistics;
+    private final CompressionStatistics decompressionStatistics;
 
     public ApplicationMXBeanImpl(MessageStatisticsSource sentMessageStatistics,
                                  MessageStatisticsSource receivedMessageStatistics,
@@ -65,13 +67,17 @@ class ApplicationMXBeanImpl extends BaseMXBeanImpl implements ApplicationMXBean,
                                  Callable<Integer> maxOpenSessionsCount, Callable<List<ErrorCount>> errorCounts,
                                  MessageStatisticsMXBean textMessageStatisticsMXBean,
                                  MessageStatisticsMXBean binaryMessageStatisticsMXBean,
-                                 MessageStatisticsMXBean controlMessageStatisticsMXBean) {
+                                 MessageStatisticsMXBean controlMessageStatisticsMXBean,
+                                 CompressionStatistics compressionStatistics,
+                                 CompressionStatistics decompressionStatistics) {
         super(sentMessageStatistics, receivedMessageStatistics, errorCounts, textMessageStatisticsMXBean,
               binaryMessageStatisticsMXBean, controlMessageStatisticsMXBean);
         this.endpoints = endpoints;
         this.endpointPaths = endpointPaths;
         this.openSessionsCount = openSessionsCount;
         this.maxOpenSessionsCount = maxOpenSessionsCount;
+        this.compressionStatistics = compressionStatistics;
+        this.decompressionStatistics = decompressionStatistics;
     }
 
     @Override
@@ -99,6 +105,36 @@ class ApplicationMXBeanImpl extends BaseMXBeanImpl implements ApplicationMXBean,
         return maxOpenSessionsCount.call();
     }
 
+    @Override
+    public long getCompressedFramesCount() {
+        return compressionStatistics.getFramesCount();
+    }
+
+    @Override
+    public double getCompressionRatio() {
+        return compressionStatistics.getRatio();
+    }
+
+    @Override
+    public long getCompressionTime() {
+        return compressionStatistics.getTime();
+    }
+
+    @Override
+    public long getDecompressedFramesCount() {
+        return decompressionStatistics.getFramesCount();
+    }
+
+    @Override
+    public double getDecompressionRatio() {
+        return decompressionStatistics.getRatio();
+    }
+
+    @Override
+    public long getDecompressionTime() {
+        return decompressionStatistics.getTime();
+    }
+
     void putEndpointMXBean(String endpointPath, EndpointMXBean endpointMXBean) {
         endpointMXBeans.put(endpointPath, endpointMXBean);
     }
@@ -79,6 +79,9 @@ class ApplicationMonitor extends BaseMonitor implements ApplicationEventListener
     private final ConcurrentMessageStatistics receivedBinaryMessageStatistics = new ConcurrentMessageStatistics();
     private final ConcurrentMessageStatistics receivedControlMessageStatistics = new ConcurrentMessageStatistics();
 
+    private final CompressionStatistics compressionStatistics = new CompressionStatistics();
+    private final CompressionStatistics decompressionStatistics = new CompressionStatistics();
+
     private volatile int maxOpenSessionCount = 0;
     private volatile String applicationName;
     private volatile ApplicationMXBeanImpl applicationMXBean;
@@ -116,7 +119,7 @@ class ApplicationMonitor extends BaseMonitor implements ApplicationEventListener
                 new ApplicationMXBeanImpl(sentTotalStatistics, receivedTotalStatistics, getEndpoints(),
                                           getEndpointPaths(), getOpenSessionsCount(), getMaxOpenSessionsCount(),
                                           getErrorCounts(), textMessagesMXBean, binaryMessagesMXBean,
-                                          controlMessagesMXBean);
+                                          controlMessagesMXBean, compressionStatistics, decompressionStatistics);
 
         MBeanPublisher.registerApplicationMXBeans(applicationName, applicationMXBean, textMessagesMXBean,
                                                   binaryMessagesMXBean, controlMessagesMXBean);
@@ -253,4 +256,24 @@ class ApplicationMonitor extends BaseMonitor implements ApplicationEventListener
     public void onControlMessageReceived(long length) {
         receivedControlMessageStatistics.onMessage(length);
     }
+
+    @Override
+    public void onOutboundQueueSizeChanged(long queuedBytes) {
+        // outbound queue belongs to a connection, its size is exposed only in session MXBeans.
+    }
+
+    @Override
+    public void onOutboundMessageDropped(long length) {
+        // outbound queue belongs to a connection, dropped messages are counted only in session MXBeans.
+    }
+
+    @Override
+    public void onFrameCompressed(long payloadLength, long compressedLength, long nanos) {
+        compressionStatistics.onFrame(payloadLength, compressedLength, nanos);
+    }
+
+    @Override
+    public void onFrameDecompressed(long compressedLength, long payloadLength, long nanos) {
+        decompressionStatistics.onFrame(payloadLength, compressedLength, nanos);
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.ext.monitoring.jmx;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics of payloads compressed or decompressed by extensions, allows concurrent updates by many threads.
+ *
+ * @see org.glassfish.tyrus.core.monitoring.CompressionEventListener#onFrameCompressed(long, long, long)
+ */
+class CompressionStatistics implements Serializable {
+
+    private static final long serialVersionUID = 2290325512283307613L;
+
+    private final LongAdder framesCount = new LongAdder();
+    private final LongAdder uncompressedSize = new LongAdder();
+    private final LongAdder compressedSize = new LongAdder();
+    private final LongAdder time = new LongAdder();
+
+    void onFrame(long uncompressedLength, long compressedLength, long nanos) {
+        framesCount.increment();
+        uncompressedSize.add(uncompressedLength);
+        compressedSize.add(compressedLength);
+        time.add(nanos);
+    }
+
+    /**
+     * Get the ratio of the compressed size to the uncompressed size of all processed payloads.
+     *
+     * @return compression ratio or {@code 1} when nothing has been processed.
+     */
+    double getRatio() {
+        final long uncompressed = uncompressedSize.longValue();
+        if (uncompressed == 0) {
+            return 1;
+        }
+        return (double) compressedSize.longValue() / uncompressed;
+    }
+
+    /**
+     * Get the total time spent by the compression or decompression.
+     *
+     * @return time in milliseconds.
+     */
+    long getTime() {
+        return TimeUnit.NANOSECONDS.toMillis(time.longValue());
+    }
+
+    long getFramesCount() {
+        return framesCount.longValue();
+    }
+}
@@ -167,4 +167,24 @@ abstract class EndpointMonitor extends BaseMonitor implements EndpointEventListe
         receivedControlMessageStatistics.onMessage(length);
         applicationMonitor.onControlMessageReceived(length);
     }
+
+    @Override
+    public void onOutboundQueueSizeChanged(long queuedBytes) {
+        // outbound queue belongs to a connection, its size is exposed only in session MXBeans.
+    }
+
+    @Override
+    public void onOutboundMessageDropped(long length) {
+        // outbound queue belongs to a connection, dropped messages are counted only in session MXBeans.
+    }
+
+    @Override
+    public void onFrameCompressed(long payloadLength, long compressedLength, long nanos) {
+        applicationMonitor.onFrameCompressed(payloadLength, compressedLength, nanos);
+    }
+
+    @Override
+    public void onFrameDecompressed(long compressedLength, long payloadLength, long nanos) {
+        applicationMonitor.onFrameDecompressed(compressedLength, payloadLength, nanos);
+    }
 }
@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2014-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -40,14 +40,16 @@
 package org.glassfish.tyrus.ext.monitoring.jmx;
 
 import org.glassfish.tyrus.core.frame.TyrusFrame;
+import org.glassfish.tyrus.core.monitoring.CompressionEventListener;
 import org.glassfish.tyrus.core.monitoring.MessageEventListener;
+import org.glassfish.tyrus.core.monitoring.OutboundQueueEventListener;
 
 /**
  * Determines the type of a received or sent frame.
  *
  * @author Petr Janouch (petr.janouch at oracle.com)
  */
-class MessageEventListenerImpl implements MessageEventListener {
+class MessageEventListenerImpl implements MessageEventListener, OutboundQueueEventListener, CompressionEventListener {
 
     private final MessageListener messageListener;
 
@@ -80,4 +82,24 @@ class MessageEventListenerImpl implements MessageEventListener {
             messageListener.onControlMessageReceived(payloadLength);
         }
     }
+
+    @Override
+    public void onOutboundQueueSizeChanged(long queuedBytes) {
+        messageListener.onOutboundQueueSizeChanged(queuedBytes);
+    }
+
+    @Override
+    public void onOutboundMessageDropped(long length) {
+        messageListener.onOutboundMessageDropped(length);
+    }
+
+    @Override
+    public void onFrameCompressed(long payloadLength, long compressedLength, long nanos) {
+        messageListener.onFrameCompressed(payloadLength, compressedLength, nanos);
+    }
+
+    @Override
+    public void onFrameDecompressed(long compressedLength, long payloadLength, long nanos) {
+        messageListener.onFrameDecompressed(compressedLength, payloadLength, nanos);
+    }
 }
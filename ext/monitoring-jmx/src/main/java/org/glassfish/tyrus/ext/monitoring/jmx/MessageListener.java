@@ -58,4 +58,12 @@ interface MessageListener {
     void onBinaryMessageReceived(long length);
 
     void onControlMessageReceived(long length);
+
+    void onOutboundQueueSizeChanged(long queuedBytes);
+
+    void onOutboundMessageDropped(long length);
+
+    void onFrameCompressed(long payloadLength, long compressedLength, long nanos);
+
+    void onFrameDecompressed(long compressedLength, long payloadLength, long nanos);
 }
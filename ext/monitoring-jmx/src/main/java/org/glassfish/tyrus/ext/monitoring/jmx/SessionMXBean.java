@@ -1,7 +1,7 @@
 /*
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
- * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2014-2015 Oracle and/or its affiliates. All rights reserved.
  *
  * The contents of this file are subject to the terms of either the GNU
  * General Public License Version 2 only ("GPL") or the Common Development
@@ -52,4 +52,21 @@ public interface SessionMXBean extends BaseMXBean {
      * @return the ID of the session.
      */
     public String getSessionId();
+
+    /**
+     * Get the number of bytes waiting to be written to the connection.
+     *
+     * @return the number of bytes waiting to be written to the connection.
+     * @see org.glassfish.tyrus.core.TyrusWebSocketEngine#OUTBOUND_QUEUE_HIGH_WATERMARK
+     */
+    public long getOutboundQueueSize();
+
+    /**
+     * Get the number of outgoing messages refused or discarded because the outbound queue of the connection was
+     * saturated.
+     *
+     * @return the number of refused or discarded outgoing messages.
+     * @see org.glassfish.tyrus.core.OutboundOverflowPolicy
+     */
+    public long getDroppedOutboundMessagesCount();
 }
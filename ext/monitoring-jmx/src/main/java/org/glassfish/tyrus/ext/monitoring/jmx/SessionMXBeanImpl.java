@@ -50,18 +50,33 @@ class SessionMXBeanImpl extends BaseMXBeanImpl implements SessionMXBean, Seriali
     private static final long serialVersionUID = -5996261566352502699L;
 
     private final String sessionId;
+    private final Callable<Long> outboundQueueSize;
+    private final Callable<Long> droppedOutboundMessagesCount;
 
     SessionMXBeanImpl(MessageStatisticsSource sentMessageStatistics, MessageStatisticsSource receivedMessageStatistics,
                       Callable<List<ErrorCount>> errorCounts, MessageStatisticsMXBean textMessageStatisticsMXBean,
                       MessageStatisticsMXBean binaryMessageStatisticsMXBean,
-                      MessageStatisticsMXBean controlMessageStatisticsMXBean, String sessionId) {
+                      MessageStatisticsMXBean controlMessageStatisticsMXBean, String sessionId,
+                      Callable<Long> outboundQueueSize, Callable<Long> droppedOutboundMessagesCount) {
         super(sentMessageStatistics, receivedMessageStatistics, errorCounts, textMessageStatisticsMXBean,
               binaryMessageStatisticsMXBean, controlMessageStatisticsMXBean);
         this.sessionId = sessionId;
+        this.outboundQueueSize = outboundQueueSize;
+        this.droppedOutboundMessagesCount = droppedOutboundMessagesCount;
     }
 
     @Override
     public String getSessionId() {
         return sessionId;
     }
+
+    @Override
+    public long getOutboundQueueSize() {
+        return outboundQueueSize.call();
+    }
+
+    @Override
+    public long getDroppedOutboundMessagesCount() {
+        return droppedOutboundMessagesCount.call();
+    }
 }
@@ -59,6 +59,9 @@ class SessionMonitor extends BaseMonitor implements MessageListener {
     private final MessageStatistics receivedBinaryMessageStatistics = new MessageStatistics();
     private final MessageStatistics receivedControlMessageStatistics = new MessageStatistics();
 
+    private final AtomicLong droppedOutboundMessagesCount = new AtomicLong(0);
+    private volatile long outboundQueueSize = 0;
+
     private final String applicationName;
     private final String endpointPath;
     private final String sessionId;
@@ -88,7 +91,19 @@ class SessionMonitor extends BaseMonitor implements MessageListener {
                                                 receivedControlMessageStatistics);
         SessionMXBeanImpl sessionMXBean =
                 new SessionMXBeanImpl(sentMessagesTotal, receivedMessagesTotal, getErrorCounts(), textMessagesMXBean,
-                                      binaryMessagesMXBean, controlMessagesMXBean, sessionId);
+                                      binaryMessagesMXBean, controlMessagesMXBean, sessionId,
+                                      new Callable<Long>() {
+                                          @Override
+                                          public Long call() {
+                                              return outboundQueueSize;
+                                          }
+                                      },
+                                      new Callable<Long>() {
+                                          @Override
+                                          public Long call() {
+                                              return droppedOutboundMessagesCount.get();
+                                          }
+                                      });
 
         endpointMXBean.putSessionMXBean(sessionId, sessionMXBean);
         MBeanPublisher
@@ -137,6 +152,26 @@ class SessionMonitor extends BaseMonitor implements MessageListener {
         messageListener.onControlMessageReceived(length);
     }
 
+    @Override
+    public void onOutboundQueueSizeChanged(long queuedBytes) {
+        outboundQueueSize = queuedBytes;
+    }
+
+    @Override
+    public void onOutboundMessageDropped(long length) {
+        droppedOutboundMessagesCount.incrementAndGet();
+    }
+
+    @Override
+    public void onFrameCompressed(long payloadLength, long compressedLength, long nanos) {
+        messageListener.onFrameCompressed(payloadLength, compressedLength, nanos);
+    }
+
+    @Override
+    public void onFrameDecompressed(long compressedLength, long payloadLength, long nanos) {
+        messageListener.onFrameDecompressed(compressedLength, payloadLength, nanos);
+    }
+
     private static class MessageStatistics implements MessageStatisticsSource {
 
         /*
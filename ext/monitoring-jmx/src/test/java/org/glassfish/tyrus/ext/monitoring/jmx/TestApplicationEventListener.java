@@ -43,8 +43,10 @@ import java.util.concurrent.CountDownLatch;
 
 import org.glassfish.tyrus.core.frame.TyrusFrame;
 import org.glassfish.tyrus.core.monitoring.ApplicationEventListener;
+import org.glassfish.tyrus.core.monitoring.CompressionEventListener;
 import org.glassfish.tyrus.core.monitoring.EndpointEventListener;
 import org.glassfish.tyrus.core.monitoring.MessageEventListener;
+import org.glassfish.tyrus.core.monitoring.OutboundQueueEventListener;
 
 /**
  * {@link org.glassfish.tyrus.core.monitoring.ApplicationEventListener} wrapper that accepts five latches that are
@@ -152,7 +154,8 @@ class TestApplicationEventListener implements ApplicationEventListener {
         }
     }
 
-    private class TestMessageEventListener implements MessageEventListener {
+    private class TestMessageEventListener
+            implements MessageEventListener, OutboundQueueEventListener, CompressionEventListener {
 
         private final MessageEventListener messageEventListener;
         private final CountDownLatch messageSentLatch;
@@ -180,5 +183,35 @@ class TestApplicationEventListener implements ApplicationEventListener {
                 messageReceivedLatch.countDown();
             }
         }
+
+        @Override
+        public void onOutboundQueueSizeChanged(long queuedBytes) {
+            if (messageEventListener instanceof OutboundQueueEventListener) {
+                ((OutboundQueueEventListener) messageEventListener).onOutboundQueueSizeChanged(queuedBytes);
+            }
+        }
+
+        @Override
+        public void onOutboundMessageDropped(long length) {
+            if (messageEventListener instanceof OutboundQueueEventListener) {
+                ((OutboundQueueEventListener) messageEventListener).onOutboundMessageDropped(length);
+            }
+        }
+
+        @Override
+        public void onFrameCompressed(long payloadLength, long compressedLength, long nanos) {
+            if (messageEventListener instanceof CompressionEventListener) {
+                ((CompressionEventListener) messageEventListener)
+                        .onFrameCompressed(payloadLength, compressedLength, nanos);
+            }
+        }
+
+        @Override
+        public void onFrameDecompressed(long compressedLength, long payloadLength, long nanos) {
+            if (messageEventListener instanceof CompressionEventListener) {
+                ((CompressionEventListener) messageEventListener)
+                        .onFrameDecompressed(compressedLength, payloadLength, nanos);
+            }
+        }
     }
 }
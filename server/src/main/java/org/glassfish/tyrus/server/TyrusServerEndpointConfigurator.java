@@ -49,6 +49,7 @@ import javax.websocket.server.ServerEndpointConfig;
 
 import org.glassfish.tyrus.core.ComponentProviderService;
 import org.glassfish.tyrus.core.extension.ExtendedExtension;
+import org.glassfish.tyrus.core.extension.SharedFramingExtension;
 import org.glassfish.tyrus.core.frame.Frame;
 
 /**
@@ -110,7 +111,17 @@ public class TyrusServerEndpointConfigurator extends ServerEndpointConfig.Config
                         if (!alreadyAdded) {
                             if (extension instanceof ExtendedExtension) {
                                 final ExtendedExtension extendedExtension = (ExtendedExtension) extension;
-                                result.add(new ExtendedExtension() {
+                                // delegates also the sharing key, outgoing frames of stateless extensions are shared.
+                                result.add(new SharedFramingExtension() {
+                                    @Override
+                                    public Object getSharedFramingKey(ExtensionContext context) {
+                                        if (extendedExtension instanceof SharedFramingExtension) {
+                                            return ((SharedFramingExtension) extendedExtension)
+                                                    .getSharedFramingKey(context);
+                                        }
+                                        return null;
+                                    }
+
                                     @Override
                                     public Frame processIncoming(ExtensionContext context, Frame frame) {
                                         return extendedExtension.processIncoming(context, frame);
@@ -65,4 +65,60 @@ public abstract class Writer implements Closeable {
      * @param completionHandler completion handler to know the write status.
      */
     public abstract void write(ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler);
+
+    /**
+     * Gathering variant of {@link #write(ByteBuffer, CompletionHandler)}. Remaining bytes of all passed buffers are
+     * written to the underlying connection in the given order, as if they were a single buffer.
+     * <p/>
+     * Tyrus runtime uses this method to write frame header and frame payload without copying them into a single
+     * buffer. Tyrus runtime must not use the buffers until the write is completed.
+     * <p/>
+     * Default implementation copies the buffers into a single buffer and passes it to {@link #write(ByteBuffer,
+     * CompletionHandler)}. Transports which are able to write multiple buffers at once should override it.
+     *
+     * @param buffers           bytes to write.
+     * @param completionHandler completion handler to know the write status.
+     */
+    public void write(final ByteBuffer[] buffers, final CompletionHandler<ByteBuffer[]> completionHandler) {
+        int length = 0;
+        for (ByteBuffer buffer : buffers) {
+            length += buffer.remaining();
+        }
+
+        final ByteBuffer joined = ByteBuffer.allocate(length);
+        for (ByteBuffer buffer : buffers) {
+            joined.put(buffer);
+        }
+        joined.flip();
+
+        write(joined, new CompletionHandler<ByteBuffer>() {
+            @Override
+            public void cancelled() {
+                if (completionHandler != null) {
+                    completionHandler.cancelled();
+                }
+            }
+
+            @Override
+            public void failed(Throwable throwable) {
+                if (completionHandler != null) {
+                    completionHandler.failed(throwable);
+                }
+            }
+
+            @Override
+            public void completed(ByteBuffer result) {
+                if (completionHandler != null) {
+                    completionHandler.completed(buffers);
+                }
+            }
+
+            @Override
+            public void updated(ByteBuffer result) {
+                if (completionHandler != null) {
+                    completionHandler.updated(buffers);
+                }
+            }
+        });
+    }
 }
@@ -0,0 +1,202 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.websocket.DeploymentException;
+import javax.websocket.OnOpen;
+import javax.websocket.Session;
+import javax.websocket.server.HandshakeRequest;
+import javax.websocket.server.ServerEndpoint;
+import javax.websocket.server.ServerEndpointConfig;
+
+import org.glassfish.tyrus.server.TyrusServerContainer;
+import org.glassfish.tyrus.spi.CompletionHandler;
+import org.glassfish.tyrus.spi.UpgradeRequest;
+import org.glassfish.tyrus.spi.WebSocketEngine;
+import org.glassfish.tyrus.spi.Writer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Broadcast of a text message to all sessions of an endpoint by {@link TyrusSession#broadcast(String)}.
+ * <p>
+ * Connections are created in memory, the same way as by the in-memory container, except that all of them are
+ * upgraded by a single {@link TyrusWebSocketEngine}. Their writers complete writes immediately, so the benchmark
+ * measures only the work done by Tyrus - framing the message and passing it to every connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+
+    @Param({"10", "1000"})
+    private int sessions;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    private TyrusServerContainer container;
+    private TyrusSession session;
+    private String message;
+
+    @Setup
+    public void setup() throws DeploymentException, IOException {
+        container = new TyrusServerContainer(new HashSet<Class<?>>(Collections.singleton(BroadcastEndpoint.class))) {
+
+            private final WebSocketEngine engine =
+                    TyrusWebSocketEngine.builder(this).parallelBroadcastEnabled(parallel).build();
+
+            @Override
+            public void register(Class<?> endpointClass) throws DeploymentException {
+                engine.register(endpointClass, "/");
+            }
+
+            @Override
+            public void register(ServerEndpointConfig serverEndpointConfig) throws DeploymentException {
+                engine.register(serverEndpointConfig, "/");
+            }
+
+            @Override
+            public WebSocketEngine getWebSocketEngine() {
+                return engine;
+            }
+        };
+        container.start("/", 0);
+
+        for (int i = 0; i < sessions; i++) {
+            final RequestContext request =
+                    RequestContext.Builder.create().requestURI(URI.create("/broadcast")).build();
+            request.getHeaders().put(UpgradeRequest.HOST, Collections.singletonList("localhost"));
+            request.getHeaders().put(UpgradeRequest.CONNECTION, Collections.singletonList(UpgradeRequest.UPGRADE));
+            request.getHeaders().put(UpgradeRequest.UPGRADE, Collections.singletonList(UpgradeRequest.WEBSOCKET));
+            request.getHeaders().put(HandshakeRequest.SEC_WEBSOCKET_KEY,
+                                     Collections.singletonList("MX3DK3cbUu5DHEWW6dyzJQ=="));
+            request.getHeaders().put(HandshakeRequest.SEC_WEBSOCKET_VERSION, Collections.singletonList("13"));
+
+            final WebSocketEngine.UpgradeInfo upgradeInfo =
+                    container.getWebSocketEngine().upgrade(request, new TyrusUpgradeResponse());
+            if (upgradeInfo.getStatus() != WebSocketEngine.UpgradeStatus.SUCCESS) {
+                throw new IllegalStateException("Upgrade failed: " + upgradeInfo.getStatus());
+            }
+            upgradeInfo.createConnection(new DiscardingWriter(), null);
+        }
+
+        session = BroadcastEndpoint.session;
+        if (session.getOpenSessions().size() != sessions) {
+            throw new IllegalStateException("Expected " + sessions + " open sessions.");
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 128; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        message = sb.toString();
+    }
+
+    @TearDown
+    public void tearDown() {
+        container.stop();
+    }
+
+    @Benchmark
+    public int broadcast() throws InterruptedException, ExecutionException {
+        final Map<Session, Future<?>> futures = session.broadcast(message);
+        for (Future<?> future : futures.values()) {
+            future.get();
+        }
+        return futures.size();
+    }
+
+    @ServerEndpoint("/broadcast")
+    public static class BroadcastEndpoint {
+
+        private static volatile TyrusSession session;
+
+        @OnOpen
+        public void onOpen(Session session) {
+            BroadcastEndpoint.session = (TyrusSession) session;
+        }
+    }
+
+    private static class DiscardingWriter extends Writer {
+
+        @Override
+        public void write(ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler) {
+            buffer.position(buffer.limit());
+            completionHandler.completed(buffer);
+        }
+
+        @Override
+        public void write(ByteBuffer[] buffers, CompletionHandler<ByteBuffer[]> completionHandler) {
+            for (ByteBuffer buffer : buffers) {
+                buffer.position(buffer.limit());
+            }
+            completionHandler.completed(buffers);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.core;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link Masker} with the original byte-by-byte masking loop.
+ * <p>
+ * Benchmark is placed in {@code org.glassfish.tyrus.core} package, since {@link Masker} is package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MaskerBenchmark {
+
+    private static final int MASKING_KEY = 0x12345678;
+
+    @Param({"16", "1024", "1048576"})
+    private int size;
+
+    private byte[] payload;
+    private byte[] target;
+    private ByteBuffer heapBuffer;
+    private ByteBuffer directBuffer;
+
+    @Setup
+    public void setup() {
+        payload = new byte[size];
+        new Random(size).nextBytes(payload);
+        target = new byte[size];
+        heapBuffer = ByteBuffer.wrap(payload.clone());
+        directBuffer = ByteBuffer.allocateDirect(size);
+        directBuffer.put(payload).flip();
+    }
+
+    /**
+     * Original implementation - copy and XOR byte by byte with {@code mask[index++ % MASK_SIZE]}.
+     */
+    @Benchmark
+    public byte[] byteLoop() {
+        final byte[] mask = {(byte) (MASKING_KEY >> 24), (byte) (MASKING_KEY >> 16), (byte) (MASKING_KEY >> 8),
+                (byte) MASKING_KEY};
+        int index = 0;
+        for (int i = 0; i < size; i++) {
+            target[i] = (byte) (payload[i] ^ mask[index++ % ProtocolHandler.MASK_SIZE]);
+        }
+        return target;
+    }
+
+    @Benchmark
+    public byte[] maskArray() {
+        new Masker(MASKING_KEY).mask(target, 0, payload, size);
+        return target;
+    }
+
+    @Benchmark
+    public ByteBuffer maskHeapInPlace() {
+        new Masker(MASKING_KEY).mask(heapBuffer, 0, size);
+        return heapBuffer;
+    }
+
+    @Benchmark
+    public ByteBuffer maskDirectInPlace() {
+        new Masker(MASKING_KEY).mask(directBuffer, 0, size);
+        return directBuffer;
+    }
+}
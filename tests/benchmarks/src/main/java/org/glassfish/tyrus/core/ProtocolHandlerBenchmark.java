@@ -0,0 +1,115 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.tyrus.core.frame.Frame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization and parsing of a single binary frame by {@link ProtocolHandler}.
+ * <p>
+ * Masked frames are the ones sent by a client, so they are framed by a client side handler and unframed by a server
+ * side one. Unmasked frames go the other way.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolHandlerBenchmark {
+
+    @Param({"16", "1024", "65536"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean masked;
+
+    private ProtocolHandler sender;
+    private ProtocolHandler receiver;
+    private Frame frame;
+    private ByteBuffer serialized;
+
+    @Setup
+    public void setup() {
+        final byte[] payload = new byte[size];
+        new Random(size).nextBytes(payload);
+
+        sender = new ProtocolHandler(masked, new MaskingKeyGenerator() {
+            @Override
+            public int nextInt() {
+                return 0x12345678;
+            }
+        });
+        receiver = new ProtocolHandler(!masked, null);
+        frame = Frame.builder().fin(true).opcode((byte) 0x02).payloadData(payload).build();
+        serialized = sender.frame(frame);
+    }
+
+    @Benchmark
+    public ByteBuffer frame() {
+        return sender.frame(frame);
+    }
+
+    /**
+     * Unmasking is done in place, so the payload of {@link #serialized} alternates between masked and unmasked
+     * content; the amount of work is the same in both cases.
+     */
+    @Benchmark
+    public Frame unframe() {
+        serialized.rewind();
+        return receiver.unframe(serialized);
+    }
+}
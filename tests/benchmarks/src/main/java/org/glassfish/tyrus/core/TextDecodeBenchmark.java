@@ -0,0 +1,129 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.tyrus.core.frame.Frame;
+import org.glassfish.tyrus.core.frame.TextFrame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * UTF-8 decoding of text frame payloads.
+ * <p>
+ * {@link #strictUtf8()} is the decoding previously used by {@link TextFrame} - a new {@link StrictUtf8} decoder and
+ * {@link CharBuffer} for every frame. {@link #utf8Codec()} decodes with a reused {@link Utf8Codec} and {@link
+ * #textFrame()} includes creation of the {@link TextFrame} as done by {@link ProtocolHandler}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextDecodeBenchmark {
+
+    @Param({"64", "4096", "65536"})
+    private int size;
+
+    /**
+     * {@code ascii} - ASCII characters only, {@code mixed} - every tenth character takes three bytes.
+     */
+    @Param({"ascii", "mixed"})
+    private String text;
+
+    private ByteBuffer payload;
+    private Frame frame;
+    private Utf8Codec codec;
+
+    @Setup
+    public void setup() {
+        final StringBuilder sb = new StringBuilder();
+        int length = 0;
+        for (int i = 0; length < size; i++) {
+            if ("mixed".equals(text) && i % 10 == 0 && length + 3 <= size) {
+                sb.append('\u20ac');
+                length += 3;
+            } else {
+                sb.append((char) ('a' + i % 26));
+                length++;
+            }
+        }
+
+        payload = ByteBuffer.wrap(Utf8Codec.encode(sb.toString()));
+        frame = Frame.builder().fin(true).opcode((byte) 0x01).payloadData(payload.array()).build();
+        codec = new Utf8Codec();
+    }
+
+    @Benchmark
+    public String strictUtf8() throws CharacterCodingException {
+        final CharsetDecoder decoder = new StrictUtf8().newDecoder();
+        final CharBuffer chars = CharBuffer.allocate(payload.remaining());
+        decoder.decode(payload.duplicate(), chars, true);
+        decoder.flush(chars);
+        chars.flip();
+        return chars.toString();
+    }
+
+    @Benchmark
+    public String utf8Codec() {
+        return codec.decode(payload.duplicate(), null, true);
+    }
+
+    @Benchmark
+    public String textFrame() {
+        return new TextFrame(frame, null, false, codec).getTextPayload();
+    }
+}
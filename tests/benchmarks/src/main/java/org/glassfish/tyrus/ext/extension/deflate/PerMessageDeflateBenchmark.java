@@ -0,0 +1,138 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.ext.extension.deflate;
+
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.websocket.Extension;
+
+import org.glassfish.tyrus.core.extension.ExtendedExtension;
+import org.glassfish.tyrus.core.frame.Frame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compression and decompression of a text message by {@link PerMessageDeflateExtension}.
+ * <p>
+ * The compressed frame used by {@link #processIncoming()} is created by a fresh compressor, so it does not refer to
+ * previous messages and can be decompressed repeatedly by the same context.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerMessageDeflateBenchmark {
+
+    @Param({"128", "8192", "65536"})
+    private int size;
+
+    private final PerMessageDeflateExtension extension = new PerMessageDeflateExtension();
+    private ExtendedExtension.ExtensionContext outgoingContext;
+    private ExtendedExtension.ExtensionContext incomingContext;
+    private Frame frame;
+    private Frame compressedFrame;
+
+    @Setup
+    public void setup() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < size; i++) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"item").append(i % 7).append("\"}");
+        }
+        sb.setLength(size);
+
+        final byte[] payload = sb.toString().getBytes(Charset.forName("UTF-8"));
+        frame = Frame.builder().fin(true).opcode((byte) 0x01).payloadData(payload).build();
+
+        final ExtendedExtension.ExtensionContext context = createContext();
+        compressedFrame = extension.processOutgoing(context, frame);
+        extension.destroy(context);
+
+        outgoingContext = createContext();
+        incomingContext = createContext();
+    }
+
+    @TearDown
+    public void tearDown() {
+        extension.destroy(outgoingContext);
+        extension.destroy(incomingContext);
+    }
+
+    @Benchmark
+    public Frame processOutgoing() {
+        return extension.processOutgoing(outgoingContext, frame);
+    }
+
+    @Benchmark
+    public Frame processIncoming() {
+        return extension.processIncoming(incomingContext, compressedFrame);
+    }
+
+    private ExtendedExtension.ExtensionContext createContext() {
+        final ExtendedExtension.ExtensionContext context = new ExtendedExtension.ExtensionContext() {
+
+            private final Map<String, Object> properties = new HashMap<String, Object>();
+
+            @Override
+            public Map<String, Object> getProperties() {
+                return properties;
+            }
+        };
+
+        extension.onExtensionNegotiation(context, Collections.<Extension.Parameter>emptyList());
+        return context;
+    }
+}
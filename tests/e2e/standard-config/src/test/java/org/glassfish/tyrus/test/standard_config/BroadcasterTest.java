@@ -41,12 +41,15 @@
 package org.glassfish.tyrus.test.standard_config;
 
 import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import javax.websocket.ClientEndpointConfig;
 import javax.websocket.DeploymentException;
 import javax.websocket.EncodeException;
+import javax.websocket.Endpoint;
 import javax.websocket.EndpointConfig;
 import javax.websocket.MessageHandler;
 import javax.websocket.OnMessage;
@@ -60,6 +63,8 @@ import org.glassfish.tyrus.server.Server;
 import org.glassfish.tyrus.test.tools.TestContainer;
 
 import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -148,6 +153,66 @@ public class BroadcasterTest extends TestContainer {
         }
     }
 
+    @Test
+    public void testGroupBroadcaster() throws DeploymentException {
+        Server server = startServer(GroupBroadcasterTestEndpoint.class);
+
+        try {
+            final GroupClient member1 = new GroupClient();
+            final GroupClient member2 = new GroupClient();
+            final GroupClient other = new GroupClient();
+
+            final ClientManager client = createClient();
+            client.connectToServer(member1, cec, getURI(GroupBroadcasterTestEndpoint.class));
+            client.connectToServer(member2, cec, getURI(GroupBroadcasterTestEndpoint.class));
+            client.connectToServer(other, cec, getURI(GroupBroadcasterTestEndpoint.class));
+
+            member1.join("a");
+            member2.join("a");
+            other.join("b");
+
+            member1.session.getBasicRemote().sendText("a:" + SENT_MESSAGE);
+
+            assertEquals(SENT_MESSAGE, member1.messages.poll(5, TimeUnit.SECONDS));
+            assertEquals(SENT_MESSAGE, member2.messages.poll(5, TimeUnit.SECONDS));
+
+            assertNull(other.messages.poll(100, TimeUnit.MILLISECONDS));
+
+            // leaving the group stops the delivery.
+            member2.session.getBasicRemote().sendText("leave:a");
+            assertEquals("left", member2.messages.poll(5, TimeUnit.SECONDS));
+            member1.session.getBasicRemote().sendText("a:" + SENT_MESSAGE);
+            assertEquals(SENT_MESSAGE, member1.messages.poll(5, TimeUnit.SECONDS));
+            assertNull(member2.messages.poll(100, TimeUnit.MILLISECONDS));
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException(e.getMessage(), e);
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    private static class GroupClient extends Endpoint {
+        private final BlockingQueue<String> messages = new LinkedBlockingQueue<String>();
+        private volatile Session session;
+
+        @Override
+        public void onOpen(Session session, EndpointConfig config) {
+            this.session = session;
+            session.addMessageHandler(new MessageHandler.Whole<String>() {
+                @Override
+                public void onMessage(String message) {
+                    messages.add(message);
+                }
+            });
+        }
+
+        void join(String group) throws Exception {
+            session.getBasicRemote().sendText("join:" + group);
+            assertEquals("joined", messages.poll(5, TimeUnit.SECONDS));
+        }
+    }
+
     private static class TEndpointAdapter extends TestEndpointAdapter {
         private final CountDownLatch messageLatch;
         public RemoteEndpoint.Basic peer;
@@ -203,4 +268,27 @@ public class BroadcasterTest extends TestContainer {
             ((TyrusSession) session).broadcast(message);
         }
     }
+
+    @ServerEndpoint(value = "/tyrus-group-broadcast")
+    public static class GroupBroadcasterTestEndpoint {
+
+        @OnMessage
+        public String message(String message, Session session) throws IOException, EncodeException {
+            final TyrusSession tyrusSession = (TyrusSession) session;
+            final int separator = message.indexOf(':');
+            final String command = message.substring(0, separator);
+            final String argument = message.substring(separator + 1);
+
+            if (command.equals("join")) {
+                tyrusSession.joinGroup(argument);
+                return "joined";
+            } else if (command.equals("leave")) {
+                tyrusSession.leaveGroup(argument);
+                return "left";
+            }
+
+            tyrusSession.broadcast(command, argument);
+            return null;
+        }
+    }
 }
@@ -0,0 +1,245 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.test.standard_config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.CloseReason;
+import javax.websocket.DeploymentException;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.OnClose;
+import javax.websocket.OnMessage;
+import javax.websocket.Session;
+import javax.websocket.server.ServerEndpoint;
+
+import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.client.ClientProperties;
+import org.glassfish.tyrus.core.ExecutorServiceFactory;
+import org.glassfish.tyrus.server.Server;
+import org.glassfish.tyrus.test.tools.TestContainer;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that message handlers and {@code onClose} are invoked in order on the threads of the executor service created
+ * by a configured {@link ExecutorServiceFactory}.
+ */
+public class ExecutorServiceFactoryTest extends TestContainer {
+
+    private static final int MESSAGE_COUNT = 100;
+    private static final String SERVER_THREAD_PREFIX = "server-handler-";
+    private static final String CLIENT_THREAD_PREFIX = "client-handler-";
+
+    private static final List<String> serverMessages = Collections.synchronizedList(new ArrayList<String>());
+    private static final List<String> serverThreads = Collections.synchronizedList(new ArrayList<String>());
+    private static volatile CountDownLatch serverCloseLatch;
+    private static volatile int messagesBeforeClose;
+    private static volatile CountDownLatch readerLatch;
+    private static volatile boolean readerFailed;
+
+    @ServerEndpoint("/executorServiceFactoryTest")
+    public static class EchoEndpoint {
+
+        @OnMessage
+        public void onMessage(String message, Session session) throws IOException {
+            serverMessages.add(message);
+            serverThreads.add(Thread.currentThread().getName());
+            // blocking send from the handler.
+            session.getBasicRemote().sendText(message);
+        }
+
+        @OnClose
+        public void onClose() {
+            serverThreads.add(Thread.currentThread().getName());
+            messagesBeforeClose = serverMessages.size();
+            serverCloseLatch.countDown();
+        }
+    }
+
+    @ServerEndpoint("/executorServiceFactoryReaderTest")
+    public static class ReaderEndpoint {
+
+        @OnMessage
+        public void onMessage(Reader reader) {
+            readerLatch.countDown();
+            try {
+                while (reader.read() != -1) {
+                    // consume the message.
+                }
+            } catch (IOException e) {
+                readerFailed = true;
+            }
+        }
+
+        @OnClose
+        public void onClose() {
+            serverCloseLatch.countDown();
+        }
+    }
+
+    @Test
+    public void testHandlersInvokedByExecutorService() throws DeploymentException, IOException, InterruptedException {
+        serverMessages.clear();
+        serverThreads.clear();
+        serverCloseLatch = new CountDownLatch(1);
+
+        getServerProperties().put(ExecutorServiceFactory.EXECUTOR_SERVICE_FACTORY,
+                                  new NamedThreadExecutorServiceFactory(SERVER_THREAD_PREFIX));
+        final Server server = startServer(EchoEndpoint.class);
+
+        try {
+            final List<String> clientMessages = Collections.synchronizedList(new ArrayList<String>());
+            final List<String> clientThreads = Collections.synchronizedList(new ArrayList<String>());
+            final CountDownLatch messageLatch = new CountDownLatch(MESSAGE_COUNT);
+
+            final ClientManager client = createClient();
+            client.getProperties().put(ClientProperties.EXECUTOR_SERVICE_FACTORY,
+                                       new NamedThreadExecutorServiceFactory(CLIENT_THREAD_PREFIX));
+
+            final Session session = client.connectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                    session.addMessageHandler(new MessageHandler.Whole<String>() {
+                        @Override
+                        public void onMessage(String message) {
+                            clientMessages.add(message);
+                            clientThreads.add(Thread.currentThread().getName());
+                            messageLatch.countDown();
+                        }
+                    });
+                }
+            }, ClientEndpointConfig.Builder.create().build(), getURI(EchoEndpoint.class));
+
+            final List<String> expected = new ArrayList<String>();
+            for (int i = 0; i < MESSAGE_COUNT; i++) {
+                expected.add(Integer.toString(i));
+                session.getBasicRemote().sendText(Integer.toString(i));
+            }
+
+            assertTrue(messageLatch.await(5, TimeUnit.SECONDS));
+            session.close(new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, null));
+            assertTrue(serverCloseLatch.await(5, TimeUnit.SECONDS));
+
+            assertEquals(expected, clientMessages);
+            assertThreads(CLIENT_THREAD_PREFIX, clientThreads);
+
+            // onClose has been invoked after all the received messages were handled.
+            assertEquals(expected, serverMessages);
+            assertEquals(MESSAGE_COUNT, messagesBeforeClose);
+            assertThreads(SERVER_THREAD_PREFIX, serverThreads);
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    @Test
+    public void testCloseDuringStreamedMessage() throws DeploymentException, IOException, InterruptedException {
+        serverCloseLatch = new CountDownLatch(1);
+        readerLatch = new CountDownLatch(1);
+        readerFailed = false;
+
+        getServerProperties().put(ExecutorServiceFactory.EXECUTOR_SERVICE_FACTORY,
+                                  new NamedThreadExecutorServiceFactory(SERVER_THREAD_PREFIX));
+        final Server server = startServer(ReaderEndpoint.class);
+
+        try {
+            final Session session = createClient().connectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                }
+            }, ClientEndpointConfig.Builder.create().build(), getURI(ReaderEndpoint.class));
+
+            session.getBasicRemote().sendText("part", false);
+            assertTrue(readerLatch.await(5, TimeUnit.SECONDS));
+
+            // the reader waits for the rest of the message on the handler executor, onClose is queued behind it.
+            session.close();
+            assertTrue(serverCloseLatch.await(5, TimeUnit.SECONDS));
+            assertTrue(readerFailed);
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    private static void assertThreads(String prefix, List<String> threads) {
+        synchronized (threads) {
+            for (String thread : threads) {
+                assertTrue(thread, thread.startsWith(prefix));
+            }
+        }
+    }
+
+    private static class NamedThreadExecutorServiceFactory extends ExecutorServiceFactory {
+
+        private final String prefix;
+
+        NamedThreadExecutorServiceFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public ExecutorService createExecutorService(ThreadFactory threadFactory) {
+            final AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread thread = new Thread(r, prefix + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2015 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+
+package org.glassfish.tyrus.test.standard_config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.DeploymentException;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.OnMessage;
+import javax.websocket.Session;
+import javax.websocket.server.ServerEndpoint;
+
+import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.client.ClientProperties;
+import org.glassfish.tyrus.core.TyrusWebSocketEngine;
+import org.glassfish.tyrus.server.Server;
+import org.glassfish.tyrus.test.tools.TestContainer;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests receiving frames bigger than incoming buffer with frame streaming enabled.
+ */
+public class FrameStreamingTest extends TestContainer {
+
+    private static final int INCOMING_BUFFER_SIZE = 1000;
+    private static final int MESSAGE_SIZE = 100000;
+
+    private volatile byte[] receivedMessage;
+
+    @ServerEndpoint(value = "/frameStreaming")
+    public static class StreamEchoEndpoint {
+
+        @OnMessage
+        public void onMessage(InputStream inputStream, Session session) throws IOException {
+            final byte[] message = readFully(inputStream);
+
+            // whole message is sent as a single frame.
+            final OutputStream outputStream = session.getBasicRemote().getSendStream();
+            outputStream.write(message);
+            outputStream.close();
+        }
+    }
+
+    @Test
+    public void testStreamedFrames() throws DeploymentException {
+        getServerProperties().put(TyrusWebSocketEngine.INCOMING_BUFFER_SIZE, INCOMING_BUFFER_SIZE);
+        getServerProperties().put(TyrusWebSocketEngine.FRAME_STREAMING_ENABLED, true);
+        final Server server = startServer(StreamEchoEndpoint.class);
+
+        final byte[] message = new byte[MESSAGE_SIZE];
+        for (int i = 0; i < message.length; i++) {
+            message[i] = (byte) i;
+        }
+
+        try {
+            final CountDownLatch messageLatch = new CountDownLatch(1);
+
+            final ClientManager client = createClient();
+            client.getProperties().put(ClientProperties.INCOMING_BUFFER_SIZE, INCOMING_BUFFER_SIZE);
+            client.getProperties().put(ClientProperties.FRAME_STREAMING_ENABLED, true);
+
+            client.connectToServer(new Endpoint() {
+
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                    session.addMessageHandler(new MessageHandler.Whole<InputStream>() {
+                        @Override
+                        public void onMessage(InputStream inputStream) {
+                            try {
+                                receivedMessage = readFully(inputStream);
+                                messageLatch.countDown();
+                            } catch (IOException e) {
+                                e.printStackTrace();
+                            }
+                        }
+                    });
+
+                    try {
+                        session.getBasicRemote().sendBinary(ByteBuffer.wrap(message));
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }, ClientEndpointConfig.Builder.create().build(), getURI(StreamEchoEndpoint.class));
+
+            assertTrue(messageLatch.await(5, TimeUnit.SECONDS));
+            assertArrayEquals(message, receivedMessage);
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException(e.getMessage(), e);
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            result.write(buffer, 0, read);
+        }
+
+        return result.toByteArray();
+    }
+}
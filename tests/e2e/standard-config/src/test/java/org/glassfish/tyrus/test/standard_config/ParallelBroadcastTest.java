@@ -46,6 +46,7 @@ import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -174,6 +175,54 @@ public class ParallelBroadcastTest extends TestContainer {
         testTyrusBinaryBroadcast();
     }
 
+    /**
+     * Test Tyrus text broadcast without per-session results.
+     */
+    @Test
+    public void testTyrusParallelAsyncBroadcast() {
+        getServerProperties().put(TyrusWebSocketEngine.PARALLEL_BROADCAST_ENABLED, true);
+        TyrusAsyncBroadcastServerEndpoint.SENT.set(-1);
+
+        Server server = null;
+        AtomicInteger messageCounter = new AtomicInteger(0);
+        CountDownLatch messageLatch = new CountDownLatch(SESSIONS_COUNT);
+        try {
+            server = startServer(TyrusAsyncBroadcastServerEndpoint.class);
+            ClientManager client = createClient();
+            client.getProperties().put(ClientProperties.SHARED_CONTAINER, true);
+            client.getProperties()
+                  .put(ClientProperties.WORKER_THREAD_POOL_CONFIG, ThreadPoolConfig.defaultConfig().setMaxPoolSize(20));
+
+            for (int i = 0; i < SESSIONS_COUNT - 1; i++) {
+                client.connectToServer(new TextClientEndpoint(messageLatch, messageCounter),
+                                       getURI(TyrusAsyncBroadcastServerEndpoint.class));
+            }
+
+            Session session = client.connectToServer(new TextClientEndpoint(messageLatch, messageCounter),
+                                                     getURI(TyrusAsyncBroadcastServerEndpoint.class));
+            session.getBasicRemote().sendText("Broadcast request");
+
+            assertTrue(messageLatch.await(30, TimeUnit.SECONDS));
+
+            // the server endpoint is not deployed in this JVM when testing on a remote host.
+            if (System.getProperty("tyrus.test.host") == null) {
+                synchronized (TyrusAsyncBroadcastServerEndpoint.SENT) {
+                    if (TyrusAsyncBroadcastServerEndpoint.SENT.get() < 0) {
+                        TyrusAsyncBroadcastServerEndpoint.SENT.wait(5000);
+                    }
+                }
+                assertEquals(SESSIONS_COUNT, TyrusAsyncBroadcastServerEndpoint.SENT.get());
+            }
+
+            assertEquals(SESSIONS_COUNT, messageCounter.get());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail();
+        } finally {
+            stopServer(server);
+        }
+    }
+
     private void testTyrusTextBroadcast() {
         Server server = null;
         AtomicInteger messageCounter = new AtomicInteger(0);
@@ -322,6 +371,22 @@ public class ParallelBroadcastTest extends TestContainer {
         }
     }
 
+    @ServerEndpoint("/parallelTyrusAsyncBroadcastEndpoint")
+    public static class TyrusAsyncBroadcastServerEndpoint {
+
+        static final AtomicInteger SENT = new AtomicInteger(-1);
+
+        @OnMessage
+        public void onMessage(Session session, String message) throws Exception {
+            final Future<Integer> future = ((TyrusSession) session).broadcastAsync("Hi from server", -1);
+
+            synchronized (SENT) {
+                SENT.set(future.get(10, TimeUnit.SECONDS));
+                SENT.notifyAll();
+            }
+        }
+    }
+
     @ServerEndpoint("/parallelTyrusBinaryBroadcastEndpoint")
     public static class TyrusBinaryBroadcastServerEndpoint {
 